@@ -2,4 +2,7 @@ rootProject.name = "Splunk Android RUM"
 
 include(":splunk-otel-android")
 include(":splunk-otel-android-volley")
+include(":splunk-otel-android-ndk")
+include(":splunk-otel-android-recyclerview")
+include(":splunk-otel-android-compose")
 include(":sample-app")
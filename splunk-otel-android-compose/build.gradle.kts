@@ -0,0 +1,57 @@
+plugins {
+    id("com.android.library")
+    id("splunk.android-library-conventions")
+}
+
+android {
+    compileSdk = 31
+    buildToolsVersion = "30.0.3"
+
+    defaultConfig {
+        minSdk = 21
+        targetSdk = 31
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        consumerProguardFiles("consumer-rules.pro")
+    }
+
+    buildTypes {
+        release {
+            isMinifyEnabled = false
+            proguardFiles(getDefaultProguardFile("proguard-android-optimize.txt"), "proguard-rules.pro")
+        }
+    }
+
+    compileOptions {
+        isCoreLibraryDesugaringEnabled = true
+
+        sourceCompatibility(JavaVersion.VERSION_1_8)
+        targetCompatibility(JavaVersion.VERSION_1_8)
+    }
+
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+dependencies {
+    implementation("androidx.annotation:annotation:1.3.0")
+    compileOnly("androidx.navigation:navigation-runtime:2.4.1")
+    compileOnly("androidx.compose.runtime:runtime:1.3.0")
+
+    implementation(project(":splunk-otel-android"))
+
+    api(platform("io.opentelemetry:opentelemetry-bom:1.12.0"))
+    api("io.opentelemetry:opentelemetry-api")
+
+    testImplementation("junit:junit:4.13.2")
+    testImplementation("org.mockito:mockito-core:4.4.0")
+    testImplementation("io.opentelemetry:opentelemetry-sdk-testing")
+    testImplementation("androidx.navigation:navigation-runtime:2.4.1")
+    testImplementation("androidx.compose.runtime:runtime:1.3.0")
+
+    coreLibraryDesugaring("com.android.tools:desugar_jdk_libs:1.1.5")
+}
+
+extra["pomName"] = "Splunk Otel Android Compose"
+description = "A library for instrumenting Jetpack Compose navigation and recomposition for Splunk RUM"
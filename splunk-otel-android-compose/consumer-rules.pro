@@ -0,0 +1,2 @@
+# keep everything in the opentelemetry packages
+-keep class io.opentelemetry.** { *; }
\ No newline at end of file
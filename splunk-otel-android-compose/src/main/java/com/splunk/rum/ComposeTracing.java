@@ -0,0 +1,100 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import androidx.compose.runtime.Composer;
+import androidx.navigation.NavController;
+
+/**
+ * Entrypoint for instrumenting single-activity Jetpack Compose apps.
+ * <p>
+ * Destination changes of an instrumented {@link NavController} are treated as screen transitions:
+ * the route (or label) of the destination becomes the {@code screen.name} of all subsequent spans,
+ * and a {@code Navigated} span is created for every transition.
+ * <p>
+ * Recompositions can optionally be counted and timed per composable function, either automatically
+ * with {@link #trackRecompositions()}, or by calling {@link #recomposed(String)} or
+ * {@link #recomposed(String, long)} from a {@code SideEffect}. They are summarized into a single
+ * {@code Recompositions} span for each visit of a screen (reported when the screen changes or the
+ * app goes to the background), rather than one span per recomposition.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public final class ComposeTracing {
+
+    /**
+     * Returns a new {@link ComposeTracing} configured with the given {@link SplunkRum}.
+     */
+    public static ComposeTracing create(SplunkRum splunkRum) {
+        VisibleScreenTracker visibleScreenTracker = splunkRum.getVisibleScreenTracker();
+        RecompositionTracker recompositionTracker = new RecompositionTracker(splunkRum.getTracer(), visibleScreenTracker);
+        splunkRum.addAppStateListener(recompositionTracker);
+        return new ComposeTracing(new NavigationDestinationTracker(splunkRum.getTracer(), visibleScreenTracker, recompositionTracker), recompositionTracker);
+    }
+
+    private final NavigationDestinationTracker navigationDestinationTracker;
+    private final RecompositionTracker recompositionTracker;
+
+    ComposeTracing(NavigationDestinationTracker navigationDestinationTracker, RecompositionTracker recompositionTracker) {
+        this.navigationDestinationTracker = navigationDestinationTracker;
+        this.recompositionTracker = recompositionTracker;
+    }
+
+    /**
+     * Tracks the destination changes of the given {@link NavController} (usually the one returned
+     * by {@code rememberNavController()}) as screen transitions.
+     */
+    public void instrument(NavController navController) {
+        navController.addOnDestinationChangedListener(navigationDestinationTracker);
+    }
+
+    /**
+     * Automatically counts and times the compositions of every composable function, without any
+     * change to the composables themselves. This relies on the composition tracing hooks of the
+     * Compose runtime: the functions must be built with the Compose compiler 1.3.0 or newer, and the
+     * app must use the Compose runtime 1.3.0 or newer.
+     * <p>
+     * The time of a function includes the time of the composables it calls, and its first
+     * composition is counted along with the recompositions. Only one composition tracer can be
+     * installed at a time, so this replaces any other (e.g. the one of
+     * {@code androidx.compose.runtime:runtime-tracing}).
+     */
+    public void trackRecompositions() {
+        Composer.Companion.setTracer(new RecompositionTimer(recompositionTracker));
+    }
+
+    /**
+     * Counts a recomposition of the given composable scope. The recomposition isn't timed; use
+     * {@link #trackRecompositions()} to count and time recompositions automatically.
+     *
+     * @param scope The name of the composable scope, e.g. the name of the composable function.
+     */
+    public void recomposed(String scope) {
+        recompositionTracker.recomposed(scope, -1);
+    }
+
+    /**
+     * Counts a recomposition of the given composable scope, and adds the time it took (as measured
+     * by the caller) to the total recomposition time of the scope.
+     *
+     * @param scope         The name of the composable scope, e.g. the name of the composable function.
+     * @param durationNanos The time the recomposition took, in nanoseconds.
+     */
+    public void recomposed(String scope, long durationNanos) {
+        recompositionTracker.recomposed(scope, durationNanos);
+    }
+}
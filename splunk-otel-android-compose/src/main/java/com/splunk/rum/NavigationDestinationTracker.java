@@ -0,0 +1,82 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.navigation.NavController;
+import androidx.navigation.NavDestination;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Turns {@link NavController} destination changes into screen transitions: the destination becomes
+ * the visible screen, and a {@code Navigated} span is created for it. Only used from the main thread.
+ */
+class NavigationDestinationTracker implements NavController.OnDestinationChangedListener {
+    static final String SPAN_NAME = "Navigated";
+
+    private final Tracer tracer;
+    private final VisibleScreenTracker visibleScreenTracker;
+    private final RecompositionTracker recompositionTracker;
+    private String currentScreen;
+
+    NavigationDestinationTracker(Tracer tracer, VisibleScreenTracker visibleScreenTracker, RecompositionTracker recompositionTracker) {
+        this.tracer = tracer;
+        this.visibleScreenTracker = visibleScreenTracker;
+        this.recompositionTracker = recompositionTracker;
+    }
+
+    @Override
+    public void onDestinationChanged(@NonNull NavController controller, @NonNull NavDestination destination, @Nullable Bundle arguments) {
+        String screenName = getScreenName(destination);
+        //only the arguments have changed, which doesn't make it a different screen.
+        if (screenName.equals(currentScreen)) {
+            return;
+        }
+        currentScreen = screenName;
+        //the recompositions of the previous screen are summarized before it stops being visible.
+        recompositionTracker.flush();
+        visibleScreenTracker.navigationDestinationChanged(screenName);
+
+        Span span = tracer.spanBuilder(SPAN_NAME)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_UI)
+                .startSpan();
+        String previousScreen = visibleScreenTracker.getPreviouslyVisibleScreen();
+        if (previousScreen != null) {
+            span.setAttribute(SplunkRum.LAST_SCREEN_NAME_KEY, previousScreen);
+        }
+        span.end();
+    }
+
+    //visible for testing
+    static String getScreenName(NavDestination destination) {
+        //compose destinations are identified by their route, fragment and activity ones by their label.
+        String route = destination.getRoute();
+        if (route != null) {
+            return route;
+        }
+        CharSequence label = destination.getLabel();
+        if (label != null) {
+            return label.toString();
+        }
+        return destination.getDisplayName();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import androidx.compose.runtime.CompositionTracer;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Counts and times the (re)compositions of every composable function, using the composition
+ * tracing hooks that the Compose compiler (1.3.0 and newer) emits around each function body. The
+ * time of a function includes the time of the composables it calls. Only used from the main thread.
+ */
+class RecompositionTimer implements CompositionTracer {
+    //composables nested deeper than this aren't counted, but their starts and ends still pair up.
+    static final int MAX_DEPTH = 64;
+
+    private final RecompositionTracker recompositionTracker;
+    private final LongSupplier nanoTime;
+
+    private final String[] scopes = new String[MAX_DEPTH];
+    private final long[] startNanos = new long[MAX_DEPTH];
+    private int depth;
+
+    RecompositionTimer(RecompositionTracker recompositionTracker) {
+        this(recompositionTracker, System::nanoTime);
+    }
+
+    // exists for testing
+    RecompositionTimer(RecompositionTracker recompositionTracker, LongSupplier nanoTime) {
+        this.recompositionTracker = recompositionTracker;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public boolean isTraceInProgress() {
+        return true;
+    }
+
+    @Override
+    public void traceEventStart(int key, int dirty1, int dirty2, String info) {
+        //info is a constant generated by the compiler, e.g. "com.example.Feed (Feed.kt:42)".
+        if (depth < MAX_DEPTH) {
+            scopes[depth] = info;
+            startNanos[depth] = nanoTime.getAsLong();
+        }
+        depth++;
+    }
+
+    @Override
+    public void traceEventEnd() {
+        //the tracer was installed in the middle of a composition.
+        if (depth == 0) {
+            return;
+        }
+        depth--;
+        if (depth < MAX_DEPTH) {
+            String scope = scopes[depth];
+            scopes[depth] = null;
+            recompositionTracker.recomposed(scope, nanoTime.getAsLong() - startNanos[depth]);
+        }
+    }
+}
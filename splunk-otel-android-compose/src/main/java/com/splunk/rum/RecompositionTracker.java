@@ -0,0 +1,155 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static io.opentelemetry.api.common.AttributeKey.longArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static io.opentelemetry.api.common.AttributeKey.stringArrayKey;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Counts (and optionally times) the recompositions of each composable scope, and summarizes them
+ * into a single {@code Recompositions} span per screen visit, when the visible screen changes or
+ * the app goes to the background. Only used from the main thread.
+ */
+class RecompositionTracker implements AppStateListener {
+    static final String SPAN_NAME = "Recompositions";
+    static final AttributeKey<List<String>> SCOPES_KEY = stringArrayKey("compose.scopes");
+    static final AttributeKey<List<Long>> COUNTS_KEY = longArrayKey("compose.recompositions");
+    static final AttributeKey<List<Long>> TIMES_KEY = longArrayKey("compose.recomposition.time");
+    static final AttributeKey<Long> DROPPED_KEY = longKey("compose.recompositions.dropped");
+
+    //keeps the summary (and the cost of looking up a scope) small.
+    static final int MAX_SCOPES = 32;
+
+    private final Tracer tracer;
+    private final VisibleScreenTracker visibleScreenTracker;
+    private final Clock clock;
+
+    private final String[] scopes = new String[MAX_SCOPES];
+    private final long[] counts = new long[MAX_SCOPES];
+    private final long[] timesNanos = new long[MAX_SCOPES];
+    private int scopeCount;
+    private long droppedRecompositions;
+    private String screenName;
+    private long screenStartMillis;
+
+    RecompositionTracker(Tracer tracer, VisibleScreenTracker visibleScreenTracker) {
+        this(tracer, visibleScreenTracker, Clock.systemDefaultZone());
+    }
+
+    // exists for testing
+    RecompositionTracker(Tracer tracer, VisibleScreenTracker visibleScreenTracker, Clock clock) {
+        this.tracer = tracer;
+        this.visibleScreenTracker = visibleScreenTracker;
+        this.clock = clock;
+    }
+
+    /**
+     * Records a recomposition of the given scope. A negative duration means it wasn't timed.
+     */
+    void recomposed(String scope, long durationNanos) {
+        String visibleScreen = visibleScreenTracker.getCurrentlyVisibleScreen();
+        if (!visibleScreen.equals(screenName)) {
+            flush();
+            screenName = visibleScreen;
+            screenStartMillis = clock.millis();
+        }
+        int index = indexOf(scope);
+        if (index < 0) {
+            if (scopeCount == MAX_SCOPES) {
+                droppedRecompositions++;
+                return;
+            }
+            index = scopeCount++;
+            scopes[index] = scope;
+        }
+        counts[index]++;
+        if (durationNanos > 0) {
+            timesNanos[index] += durationNanos;
+        }
+    }
+
+    private int indexOf(String scope) {
+        for (int i = 0; i < scopeCount; i++) {
+            //scope names are usually literals, so the identity check almost always hits.
+            if (scopes[i] == scope || scopes[i].equals(scope)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void appForegrounded() {
+    }
+
+    @Override
+    public void appBackgrounded() {
+        //the app may never come back, so the summary of the last screen is reported now.
+        flush();
+    }
+
+    /**
+     * Reports the summary of the current screen visit, if there were any recompositions, and starts
+     * a new one.
+     */
+    void flush() {
+        if (scopeCount > 0) {
+            reportSummary();
+        }
+        Arrays.fill(scopes, 0, scopeCount, null);
+        Arrays.fill(counts, 0, scopeCount, 0);
+        Arrays.fill(timesNanos, 0, scopeCount, 0);
+        scopeCount = 0;
+        droppedRecompositions = 0;
+        screenName = null;
+    }
+
+    private void reportSummary() {
+        List<String> scopeNames = new ArrayList<>(scopeCount);
+        List<Long> recompositions = new ArrayList<>(scopeCount);
+        List<Long> timesMicros = new ArrayList<>(scopeCount);
+        for (int i = 0; i < scopeCount; i++) {
+            scopeNames.add(scopes[i]);
+            recompositions.add(counts[i]);
+            timesMicros.add(TimeUnit.NANOSECONDS.toMicros(timesNanos[i]));
+        }
+        Span span = tracer.spanBuilder(SPAN_NAME)
+                .setStartTimestamp(screenStartMillis, TimeUnit.MILLISECONDS)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_UI)
+                .setAttribute(SCOPES_KEY, scopeNames)
+                .setAttribute(COUNTS_KEY, recompositions)
+                .setAttribute(TIMES_KEY, timesMicros)
+                .startSpan();
+        //the summary belongs to the screen the recompositions happened on, not the one now visible.
+        span.setAttribute(SplunkRum.SCREEN_NAME_KEY, screenName);
+        if (droppedRecompositions > 0) {
+            span.setAttribute(DROPPED_KEY, droppedRecompositions);
+        }
+        span.end(clock.millis(), TimeUnit.MILLISECONDS);
+    }
+}
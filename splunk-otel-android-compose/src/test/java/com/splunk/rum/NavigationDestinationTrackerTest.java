@@ -0,0 +1,88 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import androidx.navigation.NavController;
+import androidx.navigation.NavDestination;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class NavigationDestinationTrackerTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final NavController navController = mock(NavController.class);
+    private final VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker(mock(ScreenCpuTracker.class));
+    private NavigationDestinationTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new NavigationDestinationTracker(otelTesting.getOpenTelemetry().getTracer("testTracer"), visibleScreenTracker,
+                new RecompositionTracker(otelTesting.getOpenTelemetry().getTracer("testTracer"), visibleScreenTracker));
+    }
+
+    @Test
+    public void destinationChangesAreScreenTransitions() {
+        tracker.onDestinationChanged(navController, destination("home", null), null);
+        assertEquals("home", visibleScreenTracker.getCurrentlyVisibleScreen());
+        tracker.onDestinationChanged(navController, destination("profile/{id}", null), null);
+        assertEquals("profile/{id}", visibleScreenTracker.getCurrentlyVisibleScreen());
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(2, spans.size());
+        assertEquals(NavigationDestinationTracker.SPAN_NAME, spans.get(0).getName());
+        assertEquals(SplunkRum.COMPONENT_UI, spans.get(0).getAttributes().get(SplunkRum.COMPONENT_KEY));
+        assertEquals("unknown", spans.get(0).getAttributes().get(SplunkRum.LAST_SCREEN_NAME_KEY));
+        assertEquals("home", spans.get(1).getAttributes().get(SplunkRum.LAST_SCREEN_NAME_KEY));
+    }
+
+    @Test
+    public void argumentChangesAreIgnored() {
+        tracker.onDestinationChanged(navController, destination("profile/{id}", null), null);
+        tracker.onDestinationChanged(navController, destination("profile/{id}", null), null);
+
+        assertEquals(1, otelTesting.getSpans().size());
+    }
+
+    @Test
+    public void screenName() {
+        assertEquals("home", NavigationDestinationTracker.getScreenName(destination("home", "Home")));
+        assertEquals("Home", NavigationDestinationTracker.getScreenName(destination(null, "Home")));
+
+        NavDestination unlabeled = destination(null, null);
+        when(unlabeled.getDisplayName()).thenReturn("com.example:id/home");
+        assertEquals("com.example:id/home", NavigationDestinationTracker.getScreenName(unlabeled));
+    }
+
+    private static NavDestination destination(String route, String label) {
+        NavDestination destination = mock(NavDestination.class);
+        when(destination.getRoute()).thenReturn(route);
+        when(destination.getLabel()).thenReturn(label);
+        return destination;
+    }
+}
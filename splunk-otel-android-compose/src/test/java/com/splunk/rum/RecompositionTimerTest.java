@@ -0,0 +1,95 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+
+public class RecompositionTimerTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker(mock(ScreenCpuTracker.class));
+    private final AtomicLong nanoTime = new AtomicLong();
+    private RecompositionTracker tracker;
+    private RecompositionTimer timer;
+
+    @Before
+    public void setUp() {
+        tracker = new RecompositionTracker(otelTesting.getOpenTelemetry().getTracer("testTracer"), visibleScreenTracker);
+        timer = new RecompositionTimer(tracker, nanoTime::get);
+        visibleScreenTracker.navigationDestinationChanged("home");
+    }
+
+    @Test
+    public void countsAndTimesNestedComposables() {
+        timer.traceEventStart(1, 0, 0, "Feed");
+        nanoTime.addAndGet(1_000_000);
+        timer.traceEventStart(2, 0, 0, "Item");
+        nanoTime.addAndGet(2_000_000);
+        timer.traceEventEnd();
+        timer.traceEventStart(2, 0, 0, "Item");
+        nanoTime.addAndGet(3_000_000);
+        timer.traceEventEnd();
+        timer.traceEventEnd();
+        tracker.flush();
+
+        Attributes attributes = otelTesting.getSpans().get(0).getAttributes();
+        //the caller's time includes its children.
+        assertEquals(asList("Item", "Feed"), attributes.get(RecompositionTracker.SCOPES_KEY));
+        assertEquals(asList(2L, 1L), attributes.get(RecompositionTracker.COUNTS_KEY));
+        assertEquals(asList(5_000L, 6_000L), attributes.get(RecompositionTracker.TIMES_KEY));
+    }
+
+    @Test
+    public void unmatchedEndIsIgnored() {
+        RecompositionTracker recompositionTracker = mock(RecompositionTracker.class);
+        RecompositionTimer timer = new RecompositionTimer(recompositionTracker, nanoTime::get);
+
+        timer.traceEventEnd();
+
+        verifyNoInteractions(recompositionTracker);
+    }
+
+    @Test
+    public void deepNestingStaysPaired() {
+        for (int i = 0; i < RecompositionTimer.MAX_DEPTH + 10; i++) {
+            timer.traceEventStart(i, 0, 0, "Deep");
+        }
+        for (int i = 0; i < RecompositionTimer.MAX_DEPTH + 10; i++) {
+            timer.traceEventEnd();
+        }
+        timer.traceEventStart(0, 0, 0, "Top");
+        timer.traceEventEnd();
+        tracker.flush();
+
+        Attributes attributes = otelTesting.getSpans().get(0).getAttributes();
+        assertEquals(asList("Deep", "Top"), attributes.get(RecompositionTracker.SCOPES_KEY));
+        assertEquals(asList((long) RecompositionTimer.MAX_DEPTH, 1L), attributes.get(RecompositionTracker.COUNTS_KEY));
+    }
+}
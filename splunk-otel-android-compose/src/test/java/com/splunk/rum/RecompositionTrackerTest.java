@@ -0,0 +1,115 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class RecompositionTrackerTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker(mock(ScreenCpuTracker.class));
+    private RecompositionTracker tracker;
+
+    @Before
+    public void setUp() {
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(1_000), ZoneId.systemDefault());
+        tracker = new RecompositionTracker(otelTesting.getOpenTelemetry().getTracer("testTracer"), visibleScreenTracker, clock);
+    }
+
+    @Test
+    public void summarizesRecompositionsPerScreen() {
+        visibleScreenTracker.navigationDestinationChanged("home");
+        tracker.recomposed("Feed", 2_000_000);
+        tracker.recomposed("Header", -1);
+        tracker.recomposed("Feed", 3_000_000);
+        assertTrue(otelTesting.getSpans().isEmpty());
+
+        visibleScreenTracker.navigationDestinationChanged("profile");
+        tracker.recomposed("Avatar", -1);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData span = spans.get(0);
+        assertEquals(RecompositionTracker.SPAN_NAME, span.getName());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1_000), span.getStartEpochNanos());
+        Attributes attributes = span.getAttributes();
+        assertEquals("home", attributes.get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals(asList("Feed", "Header"), attributes.get(RecompositionTracker.SCOPES_KEY));
+        assertEquals(asList(2L, 1L), attributes.get(RecompositionTracker.COUNTS_KEY));
+        assertEquals(asList(5_000L, 0L), attributes.get(RecompositionTracker.TIMES_KEY));
+
+        tracker.flush();
+        spans = otelTesting.getSpans();
+        assertEquals(2, spans.size());
+        assertEquals("profile", spans.get(1).getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals(singletonList("Avatar"), spans.get(1).getAttributes().get(RecompositionTracker.SCOPES_KEY));
+    }
+
+    @Test
+    public void nothingReportedWithoutRecompositions() {
+        visibleScreenTracker.navigationDestinationChanged("home");
+        tracker.flush();
+        visibleScreenTracker.navigationDestinationChanged("profile");
+        tracker.flush();
+
+        assertTrue(otelTesting.getSpans().isEmpty());
+    }
+
+    @Test
+    public void scopesAreLimited() {
+        for (int i = 0; i < RecompositionTracker.MAX_SCOPES + 2; i++) {
+            tracker.recomposed("scope" + i, -1);
+        }
+        tracker.flush();
+
+        Attributes attributes = otelTesting.getSpans().get(0).getAttributes();
+        assertEquals(RecompositionTracker.MAX_SCOPES, attributes.get(RecompositionTracker.SCOPES_KEY).size());
+        assertEquals(2L, (long) attributes.get(RecompositionTracker.DROPPED_KEY));
+    }
+
+    @Test
+    public void backgroundingReportsTheSummary() {
+        visibleScreenTracker.navigationDestinationChanged("home");
+        tracker.recomposed("Feed", -1);
+
+        tracker.appBackgrounded();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("home", spans.get(0).getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals(singletonList(1L), spans.get(0).getAttributes().get(RecompositionTracker.COUNTS_KEY));
+    }
+}
@@ -0,0 +1,98 @@
+import org.apache.tools.ant.taskdefs.condition.Os
+
+plugins {
+    id("com.android.library")
+    id("splunk.android-library-conventions")
+}
+
+android {
+    compileSdk = 31
+    buildToolsVersion = "30.0.3"
+
+    defaultConfig {
+        minSdk = 21
+        targetSdk = 31
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        consumerProguardFiles("consumer-rules.pro")
+
+        externalNativeBuild {
+            cmake {
+                targets("splunk-ndk")
+            }
+        }
+    }
+
+    externalNativeBuild {
+        cmake {
+            path = file("src/main/cpp/CMakeLists.txt")
+        }
+    }
+
+    buildTypes {
+        release {
+            isMinifyEnabled = false
+            proguardFiles(getDefaultProguardFile("proguard-android-optimize.txt"), "proguard-rules.pro")
+        }
+    }
+
+    compileOptions {
+        isCoreLibraryDesugaringEnabled = true
+
+        sourceCompatibility(JavaVersion.VERSION_1_8)
+        targetCompatibility(JavaVersion.VERSION_1_8)
+    }
+
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+dependencies {
+    implementation("androidx.annotation:annotation:1.3.0")
+
+    implementation(project(":splunk-otel-android"))
+
+    api(platform("io.opentelemetry:opentelemetry-bom:1.12.0"))
+    api("io.opentelemetry:opentelemetry-api")
+
+    implementation(platform("io.opentelemetry:opentelemetry-bom-alpha:1.12.0-alpha"))
+    implementation("io.opentelemetry:opentelemetry-semconv")
+
+    testImplementation("junit:junit:4.13.2")
+    testImplementation("org.mockito:mockito-core:4.4.0")
+    testImplementation("io.opentelemetry:opentelemetry-sdk-testing")
+
+    coreLibraryDesugaring("com.android.tools:desugar_jdk_libs:1.1.5")
+}
+
+// The signal handling core is plain C with no JNI dependency, so it is also built and tested
+// on the (Linux) host, next to the JVM unit tests.
+val nativeHostTestDir = layout.buildDirectory.dir("native-host-test")
+
+val configureNativeHostTests by tasks.registering(Exec::class) {
+    commandLine("cmake", "-S", file("src/main/cpp").absolutePath, "-B", nativeHostTestDir.get().asFile.absolutePath,
+            "-DSPLUNK_NDK_HOST_TESTS=ON")
+}
+
+val buildNativeHostTests by tasks.registering(Exec::class) {
+    dependsOn(configureNativeHostTests)
+    commandLine("cmake", "--build", nativeHostTestDir.get().asFile.absolutePath)
+}
+
+val nativeHostTest by tasks.registering(Exec::class) {
+    group = "verification"
+    description = "Runs the native crash handler tests on the host."
+    dependsOn(buildNativeHostTests)
+    workingDir(nativeHostTestDir)
+    commandLine("ctest", "--output-on-failure")
+}
+
+if (Os.isFamily(Os.FAMILY_UNIX) && !Os.isFamily(Os.FAMILY_MAC)) {
+    tasks.named("check") {
+        dependsOn(nativeHostTest)
+    }
+}
+
+extra["pomName"] = "Splunk Otel Android NDK"
+description = "A library for capturing native (NDK) crashes of Android applications for Splunk RUM"
@@ -0,0 +1,2 @@
+# the native crash handler calls into these via JNI
+-keep class com.splunk.rum.NativeCrashHandler { native <methods>; }
@@ -0,0 +1,259 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef _GNU_SOURCE
+#define _GNU_SOURCE
+#endif
+
+#include "crash_handler.h"
+
+#include <errno.h>
+#include <fcntl.h>
+#include <signal.h>
+#include <stdatomic.h>
+#include <string.h>
+#include <sys/mman.h>
+#include <sys/prctl.h>
+#include <sys/syscall.h>
+#include <time.h>
+#include <ucontext.h>
+#include <unistd.h>
+
+_Static_assert(sizeof(struct splunk_crash_record) == 864, "crash record layout must match NativeCrashRecord.java");
+
+#define ALTERNATE_STACK_SIZE (64 * 1024)
+// frame pointers are only followed this far above the stack pointer of the crashing thread.
+#define MAX_STACK_SCAN_BYTES (512 * 1024)
+
+static const int handled_signals[] = {SIGSEGV, SIGABRT, SIGBUS, SIGFPE, SIGILL, SIGTRAP};
+#define HANDLED_SIGNAL_COUNT (sizeof(handled_signals) / sizeof(handled_signals[0]))
+
+// everything the handler touches is allocated up front: malloc is not async-signal-safe.
+static struct sigaction previous_actions[HANDLED_SIGNAL_COUNT];
+static struct splunk_crash_record record;
+static int record_fd = -1;
+static atomic_int handling_crash = 0;
+static stack_t alternate_stack;
+
+static void capture_registers(const ucontext_t *context, uintptr_t *pc, uintptr_t *sp, uintptr_t *fp) {
+#if defined(__aarch64__)
+    record.arch = SPLUNK_ARCH_ARM64;
+    for (int i = 0; i < 31; i++) {
+        record.registers[i] = context->uc_mcontext.regs[i];
+    }
+    record.registers[31] = context->uc_mcontext.sp;
+    record.registers[32] = context->uc_mcontext.pc;
+    record.registers[33] = context->uc_mcontext.pstate;
+    record.register_count = 34;
+    *pc = context->uc_mcontext.pc;
+    *sp = context->uc_mcontext.sp;
+    *fp = context->uc_mcontext.regs[29];
+#elif defined(__arm__)
+    const struct sigcontext *mc = &context->uc_mcontext;
+    const unsigned long values[] = {
+            mc->arm_r0, mc->arm_r1, mc->arm_r2, mc->arm_r3, mc->arm_r4, mc->arm_r5, mc->arm_r6,
+            mc->arm_r7, mc->arm_r8, mc->arm_r9, mc->arm_r10, mc->arm_fp, mc->arm_ip, mc->arm_sp,
+            mc->arm_lr, mc->arm_pc, mc->arm_cpsr};
+    record.arch = SPLUNK_ARCH_ARM;
+    record.register_count = sizeof(values) / sizeof(values[0]);
+    for (uint32_t i = 0; i < record.register_count; i++) {
+        record.registers[i] = values[i];
+    }
+    *pc = mc->arm_pc;
+    *sp = mc->arm_sp;
+    // there is no reliable frame pointer convention on 32-bit arm (thumb uses r7), so don't walk.
+    *fp = 0;
+#elif defined(__x86_64__)
+    static const int indexes[] = {
+            REG_RAX, REG_RBX, REG_RCX, REG_RDX, REG_RSI, REG_RDI, REG_RBP, REG_RSP, REG_R8, REG_R9,
+            REG_R10, REG_R11, REG_R12, REG_R13, REG_R14, REG_R15, REG_RIP, REG_EFL};
+    record.arch = SPLUNK_ARCH_X86_64;
+    record.register_count = sizeof(indexes) / sizeof(indexes[0]);
+    for (uint32_t i = 0; i < record.register_count; i++) {
+        record.registers[i] = (uint64_t) context->uc_mcontext.gregs[indexes[i]];
+    }
+    *pc = (uintptr_t) context->uc_mcontext.gregs[REG_RIP];
+    *sp = (uintptr_t) context->uc_mcontext.gregs[REG_RSP];
+    *fp = (uintptr_t) context->uc_mcontext.gregs[REG_RBP];
+#elif defined(__i386__)
+    static const int indexes[] = {
+            REG_EAX, REG_EBX, REG_ECX, REG_EDX, REG_ESI, REG_EDI, REG_EBP, REG_ESP, REG_EIP, REG_EFL};
+    record.arch = SPLUNK_ARCH_X86;
+    record.register_count = sizeof(indexes) / sizeof(indexes[0]);
+    for (uint32_t i = 0; i < record.register_count; i++) {
+        record.registers[i] = (uint32_t) context->uc_mcontext.gregs[indexes[i]];
+    }
+    *pc = (uintptr_t) context->uc_mcontext.gregs[REG_EIP];
+    *sp = (uintptr_t) context->uc_mcontext.gregs[REG_ESP];
+    *fp = (uintptr_t) context->uc_mcontext.gregs[REG_EBP];
+#else
+    record.arch = SPLUNK_ARCH_UNKNOWN;
+    record.register_count = 0;
+    *pc = 0;
+    *sp = 0;
+    *fp = 0;
+#endif
+}
+
+// Follows the frame pointer chain: each frame record holds the caller's frame pointer followed by
+// the return address. Only addresses that are aligned, increasing and close above the stack
+// pointer are followed, which keeps the reads within the crashing thread's stack.
+static void walk_frame_pointers(uintptr_t sp, uintptr_t fp) {
+    uint32_t count = record.frame_count;
+    uintptr_t stack_limit = sp + MAX_STACK_SCAN_BYTES;
+    while (count < SPLUNK_CRASH_MAX_FRAMES
+           && fp >= sp
+           && fp + 2 * sizeof(uintptr_t) <= stack_limit
+           && fp % sizeof(uintptr_t) == 0) {
+        const uintptr_t *frame = (const uintptr_t *) fp;
+        uintptr_t next_fp = frame[0];
+        uintptr_t return_address = frame[1];
+        if (return_address == 0) {
+            break;
+        }
+        record.frames[count++] = return_address;
+        if (next_fp <= fp) {
+            break;
+        }
+        fp = next_fp;
+    }
+    record.frame_count = count;
+}
+
+static void persist_record(void) {
+    const char *data = (const char *) &record;
+    size_t remaining = sizeof(record);
+    off_t offset = 0;
+    while (remaining > 0) {
+        ssize_t written = pwrite(record_fd, data + offset, remaining, offset);
+        if (written < 0) {
+            if (errno == EINTR) {
+                continue;
+            }
+            return;
+        }
+        offset += written;
+        remaining -= (size_t) written;
+    }
+    fsync(record_fd);
+}
+
+static void write_record(int signal, const siginfo_t *info, const ucontext_t *context) {
+    memset(&record, 0, sizeof(record));
+    record.magic = SPLUNK_CRASH_RECORD_MAGIC;
+    record.version = SPLUNK_CRASH_RECORD_VERSION;
+    record.signal = signal;
+    record.code = info != NULL ? info->si_code : 0;
+    record.fault_address = info != NULL ? (uint64_t) (uintptr_t) info->si_addr : 0;
+    record.pid = getpid();
+    record.tid = (int32_t) syscall(SYS_gettid);
+
+    struct timespec now;
+    if (clock_gettime(CLOCK_REALTIME, &now) == 0) {
+        record.timestamp_seconds = now.tv_sec;
+        record.timestamp_nanos = now.tv_nsec;
+    }
+    prctl(PR_GET_NAME, (unsigned long) record.thread_name, 0, 0, 0);
+
+    uintptr_t pc = 0, sp = 0, fp = 0;
+    if (context != NULL) {
+        capture_registers(context, &pc, &sp, &fp);
+    }
+    record.frames[0] = pc;
+    record.frame_count = 1;
+    // write what we have before walking the stack, in case the walk itself faults.
+    persist_record();
+
+    if (fp != 0) {
+        walk_frame_pointers(sp, fp);
+        persist_record();
+    }
+}
+
+static void restore_previous_handlers(void) {
+    for (size_t i = 0; i < HANDLED_SIGNAL_COUNT; i++) {
+        sigaction(handled_signals[i], &previous_actions[i], NULL);
+    }
+}
+
+static void handle_signal(int signal, siginfo_t *info, void *context) {
+    // only the first crashing thread gets to write the record.
+    if (atomic_exchange(&handling_crash, 1) == 0 && record_fd >= 0) {
+        write_record(signal, info, (const ucontext_t *) context);
+    }
+    restore_previous_handlers();
+    // the signal is blocked while we're in here, so the previous handler (or the default action)
+    // gets it as soon as we return.
+    syscall(SYS_tgkill, getpid(), (pid_t) syscall(SYS_gettid), signal);
+}
+
+static void install_alternate_stack(void) {
+    stack_t current;
+    if (sigaltstack(NULL, &current) == 0 && !(current.ss_flags & SS_DISABLE)) {
+        // somebody else already provided one.
+        return;
+    }
+    void *stack = mmap(NULL, ALTERNATE_STACK_SIZE, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0);
+    if (stack == MAP_FAILED) {
+        return;
+    }
+    alternate_stack.ss_sp = stack;
+    alternate_stack.ss_size = ALTERNATE_STACK_SIZE;
+    alternate_stack.ss_flags = 0;
+    if (sigaltstack(&alternate_stack, NULL) != 0) {
+        munmap(stack, ALTERNATE_STACK_SIZE);
+        alternate_stack.ss_sp = NULL;
+    }
+}
+
+int splunk_crash_handler_install(const char *record_path) {
+    if (record_fd >= 0) {
+        return 0;
+    }
+    int fd = open(record_path, O_CREAT | O_RDWR | O_TRUNC | O_CLOEXEC, 0600);
+    if (fd < 0) {
+        return -1;
+    }
+    // pre-allocate, so writing the record never has to grow the file.
+    if (ftruncate(fd, sizeof(struct splunk_crash_record)) != 0) {
+        close(fd);
+        return -1;
+    }
+    record_fd = fd;
+    atomic_store(&handling_crash, 0);
+
+    // lets us handle stack overflows on the installing (main) thread.
+    install_alternate_stack();
+
+    struct sigaction action;
+    memset(&action, 0, sizeof(action));
+    sigemptyset(&action.sa_mask);
+    action.sa_sigaction = handle_signal;
+    action.sa_flags = SA_SIGINFO | SA_ONSTACK;
+    for (size_t i = 0; i < HANDLED_SIGNAL_COUNT; i++) {
+        sigaction(handled_signals[i], &action, &previous_actions[i]);
+    }
+    return 0;
+}
+
+void splunk_crash_handler_uninstall(void) {
+    if (record_fd < 0) {
+        return;
+    }
+    restore_previous_handlers();
+    close(record_fd);
+    record_fd = -1;
+}
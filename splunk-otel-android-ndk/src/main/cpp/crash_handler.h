@@ -0,0 +1,77 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef SPLUNK_CRASH_HANDLER_H
+#define SPLUNK_CRASH_HANDLER_H
+
+#include <stdint.h>
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+#define SPLUNK_CRASH_RECORD_MAGIC 0x534e5243u /* "CRNS", little-endian */
+#define SPLUNK_CRASH_RECORD_VERSION 1u
+#define SPLUNK_CRASH_MAX_REGISTERS 34
+#define SPLUNK_CRASH_MAX_FRAMES 64
+#define SPLUNK_CRASH_THREAD_NAME_LENGTH 16
+
+enum splunk_crash_arch {
+    SPLUNK_ARCH_UNKNOWN = 0,
+    SPLUNK_ARCH_ARM64 = 1,
+    SPLUNK_ARCH_ARM = 2,
+    SPLUNK_ARCH_X86_64 = 3,
+    SPLUNK_ARCH_X86 = 4,
+};
+
+/*
+ * The fixed-size, little-endian record written by the signal handler. Every field is naturally
+ * aligned, so the layout is identical on all supported ABIs. Keep this in sync with
+ * NativeCrashRecord.java.
+ */
+struct splunk_crash_record {
+    uint32_t magic;
+    uint32_t version;
+    uint32_t arch;
+    int32_t signal;
+    int32_t code;
+    int32_t pid;
+    int32_t tid;
+    uint32_t reserved;
+    uint64_t fault_address;
+    int64_t timestamp_seconds;
+    int64_t timestamp_nanos;
+    char thread_name[SPLUNK_CRASH_THREAD_NAME_LENGTH];
+    uint32_t register_count;
+    uint32_t frame_count;
+    uint64_t registers[SPLUNK_CRASH_MAX_REGISTERS];
+    uint64_t frames[SPLUNK_CRASH_MAX_FRAMES];
+};
+
+/*
+ * Opens (and truncates) the record file, then installs the signal handlers. Anything left in the
+ * file from a previous run must be read before calling this. Returns 0 on success.
+ */
+int splunk_crash_handler_install(const char *record_path);
+
+/* Restores the previously installed signal handlers and closes the record file. */
+void splunk_crash_handler_uninstall(void);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif /* SPLUNK_CRASH_HANDLER_H */
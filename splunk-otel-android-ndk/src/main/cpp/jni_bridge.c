@@ -0,0 +1,31 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include <jni.h>
+
+#include "crash_handler.h"
+
+JNIEXPORT jboolean JNICALL
+Java_com_splunk_rum_NativeCrashHandler_nativeInstall(JNIEnv *env, jclass clazz, jstring record_path) {
+    (void) clazz;
+    const char *path = (*env)->GetStringUTFChars(env, record_path, NULL);
+    if (path == NULL) {
+        return JNI_FALSE;
+    }
+    int result = splunk_crash_handler_install(path);
+    (*env)->ReleaseStringUTFChars(env, record_path, path);
+    return result == 0 ? JNI_TRUE : JNI_FALSE;
+}
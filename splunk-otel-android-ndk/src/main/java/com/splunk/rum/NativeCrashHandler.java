@@ -0,0 +1,50 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.util.Log;
+
+import java.io.File;
+
+/**
+ * The JNI bridge to the native signal handler in {@code libsplunk-ndk.so}.
+ */
+final class NativeCrashHandler {
+    private static final String LIBRARY_NAME = "splunk-ndk";
+
+    private NativeCrashHandler() {
+    }
+
+    /**
+     * Loads the native library and installs the signal handlers, which will write a
+     * {@link NativeCrashRecord} into the given file when the process crashes. The file is
+     * truncated, so any record left in it by a previous process must be read first.
+     */
+    static boolean install(File recordFile) {
+        try {
+            System.loadLibrary(LIBRARY_NAME);
+        } catch (UnsatisfiedLinkError e) {
+            Log.w(LOG_TAG, "Unable to load the native crash handler library", e);
+            return false;
+        }
+        return nativeInstall(recordFile.getAbsolutePath());
+    }
+
+    private static native boolean nativeInstall(String recordPath);
+}
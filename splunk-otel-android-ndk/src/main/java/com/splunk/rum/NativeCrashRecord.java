@@ -0,0 +1,230 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A crash record, as written by the native signal handler. This mirrors
+ * {@code struct splunk_crash_record} in {@code crash_handler.h}; keep the two in sync.
+ */
+final class NativeCrashRecord {
+    static final int SIZE_BYTES = 864;
+    static final int MAGIC = 0x534e5243;
+    static final int VERSION = 1;
+    static final int MAX_REGISTERS = 34;
+    static final int MAX_FRAMES = 64;
+    static final int THREAD_NAME_LENGTH = 16;
+
+    static final int ARCH_ARM64 = 1;
+    static final int ARCH_ARM = 2;
+    static final int ARCH_X86_64 = 3;
+    static final int ARCH_X86 = 4;
+
+    private static final String[] ARM64_REGISTERS = {
+            "x0", "x1", "x2", "x3", "x4", "x5", "x6", "x7", "x8", "x9", "x10", "x11", "x12", "x13", "x14",
+            "x15", "x16", "x17", "x18", "x19", "x20", "x21", "x22", "x23", "x24", "x25", "x26", "x27", "x28",
+            "fp", "lr", "sp", "pc", "pstate"};
+    private static final String[] ARM_REGISTERS = {
+            "r0", "r1", "r2", "r3", "r4", "r5", "r6", "r7", "r8", "r9", "r10", "fp", "ip", "sp", "lr", "pc", "cpsr"};
+    private static final String[] X86_64_REGISTERS = {
+            "rax", "rbx", "rcx", "rdx", "rsi", "rdi", "rbp", "rsp", "r8", "r9", "r10", "r11", "r12", "r13",
+            "r14", "r15", "rip", "eflags"};
+    private static final String[] X86_REGISTERS = {
+            "eax", "ebx", "ecx", "edx", "esi", "edi", "ebp", "esp", "eip", "eflags"};
+
+    private final int arch;
+    private final int signal;
+    private final int code;
+    private final int pid;
+    private final int tid;
+    private final long faultAddress;
+    private final long timestampEpochNanos;
+    private final String threadName;
+    private final long[] registers;
+    private final long[] frames;
+
+    private NativeCrashRecord(int arch, int signal, int code, int pid, int tid, long faultAddress,
+                              long timestampEpochNanos, String threadName, long[] registers, long[] frames) {
+        this.arch = arch;
+        this.signal = signal;
+        this.code = code;
+        this.pid = pid;
+        this.tid = tid;
+        this.faultAddress = faultAddress;
+        this.timestampEpochNanos = timestampEpochNanos;
+        this.threadName = threadName;
+        this.registers = registers;
+        this.frames = frames;
+    }
+
+    /**
+     * Reads the record from the given file, returning null if the file doesn't exist or doesn't
+     * contain a complete record (which is the case when the previous process didn't crash).
+     */
+    @Nullable
+    static NativeCrashRecord read(File recordFile) throws IOException {
+        if (!recordFile.exists() || recordFile.length() < SIZE_BYTES) {
+            return null;
+        }
+        byte[] bytes = new byte[SIZE_BYTES];
+        try (RandomAccessFile file = new RandomAccessFile(recordFile, "r")) {
+            file.readFully(bytes);
+        }
+        return parse(bytes);
+    }
+
+    @Nullable
+    static NativeCrashRecord parse(byte[] bytes) {
+        if (bytes.length < SIZE_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return null;
+        }
+        int arch = buffer.getInt(8);
+        int signal = buffer.getInt(12);
+        int code = buffer.getInt(16);
+        int pid = buffer.getInt(20);
+        int tid = buffer.getInt(24);
+        long faultAddress = buffer.getLong(32);
+        long timestampEpochNanos = TimeUnit.SECONDS.toNanos(buffer.getLong(40)) + buffer.getLong(48);
+        String threadName = readCString(bytes, 56, THREAD_NAME_LENGTH);
+        int registerCount = Math.min(buffer.getInt(72), MAX_REGISTERS);
+        int frameCount = Math.min(buffer.getInt(76), MAX_FRAMES);
+        if (registerCount < 0 || frameCount < 0) {
+            return null;
+        }
+        long[] registers = new long[registerCount];
+        for (int i = 0; i < registerCount; i++) {
+            registers[i] = buffer.getLong(80 + i * 8);
+        }
+        long[] frames = new long[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            frames[i] = buffer.getLong(352 + i * 8);
+        }
+        return new NativeCrashRecord(arch, signal, code, pid, tid, faultAddress, timestampEpochNanos,
+                threadName, registers, frames);
+    }
+
+    private static String readCString(byte[] bytes, int offset, int maxLength) {
+        int length = 0;
+        while (length < maxLength && bytes[offset + length] != 0) {
+            length++;
+        }
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    int getSignal() {
+        return signal;
+    }
+
+    int getCode() {
+        return code;
+    }
+
+    int getPid() {
+        return pid;
+    }
+
+    int getTid() {
+        return tid;
+    }
+
+    long getFaultAddress() {
+        return faultAddress;
+    }
+
+    long getTimestampEpochNanos() {
+        return timestampEpochNanos;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    long[] getFrames() {
+        return frames.clone();
+    }
+
+    String getSignalName() {
+        switch (signal) {
+            case 4:
+                return "SIGILL";
+            case 5:
+                return "SIGTRAP";
+            case 6:
+                return "SIGABRT";
+            case 7:
+                return "SIGBUS";
+            case 8:
+                return "SIGFPE";
+            case 11:
+                return "SIGSEGV";
+            default:
+                return "SIG" + signal;
+        }
+    }
+
+    String getMessage() {
+        return String.format(Locale.ROOT, "signal %d (%s), code %d, fault addr 0x%x",
+                signal, getSignalName(), code, faultAddress);
+    }
+
+    /**
+     * Formats the record in the style of an Android tombstone. Program counters are not
+     * symbolicated; that has to happen on the backend, using the app's native debug symbols.
+     */
+    String formatStackTrace() {
+        StringBuilder result = new StringBuilder(getMessage()).append('\n');
+        String[] registerNames = registerNames();
+        for (int i = 0; i < registers.length; i++) {
+            String name = i < registerNames.length ? registerNames[i] : "r" + i;
+            result.append(String.format(Locale.ROOT, "    %-6s %016x\n", name, registers[i]));
+        }
+        result.append("backtrace:\n");
+        for (int i = 0; i < frames.length; i++) {
+            result.append(String.format(Locale.ROOT, "    #%02d pc %016x\n", i, frames[i]));
+        }
+        return result.toString();
+    }
+
+    private String[] registerNames() {
+        switch (arch) {
+            case ARCH_ARM64:
+                return ARM64_REGISTERS;
+            case ARCH_ARM:
+                return ARM_REGISTERS;
+            case ARCH_X86_64:
+                return X86_64_REGISTERS;
+            case ARCH_X86:
+                return X86_REGISTERS;
+            default:
+                return new String[0];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+/**
+ * Captures native (NDK) crashes. Native crashes can't be reported by the crashing process, so the
+ * signal handler persists a small crash record to disk, and the crash span is created from it the
+ * next time the application starts.
+ */
+public final class NativeCrashReporting {
+    static final String RECORD_FILE_NAME = "native-crash.record";
+
+    private NativeCrashReporting() {
+    }
+
+    /**
+     * Reports the native crash left behind by the previous run of the application, if there was
+     * one, and installs the native signal handlers for this run. Call this right after
+     * {@link SplunkRum#initialize}.
+     *
+     * @return true if the native signal handlers were installed.
+     */
+    public static boolean install(SplunkRum splunkRum, Context context) {
+        File recordFile = new File(context.getApplicationContext().getFilesDir(), RECORD_FILE_NAME);
+        reportPreviousCrash(splunkRum.getTracer(), recordFile);
+        return NativeCrashHandler.install(recordFile);
+    }
+
+    //visible for testing
+    static void reportPreviousCrash(Tracer tracer, File recordFile) {
+        NativeCrashRecord record;
+        try {
+            record = NativeCrashRecord.read(recordFile);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to read the native crash record", e);
+            record = null;
+        } finally {
+            //the handler only truncates the record when it's installed; clear it here so that the
+            //crash isn't reported again on every start if the installation fails.
+            clearRecord(recordFile);
+        }
+        if (record != null) {
+            recordCrashSpan(tracer, record);
+        }
+    }
+
+    private static void clearRecord(File recordFile) {
+        if (recordFile.exists() && !recordFile.delete()) {
+            Log.w(LOG_TAG, "Unable to delete the native crash record");
+        }
+    }
+
+    private static void recordCrashSpan(Tracer tracer, NativeCrashRecord record) {
+        String signalName = record.getSignalName();
+        String message = record.getMessage();
+        //match the attributes of the java crash spans created by the CrashReporter.
+        Span span = tracer.spanBuilder(signalName)
+                .setStartTimestamp(record.getTimestampEpochNanos(), TimeUnit.NANOSECONDS)
+                .setAttribute(SemanticAttributes.THREAD_ID, (long) record.getTid())
+                .setAttribute(SemanticAttributes.THREAD_NAME, record.getThreadName())
+                .setAttribute(SemanticAttributes.EXCEPTION_TYPE, signalName)
+                .setAttribute(SemanticAttributes.EXCEPTION_MESSAGE, message)
+                .setAttribute(SemanticAttributes.EXCEPTION_STACKTRACE, record.formatStackTrace())
+                .setAttribute(SemanticAttributes.EXCEPTION_ESCAPED, true)
+                .setAttribute(SplunkRum.ERROR_TYPE_KEY, signalName)
+                .setAttribute(SplunkRum.ERROR_MESSAGE_KEY, message)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_CRASH)
+                .startSpan();
+        span.setStatus(StatusCode.ERROR);
+        span.end(record.getTimestampEpochNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host tests for the native crash handler. Each test crashes a forked child process with the
+ * handler installed, then inspects the record the child left behind.
+ *
+ * usage: crash_handler_test <scratch directory>
+ */
+
+#ifndef _GNU_SOURCE
+#define _GNU_SOURCE
+#endif
+
+#include "crash_handler.h"
+
+#include <signal.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/prctl.h>
+#include <sys/wait.h>
+#include <unistd.h>
+
+static char record_path[4096];
+static int failures = 0;
+
+#define EXPECT(condition) \
+    do { \
+        if (!(condition)) { \
+            fprintf(stderr, "%s:%d: expectation failed: %s\n", __FILE__, __LINE__, #condition); \
+            failures++; \
+        } \
+    } while (0)
+
+static void __attribute__((noinline)) write_to_null(void) {
+    volatile int *volatile pointer = NULL;
+    *pointer = 42;
+}
+
+static void __attribute__((noinline)) nested_null_write(void) {
+    write_to_null();
+    // keep this from becoming a tail call, so the caller shows up in the backtrace.
+    __asm__ volatile("" ::: "memory");
+}
+
+static void call_abort(void) {
+    abort();
+}
+
+static void exit_normally(void) {
+}
+
+static void previous_handler(int signal) {
+    (void) signal;
+    _exit(42);
+}
+
+static void crash_with_previous_handler(void) {
+    // the handler installed by the child replaces this one, and must chain back to it.
+    write_to_null();
+}
+
+// runs the given function in a child process with the crash handler installed, returning the wait status.
+static int run_in_child(void (*action)(void), int install_previous_handler) {
+    fflush(stderr);
+    pid_t pid = fork();
+    if (pid == 0) {
+        prctl(PR_SET_NAME, (unsigned long) "crasher", 0, 0, 0);
+        if (install_previous_handler) {
+            signal(SIGSEGV, previous_handler);
+        }
+        if (splunk_crash_handler_install(record_path) != 0) {
+            _exit(99);
+        }
+        action();
+        _exit(0);
+    }
+    int status = 0;
+    waitpid(pid, &status, 0);
+    return status;
+}
+
+static int read_record(struct splunk_crash_record *record) {
+    memset(record, 0, sizeof(*record));
+    FILE *file = fopen(record_path, "rb");
+    if (file == NULL) {
+        return -1;
+    }
+    size_t read = fread(record, 1, sizeof(*record), file);
+    fclose(file);
+    return read == sizeof(*record) ? 0 : -1;
+}
+
+static void test_segv_is_recorded(void) {
+    int status = run_in_child(nested_null_write, 0);
+    EXPECT(WIFSIGNALED(status));
+    EXPECT(WTERMSIG(status) == SIGSEGV);
+
+    struct splunk_crash_record record;
+    EXPECT(read_record(&record) == 0);
+    EXPECT(record.magic == SPLUNK_CRASH_RECORD_MAGIC);
+    EXPECT(record.version == SPLUNK_CRASH_RECORD_VERSION);
+    EXPECT(record.signal == SIGSEGV);
+    EXPECT(record.code == SEGV_MAPERR);
+    EXPECT(record.fault_address == 0);
+    EXPECT(record.pid > 0);
+    // the crash happened on the child's main thread.
+    EXPECT(record.tid == record.pid);
+    EXPECT(strncmp(record.thread_name, "crasher", SPLUNK_CRASH_THREAD_NAME_LENGTH) == 0);
+    EXPECT(record.timestamp_seconds > 0);
+    EXPECT(record.frame_count >= 1);
+    EXPECT(record.frames[0] != 0);
+#if defined(__x86_64__) || defined(__aarch64__)
+    EXPECT(record.register_count > 0);
+    // write_to_null <- nested_null_write <- run_in_child
+    EXPECT(record.frame_count >= 3);
+#endif
+}
+
+static void test_abort_is_recorded(void) {
+    int status = run_in_child(call_abort, 0);
+    EXPECT(WIFSIGNALED(status));
+    EXPECT(WTERMSIG(status) == SIGABRT);
+
+    struct splunk_crash_record record;
+    EXPECT(read_record(&record) == 0);
+    EXPECT(record.magic == SPLUNK_CRASH_RECORD_MAGIC);
+    EXPECT(record.signal == SIGABRT);
+    EXPECT(record.frame_count >= 1);
+}
+
+static void test_previous_handler_is_invoked(void) {
+    int status = run_in_child(crash_with_previous_handler, 1);
+    EXPECT(WIFEXITED(status));
+    EXPECT(WEXITSTATUS(status) == 42);
+
+    struct splunk_crash_record record;
+    EXPECT(read_record(&record) == 0);
+    EXPECT(record.signal == SIGSEGV);
+}
+
+static void test_no_record_without_crash(void) {
+    int status = run_in_child(exit_normally, 0);
+    EXPECT(WIFEXITED(status));
+    EXPECT(WEXITSTATUS(status) == 0);
+
+    struct splunk_crash_record record;
+    // the file is pre-allocated, but empty.
+    EXPECT(read_record(&record) == 0);
+    EXPECT(record.magic == 0);
+}
+
+int main(int argc, char **argv) {
+    const char *directory = argc > 1 ? argv[1] : ".";
+    snprintf(record_path, sizeof(record_path), "%s/crash_handler_test.record", directory);
+
+    test_segv_is_recorded();
+    test_abort_is_recorded();
+    test_previous_handler_is_invoked();
+    test_no_record_without_crash();
+
+    unlink(record_path);
+    if (failures > 0) {
+        fprintf(stderr, "%d expectation(s) failed\n", failures);
+        return 1;
+    }
+    printf("all native crash handler tests passed\n");
+    return 0;
+}
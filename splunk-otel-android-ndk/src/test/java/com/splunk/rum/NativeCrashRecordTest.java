@@ -0,0 +1,144 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public class NativeCrashRecordTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void parse() {
+        byte[] bytes = recordBytes();
+
+        NativeCrashRecord record = NativeCrashRecord.parse(bytes);
+
+        assertNotNull(record);
+        assertEquals(11, record.getSignal());
+        assertEquals("SIGSEGV", record.getSignalName());
+        assertEquals(1, record.getCode());
+        assertEquals(1234, record.getPid());
+        assertEquals(1240, record.getTid());
+        assertEquals(0xdeadL, record.getFaultAddress());
+        assertEquals(1_650_000_000_000_000_123L, record.getTimestampEpochNanos());
+        assertEquals("RenderThread", record.getThreadName());
+        assertArrayEquals(new long[]{0x7f00001000L, 0x7f00002000L}, record.getFrames());
+    }
+
+    @Test
+    public void formatStackTrace() {
+        NativeCrashRecord record = NativeCrashRecord.parse(recordBytes());
+
+        assertNotNull(record);
+        String stackTrace = record.formatStackTrace();
+        assertTrue(stackTrace, stackTrace.startsWith("signal 11 (SIGSEGV), code 1, fault addr 0xdead\n"));
+        assertTrue(stackTrace, stackTrace.contains("    x0     0000000000000000\n"));
+        assertTrue(stackTrace, stackTrace.contains("    pc     0000000000000020\n"));
+        assertTrue(stackTrace, stackTrace.contains("backtrace:\n"
+                + "    #00 pc 0000007f00001000\n"
+                + "    #01 pc 0000007f00002000\n"));
+    }
+
+    @Test
+    public void parse_wrongMagic() {
+        byte[] bytes = recordBytes();
+        bytes[0] = 0;
+
+        assertNull(NativeCrashRecord.parse(bytes));
+    }
+
+    @Test
+    public void parse_unknownVersion() {
+        byte[] bytes = recordBytes();
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 2);
+
+        assertNull(NativeCrashRecord.parse(bytes));
+    }
+
+    @Test
+    public void parse_truncated() {
+        assertNull(NativeCrashRecord.parse(new byte[100]));
+    }
+
+    @Test
+    public void read_noCrash() throws IOException {
+        //the handler pre-sizes the file with zeroes when it is installed.
+        File recordFile = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(recordFile)) {
+            out.write(new byte[NativeCrashRecord.SIZE_BYTES]);
+        }
+
+        assertNull(NativeCrashRecord.read(recordFile));
+        assertNull(NativeCrashRecord.read(new File(temporaryFolder.getRoot(), "missing")));
+    }
+
+    @Test
+    public void read() throws IOException {
+        File recordFile = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(recordFile)) {
+            out.write(recordBytes());
+        }
+
+        NativeCrashRecord record = NativeCrashRecord.read(recordFile);
+
+        assertNotNull(record);
+        assertEquals("SIGSEGV", record.getSignalName());
+    }
+
+    //lays out the bytes exactly like the native handler does, on an arm64 device.
+    static byte[] recordBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(NativeCrashRecord.SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, NativeCrashRecord.MAGIC);
+        buffer.putInt(4, NativeCrashRecord.VERSION);
+        buffer.putInt(8, NativeCrashRecord.ARCH_ARM64);
+        buffer.putInt(12, 11);
+        buffer.putInt(16, 1);
+        buffer.putInt(20, 1234);
+        buffer.putInt(24, 1240);
+        buffer.putLong(32, 0xdeadL);
+        buffer.putLong(40, 1_650_000_000L);
+        buffer.putLong(48, 123L);
+        byte[] threadName = "RenderThread".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < threadName.length; i++) {
+            buffer.put(56 + i, threadName[i]);
+        }
+        buffer.putInt(72, 34);
+        buffer.putInt(76, 2);
+        for (int i = 0; i < 34; i++) {
+            buffer.putLong(80 + i * 8, i);
+        }
+        buffer.putLong(352, 0x7f00001000L);
+        buffer.putLong(360, 0x7f00002000L);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+public class NativeCrashReportingTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Tracer tracer;
+
+    @Before
+    public void setup() {
+        tracer = otelTesting.getOpenTelemetry().getTracer("testTracer");
+    }
+
+    @Test
+    public void reportsPreviousCrash() throws IOException {
+        File recordFile = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(recordFile)) {
+            out.write(NativeCrashRecordTest.recordBytes());
+        }
+
+        NativeCrashReporting.reportPreviousCrash(tracer, recordFile);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData crashSpan = spans.get(0);
+        assertEquals("SIGSEGV", crashSpan.getName());
+        assertEquals(StatusCode.ERROR, crashSpan.getStatus().getStatusCode());
+        assertEquals(1_650_000_000_000_000_123L, crashSpan.getStartEpochNanos());
+        assertEquals(1_650_000_000_000_000_123L, crashSpan.getEndEpochNanos());
+
+        Attributes attributes = crashSpan.getAttributes();
+        String message = "signal 11 (SIGSEGV), code 1, fault addr 0xdead";
+        assertEquals((Long) 1240L, attributes.get(SemanticAttributes.THREAD_ID));
+        assertEquals("RenderThread", attributes.get(SemanticAttributes.THREAD_NAME));
+        assertEquals("SIGSEGV", attributes.get(SemanticAttributes.EXCEPTION_TYPE));
+        assertEquals(message, attributes.get(SemanticAttributes.EXCEPTION_MESSAGE));
+        assertEquals((Boolean) true, attributes.get(SemanticAttributes.EXCEPTION_ESCAPED));
+        assertEquals("SIGSEGV", attributes.get(SplunkRum.ERROR_TYPE_KEY));
+        assertEquals(message, attributes.get(SplunkRum.ERROR_MESSAGE_KEY));
+        assertEquals(SplunkRum.COMPONENT_CRASH, attributes.get(SplunkRum.COMPONENT_KEY));
+        String stackTrace = attributes.get(SemanticAttributes.EXCEPTION_STACKTRACE);
+        assertTrue(stackTrace, stackTrace.contains("#01 pc 0000007f00002000"));
+    }
+
+    @Test
+    public void previousCrashIsReportedOnce() throws IOException {
+        File recordFile = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(recordFile)) {
+            out.write(NativeCrashRecordTest.recordBytes());
+        }
+
+        NativeCrashReporting.reportPreviousCrash(tracer, recordFile);
+        //the native handler failed to install, so nothing truncated the record in between.
+        NativeCrashReporting.reportPreviousCrash(tracer, recordFile);
+
+        assertEquals(1, otelTesting.getSpans().size());
+        assertFalse(recordFile.exists());
+    }
+
+    @Test
+    public void noPreviousCrash() throws IOException {
+        File recordFile = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(recordFile)) {
+            out.write(new byte[NativeCrashRecord.SIZE_BYTES]);
+        }
+
+        NativeCrashReporting.reportPreviousCrash(tracer, recordFile);
+        NativeCrashReporting.reportPreviousCrash(tracer, new File(temporaryFolder.getRoot(), "missing"));
+
+        assertTrue(otelTesting.getSpans().isEmpty());
+    }
+}
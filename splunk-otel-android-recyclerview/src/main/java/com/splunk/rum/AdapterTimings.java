@@ -0,0 +1,106 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * The number of view holders created and bound during a scroll session, and the time it took, per
+ * view type. The arrays are re-used across sessions.
+ */
+class AdapterTimings {
+    static final int MAX_VIEW_TYPES = 16;
+    static final AttributeKey<List<Long>> VIEW_TYPES_KEY = AttributeKey.longArrayKey("scroll.adapter.view_types");
+    static final AttributeKey<List<Long>> CREATE_COUNT_KEY = AttributeKey.longArrayKey("scroll.adapter.create.count");
+    //in microseconds
+    static final AttributeKey<List<Long>> CREATE_TIME_KEY = AttributeKey.longArrayKey("scroll.adapter.create.time");
+    static final AttributeKey<List<Long>> BIND_COUNT_KEY = AttributeKey.longArrayKey("scroll.adapter.bind.count");
+    //in microseconds
+    static final AttributeKey<List<Long>> BIND_TIME_KEY = AttributeKey.longArrayKey("scroll.adapter.bind.time");
+
+    private final int[] viewTypes = new int[MAX_VIEW_TYPES];
+    private final long[] createCounts = new long[MAX_VIEW_TYPES];
+    private final long[] createNanos = new long[MAX_VIEW_TYPES];
+    private final long[] bindCounts = new long[MAX_VIEW_TYPES];
+    private final long[] bindNanos = new long[MAX_VIEW_TYPES];
+    private int size;
+
+    void recordCreate(int viewType, long nanos) {
+        int index = indexOf(viewType);
+        if (index >= 0) {
+            createCounts[index]++;
+            createNanos[index] += nanos;
+        }
+    }
+
+    void recordBind(int viewType, long nanos) {
+        int index = indexOf(viewType);
+        if (index >= 0) {
+            bindCounts[index]++;
+            bindNanos[index] += nanos;
+        }
+    }
+
+    //view types beyond the first MAX_VIEW_TYPES are not recorded.
+    private int indexOf(int viewType) {
+        for (int i = 0; i < size; i++) {
+            if (viewTypes[i] == viewType) {
+                return i;
+            }
+        }
+        if (size == MAX_VIEW_TYPES) {
+            return -1;
+        }
+        viewTypes[size] = viewType;
+        createCounts[size] = 0;
+        createNanos[size] = 0;
+        bindCounts[size] = 0;
+        bindNanos[size] = 0;
+        return size++;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    void addAttributes(Span span) {
+        if (size == 0) {
+            return;
+        }
+        List<Long> types = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            types.add((long) viewTypes[i]);
+        }
+        span.setAttribute(VIEW_TYPES_KEY, types);
+        span.setAttribute(CREATE_COUNT_KEY, toList(createCounts, 1));
+        span.setAttribute(CREATE_TIME_KEY, toList(createNanos, 1000));
+        span.setAttribute(BIND_COUNT_KEY, toList(bindCounts, 1));
+        span.setAttribute(BIND_TIME_KEY, toList(bindNanos, 1000));
+    }
+
+    private List<Long> toList(long[] values, long divisor) {
+        List<Long> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(values[i] / divisor);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Entrypoint for measuring the scroll performance of {@link RecyclerView}s.
+ * <p>
+ * Every scroll session of an instrumented list (from the moment it starts being dragged or flung,
+ * until it comes to rest) is reported as a single {@code RecyclerViewScroll} span, with the number
+ * of frames rendered and dropped, and the longest frame. Nothing is measured while the list is
+ * idle.
+ */
+public final class RecyclerViewTracing {
+
+    /**
+     * Returns a new {@link RecyclerViewTracing} configured with the given {@link SplunkRum}.
+     */
+    public static RecyclerViewTracing create(SplunkRum splunkRum) {
+        return new RecyclerViewTracing(splunkRum.getTracer());
+    }
+
+    private final Tracer tracer;
+
+    RecyclerViewTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Measures the scroll sessions of the given {@link RecyclerView}.
+     *
+     * @param recyclerView The list to instrument.
+     * @param listName     The name of the list, to tell it apart from the other lists of the screen.
+     */
+    public void instrument(RecyclerView recyclerView, String listName) {
+        recyclerView.addOnScrollListener(new ScrollSessionTracker(tracer, listName));
+    }
+
+    /**
+     * Measures the scroll sessions of the given {@link RecyclerView}, and the time its adapter takes
+     * to create and bind the view holders of each view type while scrolling. The adapter is wrapped
+     * and set on the {@link RecyclerView}; the wrapper is returned.
+     *
+     * @param recyclerView The list to instrument.
+     * @param listName     The name of the list, to tell it apart from the other lists of the screen.
+     * @param adapter      The adapter of the list.
+     * @return The adapter which has been set on the list.
+     */
+    public <VH extends RecyclerView.ViewHolder> RecyclerView.Adapter<VH> instrument(RecyclerView recyclerView, String listName, RecyclerView.Adapter<VH> adapter) {
+        ScrollSessionTracker scrollSessionTracker = new ScrollSessionTracker(tracer, listName);
+        recyclerView.addOnScrollListener(scrollSessionTracker);
+        TimedAdapter<VH> timedAdapter = new TimedAdapter<>(adapter, scrollSessionTracker);
+        recyclerView.setAdapter(timedAdapter);
+        return timedAdapter;
+    }
+}
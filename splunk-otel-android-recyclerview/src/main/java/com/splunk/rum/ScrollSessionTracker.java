@@ -0,0 +1,157 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.view.Choreographer;
+import android.view.Display;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.function.Consumer;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Aggregates the frames of a scroll session into a span. Frames are only observed (with a
+ * {@link Choreographer.FrameCallback}) while the list is scrolling. Only used from the main thread.
+ */
+class ScrollSessionTracker extends RecyclerView.OnScrollListener implements Choreographer.FrameCallback {
+    static final String SPAN_NAME = "RecyclerViewScroll";
+    static final AttributeKey<String> LIST_NAME_KEY = AttributeKey.stringKey("scroll.list");
+    static final AttributeKey<String> SCROLL_TYPE_KEY = AttributeKey.stringKey("scroll.type");
+    static final AttributeKey<Long> FRAME_COUNT_KEY = AttributeKey.longKey("scroll.frames");
+    static final AttributeKey<Long> DROPPED_FRAME_COUNT_KEY = AttributeKey.longKey("scroll.frames.dropped");
+    static final AttributeKey<Double> MAX_FRAME_TIME_KEY = AttributeKey.doubleKey("scroll.frame.max");
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1_000_000_000L / 60;
+
+    private final Tracer tracer;
+    private final String listName;
+    private final Consumer<Choreographer.FrameCallback> frameCallbackPoster;
+    private final AdapterTimings adapterTimings = new AdapterTimings();
+
+    private Span span;
+    private boolean flung;
+    private boolean frameCallbackPosted;
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long lastFrameTimeNanos;
+    private long frameCount;
+    private long droppedFrameCount;
+    private long maxFrameTimeNanos;
+
+    ScrollSessionTracker(Tracer tracer, String listName) {
+        this(tracer, listName, callback -> Choreographer.getInstance().postFrameCallback(callback));
+    }
+
+    // exists for testing
+    ScrollSessionTracker(Tracer tracer, String listName, Consumer<Choreographer.FrameCallback> frameCallbackPoster) {
+        this.tracer = tracer;
+        this.listName = listName;
+        this.frameCallbackPoster = frameCallbackPoster;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            endSession();
+            return;
+        }
+        if (span == null) {
+            startSession(recyclerView);
+        }
+        if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+            flung = true;
+        }
+    }
+
+    private void startSession(RecyclerView recyclerView) {
+        frameIntervalNanos = readFrameInterval(recyclerView);
+        flung = false;
+        lastFrameTimeNanos = 0;
+        frameCount = 0;
+        droppedFrameCount = 0;
+        maxFrameTimeNanos = 0;
+        adapterTimings.reset();
+        span = tracer.spanBuilder(SPAN_NAME)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_UI)
+                .setAttribute(LIST_NAME_KEY, listName)
+                .startSpan();
+        //a callback from the previous session may still be pending.
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            frameCallbackPoster.accept(this);
+        }
+    }
+
+    private static long readFrameInterval(RecyclerView recyclerView) {
+        Display display = recyclerView.getDisplay();
+        if (display == null) {
+            return DEFAULT_FRAME_INTERVAL_NANOS;
+        }
+        float refreshRate = display.getRefreshRate();
+        return refreshRate >= 1 ? (long) (1_000_000_000L / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        if (span == null) {
+            return;
+        }
+        frameCount++;
+        if (lastFrameTimeNanos != 0) {
+            long frameTime = frameTimeNanos - lastFrameTimeNanos;
+            maxFrameTimeNanos = Math.max(maxFrameTimeNanos, frameTime);
+            //frames that should have been rendered in between this one and the previous one.
+            long missedFrames = (frameTime + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            if (missedFrames > 0) {
+                droppedFrameCount += missedFrames;
+            }
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+        frameCallbackPosted = true;
+        frameCallbackPoster.accept(this);
+    }
+
+    private void endSession() {
+        if (span == null) {
+            return;
+        }
+        span.setAttribute(SCROLL_TYPE_KEY, flung ? "fling" : "drag");
+        span.setAttribute(FRAME_COUNT_KEY, frameCount);
+        span.setAttribute(DROPPED_FRAME_COUNT_KEY, droppedFrameCount);
+        span.setAttribute(MAX_FRAME_TIME_KEY, maxFrameTimeNanos / 1_000_000.0);
+        adapterTimings.addAttributes(span);
+        span.end();
+        span = null;
+    }
+
+    boolean isInSession() {
+        return span != null;
+    }
+
+    void recordCreate(int viewType, long nanos) {
+        adapterTimings.recordCreate(viewType, nanos);
+    }
+
+    void recordBind(int viewType, long nanos) {
+        adapterTimings.recordBind(viewType, nanos);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * Wraps an adapter to time the creation and binding of view holders during scroll sessions.
+ * Everything else is passed through to the wrapped adapter, including the registration of data
+ * observers, so that the wrapped adapter's change notifications reach the {@link RecyclerView}.
+ */
+class TimedAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+    private final RecyclerView.Adapter<VH> delegate;
+    private final ScrollSessionTracker scrollSessionTracker;
+
+    TimedAdapter(RecyclerView.Adapter<VH> delegate, ScrollSessionTracker scrollSessionTracker) {
+        this.delegate = delegate;
+        this.scrollSessionTracker = scrollSessionTracker;
+        super.setHasStableIds(delegate.hasStableIds());
+        setStateRestorationPolicy(delegate.getStateRestorationPolicy());
+    }
+
+    @NonNull
+    @Override
+    public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (!scrollSessionTracker.isInSession()) {
+            return delegate.onCreateViewHolder(parent, viewType);
+        }
+        long start = System.nanoTime();
+        VH viewHolder = delegate.onCreateViewHolder(parent, viewType);
+        scrollSessionTracker.recordCreate(viewType, System.nanoTime() - start);
+        return viewHolder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position) {
+        delegate.onBindViewHolder(holder, position);
+    }
+
+    //the RecyclerView always binds through this one.
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        if (!scrollSessionTracker.isInSession()) {
+            delegate.onBindViewHolder(holder, position, payloads);
+            return;
+        }
+        long start = System.nanoTime();
+        delegate.onBindViewHolder(holder, position, payloads);
+        scrollSessionTracker.recordBind(holder.getItemViewType(), System.nanoTime() - start);
+    }
+
+    @Override
+    public int getItemCount() {
+        return delegate.getItemCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return delegate.getItemViewType(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return delegate.getItemId(position);
+    }
+
+    @Override
+    public void setHasStableIds(boolean hasStableIds) {
+        delegate.setHasStableIds(hasStableIds);
+        super.setHasStableIds(hasStableIds);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull VH holder) {
+        delegate.onViewRecycled(holder);
+    }
+
+    @Override
+    public boolean onFailedToRecycleView(@NonNull VH holder) {
+        return delegate.onFailedToRecycleView(holder);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull VH holder) {
+        delegate.onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull VH holder) {
+        delegate.onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        delegate.onAttachedToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        delegate.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void registerAdapterDataObserver(@NonNull RecyclerView.AdapterDataObserver observer) {
+        delegate.registerAdapterDataObserver(observer);
+    }
+
+    @Override
+    public void unregisterAdapterDataObserver(@NonNull RecyclerView.AdapterDataObserver observer) {
+        delegate.unregisterAdapterDataObserver(observer);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.view.Choreographer;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class ScrollSessionTrackerTest {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final RecyclerView recyclerView = mock(RecyclerView.class);
+    private final List<Choreographer.FrameCallback> postedCallbacks = new ArrayList<>();
+    private ScrollSessionTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new ScrollSessionTracker(otelTesting.getOpenTelemetry().getTracer("testTracer"), "feed", postedCallbacks::add);
+    }
+
+    @Test
+    public void reportsFramesOfScrollSession() {
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+        assertTrue(tracker.isInSession());
+
+        long frameTime = 1_000_000_000L;
+        renderFrame(frameTime);
+        renderFrame(frameTime += FRAME_NANOS);
+        //two frames dropped
+        renderFrame(frameTime += 3 * FRAME_NANOS);
+        renderFrame(frameTime + FRAME_NANOS);
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+        assertFalse(tracker.isInSession());
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData span = spans.get(0);
+        assertEquals(ScrollSessionTracker.SPAN_NAME, span.getName());
+        Attributes attributes = span.getAttributes();
+        assertEquals("feed", attributes.get(ScrollSessionTracker.LIST_NAME_KEY));
+        assertEquals("drag", attributes.get(ScrollSessionTracker.SCROLL_TYPE_KEY));
+        assertEquals(SplunkRum.COMPONENT_UI, attributes.get(SplunkRum.COMPONENT_KEY));
+        assertEquals(Long.valueOf(4), attributes.get(ScrollSessionTracker.FRAME_COUNT_KEY));
+        assertEquals(Long.valueOf(2), attributes.get(ScrollSessionTracker.DROPPED_FRAME_COUNT_KEY));
+        assertEquals(3 * FRAME_NANOS / 1_000_000.0, attributes.get(ScrollSessionTracker.MAX_FRAME_TIME_KEY), 0.001);
+        assertNull(attributes.get(AdapterTimings.VIEW_TYPES_KEY));
+    }
+
+    @Test
+    public void fling() {
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_SETTLING);
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("fling", spans.get(0).getAttributes().get(ScrollSessionTracker.SCROLL_TYPE_KEY));
+    }
+
+    @Test
+    public void stopsObservingFramesWhenIdle() {
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+        assertEquals(1, postedCallbacks.size());
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+
+        renderFrame(1_000_000_000L);
+        assertTrue(postedCallbacks.isEmpty());
+    }
+
+    @Test
+    public void onlyOneFrameCallbackAcrossSessions() {
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+        //a new session starts before the callback of the previous one has run.
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+
+        assertEquals(1, postedCallbacks.size());
+    }
+
+    @Test
+    public void reportsAdapterTimings() {
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_SETTLING);
+        tracker.recordCreate(1, 2_000_000);
+        tracker.recordBind(1, 500_000);
+        tracker.recordBind(1, 700_000);
+        tracker.recordBind(7, 100_000);
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+
+        Attributes attributes = otelTesting.getSpans().get(0).getAttributes();
+        assertEquals(asList(1L, 7L), attributes.get(AdapterTimings.VIEW_TYPES_KEY));
+        assertEquals(asList(1L, 0L), attributes.get(AdapterTimings.CREATE_COUNT_KEY));
+        assertEquals(asList(2000L, 0L), attributes.get(AdapterTimings.CREATE_TIME_KEY));
+        assertEquals(asList(2L, 1L), attributes.get(AdapterTimings.BIND_COUNT_KEY));
+        assertEquals(asList(1200L, 100L), attributes.get(AdapterTimings.BIND_TIME_KEY));
+    }
+
+    @Test
+    public void limitsViewTypes() {
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+        for (int viewType = 0; viewType < AdapterTimings.MAX_VIEW_TYPES + 5; viewType++) {
+            tracker.recordBind(viewType, 1000);
+        }
+        tracker.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+
+        Attributes attributes = otelTesting.getSpans().get(0).getAttributes();
+        assertEquals(AdapterTimings.MAX_VIEW_TYPES, attributes.get(AdapterTimings.VIEW_TYPES_KEY).size());
+    }
+
+    private void renderFrame(long frameTimeNanos) {
+        List<Choreographer.FrameCallback> callbacks = new ArrayList<>(postedCallbacks);
+        postedCallbacks.clear();
+        for (Choreographer.FrameCallback callback : callbacks) {
+            callback.doFrame(frameTimeNanos);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Test;
+
+public class TimedAdapterTest {
+    private final ScrollSessionTracker scrollSessionTracker = mock(ScrollSessionTracker.class);
+
+    @Test
+    public void timesWhileScrolling() {
+        TestAdapter delegate = new TestAdapter();
+        TimedAdapter<TestViewHolder> adapter = new TimedAdapter<>(delegate, scrollSessionTracker);
+        when(scrollSessionTracker.isInSession()).thenReturn(true);
+
+        TestViewHolder viewHolder = adapter.onCreateViewHolder(mock(ViewGroup.class), 3);
+        adapter.onBindViewHolder(viewHolder, 5, emptyList());
+
+        assertSame(delegate.created, viewHolder);
+        assertEquals(5, delegate.boundPosition);
+        verify(scrollSessionTracker).recordCreate(eq(3), anyLong());
+        verify(scrollSessionTracker).recordBind(eq(viewHolder.getItemViewType()), anyLong());
+    }
+
+    @Test
+    public void doesNotTimeWhenIdle() {
+        TestAdapter delegate = new TestAdapter();
+        TimedAdapter<TestViewHolder> adapter = new TimedAdapter<>(delegate, scrollSessionTracker);
+
+        TestViewHolder viewHolder = adapter.onCreateViewHolder(mock(ViewGroup.class), 3);
+        adapter.onBindViewHolder(viewHolder, 5, emptyList());
+
+        assertEquals(5, delegate.boundPosition);
+        verify(scrollSessionTracker, never()).recordCreate(anyInt(), anyLong());
+        verify(scrollSessionTracker, never()).recordBind(anyInt(), anyLong());
+    }
+
+    @Test
+    public void delegates() {
+        TestAdapter delegate = new TestAdapter();
+        delegate.setHasStableIds(true);
+        TimedAdapter<TestViewHolder> adapter = new TimedAdapter<>(delegate, scrollSessionTracker);
+
+        assertTrue(adapter.hasStableIds());
+        assertEquals(42, adapter.getItemCount());
+        assertEquals(2, adapter.getItemViewType(4));
+        assertEquals(40, adapter.getItemId(4));
+    }
+
+    @Test
+    public void observersSeeTheDelegatesChanges() {
+        TestAdapter delegate = new TestAdapter();
+        TimedAdapter<TestViewHolder> adapter = new TimedAdapter<>(delegate, scrollSessionTracker);
+        RecyclerView.AdapterDataObserver observer = mock(RecyclerView.AdapterDataObserver.class);
+
+        adapter.registerAdapterDataObserver(observer);
+        delegate.notifyDataSetChanged();
+        verify(observer).onChanged();
+
+        adapter.unregisterAdapterDataObserver(observer);
+        delegate.notifyDataSetChanged();
+        verify(observer).onChanged();
+    }
+
+    static class TestViewHolder extends RecyclerView.ViewHolder {
+        TestViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+
+    static class TestAdapter extends RecyclerView.Adapter<TestViewHolder> {
+        TestViewHolder created;
+        int boundPosition = -1;
+
+        @Override
+        public TestViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            created = new TestViewHolder(mock(View.class));
+            return created;
+        }
+
+        @Override
+        public void onBindViewHolder(TestViewHolder holder, int position) {
+            boundPosition = position;
+        }
+
+        @Override
+        public int getItemCount() {
+            return 42;
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return position / 2;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position * 10L;
+        }
+    }
+}
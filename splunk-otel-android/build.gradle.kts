@@ -52,6 +52,7 @@ dependencies {
 
     implementation(platform("io.opentelemetry:opentelemetry-bom-alpha:1.12.0-alpha"))
     implementation("io.opentelemetry:opentelemetry-semconv")
+    implementation("io.opentelemetry:opentelemetry-sdk-metrics")
     implementation("io.opentelemetry.instrumentation:opentelemetry-okhttp-3.0:1.12.0-alpha")
 
     api("io.opentelemetry:opentelemetry-api")
@@ -62,9 +63,26 @@ dependencies {
     testImplementation("io.opentelemetry:opentelemetry-sdk-testing")
     testImplementation("org.robolectric:robolectric:4.7.3")
     testImplementation("androidx.test:core:1.4.0")
+    //for the encoder benchmark, run with the jmh task.
+    testImplementation("org.openjdk.jmh:jmh-core:1.35")
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.35")
 
     coreLibraryDesugaring("com.android.tools:desugar_jdk_libs:1.1.5")
 }
 
+//runs the JMH benchmarks of the unit test sources, with the GC profiler for gc.alloc.rate.norm:
+//./gradlew :splunk-otel-android:jmh [-PjmhInclude=<regex>]
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks found in the unit test sources."
+    //the unit test task's classpath has the compiled tests (with the generated BenchmarkList) and
+    //their runtime dependencies.
+    val unitTests = tasks.named<Test>("testDebugUnitTest")
+    dependsOn(unitTests.map { it.classpath })
+    classpath = files(unitTests.map { it.classpath })
+    mainClass.set("org.openjdk.jmh.Main")
+    args(findProperty("jmhInclude") ?: "Benchmark", "-prof", "gc")
+}
+
 extra["pomName"] = "Splunk Otel Android"
 description = "A library for instrumenting Android applications for Splunk RUM"
@@ -16,19 +16,37 @@
 
 package com.splunk.rum;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.context.Scope;
 
 class ActiveSpan {
+    static final AttributeKey<String> LIFECYCLE_EVENTS_KEY = AttributeKey.stringKey("lifecycle.events");
+    //more than any single lifecycle span records.
+    static final int MAX_COMPACT_EVENTS = 16;
+
     private final VisibleScreenTracker visibleScreenTracker;
+    private final BooleanSupplier compactEvents;
+    //in compact mode, the events of the span are recorded here, and encoded into a single attribute when it ends.
+    private final LifecycleEvent[] compactEventTypes = new LifecycleEvent[MAX_COMPACT_EVENTS];
+    private final long[] compactEventNanos = new long[MAX_COMPACT_EVENTS];
+    private int compactEventCount;
+    private long spanStartNanos;
 
     private Span span;
     private Scope scope;
 
     ActiveSpan(VisibleScreenTracker visibleScreenTracker) {
+        this(visibleScreenTracker, () -> false);
+    }
+
+    ActiveSpan(VisibleScreenTracker visibleScreenTracker, BooleanSupplier compactEvents) {
         this.visibleScreenTracker = visibleScreenTracker;
+        this.compactEvents = compactEvents;
     }
 
     boolean spanInProgress() {
@@ -42,6 +60,8 @@ class ActiveSpan {
         }
         this.span = spanCreator.get();
         scope = span.makeCurrent();
+        spanStartNanos = System.nanoTime();
+        compactEventCount = 0;
     }
 
     void endActiveSpan() {
@@ -50,15 +70,42 @@ class ActiveSpan {
             scope = null;
         }
         if (this.span != null) {
+            if (compactEventCount > 0) {
+                span.setAttribute(LIFECYCLE_EVENTS_KEY, encodeCompactEvents());
+                compactEventCount = 0;
+            }
             this.span.end();
             this.span = null;
         }
     }
 
-    void addEvent(String eventName) {
-        if (span != null) {
-            span.addEvent(eventName);
+    void addEvent(LifecycleEvent event) {
+        if (span == null) {
+            return;
+        }
+        if (!compactEvents.getAsBoolean()) {
+            span.addEvent(event.getEventName());
+            return;
         }
+        if (compactEventCount < MAX_COMPACT_EVENTS) {
+            compactEventTypes[compactEventCount] = event;
+            compactEventNanos[compactEventCount] = System.nanoTime();
+            compactEventCount++;
+        }
+    }
+
+    //e.g. "activityPreCreated:0,activityCreated:215", with the offsets from the start of the span in microseconds.
+    private String encodeCompactEvents() {
+        StringBuilder encoded = new StringBuilder(compactEventCount * 24);
+        for (int i = 0; i < compactEventCount; i++) {
+            if (i > 0) {
+                encoded.append(',');
+            }
+            encoded.append(compactEventTypes[i].getEventName())
+                    .append(':')
+                    .append(TimeUnit.NANOSECONDS.toMicros(Math.max(0, compactEventNanos[i] - spanStartNanos)));
+        }
+        return encoded.toString();
     }
 
     void addPreviousScreenAttribute(String screenName) {
@@ -70,4 +117,10 @@ class ActiveSpan {
             span.setAttribute(SplunkRum.LAST_SCREEN_NAME_KEY, previouslyVisibleScreen);
         }
     }
+
+    void addCpuTimeAttributes(String screenName) {
+        if (span != null) {
+            visibleScreenTracker.addCpuTimeAttributes(screenName, span);
+        }
+    }
 }
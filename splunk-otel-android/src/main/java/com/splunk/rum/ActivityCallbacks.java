@@ -25,20 +25,20 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import io.opentelemetry.api.trace.Tracer;
 
 class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
 
-    private final Map<String, ActivityTracer> tracersByActivityClassName = new HashMap<>();
-    private final AtomicReference<String> initialAppActivity = new AtomicReference<>();
     private final Tracer tracer;
     private final VisibleScreenTracker visibleScreenTracker;
     private final AppStartupTimer startupTimer;
+    private final ActivityTracerCache activityTracers;
+    //one instance for all activities: it only holds per-fragment state, which is released on detach.
+    private final RumFragmentLifecycleCallbacks fragmentCallbacks;
+    private final FragmentManager.FragmentLifecycleCallbacks registeredFragmentCallbacks;
     private final List<AppStateListener> appStateListeners;
     private final SlowRenderingDetector slowRenderingDetector;
     //we count the number of activities that have been "started" and not yet "stopped" here to figure out when the app goes into the background.
@@ -50,6 +50,11 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
         this.startupTimer = builder.startupTimer;
         this.appStateListeners = builder.appStateListeners;
         this.slowRenderingDetector = builder.slowRenderingDetector;
+        BooleanSupplier compactLifecycleEvents = builder.compactLifecycleEvents;
+        this.activityTracers = new ActivityTracerCache(tracer, visibleScreenTracker, startupTimer, compactLifecycleEvents);
+        this.fragmentCallbacks = new RumFragmentLifecycleCallbacks(tracer, visibleScreenTracker, compactLifecycleEvents);
+        this.registeredFragmentCallbacks = builder.mainThreadOverhead == null ? fragmentCallbacks
+                : new OverheadMeasuringFragmentCallbacks(fragmentCallbacks, builder.mainThreadOverhead);
     }
 
     public static Builder builder() {
@@ -60,29 +65,29 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
     public void onActivityPreCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
         getTracer(activity)
                 .startActivityCreation()
-                .addEvent("activityPreCreated");
+                .addEvent(LifecycleEvent.ACTIVITY_PRE_CREATED);
 
         if (activity instanceof FragmentActivity) {
             FragmentManager fragmentManager = ((FragmentActivity) activity).getSupportFragmentManager();
-            fragmentManager.registerFragmentLifecycleCallbacks(new RumFragmentLifecycleCallbacks(tracer, visibleScreenTracker), true);
+            fragmentManager.registerFragmentLifecycleCallbacks(registeredFragmentCallbacks, true);
         }
     }
 
     @Override
     public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
-        addEvent(activity, "activityCreated");
+        addEvent(activity, LifecycleEvent.ACTIVITY_CREATED);
     }
 
     @Override
     public void onActivityPostCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
-        addEvent(activity, "activityPostCreated");
+        addEvent(activity, LifecycleEvent.ACTIVITY_POST_CREATED);
     }
 
     @Override
     public void onActivityPreStarted(@NonNull Activity activity) {
         getTracer(activity)
-                .initiateRestartSpanIfNecessary(tracersByActivityClassName.size() > 1)
-                .addEvent("activityPreStarted");
+                .initiateRestartSpanIfNecessary(activityTracers.isMultiActivityApp())
+                .addEvent(LifecycleEvent.ACTIVITY_PRE_STARTED);
     }
 
     @Override
@@ -93,31 +98,32 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
             }
         }
         numberOfOpenActivities++;
-        addEvent(activity, "activityStarted");
+        addEvent(activity, LifecycleEvent.ACTIVITY_STARTED);
     }
 
     @Override
     public void onActivityPostStarted(@NonNull Activity activity) {
-        addEvent(activity, "activityPostStarted");
+        addEvent(activity, LifecycleEvent.ACTIVITY_POST_STARTED);
     }
 
     @Override
     public void onActivityPreResumed(@NonNull Activity activity) {
         getTracer(activity)
                 .startSpanIfNoneInProgress("Resumed")
-                .addEvent("activityPreResumed");
+                .addEvent(LifecycleEvent.ACTIVITY_PRE_RESUMED);
     }
 
     @Override
     public void onActivityResumed(@NonNull Activity activity) {
-        addEvent(activity, "activityResumed");
+        addEvent(activity, LifecycleEvent.ACTIVITY_RESUMED);
+        startupTimer.detectFirstFrame(activity);
         slowRenderingDetector.add(activity);
     }
 
     @Override
     public void onActivityPostResumed(@NonNull Activity activity) {
         getTracer(activity)
-                .addEvent("activityPostResumed")
+                .addEvent(LifecycleEvent.ACTIVITY_POST_RESUMED)
                 .addPreviousScreenAttribute()
                 .endSpanForActivityResumed();
         visibleScreenTracker.activityResumed(activity);
@@ -127,26 +133,27 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
     public void onActivityPrePaused(@NonNull Activity activity) {
         getTracer(activity)
                 .startSpanIfNoneInProgress("Paused")
-                .addEvent("activityPrePaused");
+                .addEvent(LifecycleEvent.ACTIVITY_PRE_PAUSED)
+                .addCpuTimeAttributes();
         visibleScreenTracker.activityPaused(activity);
     }
 
     @Override
     public void onActivityPaused(@NonNull Activity activity) {
-        addEvent(activity, "activityPaused");
+        addEvent(activity, LifecycleEvent.ACTIVITY_PAUSED);
         slowRenderingDetector.stop(activity);
     }
 
     @Override
     public void onActivityPostPaused(@NonNull Activity activity) {
-        getTracer(activity).addEvent("activityPostPaused").endActiveSpan();
+        getTracer(activity).addEvent(LifecycleEvent.ACTIVITY_POST_PAUSED).endActiveSpan();
     }
 
     @Override
     public void onActivityPreStopped(@NonNull Activity activity) {
         getTracer(activity)
                 .startSpanIfNoneInProgress("Stopped")
-                .addEvent("activityPreStopped");
+                .addEvent(LifecycleEvent.ACTIVITY_PRE_STOPPED);
     }
 
     @Override
@@ -156,12 +163,12 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
                 appStateListener.appBackgrounded();
             }
         }
-        addEvent(activity, "activityStopped");
+        addEvent(activity, LifecycleEvent.ACTIVITY_STOPPED);
     }
 
     @Override
     public void onActivityPostStopped(@NonNull Activity activity) {
-        getTracer(activity).addEvent("activityPostStopped").endActiveSpan();
+        getTracer(activity).addEvent(LifecycleEvent.ACTIVITY_POST_STOPPED).endActiveSpan();
     }
 
     @Override
@@ -183,30 +190,41 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
     public void onActivityPreDestroyed(@NonNull Activity activity) {
         getTracer(activity)
                 .startSpanIfNoneInProgress("Destroyed")
-                .addEvent("activityPreDestroyed");
+                .addEvent(LifecycleEvent.ACTIVITY_PRE_DESTROYED);
     }
 
     @Override
     public void onActivityDestroyed(@NonNull Activity activity) {
-        addEvent(activity, "activityDestroyed");
+        addEvent(activity, LifecycleEvent.ACTIVITY_DESTROYED);
     }
 
     @Override
     public void onActivityPostDestroyed(@NonNull Activity activity) {
-        getTracer(activity).addEvent("activityPostDestroyed").endActiveSpan();
+        getTracer(activity).addEvent(LifecycleEvent.ACTIVITY_POST_DESTROYED).endActiveSpan();
+        activityTracers.remove(activity);
+        visibleScreenTracker.activityDestroyed(activity);
+        //the fragments have all been destroyed by now.
+        if (activity instanceof FragmentActivity) {
+            ((FragmentActivity) activity).getSupportFragmentManager().unregisterFragmentLifecycleCallbacks(registeredFragmentCallbacks);
+        }
+    }
+
+    //visible for testing
+    ActivityTracerCache getActivityTracers() {
+        return activityTracers;
     }
 
-    private void addEvent(@NonNull Activity activity, String eventName) {
-        getTracer(activity).addEvent(eventName);
+    //visible for testing
+    RumFragmentLifecycleCallbacks getFragmentCallbacks() {
+        return fragmentCallbacks;
+    }
+
+    private void addEvent(@NonNull Activity activity, LifecycleEvent event) {
+        getTracer(activity).addEvent(event);
     }
 
     private ActivityTracer getTracer(Activity activity) {
-        ActivityTracer activityTracer = tracersByActivityClassName.get(activity.getClass().getName());
-        if (activityTracer == null) {
-            activityTracer = new ActivityTracer(activity, initialAppActivity, tracer, visibleScreenTracker, startupTimer);
-            tracersByActivityClassName.put(activity.getClass().getName(), activityTracer);
-        }
-        return activityTracer;
+        return activityTracers.get(activity);
     }
 
     static class Builder {
@@ -215,6 +233,8 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
         private AppStartupTimer startupTimer;
         private List<AppStateListener> appStateListeners;
         private SlowRenderingDetector slowRenderingDetector;
+        private BooleanSupplier compactLifecycleEvents = () -> false;
+        private MainThreadOverhead mainThreadOverhead;
 
         public ActivityCallbacks build(){
             return new ActivityCallbacks(this);
@@ -244,6 +264,16 @@ class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
             this.slowRenderingDetector = slowRenderingDetector;
             return this;
         }
+
+        public Builder compactLifecycleEvents(BooleanSupplier compactLifecycleEvents) {
+            this.compactLifecycleEvents = compactLifecycleEvents;
+            return this;
+        }
+
+        public Builder mainThreadOverhead(MainThreadOverhead mainThreadOverhead) {
+            this.mainThreadOverhead = mainThreadOverhead;
+            return this;
+        }
     }
 
 }
@@ -21,6 +21,7 @@ import android.app.Activity;
 import androidx.annotation.NonNull;
 
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.Span;
@@ -39,11 +40,16 @@ class ActivityTracer {
     private final ActiveSpan activeSpan;
 
     ActivityTracer(Activity activity, AtomicReference<String> initialAppActivity, Tracer tracer, VisibleScreenTracker visibleScreenTracker, AppStartupTimer appStartupTimer) {
+        this(activity, initialAppActivity, tracer, visibleScreenTracker, appStartupTimer, () -> false);
+    }
+
+    ActivityTracer(Activity activity, AtomicReference<String> initialAppActivity, Tracer tracer, VisibleScreenTracker visibleScreenTracker, AppStartupTimer appStartupTimer,
+                   BooleanSupplier compactLifecycleEvents) {
         this.initialAppActivity = initialAppActivity;
         this.tracer = tracer;
         this.activityName = activity.getClass().getSimpleName();
         this.appStartupTimer = appStartupTimer;
-        this.activeSpan = new ActiveSpan(visibleScreenTracker);
+        this.activeSpan = new ActiveSpan(visibleScreenTracker, compactLifecycleEvents);
     }
 
     ActivityTracer startSpanIfNoneInProgress(String action) {
@@ -135,8 +141,13 @@ class ActivityTracer {
         return this;
     }
 
-    ActivityTracer addEvent(String eventName) {
-        activeSpan.addEvent(eventName);
+    ActivityTracer addCpuTimeAttributes() {
+        activeSpan.addCpuTimeAttributes(activityName);
+        return this;
+    }
+
+    ActivityTracer addEvent(LifecycleEvent event) {
+        activeSpan.addEvent(event);
         return this;
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.app.Activity;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Holds one {@link ActivityTracer} per {@link Activity} instance, so that two instances of the same
+ * class (e.g. on the back stack, or in multi-window mode) never share spans.
+ * <p>
+ * Tracers are removed when their activity is destroyed. The keys are weakly referenced, so an
+ * activity whose destruction we never see doesn't leak either. Activities don't override
+ * {@code equals()} and {@code hashCode()}, so the lookups are by identity. Only used from the main
+ * thread.
+ */
+class ActivityTracerCache {
+    private final Map<Activity, ActivityTracer> tracersByActivity = new WeakHashMap<>();
+    private final AtomicReference<String> initialAppActivity = new AtomicReference<>();
+    private final Tracer tracer;
+    private final VisibleScreenTracker visibleScreenTracker;
+    private final AppStartupTimer startupTimer;
+    private final BooleanSupplier compactLifecycleEvents;
+    private Class<?> firstActivityClass;
+    private boolean multiActivityApp;
+
+    ActivityTracerCache(Tracer tracer, VisibleScreenTracker visibleScreenTracker, AppStartupTimer startupTimer, BooleanSupplier compactLifecycleEvents) {
+        this.tracer = tracer;
+        this.visibleScreenTracker = visibleScreenTracker;
+        this.startupTimer = startupTimer;
+        this.compactLifecycleEvents = compactLifecycleEvents;
+    }
+
+    ActivityTracer get(Activity activity) {
+        ActivityTracer activityTracer = tracersByActivity.get(activity);
+        if (activityTracer == null) {
+            activityTracer = new ActivityTracer(activity, initialAppActivity, tracer, visibleScreenTracker, startupTimer, compactLifecycleEvents);
+            tracersByActivity.put(activity, activityTracer);
+            recordActivityClass(activity.getClass());
+        }
+        return activityTracer;
+    }
+
+    private void recordActivityClass(Class<?> activityClass) {
+        if (firstActivityClass == null) {
+            firstActivityClass = activityClass;
+        } else if (firstActivityClass != activityClass) {
+            multiActivityApp = true;
+        }
+    }
+
+    void remove(Activity activity) {
+        tracersByActivity.remove(activity);
+    }
+
+    /**
+     * Whether more than one activity class has been seen in this process.
+     */
+    boolean isMultiActivityApp() {
+        return multiActivityApp;
+    }
+
+    //visible for testing
+    int size() {
+        return tracersByActivity.size();
+    }
+}
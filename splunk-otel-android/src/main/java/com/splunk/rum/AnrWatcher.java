@@ -18,16 +18,22 @@ package com.splunk.rum;
 
 import android.os.Handler;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
+/**
+ * Runs every second, and never blocks: each run posts a ping to the main thread, and the next run
+ * checks whether the main thread got to it. The main thread not answering for 5 runs in a row is
+ * reported as an ANR.
+ */
 class AnrWatcher implements Runnable {
     private final AtomicInteger anrCounter = new AtomicInteger();
     private final Handler uiHandler;
     private final Thread mainThread;
     private final Supplier<SplunkRum> splunkRumSupplier;
+    //set by the main thread once it has run the ping posted by the previous run.
+    private volatile AtomicBoolean pendingResponse;
 
     AnrWatcher(Handler uiHandler, Thread mainThread, Supplier<SplunkRum> splunkRumSupplier) {
         this.uiHandler = uiHandler;
@@ -37,17 +43,20 @@ class AnrWatcher implements Runnable {
 
     @Override
     public void run() {
-        CountDownLatch response = new CountDownLatch(1);
-        if (!uiHandler.post(response::countDown)) {
-            //the main thread is probably shutting down. ignore and return.
-            return;
+        AtomicBoolean previousResponse = pendingResponse;
+        if (previousResponse != null) {
+            checkResponse(previousResponse.get());
         }
-        boolean success;
-        try {
-            success = response.await(1, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
+        AtomicBoolean response = new AtomicBoolean();
+        if (!uiHandler.post(() -> response.set(true))) {
+            //the main thread is probably shutting down. ignore and return.
+            pendingResponse = null;
             return;
         }
+        pendingResponse = response;
+    }
+
+    private void checkResponse(boolean success) {
         if (success) {
             anrCounter.set(0);
             return;
@@ -16,12 +16,18 @@
 
 package com.splunk.rum;
 
+import android.app.Activity;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
 import androidx.annotation.Nullable;
 
 import java.util.concurrent.TimeUnit;
 
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.sdk.common.Clock;
 
 class AppStartupTimer {
@@ -29,14 +35,42 @@ class AppStartupTimer {
     final RumInitializer.AnchoredClock startupClock = RumInitializer.AnchoredClock.create(Clock.getDefault());
     private final long firstPossibleTimestamp = startupClock.now();
     private volatile Span overallAppStartSpan = null;
+    private Tracer tracer;
+    //markers of the startup phases, only known when the SplunkStartupProvider has been run.
+    private volatile long processStartTimestamp = -1;
+    private volatile long contentProviderTimestamp = -1;
+    private boolean waitingForFirstFrame;
+    private long firstActivityResumedTimestamp = -1;
+
+    /**
+     * Called by the {@link SplunkStartupProvider}, before {@code Application.onCreate()}. On API 24
+     * and later, this also gets us the time the process was started.
+     */
+    void contentProviderCreated() {
+        long now = startupClock.now();
+        long processStart = -1;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            long sinceProcessStart = SystemClock.elapsedRealtimeNanos() - TimeUnit.MILLISECONDS.toNanos(Process.getStartElapsedRealtime());
+            processStart = now - sinceProcessStart;
+        }
+        contentProviderCreated(processStart, now);
+    }
+
+    //visible for testing
+    void contentProviderCreated(long processStartTimestamp, long contentProviderTimestamp) {
+        this.processStartTimestamp = processStartTimestamp;
+        this.contentProviderTimestamp = contentProviderTimestamp;
+    }
 
     Span start(Tracer tracer) {
         //guard against a double-start and just return what's already in flight.
         if (overallAppStartSpan != null) {
             return overallAppStartSpan;
         }
+        this.tracer = tracer;
+        long startTimestamp = processStartTimestamp >= 0 ? processStartTimestamp : firstPossibleTimestamp;
         final Span appStart = tracer.spanBuilder("AppStart")
-                .setStartTimestamp(firstPossibleTimestamp, TimeUnit.NANOSECONDS)
+                .setStartTimestamp(startTimestamp, TimeUnit.NANOSECONDS)
                 .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_APPSTART)
                 .setAttribute(SplunkRum.START_TYPE_KEY, "cold")
                 .startSpan();
@@ -44,13 +78,83 @@ class AppStartupTimer {
         return appStart;
     }
 
+    /**
+     * Records the phases of the startup that happened before {@link SplunkRum#initialize} was
+     * called, as children of the AppStart span.
+     */
+    void recordPreInitializationPhases(long initializationStartTimestamp) {
+        if (contentProviderTimestamp < 0) {
+            return;
+        }
+        if (processStartTimestamp >= 0) {
+            //process fork, runtime and application class loading, up to the first content provider.
+            recordPhase("ProcessStart", processStartTimestamp, contentProviderTimestamp);
+        }
+        //the other content providers, and Application.onCreate() up to SplunkRum.initialize().
+        recordPhase("ApplicationInit", contentProviderTimestamp, initializationStartTimestamp);
+    }
+
+    /**
+     * Delays the end of the AppStart span until the first frame of the activity has been drawn.
+     */
+    void detectFirstFrame(Activity activity) {
+        if (overallAppStartSpan == null || waitingForFirstFrame) {
+            return;
+        }
+        if (FirstFrameDetector.register(activity, this::firstFrameDrawn)) {
+            waitForFirstFrame();
+        }
+    }
+
+    //visible for testing
+    void waitForFirstFrame() {
+        waitingForFirstFrame = true;
+    }
+
+    //visible for testing
+    void firstFrameDrawn() {
+        if (!waitingForFirstFrame) {
+            return;
+        }
+        waitingForFirstFrame = false;
+        long now = startupClock.now();
+        if (overallAppStartSpan != null && firstActivityResumedTimestamp >= 0) {
+            recordPhase("FirstFrame", firstActivityResumedTimestamp, now);
+        }
+        endAt(now);
+    }
+
     void end() {
+        //the first activity has been resumed: keep the span going until its first frame is drawn.
+        //if anything else ends before that happens (eg. the activity gets paused), give up waiting.
+        if (waitingForFirstFrame && firstActivityResumedTimestamp < 0) {
+            firstActivityResumedTimestamp = startupClock.now();
+            return;
+        }
+        waitingForFirstFrame = false;
+        endAt(startupClock.now());
+    }
+
+    private void endAt(long timestamp) {
         if (overallAppStartSpan != null) {
-            overallAppStartSpan.end(startupClock.now(), TimeUnit.NANOSECONDS);
+            overallAppStartSpan.end(timestamp, TimeUnit.NANOSECONDS);
             overallAppStartSpan = null;
         }
     }
 
+    private void recordPhase(String name, long startTimestamp, long endTimestamp) {
+        Span parent = overallAppStartSpan;
+        if (parent == null || endTimestamp < startTimestamp) {
+            return;
+        }
+        tracer.spanBuilder(name)
+                .setParent(Context.current().with(parent))
+                .setStartTimestamp(startTimestamp, TimeUnit.NANOSECONDS)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_APPSTART)
+                .startSpan()
+                .end(endTimestamp, TimeUnit.NANOSECONDS);
+    }
+
     @Nullable
     Span getStartupSpan() {
         return overallAppStartSpan;
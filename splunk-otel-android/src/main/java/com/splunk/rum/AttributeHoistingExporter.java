@@ -0,0 +1,136 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import zipkin2.internal.JsonEscaper;
+
+/**
+ * Sends the attributes which have the same value in every span of a batch only once per batch,
+ * rather than in every span.
+ * <p>
+ * Zipkin JSON has no batch-level attributes, so the shared ones are removed from the spans, and
+ * the {@link AttributeHoistingSender} puts them in a header element at the start of the span list:
+ * {@code [{"batchTags":{"app":"...","splunk.rumSessionId":"..."}},{span},{span}...]}. The tags of
+ * each span are then the batch tags plus its own. This needs an ingest endpoint that understands
+ * the header.
+ * <p>
+ * This must wrap the zipkin exporter directly, which sends the spans before {@link #export}
+ * returns. The header is handed to the sender for the duration of an export, so exports are
+ * serialized.
+ */
+class AttributeHoistingExporter implements SpanExporter {
+    //with fewer spans, the header costs more than it saves.
+    static final int MIN_BATCH_SIZE = 3;
+
+    private final SpanExporter delegate;
+    private final AttributeHoistingSender sender;
+
+    AttributeHoistingExporter(SpanExporter delegate, AttributeHoistingSender sender) {
+        this.delegate = delegate;
+        this.sender = sender;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        Map<AttributeKey<?>, Object> shared = sharedAttributes(spans);
+        if (shared.isEmpty()) {
+            return delegate.export(spans);
+        }
+        List<SpanData> stripped = new ArrayList<>(spans.size());
+        for (SpanData span : spans) {
+            Attributes attributes = span.getAttributes().toBuilder()
+                    .removeIf(shared::containsKey)
+                    .build();
+            stripped.add(new ModifiedSpanData(span, attributes));
+        }
+        sender.setBatchHeader(encodeHeader(shared));
+        try {
+            return delegate.export(stripped);
+        } finally {
+            sender.setBatchHeader(null);
+        }
+    }
+
+    //visible for testing
+    static Map<AttributeKey<?>, Object> sharedAttributes(Collection<SpanData> spans) {
+        Map<AttributeKey<?>, Object> shared = new LinkedHashMap<>();
+        if (spans.size() < MIN_BATCH_SIZE) {
+            return shared;
+        }
+        Iterator<SpanData> iterator = spans.iterator();
+        iterator.next().getAttributes().forEach((key, value) -> {
+            if (isHoistable(key)) {
+                shared.put(key, value);
+            }
+        });
+        while (iterator.hasNext() && !shared.isEmpty()) {
+            Attributes attributes = iterator.next().getAttributes();
+            shared.entrySet().removeIf(e -> !e.getValue().equals(attributes.get(e.getKey())));
+        }
+        return shared;
+    }
+
+    private static boolean isHoistable(AttributeKey<?> key) {
+        //the encoder needs this one in every span, to fix up the span name.
+        if (key.equals(RumAttributeAppender.SPLUNK_OPERATION_KEY)) {
+            return false;
+        }
+        //arrays are rare, and turned into strings by the zipkin exporter: leave them be.
+        AttributeType type = key.getType();
+        return type == AttributeType.STRING || type == AttributeType.BOOLEAN
+                || type == AttributeType.LONG || type == AttributeType.DOUBLE;
+    }
+
+    //the values are written the same way the zipkin exporter writes span tags.
+    private static byte[] encodeHeader(Map<AttributeKey<?>, Object> shared) {
+        StringBuilder header = new StringBuilder("{\"batchTags\":{");
+        boolean first = true;
+        for (Map.Entry<AttributeKey<?>, Object> entry : shared.entrySet()) {
+            if (!first) {
+                header.append(',');
+            }
+            first = false;
+            header.append('"').append(JsonEscaper.jsonEscape(entry.getKey().getKey())).append("\":\"")
+                    .append(JsonEscaper.jsonEscape(String.valueOf(entry.getValue()))).append('"');
+        }
+        return header.append("}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+}
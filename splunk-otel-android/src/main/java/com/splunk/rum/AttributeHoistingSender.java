@@ -0,0 +1,102 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import zipkin2.Call;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * Puts the batch header prepared by the {@link AttributeHoistingExporter} in front of the spans
+ * it sends.
+ */
+class AttributeHoistingSender extends Sender {
+    private static final byte[] BATCH_HEADER_PREFIX = "{\"batchTags\":".getBytes(StandardCharsets.UTF_8);
+
+    private final Sender delegate;
+    //only set during AttributeHoistingExporter.export(), which holds the exporter's lock: spans
+    //can be exported from several threads (e.g. the spill of a failed upload, or a flush).
+    private byte[] batchHeader;
+
+    AttributeHoistingSender(Sender delegate) {
+        this.delegate = delegate;
+    }
+
+    void setBatchHeader(byte[] batchHeader) {
+        this.batchHeader = batchHeader;
+    }
+
+    static boolean isBatchHeader(byte[] encodedSpan) {
+        if (encodedSpan.length < BATCH_HEADER_PREFIX.length) {
+            return false;
+        }
+        for (int i = 0; i < BATCH_HEADER_PREFIX.length; i++) {
+            if (encodedSpan[i] != BATCH_HEADER_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Encoding encoding() {
+        return delegate.encoding();
+    }
+
+    @Override
+    public int messageMaxBytes() {
+        return delegate.messageMaxBytes();
+    }
+
+    @Override
+    public int messageSizeInBytes(List<byte[]> encodedSpans) {
+        return delegate.messageSizeInBytes(encodedSpans);
+    }
+
+    @Override
+    public int messageSizeInBytes(int encodedSizeInBytes) {
+        return delegate.messageSizeInBytes(encodedSizeInBytes);
+    }
+
+    @Override
+    public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+        byte[] header = batchHeader;
+        if (header == null || encodedSpans.isEmpty()) {
+            return delegate.sendSpans(encodedSpans);
+        }
+        List<byte[]> withHeader = new ArrayList<>(encodedSpans.size() + 1);
+        withHeader.add(header);
+        withHeader.addAll(encodedSpans);
+        return delegate.sendSpans(withHeader);
+    }
+
+    @Override
+    public CheckResult check() {
+        return delegate.check();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Fills in the RUM attributes of the spans whose enrichment was deferred by the
+ * {@link RumAttributeAppender}, before handing them on. This wraps the whole export chain, so that
+ * filtering and throttling see the same attributes as they would otherwise.
+ */
+class AttributeMaterializingExporter implements SpanExporter {
+    private final SpanExporter delegate;
+    private final RumAttributeAppender attributeAppender;
+
+    AttributeMaterializingExporter(SpanExporter delegate, RumAttributeAppender attributeAppender) {
+        this.delegate = delegate;
+        this.attributeAppender = attributeAppender;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        List<SpanData> materialized = new ArrayList<>(spans.size());
+        for (SpanData span : spans) {
+            materialized.add(attributeAppender.materialize(span));
+        }
+        return delegate.export(materialized);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+}
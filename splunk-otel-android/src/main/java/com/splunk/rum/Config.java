@@ -18,7 +18,10 @@ package com.splunk.rum;
 
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
 import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -38,6 +41,8 @@ public class Config {
 
     public static final boolean DEFAULT_ENABLE_SLOW_RENDERING_DETECTION = true;
     public static final Duration DEFAULT_SLOW_RENDER_POLLING_INTERVAL = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MAIN_THREAD_BUDGET = Duration.ofMillis(2);
+    public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 2;
     private final String beaconEndpoint;
     private final String rumAccessToken;
     private final boolean debugEnabled;
@@ -50,6 +55,17 @@ public class Config {
     private final boolean slowRenderingDetectionEnabled;
     private final Duration slowRenderPollingDuration;
     private final boolean diskBufferingEnabled;
+    private final boolean deferredInitializationEnabled;
+    private final boolean memorySamplingEnabled;
+    private final boolean compactLifecycleEventsEnabled;
+    private final boolean deferredAttributeEnrichmentEnabled;
+    private final boolean batchAttributeHoistingEnabled;
+    private final boolean diskSpilloverEnabled;
+    private final Duration mainThreadBudget;
+    private final boolean mainThreadBudgetEnabled;
+    private final int maxConcurrentUploads;
+    @Nullable
+    private final ScheduledExecutorService scheduledExecutor;
 
     private Config(Builder builder) {
         this.beaconEndpoint = builder.beaconEndpoint;
@@ -64,6 +80,16 @@ public class Config {
         this.slowRenderingDetectionEnabled = builder.slowRenderingDetectionEnabled;
         this.spanFilterExporterDecorator = builder.spanFilterBuilder.build();
         this.diskBufferingEnabled = builder.diskBufferingEnabled;
+        this.deferredInitializationEnabled = builder.deferredInitializationEnabled;
+        this.memorySamplingEnabled = builder.memorySamplingEnabled;
+        this.compactLifecycleEventsEnabled = builder.compactLifecycleEventsEnabled;
+        this.deferredAttributeEnrichmentEnabled = builder.deferredAttributeEnrichmentEnabled;
+        this.batchAttributeHoistingEnabled = builder.batchAttributeHoistingEnabled;
+        this.diskSpilloverEnabled = builder.diskSpilloverEnabled;
+        this.mainThreadBudget = builder.mainThreadBudget;
+        this.mainThreadBudgetEnabled = builder.mainThreadBudgetEnabled;
+        this.maxConcurrentUploads = builder.maxConcurrentUploads;
+        this.scheduledExecutor = builder.scheduledExecutor;
     }
 
     private Attributes addDeploymentEnvironment(Builder builder) {
@@ -105,7 +131,8 @@ public class Config {
     }
 
     /**
-     * Is the crash-reporting feature enabled or not.
+     * Is the crash-reporting feature (which includes the reporting of processes killed by the
+     * system) enabled or not.
      */
     public boolean isCrashReportingEnabled() {
         return crashReportingEnabled;
@@ -179,6 +206,81 @@ public class Config {
         return diskBufferingEnabled;
     }
 
+    /**
+     * Is the deferred initialization mode enabled or not.
+     */
+    public boolean isDeferredInitializationEnabled() {
+        return deferredInitializationEnabled;
+    }
+
+    /**
+     * Is the memory sampling feature enabled or not.
+     */
+    public boolean isMemorySamplingEnabled() {
+        return memorySamplingEnabled;
+    }
+
+    /**
+     * Are the activity and fragment lifecycle callbacks recorded in compact form or not.
+     */
+    public boolean isCompactLifecycleEventsEnabled() {
+        return compactLifecycleEventsEnabled;
+    }
+
+    /**
+     * Are the RUM span attributes filled in on the export thread, rather than when the span starts.
+     */
+    public boolean isDeferredAttributeEnrichmentEnabled() {
+        return deferredAttributeEnrichmentEnabled;
+    }
+
+    /**
+     * Are the attributes shared by all the spans of a batch sent once per batch or not.
+     */
+    public boolean isBatchAttributeHoistingEnabled() {
+        return batchAttributeHoistingEnabled;
+    }
+
+    /**
+     * Are spans which can't be sent right away spilled over to local storage or not. Only used when
+     * disk buffering is disabled.
+     */
+    public boolean isDiskSpilloverEnabled() {
+        return diskSpilloverEnabled;
+    }
+
+    /**
+     * The time the lifecycle instrumentation may spend on the main thread per frame, before it
+     * degrades to doing the least work possible.
+     */
+    public Duration getMainThreadBudget() {
+        return mainThreadBudget;
+    }
+
+    /**
+     * Does the lifecycle instrumentation degrade once it exceeds its main thread budget or not.
+     */
+    public boolean isMainThreadBudgetEnabled() {
+        return mainThreadBudgetEnabled;
+    }
+
+    /**
+     * The number of requests which may be in flight at the same time, when sending the telemetry
+     * buffered in local storage.
+     */
+    public int getMaxConcurrentUploads() {
+        return maxConcurrentUploads;
+    }
+
+    /**
+     * The executor which runs the background work of the library, or null if the library
+     * creates its own.
+     */
+    @Nullable
+    public ScheduledExecutorService getScheduledExecutor() {
+        return scheduledExecutor;
+    }
+
     /**
      * Builder class for the Splunk RUM {@link Config} class.
      */
@@ -187,6 +289,13 @@ public class Config {
         private boolean anrDetectionEnabled = true;
         private boolean slowRenderingDetectionEnabled = DEFAULT_ENABLE_SLOW_RENDERING_DETECTION;
         private boolean diskBufferingEnabled = false;
+        private boolean deferredInitializationEnabled = false;
+        private boolean memorySamplingEnabled = false;
+        private boolean compactLifecycleEventsEnabled = false;
+        private boolean deferredAttributeEnrichmentEnabled = false;
+        private boolean batchAttributeHoistingEnabled = false;
+        private boolean diskSpilloverEnabled = false;
+        private ScheduledExecutorService scheduledExecutor;
         private String beaconEndpoint;
         private String rumAccessToken;
         private boolean debugEnabled = false;
@@ -197,6 +306,9 @@ public class Config {
         private final SpanFilterBuilder spanFilterBuilder = new SpanFilterBuilder();
         private String realm;
         private Duration slowRenderPollingDuration = DEFAULT_SLOW_RENDER_POLLING_INTERVAL;
+        private Duration mainThreadBudget = DEFAULT_MAIN_THREAD_BUDGET;
+        private boolean mainThreadBudgetEnabled = true;
+        private int maxConcurrentUploads = DEFAULT_MAX_CONCURRENT_UPLOADS;
 
         /**
          * Create a new instance of {@link Config} from the options provided.
@@ -274,8 +386,39 @@ public class Config {
             return this;
         }
 
+        /**
+         * Enable/disable the deferred initialization mode. Disabled by default.
+         * <p>
+         * When enabled, {@link SplunkRum#initialize} only installs the activity lifecycle callbacks
+         * and the crash handler on the calling thread, and builds everything else (the exporter,
+         * network monitoring, ANR detection, ...) on a background thread. Spans which end before
+         * that has completed are buffered, and exported afterwards.
+         *
+         * @return this
+         */
+        public Builder deferredInitializationEnabled(boolean enable) {
+            this.deferredInitializationEnabled = enable;
+            return this;
+        }
+
+        /**
+         * Provide the executor which will run the background work of the library: span export, ANR
+         * detection, slow rendering detection, and so on. By default, the library uses its own
+         * executor, with two low-priority daemon threads. The upload of disk-buffered spans, which
+         * may block for a while, always runs on a thread of its own.
+         *
+         * @return this
+         */
+        public Builder scheduledExecutor(ScheduledExecutorService scheduledExecutor) {
+            this.scheduledExecutor = scheduledExecutor;
+            return this;
+        }
+
         /**
          * Enable/disable the crash reporting feature. Enabled by default.
+         * <p>
+         * This also controls the reporting of the processes killed by the system (ANRs, low memory
+         * kills, ...) on Android 11 (API 30) and later, which are reported on the next launch.
          *
          * @return this
          */
@@ -316,6 +459,81 @@ public class Config {
             return this;
         }
 
+        /**
+         * Enable/disable the memory sampling feature. Disabled by default, since it adds work every
+         * few seconds while the application is in the foreground; enable it with
+         * {@code memorySamplingEnabled(true)}. If enabled, the memory usage of the application (java
+         * and native heap, garbage collections) is sampled every few seconds while it is in the
+         * foreground, and reported per screen.
+         *
+         * @return this.
+         */
+        public Builder memorySamplingEnabled(boolean enable) {
+            this.memorySamplingEnabled = enable;
+            return this;
+        }
+
+        /**
+         * Enable/disable the compact recording of lifecycle callbacks. Disabled by default.
+         * <p>
+         * By default, every activity and fragment lifecycle callback is recorded as an event on
+         * its lifecycle span. If enabled, the callbacks are instead encoded into a single
+         * {@code lifecycle.events} attribute, holding the name of each callback and its offset
+         * from the start of the span, in microseconds. This is cheaper on the main thread and
+         * makes for smaller payloads.
+         *
+         * @return this.
+         */
+        public Builder compactLifecycleEventsEnabled(boolean enable) {
+            this.compactLifecycleEventsEnabled = enable;
+            return this;
+        }
+
+        /**
+         * Enable/disable filling in the RUM span attributes on the export thread. Disabled by default.
+         * <p>
+         * By default, the session, screen, network, device and global attributes are added to every
+         * span when it starts, on the thread that starts it (often the main thread). If enabled,
+         * the span only records a reference to the current values when it starts, and the
+         * attributes are added when the span is exported. The exported spans are the same either way.
+         *
+         * @return this.
+         */
+        public Builder deferredAttributeEnrichmentEnabled(boolean enable) {
+            this.deferredAttributeEnrichmentEnabled = enable;
+            return this;
+        }
+
+        /**
+         * Enable/disable sending the attributes which are the same in every span of a batch (app,
+         * session, device, OS, global attributes...) once per batch. Disabled by default.
+         * <p>
+         * Zipkin has no batch-level attributes, so they are sent in a header element at the start
+         * of the span list. Only enable this if your ingest endpoint supports it.
+         *
+         * @return this.
+         */
+        public Builder batchAttributeHoistingEnabled(boolean enable) {
+            this.batchAttributeHoistingEnabled = enable;
+            return this;
+        }
+
+        /**
+         * Enable/disable spilling telemetry over to local storage when it can't be sent right away.
+         * Disabled by default, and ignored if disk buffering is enabled.
+         * <p>
+         * Telemetry is kept in memory and sent while the network is up. It is only written to
+         * local storage when the network is offline, when an export fails, and when the app goes
+         * to the background or the system asks it to trim its memory, so that it survives the
+         * process being killed without paying for flash writes in the common case.
+         *
+         * @return this.
+         */
+        public Builder diskSpilloverEnabled(boolean enable) {
+            this.diskSpilloverEnabled = enable;
+            return this;
+        }
+
         /**
          * Configures the rate at which frame render durations are polled.
          * @param interval - The period that should be used for polling
@@ -330,6 +548,60 @@ public class Config {
             return this;
         }
 
+        /**
+         * Configures the time the activity and fragment lifecycle instrumentation may spend on the
+         * main thread per frame. The default is 2ms. If the budget is exceeded repeatedly (after
+         * the first few seconds, which are spent starting up), the instrumentation degrades for the
+         * rest of the process: the RUM span attributes are filled in as if
+         * {@link #deferredAttributeEnrichmentEnabled(boolean)} were enabled. The exported spans stay
+         * the same.
+         * <p>
+         * The time actually spent is reported in the {@code splunk.rum.sdk.stats} span.
+         *
+         * @return this
+         */
+        public Builder mainThreadBudget(Duration budget) {
+            if (budget.isNegative() || budget.isZero()) {
+                Log.e(SplunkRum.LOG_TAG, "invalid mainThreadBudget: " + budget + " is not positive");
+                return this;
+            }
+            this.mainThreadBudget = budget;
+            return this;
+        }
+
+        /**
+         * Enable/disable the main thread budget of the lifecycle instrumentation (see
+         * {@link #mainThreadBudget(Duration)}). Enabled by default. When disabled, the time spent
+         * on the main thread is still measured and reported, but the instrumentation never
+         * degrades.
+         *
+         * @return this
+         */
+        public Builder mainThreadBudgetEnabled(boolean enable) {
+            this.mainThreadBudgetEnabled = enable;
+            return this;
+        }
+
+        /**
+         * Configures the number of requests which may be in flight at the same time when sending
+         * the telemetry buffered in local storage, with disk buffering or spillover enabled. The
+         * default is 2. Small files are merged into larger requests either way.
+         * <p>
+         * With more than one request in flight, spans may be delivered out of order: if a request
+         * fails while a later one succeeds, the failed one is retried after the later one has been
+         * delivered. Use 1 to keep the spans in the order they were recorded.
+         *
+         * @return this
+         */
+        public Builder maxConcurrentUploads(int maxConcurrentUploads) {
+            if (maxConcurrentUploads <= 0) {
+                Log.e(SplunkRum.LOG_TAG, "invalid maxConcurrentUploads: " + maxConcurrentUploads + " is not positive");
+                return this;
+            }
+            this.maxConcurrentUploads = maxConcurrentUploads;
+            return this;
+        }
+
         /**
          * Provide a set of global {@link Attributes} that will be applied to every span generated
          * by the RUM instrumentation.
@@ -25,6 +25,8 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 //note: based on ideas from stack overflow: https://stackoverflow.com/questions/32547006/connectivitymanager-getnetworkinfoint-deprecated
@@ -36,7 +38,7 @@ class ConnectionUtil {
     private final NetworkDetector networkDetector;
 
     private volatile CurrentNetwork currentNetwork;
-    private volatile ConnectionStateListener connectionStateListener;
+    private final List<ConnectionStateListener> connectionStateListeners = new CopyOnWriteArrayList<>();
 
     ConnectionUtil(NetworkDetector networkDetector) {
         this.networkDetector = networkDetector;
@@ -91,8 +93,12 @@ class ConnectionUtil {
         return currentNetwork;
     }
 
-    void setInternetStateListener(ConnectionStateListener listener) {
-        connectionStateListener = listener;
+    void addConnectionStateListener(ConnectionStateListener listener) {
+        connectionStateListeners.add(listener);
+    }
+
+    void removeConnectionStateListener(ConnectionStateListener listener) {
+        connectionStateListeners.remove(listener);
     }
 
     private class ConnectionMonitor extends ConnectivityManager.NetworkCallback {
@@ -101,10 +107,10 @@ class ConnectionUtil {
         public void onAvailable(@NonNull Network network) {
             Log.d(SplunkRum.LOG_TAG, "onAvailable: ");
             CurrentNetwork activeNetwork = refreshNetworkStatus();
-            if (connectionStateListener != null) {
-                connectionStateListener.onAvailable(true, activeNetwork);
-                Log.d(SplunkRum.LOG_TAG, "  onAvailable: isConnected:" + isOnline() + ", activeNetwork: " + activeNetwork);
+            for (ConnectionStateListener listener : connectionStateListeners) {
+                listener.onAvailable(true, activeNetwork);
             }
+            Log.d(SplunkRum.LOG_TAG, "  onAvailable: isConnected:" + isOnline() + ", activeNetwork: " + activeNetwork);
         }
 
         @Override
@@ -115,10 +121,10 @@ class ConnectionUtil {
             //state at the right time during this event.
             CurrentNetwork activeNetwork = NO_NETWORK;
             currentNetwork = activeNetwork;
-            if (connectionStateListener != null) {
-                connectionStateListener.onAvailable(false, activeNetwork);
-                Log.d(SplunkRum.LOG_TAG, "  onLost: isConnected:" + false + ", activeNetwork: " + activeNetwork);
+            for (ConnectionStateListener listener : connectionStateListeners) {
+                listener.onAvailable(false, activeNetwork);
             }
+            Log.d(SplunkRum.LOG_TAG, "  onLost: isConnected:" + false + ", activeNetwork: " + activeNetwork);
         }
     }
 }
\ No newline at end of file
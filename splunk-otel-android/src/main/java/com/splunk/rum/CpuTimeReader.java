@@ -0,0 +1,145 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.os.Process;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Reads the CPU time used by the process and by its main thread.
+ * <p>
+ * The main thread's time comes from {@code /proc/self/task/<pid>/stat}. The file is kept open and
+ * re-read into the same buffer, so that a read doesn't allocate anything. Not thread-safe: it's
+ * meant to be used from the main thread only.
+ */
+class CpuTimeReader {
+    private static final long DEFAULT_CLOCK_TICKS_PER_SECOND = 100;
+    // the utime and stime fields, counted from the field after the process name.
+    private static final int USER_TIME_FIELD = 11;
+    private static final int SYSTEM_TIME_FIELD = 12;
+
+    private final String mainThreadStatPath;
+    private final long clockTicksPerSecond;
+    private final byte[] buffer = new byte[512];
+    private RandomAccessFile mainThreadStat;
+    private boolean mainThreadStatUnavailable;
+
+    CpuTimeReader() {
+        //the main thread's tid is the same as the pid.
+        this("/proc/self/task/" + Process.myPid() + "/stat", readClockTicksPerSecond());
+    }
+
+    // exists for testing
+    CpuTimeReader(String mainThreadStatPath, long clockTicksPerSecond) {
+        this.mainThreadStatPath = mainThreadStatPath;
+        this.clockTicksPerSecond = clockTicksPerSecond;
+    }
+
+    private static long readClockTicksPerSecond() {
+        try {
+            long ticks = Os.sysconf(OsConstants._SC_CLK_TCK);
+            return ticks > 0 ? ticks : DEFAULT_CLOCK_TICKS_PER_SECOND;
+        } catch (RuntimeException e) {
+            return DEFAULT_CLOCK_TICKS_PER_SECOND;
+        }
+    }
+
+    long getProcessCpuTimeMillis() {
+        return Process.getElapsedCpuTime();
+    }
+
+    /**
+     * Returns the CPU time (user + system) used by the main thread, or -1 if it can't be read.
+     */
+    long getMainThreadCpuTimeMillis() {
+        if (mainThreadStatUnavailable) {
+            return -1;
+        }
+        try {
+            if (mainThreadStat == null) {
+                mainThreadStat = new RandomAccessFile(mainThreadStatPath, "r");
+            }
+            mainThreadStat.seek(0);
+            int length = readFully(mainThreadStat);
+            long ticks = parseCpuTicks(buffer, length);
+            return ticks < 0 ? -1 : ticks * 1000 / clockTicksPerSecond;
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to read the main thread CPU time, giving up", e);
+            mainThreadStatUnavailable = true;
+            return -1;
+        }
+    }
+
+    private int readFully(RandomAccessFile file) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = file.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    //visible for testing
+    static long parseCpuTicks(byte[] stat, int length) {
+        //the process name is in parentheses, and can contain spaces (and parentheses).
+        int position = -1;
+        for (int i = length - 1; i >= 0; i--) {
+            if (stat[i] == ')') {
+                position = i + 1;
+                break;
+            }
+        }
+        if (position < 0) {
+            return -1;
+        }
+        long userTime = -1;
+        int field = -1;
+        while (position < length) {
+            while (position < length && stat[position] == ' ') {
+                position++;
+            }
+            if (position >= length) {
+                break;
+            }
+            field++;
+            if (field == USER_TIME_FIELD || field == SYSTEM_TIME_FIELD) {
+                long value = 0;
+                while (position < length && stat[position] >= '0' && stat[position] <= '9') {
+                    value = value * 10 + (stat[position++] - '0');
+                }
+                if (field == SYSTEM_TIME_FIELD) {
+                    return userTime + value;
+                }
+                userTime = value;
+            }
+            while (position < length && stat[position] != ' ') {
+                position++;
+            }
+        }
+        return -1;
+    }
+}
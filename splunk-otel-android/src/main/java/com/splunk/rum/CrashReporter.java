@@ -16,23 +16,37 @@
 
 package com.splunk.rum;
 
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+import static java.util.Collections.singletonList;
+
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
 
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadableSpan;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.DelegatingSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
 class CrashReporter {
+    //the crashing thread will wait at most this long for the crash span to be written to storage.
+    static final long CRASH_SPAN_WRITE_TIMEOUT_MILLIS = 1000;
 
-    static void initializeCrashReporting(Tracer tracer, OpenTelemetrySdk openTelemetrySdk) {
+    static void initializeCrashReporting(Tracer tracer, OpenTelemetrySdk openTelemetrySdk, SpanExporter crashSpanExporter) {
         Thread.UncaughtExceptionHandler existingHandler = Thread.getDefaultUncaughtExceptionHandler();
-        Thread.setDefaultUncaughtExceptionHandler(new CrashReportingExceptionHandler(tracer, openTelemetrySdk.getSdkTracerProvider(), existingHandler));
+        Thread.setDefaultUncaughtExceptionHandler(new CrashReportingExceptionHandler(tracer, openTelemetrySdk.getSdkTracerProvider(), crashSpanExporter, existingHandler));
     }
 
     //visible for testing
@@ -40,11 +54,13 @@ class CrashReporter {
         private final Tracer tracer;
         private final Thread.UncaughtExceptionHandler existingHandler;
         private final SdkTracerProvider sdkTracerProvider;
+        private final SpanExporter crashSpanExporter;
 
-        CrashReportingExceptionHandler(Tracer tracer, SdkTracerProvider sdkTracerProvider, Thread.UncaughtExceptionHandler existingHandler) {
+        CrashReportingExceptionHandler(Tracer tracer, SdkTracerProvider sdkTracerProvider, SpanExporter crashSpanExporter, Thread.UncaughtExceptionHandler existingHandler) {
             this.tracer = tracer;
             this.existingHandler = existingHandler;
             this.sdkTracerProvider = sdkTracerProvider;
+            this.crashSpanExporter = crashSpanExporter;
         }
 
         @Override
@@ -60,13 +76,64 @@ class CrashReporter {
                     .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_CRASH)
                     .startSpan();
             SplunkRum.addExceptionAttributes(span, e);
-            span.setStatus(StatusCode.ERROR).end();
-            //do our best to make sure the crash makes it out of the VM
+            span.setStatus(StatusCode.ERROR);
+            //the persisted span will be sent on the next launch, so it must not also go through the
+            // BatchSpanProcessor, which is why we only end it if persisting fails.
+            if (!persistCrashSpan(span)) {
+                span.end();
+            }
+            //do our best to make sure the crash (or the spans that were queued before it) makes it out of the VM
             sdkTracerProvider.forceFlush();
             //preserve any existing behavior:
             if (existingHandler != null) {
                 existingHandler.uncaughtException(t, e);
             }
         }
+
+        private boolean persistCrashSpan(Span span) {
+            if (!(span instanceof ReadableSpan)) {
+                return false;
+            }
+            SpanData spanData = new EndedSpanData(((ReadableSpan) span).toSpanData(), Clock.getDefault().now());
+            CompletableResultCode result = new CompletableResultCode();
+            //write from a separate thread, so a slow disk can't hold the crashing thread hostage.
+            Thread writer = new Thread(() -> {
+                try {
+                    CompletableResultCode exportResult = crashSpanExporter.export(singletonList(spanData));
+                    exportResult.whenComplete(() -> {
+                        if (exportResult.isSuccess()) {
+                            result.succeed();
+                        } else {
+                            result.fail();
+                        }
+                    });
+                } catch (Throwable throwable) {
+                    Log.w(LOG_TAG, "Failed to persist the crash span", throwable);
+                    result.fail();
+                }
+            }, "splunk-rum-crash-writer");
+            writer.setDaemon(true);
+            writer.start();
+            return result.join(CRASH_SPAN_WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess();
+        }
+    }
+
+    private static class EndedSpanData extends DelegatingSpanData {
+        private final long endEpochNanos;
+
+        private EndedSpanData(SpanData delegate, long endEpochNanos) {
+            super(delegate);
+            this.endEpochNanos = endEpochNanos;
+        }
+
+        @Override
+        public long getEndEpochNanos() {
+            return endEpochNanos;
+        }
+
+        @Override
+        public boolean hasEnded() {
+            return true;
+        }
     }
 }
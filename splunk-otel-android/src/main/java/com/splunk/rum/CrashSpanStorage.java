@@ -0,0 +1,223 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+import static java.util.Collections.emptyList;
+
+import android.app.Application;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * A small, pre-allocated file that the crash handler writes the crash span into, synchronously, so
+ * that it survives the death of the process.
+ * <p>
+ * On the next launch, any crash data left behind by the previous process is moved into the spans
+ * directory, where it will be picked up and sent by the {@link DiskToZipkinExporter}. A crash that
+ * happens before the file has been allocated (e.g. early on, with deferred initialization) is
+ * written straight into the spans directory instead.
+ */
+class CrashSpanStorage {
+    // plenty of room for a crash span: attribute values (including the stack trace) are limited to 2048 chars.
+    static final int MAX_PAYLOAD_BYTES = 32 * 1024;
+    private static final int HEADER_BYTES = 4;
+    private static final String CRASH_FILE_NAME = "crash.span";
+
+    private final Application application;
+    private final FileUtils fileUtils;
+    private final Clock clock;
+    private volatile RandomAccessFile preallocatedFile;
+
+    CrashSpanStorage(Application application) {
+        this(application, new FileUtils(), Clock.systemDefaultZone());
+    }
+
+    // exists for testing
+    CrashSpanStorage(Application application, FileUtils fileUtils, Clock clock) {
+        this.application = application;
+        this.fileUtils = fileUtils;
+        this.clock = clock;
+    }
+
+    /**
+     * Moves any crash data persisted by a previous process into the spans directory, then
+     * pre-allocates the crash file for this process. This does file I/O, so don't call it from
+     * the main thread.
+     */
+    void recoverAndPreallocate() throws IOException {
+        File crashFile = getCrashFile();
+        if (crashFile.exists()) {
+            recoverPersistedSpans(crashFile);
+        }
+        RandomAccessFile file = new RandomAccessFile(crashFile, "rw");
+        file.setLength(HEADER_BYTES + MAX_PAYLOAD_BYTES);
+        file.seek(0);
+        file.writeInt(0);
+        file.getFD().sync();
+        preallocatedFile = file;
+    }
+
+    private void recoverPersistedSpans(File crashFile) throws IOException {
+        List<byte[]> encodedSpans = readPersistedSpans(crashFile);
+        if (encodedSpans.isEmpty()) {
+            return;
+        }
+        Log.i(LOG_TAG, "Recovering " + encodedSpans.size() + " crash span(s) from the previous run");
+        writeSpansFile(encodedSpans);
+    }
+
+    private void writeSpansFile(List<byte[]> encodedSpans) throws IOException {
+        File spansDirectory = FileUtils.getSpansDirectory(application);
+        if (!spansDirectory.exists() && !spansDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + spansDirectory + " for the crash spans");
+        }
+        fileUtils.writeAsLines(new File(spansDirectory, clock.millis() + ".spans"), encodedSpans);
+    }
+
+    //visible for testing
+    List<byte[]> readPersistedSpans(File crashFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(crashFile, "r")) {
+            if (file.length() < HEADER_BYTES) {
+                return emptyList();
+            }
+            int length = file.readInt();
+            if (length <= 0 || length > MAX_PAYLOAD_BYTES || length > file.length() - HEADER_BYTES) {
+                return emptyList();
+            }
+            byte[] payload = new byte[length];
+            file.readFully(payload);
+            return splitLines(payload);
+        }
+    }
+
+    private static List<byte[]> splitLines(byte[] payload) {
+        List<byte[]> result = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < payload.length; i++) {
+            if (payload[i] == '\n') {
+                if (i > lineStart) {
+                    result.add(Arrays.copyOfRange(payload, lineStart, i));
+                }
+                lineStart = i + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Synchronously writes the encoded spans into the pre-allocated crash file. The length header
+     * is written last, so a partially written payload will never be read back. If the file hasn't
+     * been allocated yet, the spans are written into a new file in the spans directory.
+     */
+    void persist(List<byte[]> encodedSpans) throws IOException {
+        RandomAccessFile file = preallocatedFile;
+        if (file == null) {
+            writeSpansFile(encodedSpans);
+            return;
+        }
+        int length = 0;
+        for (byte[] encodedSpan : encodedSpans) {
+            length += encodedSpan.length + 1;
+        }
+        if (length > MAX_PAYLOAD_BYTES) {
+            throw new IOException("Crash span payload of " + length + " bytes exceeds the limit of " + MAX_PAYLOAD_BYTES);
+        }
+        file.seek(HEADER_BYTES);
+        for (byte[] encodedSpan : encodedSpans) {
+            file.write(encodedSpan);
+            file.write('\n');
+        }
+        file.getFD().sync();
+        file.seek(0);
+        file.writeInt(length);
+        file.getFD().sync();
+    }
+
+    File getCrashFile() {
+        return new File(application.getApplicationContext().getFilesDir(), CRASH_FILE_NAME);
+    }
+
+    /**
+     * A zipkin {@link Sender} which writes into the pre-allocated crash file rather than the network.
+     */
+    Sender sender() {
+        return new CrashFileSender();
+    }
+
+    private class CrashFileSender extends Sender {
+        @Override
+        public Encoding encoding() {
+            return Encoding.JSON;
+        }
+
+        @Override
+        public int messageMaxBytes() {
+            return MAX_PAYLOAD_BYTES;
+        }
+
+        @Override
+        public int messageSizeInBytes(List<byte[]> encodedSpans) {
+            return encodedSpans.stream().reduce(0, (acc, cur) -> acc + cur.length + 1, Integer::sum);
+        }
+
+        @Override
+        public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+            return new PersistCall(encodedSpans);
+        }
+    }
+
+    private class PersistCall extends Call.Base<Void> {
+        private final List<byte[]> encodedSpans;
+
+        private PersistCall(List<byte[]> encodedSpans) {
+            this.encodedSpans = encodedSpans;
+        }
+
+        @Override
+        protected Void doExecute() throws IOException {
+            persist(encodedSpans);
+            return null;
+        }
+
+        @Override
+        protected void doEnqueue(Callback<Void> callback) {
+            try {
+                callback.onSuccess(doExecute());
+            } catch (IOException e) {
+                callback.onError(e);
+            }
+        }
+
+        @Override
+        public Call<Void> clone() {
+            return new PersistCall(encodedSpans);
+        }
+    }
+}
@@ -16,13 +16,28 @@
 
 package com.splunk.rum;
 
-import java.nio.charset.StandardCharsets;
+import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.DEVICE_MODEL_IDENTIFIER;
+import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.DEVICE_MODEL_NAME;
+import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.OS_NAME;
+import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.OS_TYPE;
+import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.OS_VERSION;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.NET_HOST_CONNECTION_SUBTYPE;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.NET_HOST_CONNECTION_TYPE;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import zipkin2.Annotation;
+import zipkin2.Endpoint;
 import zipkin2.Span;
 import zipkin2.codec.BytesEncoder;
 import zipkin2.codec.Encoding;
 import zipkin2.internal.JsonCodec;
+import zipkin2.internal.JsonEscaper;
 import zipkin2.internal.V2SpanWriter;
 import zipkin2.internal.WriteBuffer;
 
@@ -30,11 +45,47 @@ import zipkin2.internal.WriteBuffer;
  * We need a custom encoder to correct for the fact that the zipkin Span.Builder lowercases all Span names.
  * <p>
  * We do this by having the {@link RumAttributeAppender} add an additional attribute ({@link RumAttributeAppender#SPLUNK_OPERATION_KEY})
- * with the span name properly cased, then correcting the span name here at encoding time.
+ * with the span name properly cased, then writing that as the span name at encoding time.
+ * <p>
+ * The JSON is the same as zipkin's {@link V2SpanWriter} produces, but the names, tag keys and the
+ * values of low-cardinality tags are copied from an {@link EncodedStringCache} rather than being
+ * escaped and encoded again for every span.
  */
 class CustomZipkinEncoder implements BytesEncoder<Span> {
+    //tags whose values repeat from one span to the next.
+    static final Set<String> LOW_CARDINALITY_TAGS = new HashSet<>(Arrays.asList(
+            RumAttributeAppender.SPLUNK_OPERATION_KEY.getKey(),
+            RumAttributeAppender.APP_NAME_KEY.getKey(),
+            RumAttributeAppender.SESSION_ID_KEY.getKey(),
+            RumAttributeAppender.RUM_VERSION_KEY.getKey(),
+            SplunkRum.COMPONENT_KEY.getKey(),
+            SplunkRum.SCREEN_NAME_KEY.getKey(),
+            SplunkRum.LAST_SCREEN_NAME_KEY.getKey(),
+            DEVICE_MODEL_NAME.getKey(),
+            DEVICE_MODEL_IDENTIFIER.getKey(),
+            OS_NAME.getKey(),
+            OS_TYPE.getKey(),
+            OS_VERSION.getKey(),
+            NET_HOST_CONNECTION_TYPE.getKey(),
+            NET_HOST_CONNECTION_SUBTYPE.getKey(),
+            "otel.library.name",
+            "otel.library.version"));
+    private static final int INITIAL_BUFFER_SIZE = 1024;
 
     private final WriteBuffer.Writer<Span> writer = new V2SpanWriter();
+    private final EncodedStringCache cache;
+    //reused for every span, so the only allocation per span is the result.
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+
+    CustomZipkinEncoder() {
+        this(new EncodedStringCache());
+    }
+
+    // exists for testing
+    CustomZipkinEncoder(EncodedStringCache cache) {
+        this.cache = cache;
+    }
 
     @Override
     public Encoding encoding() {
@@ -47,15 +98,201 @@ class CustomZipkinEncoder implements BytesEncoder<Span> {
     }
 
     @Override
-    public byte[] encode(Span span) {
+    public synchronized byte[] encode(Span span) {
+        position = 0;
+        writeAscii("{\"traceId\":\"");
+        writeAscii(span.traceId());
+        writeByte('"');
+        if (span.parentId() != null) {
+            writeAscii(",\"parentId\":\"");
+            writeAscii(span.parentId());
+            writeByte('"');
+        }
+        writeAscii(",\"id\":\"");
+        writeAscii(span.id());
+        writeByte('"');
+        if (span.kind() != null) {
+            writeAscii(",\"kind\":\"");
+            writeAscii(span.kind().toString());
+            writeByte('"');
+        }
         String properSpanName = span.tags().get(RumAttributeAppender.SPLUNK_OPERATION_KEY.getKey());
+        String name = properSpanName != null ? properSpanName : span.name();
+        if (name != null) {
+            writeAscii(",\"name\":\"");
+            writeCached(name);
+            writeByte('"');
+        }
+        if (span.timestampAsLong() != 0L) {
+            writeAscii(",\"timestamp\":");
+            writeLong(span.timestampAsLong());
+        }
+        if (span.durationAsLong() != 0L) {
+            writeAscii(",\"duration\":");
+            writeLong(span.durationAsLong());
+        }
+        if (span.localEndpoint() != null) {
+            writeAscii(",\"localEndpoint\":");
+            writeEndpoint(span.localEndpoint());
+        }
+        if (span.remoteEndpoint() != null) {
+            writeAscii(",\"remoteEndpoint\":");
+            writeEndpoint(span.remoteEndpoint());
+        }
+        if (!span.annotations().isEmpty()) {
+            writeAscii(",\"annotations\":[");
+            List<Annotation> annotations = span.annotations();
+            for (int i = 0; i < annotations.size(); i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                Annotation annotation = annotations.get(i);
+                writeAscii("{\"timestamp\":");
+                writeLong(annotation.timestamp());
+                writeAscii(",\"value\":\"");
+                writeCached(annotation.value());
+                writeAscii("\"}");
+            }
+            writeByte(']');
+        }
+        if (!span.tags().isEmpty()) {
+            writeAscii(",\"tags\":{");
+            Iterator<Map.Entry<String, String>> tags = span.tags().entrySet().iterator();
+            while (tags.hasNext()) {
+                Map.Entry<String, String> tag = tags.next();
+                writeByte('"');
+                writeCached(tag.getKey());
+                writeAscii("\":\"");
+                if (LOW_CARDINALITY_TAGS.contains(tag.getKey())) {
+                    writeCached(tag.getValue());
+                } else {
+                    writeEscaped(tag.getValue());
+                }
+                writeByte('"');
+                if (tags.hasNext()) {
+                    writeByte(',');
+                }
+            }
+            writeByte('}');
+        }
+        if (Boolean.TRUE.equals(span.debug())) {
+            writeAscii(",\"debug\":true");
+        }
+        if (Boolean.TRUE.equals(span.shared())) {
+            writeAscii(",\"shared\":true");
+        }
+        writeByte('}');
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeEndpoint(Endpoint endpoint) {
+        writeByte('{');
+        boolean wroteField = false;
+        if (endpoint.serviceName() != null) {
+            writeAscii("\"serviceName\":\"");
+            writeCached(endpoint.serviceName());
+            writeByte('"');
+            wroteField = true;
+        }
+        if (endpoint.ipv4() != null) {
+            writeAscii(wroteField ? ",\"ipv4\":\"" : "\"ipv4\":\"");
+            writeAscii(endpoint.ipv4());
+            writeByte('"');
+            wroteField = true;
+        }
+        if (endpoint.ipv6() != null) {
+            writeAscii(wroteField ? ",\"ipv6\":\"" : "\"ipv6\":\"");
+            writeAscii(endpoint.ipv6());
+            writeByte('"');
+            wroteField = true;
+        }
+        if (endpoint.portAsInt() != 0) {
+            writeAscii(wroteField ? ",\"port\":" : "\"port\":");
+            writeLong(endpoint.portAsInt());
+        }
+        writeByte('}');
+    }
+
+    private void writeCached(String value) {
+        byte[] encoded = cache.get(value);
+        if (encoded == null) {
+            writeEscaped(value);
+            return;
+        }
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, buffer, position, encoded.length);
+        position += encoded.length;
+    }
+
+    //the same as WriteBuffer.writeUtf8: malformed surrogates are written as '?'.
+    private void writeEscaped(String value) {
+        CharSequence escaped = JsonEscaper.jsonEscape(value);
+        int length = escaped.length();
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = escaped.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(escaped.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, escaped.charAt(++i));
+                //4 bytes for the 2 chars, so the capacity ensured above is still enough.
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                buffer[position++] = '?';
+            }
+        }
+    }
+
+    private void writeAscii(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            writeByte('-');
+            if (value == Long.MIN_VALUE) {
+                writeAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        ensureCapacity(19);
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        //the digits were written backwards.
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void writeByte(char value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
 
-        //note: this can be optimized, if necessary. Let's keep it simple for now.
-        byte[] rawBytes = JsonCodec.write(this.writer, span);
-        String renamedResult = new String(rawBytes).replace(
-                "\"name\":\"" + span.name() + "\"",
-                "\"name\":\"" + properSpanName + "\"");
-        return renamedResult.getBytes(StandardCharsets.UTF_8);
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
     }
 
     @Override
@@ -0,0 +1,187 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.NET_HOST_CONNECTION_SUBTYPE;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.NET_HOST_CONNECTION_TYPE;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+/**
+ * Stands in for the exporting {@link SpanProcessor} while it is being built in the background, when
+ * deferred initialization is enabled. Spans ending in the meantime are buffered in a lock-free
+ * queue, and replayed into the real processor once {@link #start} is called.
+ * <p>
+ * The network isn't known until the background initialization has completed, so spans which were
+ * started before that are given the network attributes when they are handed to the real processor.
+ */
+class DeferredSpanProcessor implements SpanProcessor {
+    //the same as the default queue size of the BatchSpanProcessor.
+    static final int MAX_BUFFERED_SPANS = 2048;
+
+    private final Queue<ReadableSpan> bufferedSpans = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedSpanCount = new AtomicInteger();
+    private volatile SpanProcessor delegate;
+    private volatile ConnectionUtil connectionUtil;
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanProcessor delegate = this.delegate;
+        if (delegate != null) {
+            delegate.onEnd(withNetworkAttributes(span));
+            return;
+        }
+        if (bufferedSpanCount.incrementAndGet() > MAX_BUFFERED_SPANS) {
+            bufferedSpanCount.decrementAndGet();
+            return;
+        }
+        bufferedSpans.offer(span);
+        //we might have raced with start(), which would leave this span behind in the buffer.
+        if (this.delegate != null) {
+            replayBufferedSpans();
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * Switches over to the real span processor, replaying any spans that ended before now.
+     */
+    void start(SpanProcessor delegate, ConnectionUtil connectionUtil) {
+        this.connectionUtil = connectionUtil;
+        this.delegate = delegate;
+        replayBufferedSpans();
+    }
+
+    private void replayBufferedSpans() {
+        ReadableSpan span;
+        while ((span = bufferedSpans.poll()) != null) {
+            bufferedSpanCount.decrementAndGet();
+            delegate.onEnd(withNetworkAttributes(span));
+        }
+    }
+
+    private ReadableSpan withNetworkAttributes(ReadableSpan span) {
+        //spans with deferred attributes get their network when they're exported.
+        if (span.getAttribute(NET_HOST_CONNECTION_TYPE) != null || span.getAttribute(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY) != null) {
+            return span;
+        }
+        return new NetworkAttributesSpan(span, connectionUtil.getActiveNetwork());
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        SpanProcessor delegate = this.delegate;
+        return delegate == null ? CompletableResultCode.ofSuccess() : delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        SpanProcessor delegate = this.delegate;
+        return delegate == null ? CompletableResultCode.ofSuccess() : delegate.forceFlush();
+    }
+
+    //visible for testing
+    int getBufferedSpanCount() {
+        return bufferedSpanCount.get();
+    }
+
+    private static class NetworkAttributesSpan implements ReadableSpan {
+        private final ReadableSpan delegate;
+        private final CurrentNetwork network;
+
+        private NetworkAttributesSpan(ReadableSpan delegate, CurrentNetwork network) {
+            this.delegate = delegate;
+            this.network = network;
+        }
+
+        @Override
+        public SpanData toSpanData() {
+            SpanData spanData = delegate.toSpanData();
+            AttributesBuilder attributes = spanData.getAttributes().toBuilder()
+                    .put(NET_HOST_CONNECTION_TYPE, network.getState().getHumanName());
+            network.getSubType().ifPresent(subType -> attributes.put(NET_HOST_CONNECTION_SUBTYPE, subType));
+            return new ModifiedSpanData(spanData, attributes.build());
+        }
+
+        @Override
+        public <T> T getAttribute(AttributeKey<T> key) {
+            return toSpanData().getAttributes().get(key);
+        }
+
+        @Override
+        public SpanContext getSpanContext() {
+            return delegate.getSpanContext();
+        }
+
+        @Override
+        public SpanContext getParentSpanContext() {
+            return delegate.getParentSpanContext();
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+            return delegate.getInstrumentationLibraryInfo();
+        }
+
+        @Override
+        public boolean hasEnded() {
+            return delegate.hasEnded();
+        }
+
+        @Override
+        public long getLatencyNanos() {
+            return delegate.getLatencyNanos();
+        }
+
+        @Override
+        public SpanKind getKind() {
+            return delegate.getKind();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * Spills the spans waiting for export over to local storage when the app goes to the background or
+ * the system asks it to trim its memory, when the process is most likely to be killed.
+ */
+class DiskSpilloverTrigger implements AppStateListener, ComponentCallbacks2 {
+    private final MemoryBufferingExporter exporter;
+    private final SpanProcessor exportingSpanProcessor;
+
+    DiskSpilloverTrigger(MemoryBufferingExporter exporter, SpanProcessor exportingSpanProcessor) {
+        this.exporter = exporter;
+        this.exportingSpanProcessor = exportingSpanProcessor;
+    }
+
+    @Override
+    public void appForegrounded() {
+    }
+
+    @Override
+    public void appBackgrounded() {
+        spill();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            spill();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    //the flush runs on the export thread, and ends the spill once everything queued is written out.
+    private void spill() {
+        exporter.requestSpill();
+        exportingSpanProcessor.forceFlush();
+    }
+}
@@ -5,126 +5,422 @@ import static java.util.Collections.emptyList;
 
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
-import zipkin2.Call;
+import zipkin2.Callback;
 import zipkin2.reporter.Sender;
 
 /**
  * An exporter that pulls pre-encoded zipkin spans from storage and sends them
  * via a sender. It is bandwidth sensitive and will throttle back if the limit
  * is exceeded.
+ * <p>
+ * Small files are merged into one request, and a few requests may be in flight at the same time,
+ * so that a large backlog doesn't take one round trip per file to drain.
+ * <p>
+ * Once started, it doesn't poll: it drains the directory when new spans are written
+ * ({@link #requestExport()}) and when the network becomes available, plus once every
+ * {@link #SAFETY_NET_INTERVAL_MINUTES} minutes in case something was missed. When uploads fail, it
+ * backs off exponentially (see {@link ExportBackoff}) until an upload succeeds or the network
+ * becomes available again.
+ * <p>
+ * An exporter built with {@link Builder#stopWhenDrained} stops itself once the directory is
+ * empty, e.g. when it only has to send the crash spans of the previous run.
+ * <p>
+ * Delivery is at-least-once: a file is only deleted once the beacon has accepted its spans. Files
+ * which keep failing are eventually set aside (see {@link SpanFileRetries}).
  */
 class DiskToZipkinExporter {
 
     static final double DEFAULT_MAX_UNCOMPRESSED_BANDWIDTH = 15.0 * 1024;
+    static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 2;
+    static final long REQUEST_TIMEOUT_MILLIS = 30_000;
+    static final long SAFETY_NET_INTERVAL_MINUTES = 15;
+    //gathers the files written close together into one drain.
+    static final long DRAIN_DELAY_MILLIS = 1_000;
+    //for files left behind because of the bandwidth limit.
+    static final long FOLLOW_UP_DELAY_MILLIS = 5_000;
 
-    private final ScheduledExecutorService threadPool;
+    private final SdkScheduler scheduler;
     private final ConnectionUtil connectionUtil;
     private final Sender sender;
     private final File spanFilesPath;
     private final FileUtils fileUtils;
     private final BandwidthTracker bandwidthTracker;
     private final double bandwidthLimit;
+    //what the bandwidth limit allows between two follow-up cycles.
+    private final long maxMergedRequestBytes;
+    private final SdkStatsRecorder statsRecorder;
+    private final ExportBackoff backoff;
+    private final SpanFileRetries retries;
+    private final int maxInFlightRequests;
+    private final Semaphore inFlightRequests;
+    private final boolean stopWhenDrained;
+    private final ConnectionStateListener connectionStateListener = this::onConnectionStateChanged;
+    private final Set<File> inFlightFiles = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicBoolean cycleRunning = new AtomicBoolean();
+    private final AtomicBoolean exportRequested = new AtomicBoolean();
+    private final Object drainLock = new Object();
+    //guarded by drainLock: the next drain, until it starts.
+    private ScheduledFuture<?> scheduledDrain;
+    private volatile boolean started;
+    private volatile ScheduledFuture<?> polling;
 
     DiskToZipkinExporter(Builder builder) {
-        this.threadPool = builder.threadPool;
+        this.scheduler = builder.scheduler;
         this.connectionUtil = builder.connectionUtil;
         this.sender = builder.sender;
         this.spanFilesPath = builder.spanFilesPath;
         this.fileUtils = builder.fileUtils;
         this.bandwidthTracker = builder.bandwidthTracker;
         this.bandwidthLimit = builder.bandwidthLimit;
+        this.maxMergedRequestBytes = (long) (bandwidthLimit * FOLLOW_UP_DELAY_MILLIS / 1000);
+        this.statsRecorder = builder.statsRecorder;
+        this.backoff = builder.backoff;
+        this.retries = new SpanFileRetries(spanFilesPath, fileUtils);
+        this.maxInFlightRequests = builder.maxInFlightRequests;
+        this.inFlightRequests = new Semaphore(maxInFlightRequests);
+        this.stopWhenDrained = builder.stopWhenDrained;
     }
 
     void startPolling() {
-        threadPool.scheduleAtFixedRate(this::doExportCycle, 5, 5, TimeUnit.SECONDS);
+        started = true;
+        connectionUtil.addConnectionStateListener(connectionStateListener);
+        polling = scheduler.scheduleAtFixedRate(this::doExportCycle, SAFETY_NET_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        //for the files left behind by the previous run.
+        requestExport();
+    }
+
+    private void onConnectionStateChanged(boolean deviceIsOnline, CurrentNetwork currentNetwork) {
+        if (deviceIsOnline) {
+            backoff.reset();
+            requestExport();
+        }
+    }
+
+    /**
+     * Asks for the pending files to be sent soon, e.g. because new spans have been written. Requests
+     * made before the drain starts are served by the same drain.
+     */
+    void requestExport() {
+        scheduleDrain(Math.max(DRAIN_DELAY_MILLIS, backoff.getDelayMillis()));
+    }
+
+    private void scheduleDrain(long delayMillis) {
+        if (!started) {
+            return;
+        }
+        synchronized (drainLock) {
+            if (scheduledDrain != null) {
+                if (scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                    return;
+                }
+                scheduledDrain.cancel(false);
+            }
+            scheduledDrain = scheduler.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain() {
+        synchronized (drainLock) {
+            scheduledDrain = null;
+        }
+        doExportCycle();
     }
 
     //Visible for testing
     void doExportCycle() {
+        if (!cycleRunning.compareAndSet(false, true)) {
+            //the running cycle schedules another one when it's done.
+            exportRequested.set(true);
+            return;
+        }
+        long nextCycleDelay = -1;
         try {
-            exportPendingFiles();
+            exportRequested.set(false);
+            nextCycleDelay = exportPendingFiles();
         } catch (Exception e) {
             Log.w(LOG_TAG, "Error processing on-disk files", e);
+        } finally {
+            cycleRunning.set(false);
+        }
+        if (stopWhenDrained && started && isDrained()) {
+            Log.d(LOG_TAG, "All span files sent, stopping the exporter.");
+            stop();
+            return;
+        }
+        if (nextCycleDelay >= 0) {
+            scheduleDrain(nextCycleDelay);
+        }
+        if (exportRequested.getAndSet(false)) {
+            requestExport();
         }
     }
 
-    private void exportPendingFiles() throws IOException {
+    //returns the delay before the next cycle, or -1 if there is no need for one until something changes.
+    private long exportPendingFiles() throws IOException {
+        if (backoff.isBackingOff()) {
+            return backoff.getDelayMillis();
+        }
         if (!connectionUtil.refreshNetworkStatus().isOnline()) {
+            //the network coming back will trigger the next one.
             Log.i(SplunkRum.LOG_TAG, "Network offline, leaving spans on disk for for eventual export.");
-            return;
+            return -1;
         }
 
         List<File> pendingFiles = getPendingFiles();
         boolean sentAnything = false;
+        int handledFiles = 0;
+        AtomicBoolean requestFailed = new AtomicBoolean();
+        //consecutive files are merged into one request, as long as it stays under the sender's size limit and the bandwidth budget.
+        List<File> requestFiles = new ArrayList<>();
+        List<byte[]> requestSpans = new ArrayList<>();
+        boolean overBandwidthLimit = false;
         for (File file : pendingFiles) {
-
-            double sustainedRate = bandwidthTracker.totalSustainedRate();
-            if (sustainedRate > bandwidthLimit) {
-                Log.i(SplunkRum.LOG_TAG, String.format("Export rate %.2f exceeds limit of %.2f, backing off", sustainedRate, bandwidthLimit));
+            if (requestFailed.get()) {   // Don't bother trying any remaining files if a request failed.
+                break;
+            }
+            if (requestFiles.isEmpty() && isOverBandwidthLimit()) {
+                overBandwidthLimit = true;
                 break;
             }
 
-            boolean dataWasSent = handleFileOnDisk(file);
-            sentAnything |= dataWasSent;
-            if (!dataWasSent) {   // Don't bother trying any remaining files if this one failed.
+            List<byte[]> encodedSpans = readFileCompletely(file);
+            if (encodedSpans == null) {
+                //don't go on with a storage problem, but don't let the file block the others forever either.
+                retries.recordFailedAttempt(file);
                 break;
             }
+            if (encodedSpans.isEmpty()) {
+                fileUtils.safeDelete(file);
+                handledFiles++;
+                continue;
+            }
+            if (!requestFiles.isEmpty() && !canMerge(requestFiles, requestSpans, file, encodedSpans)) {
+                sentAnything |= send(requestFiles, requestSpans, requestFailed);
+                handledFiles += requestFiles.size();
+                requestFiles = new ArrayList<>();
+                requestSpans = new ArrayList<>();
+                if (requestFailed.get()) {
+                    break;
+                }
+                if (isOverBandwidthLimit()) {
+                    overBandwidthLimit = true;
+                    break;
+                }
+            }
+            requestFiles.add(file);
+            requestSpans.addAll(encodedSpans);
+        }
+        if (!requestFiles.isEmpty() && !requestFailed.get()) {
+            sentAnything |= send(requestFiles, requestSpans, requestFailed);
+            handledFiles += requestFiles.size();
         }
+        awaitInFlightRequests();
+        long nextCycleDelay = overBandwidthLimit ? FOLLOW_UP_DELAY_MILLIS : -1;
+        if (requestFailed.get()) {
+            backoff.onFailure();
+            nextCycleDelay = backoff.getDelayMillis();
+        } else if (sentAnything) {
+            backoff.onSuccess();
+        }
+
         if (!sentAnything) {
             bandwidthTracker.tick(emptyList());
         }
+        recordPendingFiles(pendingFiles.subList(handledFiles, pendingFiles.size()));
+        statsRecorder.setBandwidthRate(bandwidthTracker.totalSustainedRate());
+        return nextCycleDelay;
+    }
+
+    private boolean isOverBandwidthLimit() {
+        double sustainedRate = bandwidthTracker.totalSustainedRate();
+        if (sustainedRate > bandwidthLimit) {
+            Log.i(SplunkRum.LOG_TAG, String.format("Export rate %.2f exceeds limit of %.2f, backing off", sustainedRate, bandwidthLimit));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * A batch header applies to every span of its request, so files which start with one are always
+     * sent alone. So are files which failed before, so that a poison file can't make others fail.
+     * A merged request never goes over what the bandwidth limit allows between two follow-up
+     * cycles, so that a large backlog can't burst through the limit in one request.
+     */
+    private boolean canMerge(List<File> requestFiles, List<byte[]> requestSpans, File file, List<byte[]> encodedSpans) {
+        if (AttributeHoistingSender.isBatchHeader(requestSpans.get(0)) || AttributeHoistingSender.isBatchHeader(encodedSpans.get(0))) {
+            return false;
+        }
+        if (SpanFileRetries.getFailedAttempts(requestFiles.get(0)) > 0 || SpanFileRetries.getFailedAttempts(file) > 0) {
+            return false;
+        }
+        if (encodedSize(requestSpans) + encodedSize(encodedSpans) > maxMergedRequestBytes) {
+            return false;
+        }
+        List<byte[]> merged = new ArrayList<>(requestSpans.size() + encodedSpans.size());
+        merged.addAll(requestSpans);
+        merged.addAll(encodedSpans);
+        return sender.messageSizeInBytes(merged) <= sender.messageMaxBytes();
+    }
+
+    private static long encodedSize(List<byte[]> encodedSpans) {
+        long size = 0;
+        for (byte[] span : encodedSpans) {
+            size += span.length;
+        }
+        return size;
+    }
+
+    private void recordPendingFiles(List<File> pendingFiles) {
+        long bytes = 0;
+        for (File file : pendingFiles) {
+            bytes += fileUtils.getFileSize(file);
+        }
+        statsRecorder.setPendingFiles(pendingFiles.size(), bytes);
+    }
+
+    //files which are still being sent by a previous cycle are left alone.
+    private boolean isDrained() {
+        try {
+            return inFlightFiles.isEmpty() && getPendingFiles().isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     private List<File> getPendingFiles() throws IOException {
         return fileUtils.listFiles(spanFilesPath)
                 .filter(fileUtils::isRegularFile)
                 .filter(file -> file.toString().endsWith(".spans"))
+                .filter(file -> !inFlightFiles.contains(file))
                 .sorted(Comparator.comparing(File::getName))
                 .collect(Collectors.toList());
     }
 
-    private boolean handleFileOnDisk(File file) {
-        Log.d(LOG_TAG, "Reading file content for ingest: " + file);
-        List<byte[]> encodedSpans = readFileCompletely(file);
-        if(encodedSpans.isEmpty()) {
+    /**
+     * Sends the spans read from the files without waiting for the response, once there are fewer
+     * than maxInFlightRequests requests in flight. Requests are sent in file order, but may complete
+     * in any order. If no request completes within {@link #REQUEST_TIMEOUT_MILLIS}, the files are
+     * left for a later cycle.
+     * <p>
+     * Note: the files of a successful request are deleted even if an earlier request failed, so the
+     * earlier files are delivered after the later ones when they're retried. This ordering
+     * relaxation is documented on {@link Config.Builder#maxConcurrentUploads}; with a single request
+     * in flight, a failure stops the cycle before anything later is sent.
+     */
+    private boolean send(List<File> files, List<byte[]> encodedSpans, AtomicBoolean requestFailed) {
+        try {
+            if (!inFlightRequests.tryAcquire(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                Log.w(LOG_TAG, "Timed out waiting for a span file upload to complete");
+                requestFailed.set(true);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requestFailed.set(true);
             return false;
         }
-
+        if (requestFailed.get()) {
+            inFlightRequests.release();
+            return false;
+        }
+        Log.d(LOG_TAG, "Sending the content of " + files.size() + " file(s), " + encodedSpans.size() + " spans");
+        inFlightFiles.addAll(files);
+        bandwidthTracker.tick(encodedSpans);
         try {
-            bandwidthTracker.tick(encodedSpans);
-            Call<Void> httpCall = sender.sendSpans(encodedSpans);
-            httpCall.execute();
-            Log.d(LOG_TAG, "File content " + file + " successfully uploaded");
-            return true;
-        } catch (IOException e) {
+            sender.sendSpans(encodedSpans).enqueue(new Callback<Void>() {
+                @Override
+                public void onSuccess(Void value) {
+                    Log.d(LOG_TAG, "File content " + files + " successfully uploaded");
+                    requestCompleted(files, null);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    Log.w(LOG_TAG, "Error sending file content", t);
+                    requestFailed.set(true);
+                    requestCompleted(files, t);
+                }
+            });
+        } catch (RuntimeException e) {
             Log.w(LOG_TAG, "Error sending file content", e);
-            return false;
+            requestFailed.set(true);
+            requestCompleted(files, e);
+        }
+        return true;
+    }
+
+    //the files are only deleted once their spans have been accepted.
+    private void requestCompleted(List<File> files, Throwable error) {
+        try {
+            for (File file : files) {
+                if (error == null) {
+                    fileUtils.safeDelete(file);
+                } else if (SpanFileRetries.isCountedFailure(error)) {
+                    retries.recordFailedAttempt(file);
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.w(LOG_TAG, "Error handling sent span files", e);
+        } finally {
+            inFlightFiles.removeAll(files);
+            inFlightRequests.release();
         }
-        finally {
-            fileUtils.safeDelete(file);
+    }
+
+    //the cycles must not overlap, so wait for this one's requests to complete before returning.
+    private void awaitInFlightRequests() {
+        try {
+            if (inFlightRequests.tryAcquire(maxInFlightRequests, REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                inFlightRequests.release(maxInFlightRequests);
+            } else {
+                Log.w(LOG_TAG, "Timed out waiting for span file uploads to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    //returns null if the file can't be read.
+    @Nullable
     private List<byte[]> readFileCompletely(File file) {
         try {
             return fileUtils.readFileCompletely(file);
         } catch (IOException e) {
             Log.w(LOG_TAG, "Error reading span data from file " + file, e);
-            return emptyList();
+            return null;
         }
     }
 
     void stop() {
-        threadPool.shutdown();
+        started = false;
+        connectionUtil.removeConnectionStateListener(connectionStateListener);
+        //the scheduler is shared, so only stop our own tasks.
+        ScheduledFuture<?> polling = this.polling;
+        if (polling != null) {
+            polling.cancel(false);
+        }
+        synchronized (drainLock) {
+            if (scheduledDrain != null) {
+                scheduledDrain.cancel(false);
+                scheduledDrain = null;
+            }
+        }
     }
 
     static Builder builder() {
@@ -133,15 +429,19 @@ class DiskToZipkinExporter {
 
     static class Builder {
         private BandwidthTracker bandwidthTracker = new BandwidthTracker();
-        private ScheduledExecutorService threadPool = Executors.newSingleThreadScheduledExecutor();
+        private SdkScheduler scheduler;
         private Sender sender;
         private ConnectionUtil connectionUtil;
         private File spanFilesPath;
         private FileUtils fileUtils = new FileUtils();
         private double bandwidthLimit = DEFAULT_MAX_UNCOMPRESSED_BANDWIDTH;
+        private SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+        private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+        private ExportBackoff backoff = new ExportBackoff();
+        private boolean stopWhenDrained = false;
 
-        Builder threadPool(ScheduledExecutorService threadPool) {
-            this.threadPool = threadPool;
+        Builder scheduler(SdkScheduler scheduler) {
+            this.scheduler = scheduler;
             return this;
         }
 
@@ -175,6 +475,30 @@ class DiskToZipkinExporter {
             return this;
         }
 
+        Builder statsRecorder(SdkStatsRecorder statsRecorder) {
+            this.statsRecorder = statsRecorder;
+            return this;
+        }
+
+        Builder maxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        Builder backoff(ExportBackoff backoff) {
+            this.backoff = backoff;
+            return this;
+        }
+
+        /**
+         * Stops the exporter once it has sent all the files in the directory, rather than keep
+         * waiting for new ones.
+         */
+        Builder stopWhenDrained(boolean stopWhenDrained) {
+            this.stopWhenDrained = stopWhenDrained;
+            return this;
+        }
+
         DiskToZipkinExporter build() {
             return new DiskToZipkinExporter(this);
         }
@@ -0,0 +1,71 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import zipkin2.internal.JsonEscaper;
+
+/**
+ * A bounded, least-recently-used cache of strings in their JSON-escaped, UTF-8 encoded form. The
+ * same handful of values (session id, app name, screen names, device model...) is repeated in
+ * every span, so the encoder copies them from here rather than escaping and encoding them again.
+ * <p>
+ * Not thread-safe: it's owned by one {@link CustomZipkinEncoder}, which serializes access to it.
+ */
+class EncodedStringCache {
+    static final int DEFAULT_MAX_ENTRIES = 512;
+    //longer values, like stack traces, are unlikely to repeat.
+    static final int MAX_CACHED_LENGTH = 256;
+
+    private final Map<String, byte[]> entries;
+
+    EncodedStringCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    EncodedStringCache(int maxEntries) {
+        this.entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the escaped and encoded value, or null if it's too long to be worth caching.
+     */
+    byte[] get(String value) {
+        if (value.length() > MAX_CACHED_LENGTH) {
+            return null;
+        }
+        byte[] encoded = entries.get(value);
+        if (encoded == null) {
+            encoded = JsonEscaper.jsonEscape(value).toString().getBytes(StandardCharsets.UTF_8);
+            entries.put(value, encoded);
+        }
+        return encoded;
+    }
+
+    //visible for testing
+    int size() {
+        return entries.size();
+    }
+}
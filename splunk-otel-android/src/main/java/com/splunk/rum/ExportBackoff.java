@@ -0,0 +1,92 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.time.Clock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Exponential backoff, with jitter, for an exporter which keeps failing: the delay before the next
+ * attempt doubles with every failure, up to {@link #MAX_DELAY_MILLIS}, and a random part of it is
+ * added so that devices which started failing together don't all retry together.
+ * <p>
+ * A delay requested by the server (with {@code Retry-After}) is honored as well. It is kept apart
+ * from the exponential one, so that {@link #reset()} (e.g. on a connectivity flap) doesn't make the
+ * exporter retry before the server said it could.
+ */
+class ExportBackoff {
+    static final long INITIAL_DELAY_MILLIS = 5_000;
+    static final long MAX_DELAY_MILLIS = 30 * 60_000;
+
+    private final Clock clock;
+    private final DoubleSupplier random;
+    private int failures;
+    private long failureRetryMillis;
+    private long serverRetryMillis;
+
+    ExportBackoff() {
+        this(Clock.systemDefaultZone(), Math::random);
+    }
+
+    // exists for testing
+    ExportBackoff(Clock clock, DoubleSupplier random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    synchronized boolean isBackingOff() {
+        return clock.millis() < getNextAttemptMillis();
+    }
+
+    //how long until the next attempt, 0 if it can be made right away.
+    synchronized long getDelayMillis() {
+        return Math.max(0, getNextAttemptMillis() - clock.millis());
+    }
+
+    synchronized void onSuccess() {
+        reset();
+        serverRetryMillis = 0;
+    }
+
+    /**
+     * Waits between half of the current delay and the full delay before the next attempt, unless
+     * the server asked for a longer one.
+     */
+    synchronized void onFailure() {
+        failures++;
+        long delay = INITIAL_DELAY_MILLIS << Math.min(failures - 1, 20);
+        delay = Math.min(delay, MAX_DELAY_MILLIS);
+        long jitteredDelay = delay / 2 + (long) (random.getAsDouble() * (delay / 2));
+        failureRetryMillis = Math.max(failureRetryMillis, clock.millis() + jitteredDelay);
+    }
+
+    synchronized void retryAfter(long delayMillis) {
+        long delay = Math.min(Math.max(delayMillis, 0), MAX_DELAY_MILLIS);
+        serverRetryMillis = Math.max(serverRetryMillis, clock.millis() + delay);
+    }
+
+    //back to fast polling, e.g. when the network comes back, but still after the delay asked for by the server.
+    synchronized void reset() {
+        failures = 0;
+        failureRetryMillis = 0;
+    }
+
+    //visible for testing
+    synchronized long getNextAttemptMillis() {
+        return Math.max(failureRetryMillis, serverRetryMillis);
+    }
+}
@@ -62,6 +62,19 @@ class FileUtils {
         return file.isFile();
     }
 
+    long getFileSize(File file) {
+        return file.length();
+    }
+
+    //creates the destination directory if needed.
+    boolean moveTo(File file, File destination) {
+        File directory = destination.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            return false;
+        }
+        return file.renameTo(destination);
+    }
+
     void safeDelete(File file) {
         if(!file.delete()){
             Log.w(LOG_TAG, "Error deleting file " + file);
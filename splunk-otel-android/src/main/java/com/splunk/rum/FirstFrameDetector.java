@@ -0,0 +1,89 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+
+/**
+ * Notifies a callback once the first frame of an activity has been drawn.
+ * <p>
+ * The draw listener fires in the middle of the frame's traversal; the callback is posted to the
+ * front of the main thread's queue, so that it runs right after the frame has been handed over to
+ * the render thread.
+ */
+class FirstFrameDetector implements ViewTreeObserver.OnDrawListener {
+    private final View decorView;
+    private final Runnable onFirstFrame;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean drawn;
+
+    private FirstFrameDetector(View decorView, Runnable onFirstFrame) {
+        this.decorView = decorView;
+        this.onFirstFrame = onFirstFrame;
+    }
+
+    /**
+     * Returns false if the activity has no window to be drawn in.
+     */
+    static boolean register(Activity activity, Runnable onFirstFrame) {
+        Window window = activity.getWindow();
+        if (window == null) {
+            return false;
+        }
+        View decorView = window.getDecorView();
+        FirstFrameDetector detector = new FirstFrameDetector(decorView, onFirstFrame);
+        //before API 26, draw listeners added before the view is attached get lost.
+        if (decorView.isAttachedToWindow()) {
+            decorView.getViewTreeObserver().addOnDrawListener(detector);
+        } else {
+            decorView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+                @Override
+                public void onViewAttachedToWindow(View view) {
+                    view.getViewTreeObserver().addOnDrawListener(detector);
+                    view.removeOnAttachStateChangeListener(this);
+                }
+
+                @Override
+                public void onViewDetachedFromWindow(View view) {
+                    view.removeOnAttachStateChangeListener(this);
+                }
+            });
+        }
+        return true;
+    }
+
+    @Override
+    public void onDraw() {
+        if (drawn) {
+            return;
+        }
+        drawn = true;
+        handler.postAtFrontOfQueue(() -> {
+            //listeners can't be removed from within onDraw.
+            ViewTreeObserver viewTreeObserver = decorView.getViewTreeObserver();
+            if (viewTreeObserver.isAlive()) {
+                viewTreeObserver.removeOnDrawListener(this);
+            }
+            onFirstFrame.run();
+        });
+    }
+}
@@ -18,6 +18,8 @@ package com.splunk.rum;
 
 import androidx.fragment.app.Fragment;
 
+import java.util.function.BooleanSupplier;
+
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
@@ -30,9 +32,13 @@ class FragmentTracer {
     private final ActiveSpan activeSpan;
 
     FragmentTracer(Fragment fragment, Tracer tracer, VisibleScreenTracker visibleScreenTracker) {
+        this(fragment, tracer, visibleScreenTracker, () -> false);
+    }
+
+    FragmentTracer(Fragment fragment, Tracer tracer, VisibleScreenTracker visibleScreenTracker, BooleanSupplier compactLifecycleEvents) {
         this.tracer = tracer;
         this.fragmentName = fragment.getClass().getSimpleName();
-        this.activeSpan = new ActiveSpan(visibleScreenTracker);
+        this.activeSpan = new ActiveSpan(visibleScreenTracker, compactLifecycleEvents);
     }
 
     FragmentTracer startSpanIfNoneInProgress(String action) {
@@ -66,8 +72,13 @@ class FragmentTracer {
         return this;
     }
 
-    FragmentTracer addEvent(String eventName) {
-        activeSpan.addEvent(eventName);
+    FragmentTracer addCpuTimeAttributes() {
+        activeSpan.addCpuTimeAttributes(fragmentName);
+        return this;
+    }
+
+    FragmentTracer addEvent(LifecycleEvent event) {
+        activeSpan.addEvent(event);
         return this;
     }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+import static io.opentelemetry.api.common.AttributeKey.booleanKey;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+/**
+ * Keeps track of the screens that are being loaded, so that a time-to-full-display (TTFD) span
+ * can be created when the application reports that a screen has been fully drawn.
+ * <p>
+ * A screen starts loading with its {@code Created}, {@code Restarted} or {@code Restored} (or
+ * warm/hot {@code AppStart}) span, and stops when it's paused. Reports that come in while that span
+ * is still in progress (e.g. from {@code onCreate()}) are held until it ends, and the TTFD span then
+ * ends with it. Reports that come in after the {@link #TIMEOUT_NANOS timeout} produce a TTFD span
+ * that ends at the timeout, with {@link #TIMED_OUT_KEY} set, since the user has most likely been
+ * doing something else for a while.
+ * <p>
+ * Screens that have been reported as fully drawn before get the timed out span automatically when
+ * they aren't reported within the timeout. Other screens may not be reported by the application
+ * at all, so they don't.
+ */
+class FullyDrawnTracker implements SpanProcessor {
+    static final String TTFD_SPAN_NAME = "TTFD";
+    static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    static final AttributeKey<Boolean> TIMED_OUT_KEY = booleanKey("ttfd.timed_out");
+
+    //schedules the automatic timeouts; there are none without it.
+    @Nullable
+    private final SdkScheduler scheduler;
+    private final Clock clock;
+    private final Map<String, LoadingScreen> loadingScreens = new ConcurrentHashMap<>();
+    //reports made before the screen's load span ended.
+    private final Map<String, EarlyReport> earlyReports = new ConcurrentHashMap<>();
+    //the screens which the application reports, which are the ones that can time out.
+    private final Set<String> reportedScreens = ConcurrentHashMap.newKeySet();
+    private volatile Tracer tracer;
+
+    FullyDrawnTracker() {
+        this(null, Clock.getDefault());
+    }
+
+    FullyDrawnTracker(@Nullable SdkScheduler scheduler) {
+        this(scheduler, Clock.getDefault());
+    }
+
+    // exists for testing
+    FullyDrawnTracker(@Nullable SdkScheduler scheduler, Clock clock) {
+        this.scheduler = scheduler;
+        this.clock = clock;
+    }
+
+    void reportFullyDrawn(Tracer tracer, String screenName) {
+        long now = clock.now();
+        this.tracer = tracer;
+        reportedScreens.add(screenName);
+        LoadingScreen loadingScreen = loadingScreens.remove(screenName);
+        if (loadingScreen == null) {
+            //its load span may not have ended yet: if it does, the report counts for it.
+            Log.d(LOG_TAG, "Screen " + screenName + " is not loaded yet, holding on to the fully drawn report.");
+            earlyReports.put(screenName, new EarlyReport(tracer, now));
+            return;
+        }
+        loadingScreen.cancelTimeout();
+        long timeout = loadingScreen.startTimestamp + TIMEOUT_NANOS;
+        if (now > timeout) {
+            Log.d(LOG_TAG, "Screen " + screenName + " was reported as fully drawn after the timeout.");
+            emitSpan(tracer, screenName, loadingScreen, timeout, true);
+            return;
+        }
+        emitSpan(tracer, screenName, loadingScreen, now, false);
+    }
+
+    private static void emitSpan(Tracer tracer, String screenName, LoadingScreen loadingScreen, long endTimestamp, boolean timedOut) {
+        Span span = tracer.spanBuilder(TTFD_SPAN_NAME)
+                .setParent(Context.root().with(Span.wrap(loadingScreen.spanContext)))
+                .setStartTimestamp(loadingScreen.startTimestamp, TimeUnit.NANOSECONDS)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_UI)
+                .startSpan();
+        //do this after the span is started, so we can override the default screen.name set by the RumAttributeAppender.
+        span.setAttribute(SplunkRum.SCREEN_NAME_KEY, screenName);
+        if (timedOut) {
+            span.setAttribute(TIMED_OUT_KEY, true);
+        }
+        span.end(endTimestamp, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!isScreenSpan(span)) {
+            return;
+        }
+        String screenName = span.getAttribute(SplunkRum.SCREEN_NAME_KEY);
+        if (screenName == null) {
+            return;
+        }
+        String spanName = span.getName();
+        if ("Paused".equals(spanName)) {
+            LoadingScreen loadingScreen = loadingScreens.remove(screenName);
+            if (loadingScreen != null) {
+                loadingScreen.cancelTimeout();
+            }
+            //a report for a screen whose load never ended.
+            earlyReports.remove(screenName);
+        } else if (isScreenLoad(spanName)) {
+            SpanData spanData = span.toSpanData();
+            LoadingScreen loadingScreen = new LoadingScreen(span.getSpanContext(), spanData.getStartEpochNanos());
+            EarlyReport earlyReport = earlyReports.remove(screenName);
+            //reports made before this load started are stale.
+            if (earlyReport != null && earlyReport.timestamp >= loadingScreen.startTimestamp) {
+                //like the system's own reportFullyDrawn(), it can't be fully drawn before it's displayed.
+                emitSpan(earlyReport.tracer, screenName, loadingScreen, spanData.getEndEpochNanos(), false);
+                return;
+            }
+            LoadingScreen previous = loadingScreens.put(screenName, loadingScreen);
+            if (previous != null) {
+                previous.cancelTimeout();
+            }
+            scheduleTimeout(screenName, loadingScreen);
+        }
+    }
+
+    private void scheduleTimeout(String screenName, LoadingScreen loadingScreen) {
+        if (scheduler == null || !reportedScreens.contains(screenName)) {
+            return;
+        }
+        long timeout = loadingScreen.startTimestamp + TIMEOUT_NANOS;
+        loadingScreen.timeout = scheduler.schedule(() -> {
+            //unless it has been reported, paused or loaded again in the meantime.
+            if (loadingScreens.remove(screenName, loadingScreen)) {
+                Log.d(LOG_TAG, "Screen " + screenName + " wasn't reported as fully drawn before the timeout.");
+                emitSpan(tracer, screenName, loadingScreen, timeout, true);
+            }
+        }, Math.max(0, timeout - clock.now()), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    private static boolean isScreenSpan(ReadableSpan span) {
+        return span.getAttribute(ActivityTracer.ACTIVITY_NAME_KEY) != null
+                || span.getAttribute(FragmentTracer.FRAGMENT_NAME_KEY) != null;
+    }
+
+    private static boolean isScreenLoad(String spanName) {
+        if ("Created".equals(spanName) || "Restarted".equals(spanName) || "Restored".equals(spanName)) {
+            return true;
+        }
+        //warm and hot starts of the initial activity.
+        return ActivityTracer.APP_START_SPAN_NAME.equals(spanName);
+    }
+
+    private static class LoadingScreen {
+        private final SpanContext spanContext;
+        private final long startTimestamp;
+        private volatile ScheduledFuture<?> timeout;
+
+        private LoadingScreen(SpanContext spanContext, long startTimestamp) {
+            this.spanContext = spanContext;
+            this.startTimestamp = startTimestamp;
+        }
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+    }
+
+    private static class EarlyReport {
+        private final Tracer tracer;
+        private final long timestamp;
+
+        private EarlyReport(Tracer tracer, long timestamp) {
+            this.tracer = tracer;
+            this.timestamp = timestamp;
+        }
+    }
+}
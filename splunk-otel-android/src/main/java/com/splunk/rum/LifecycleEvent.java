@@ -0,0 +1,64 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+/**
+ * The lifecycle callbacks which are recorded on the activity and fragment lifecycle spans, either
+ * as span events or, in compact mode, as a single encoded attribute.
+ */
+enum LifecycleEvent {
+    ACTIVITY_PRE_CREATED("activityPreCreated"),
+    ACTIVITY_CREATED("activityCreated"),
+    ACTIVITY_POST_CREATED("activityPostCreated"),
+    ACTIVITY_PRE_STARTED("activityPreStarted"),
+    ACTIVITY_STARTED("activityStarted"),
+    ACTIVITY_POST_STARTED("activityPostStarted"),
+    ACTIVITY_PRE_RESUMED("activityPreResumed"),
+    ACTIVITY_RESUMED("activityResumed"),
+    ACTIVITY_POST_RESUMED("activityPostResumed"),
+    ACTIVITY_PRE_PAUSED("activityPrePaused"),
+    ACTIVITY_PAUSED("activityPaused"),
+    ACTIVITY_POST_PAUSED("activityPostPaused"),
+    ACTIVITY_PRE_STOPPED("activityPreStopped"),
+    ACTIVITY_STOPPED("activityStopped"),
+    ACTIVITY_POST_STOPPED("activityPostStopped"),
+    ACTIVITY_PRE_DESTROYED("activityPreDestroyed"),
+    ACTIVITY_DESTROYED("activityDestroyed"),
+    ACTIVITY_POST_DESTROYED("activityPostDestroyed"),
+    FRAGMENT_PRE_ATTACHED("fragmentPreAttached"),
+    FRAGMENT_ATTACHED("fragmentAttached"),
+    FRAGMENT_PRE_CREATED("fragmentPreCreated"),
+    FRAGMENT_CREATED("fragmentCreated"),
+    FRAGMENT_VIEW_CREATED("fragmentViewCreated"),
+    FRAGMENT_STARTED("fragmentStarted"),
+    FRAGMENT_RESUMED("fragmentResumed"),
+    FRAGMENT_PAUSED("fragmentPaused"),
+    FRAGMENT_STOPPED("fragmentStopped"),
+    FRAGMENT_VIEW_DESTROYED("fragmentViewDestroyed"),
+    FRAGMENT_DESTROYED("fragmentDestroyed"),
+    FRAGMENT_DETACHED("fragmentDetached");
+
+    private final String eventName;
+
+    LifecycleEvent(String eventName) {
+        this.eventName = eventName;
+    }
+
+    String getEventName() {
+        return eventName;
+    }
+}
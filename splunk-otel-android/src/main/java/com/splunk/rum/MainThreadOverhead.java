@@ -0,0 +1,115 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Accounts for the time the lifecycle instrumentation spends on the main thread, and enforces the
+ * configured budget for it.
+ * <p>
+ * The time of the callbacks is summed per frame-sized (16ms) window, since that's what the user
+ * may notice. Once {@link #OVER_BUDGET_WINDOW_LIMIT} windows have exceeded the budget, the
+ * instrumentation degrades for the rest of the process: the span attributes are filled in on the
+ * export thread. The windows of the first {@link #STARTUP_GRACE_NANOS} aren't counted, since class
+ * loading and the first spans make them slow regardless.
+ * <p>
+ * Only written from the main thread, with plain fields and no allocation; the stats are read from
+ * other threads, so they may be slightly stale.
+ */
+class MainThreadOverhead {
+    static final long WINDOW_NANOS = 16_000_000;
+    static final int OVER_BUDGET_WINDOW_LIMIT = 3;
+    static final long STARTUP_GRACE_NANOS = 10_000_000_000L;
+
+    private final long budgetNanos;
+    private final boolean enforced;
+    private final LongSupplier nanoTime;
+    private final long graceEndNanos;
+
+    private long currentWindow = -1;
+    private long currentWindowNanos;
+    private int overBudgetWindows;
+    private volatile long totalNanos;
+    private volatile long callbackCount;
+    private volatile long maxWindowNanos;
+    private volatile boolean overBudget;
+
+    MainThreadOverhead(long budgetNanos, boolean enforced) {
+        this(budgetNanos, enforced, System::nanoTime);
+    }
+
+    // exists for testing
+    MainThreadOverhead(long budgetNanos, boolean enforced, LongSupplier nanoTime) {
+        this.budgetNanos = budgetNanos;
+        this.enforced = enforced;
+        this.nanoTime = nanoTime;
+        this.graceEndNanos = nanoTime.getAsLong() + STARTUP_GRACE_NANOS;
+    }
+
+    /**
+     * Returns the start time to pass into {@link #end(long)} once the callback is done.
+     */
+    long begin() {
+        return nanoTime.getAsLong();
+    }
+
+    void end(long startNanos) {
+        long endNanos = nanoTime.getAsLong();
+        long elapsedNanos = endNanos - startNanos;
+        totalNanos += elapsedNanos;
+        callbackCount++;
+
+        long window = startNanos / WINDOW_NANOS;
+        if (window != currentWindow) {
+            currentWindow = window;
+            currentWindowNanos = 0;
+        }
+        boolean wasOverBudget = currentWindowNanos > budgetNanos;
+        currentWindowNanos += elapsedNanos;
+        if (currentWindowNanos > maxWindowNanos) {
+            maxWindowNanos = currentWindowNanos;
+        }
+        //each window is only counted once, however many callbacks it holds.
+        if (!enforced || startNanos - graceEndNanos < 0) {
+            return;
+        }
+        if (!wasOverBudget && currentWindowNanos > budgetNanos && ++overBudgetWindows >= OVER_BUDGET_WINDOW_LIMIT) {
+            overBudget = true;
+        }
+    }
+
+    /**
+     * Whether the instrumentation has exceeded its budget, and should do as little work as possible
+     * on the main thread.
+     */
+    boolean isOverBudget() {
+        return overBudget;
+    }
+
+    long getTotalNanos() {
+        return totalNanos;
+    }
+
+    long getCallbackCount() {
+        return callbackCount;
+    }
+
+    long getMaxWindowNanos() {
+        return maxWindowNanos;
+    }
+}
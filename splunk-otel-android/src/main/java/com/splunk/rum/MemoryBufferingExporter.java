@@ -19,50 +19,109 @@ package com.splunk.rum;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 
+/**
+ * Keeps spans which couldn't be sent in memory, and retries them with the next export.
+ * <p>
+ * If a spillover exporter is provided, spans are written to local storage with it rather than
+ * being kept in memory: when the network is offline, when an export fails, and for every export
+ * between {@link #requestSpill()} and the next {@link #flush()}.
+ */
 class MemoryBufferingExporter implements SpanExporter {
     private static final int MAX_BACKLOG_SIZE = 100;
 
     private final ConnectionUtil connectionUtil;
     private final SpanExporter delegate;
-    //note: no need to make this queue thread-safe since it will only ever be called from the BatchSpanProcessor worker thread.
-    private final Queue<SpanData> backlog = new ArrayDeque<>(MAX_BACKLOG_SIZE);
+    private final SdkStatsRecorder statsRecorder;
+    @Nullable
+    private final SpanExporter spilloverExporter;
+    //failed exports are added back from the sender's callback thread, concurrently with the export thread.
+    private final Queue<SpanData> backlog = new ConcurrentLinkedQueue<>();
+    private volatile boolean spillRequested;
 
     MemoryBufferingExporter(ConnectionUtil connectionUtil, SpanExporter delegate) {
+        this(connectionUtil, delegate, new SdkStatsRecorder());
+    }
+
+    MemoryBufferingExporter(ConnectionUtil connectionUtil, SpanExporter delegate, SdkStatsRecorder statsRecorder) {
+        this(connectionUtil, delegate, statsRecorder, null);
+    }
+
+    MemoryBufferingExporter(ConnectionUtil connectionUtil, SpanExporter delegate, SdkStatsRecorder statsRecorder, @Nullable SpanExporter spilloverExporter) {
         this.connectionUtil = connectionUtil;
         this.delegate = delegate;
+        this.statsRecorder = statsRecorder;
+        this.spilloverExporter = spilloverExporter;
+    }
+
+    /**
+     * Writes everything exported until the next {@link #flush()} to local storage, rather than
+     * sending it. Does nothing without a spillover exporter.
+     */
+    void requestSpill() {
+        spillRequested = spilloverExporter != null;
     }
 
     @Override
     public CompletableResultCode export(Collection<SpanData> spans) {
         backlog.addAll(spans);
+        if (spillRequested) {
+            return spill(fillFromBacklog(), "Spill requested");
+        }
         if (!connectionUtil.refreshNetworkStatus().isOnline()) {
+            if (spilloverExporter != null) {
+                return spill(fillFromBacklog(), "Network offline");
+            }
             Log.i(SplunkRum.LOG_TAG, "Network offline, buffering " + spans.size() + " spans for eventual export.");
+            statsRecorder.setMemoryBacklogSize(backlog.size());
             return CompletableResultCode.ofSuccess();
         }
         List<SpanData> toExport = fillFromBacklog();
+        statsRecorder.setMemoryBacklogSize(0);
         Log.d(SplunkRum.LOG_TAG, "Sending " + toExport.size() + " spans for export");
         CompletableResultCode exportResult = delegate.export(toExport);
         exportResult.whenComplete(() -> {
             if (exportResult.isSuccess()) {
                 return;
             }
+            if (spilloverExporter != null) {
+                spill(toExport, "Export failed");
+                return;
+            }
             Log.i(SplunkRum.LOG_TAG, "Export failed. adding " + toExport.size() + " spans to the backlog");
             addFailedSpansToBacklog(toExport);
+            statsRecorder.setMemoryBacklogSize(backlog.size());
         });
         return exportResult;
     }
 
+    //if the spans can't be written either, they go back into the memory backlog.
+    private CompletableResultCode spill(List<SpanData> toSpill, String reason) {
+        Log.i(SplunkRum.LOG_TAG, reason + ", spilling " + toSpill.size() + " spans to disk for eventual export.");
+        statsRecorder.setMemoryBacklogSize(0);
+        CompletableResultCode spillResult = spilloverExporter.export(toSpill);
+        spillResult.whenComplete(() -> {
+            if (spillResult.isSuccess()) {
+                return;
+            }
+            Log.w(SplunkRum.LOG_TAG, "Unable to spill " + toSpill.size() + " spans to disk, adding them to the backlog");
+            addFailedSpansToBacklog(toSpill);
+            statsRecorder.setMemoryBacklogSize(backlog.size());
+        });
+        return spillResult;
+    }
+
     //todo Should we favor saving certain kinds of span if we're out of space? Or favor recency?
     private void addFailedSpansToBacklog(List<SpanData> toExport) {
         for (SpanData spanData : toExport) {
@@ -74,23 +133,34 @@ class MemoryBufferingExporter implements SpanExporter {
 
     @NonNull
     private List<SpanData> fillFromBacklog() {
-        List<SpanData> retries = new ArrayList<>(backlog);
-        backlog.clear();
+        List<SpanData> retries = new ArrayList<>();
+        SpanData spanData;
+        while ((spanData = backlog.poll()) != null) {
+            retries.add(spanData);
+        }
         return retries;
     }
 
     @Override
     public CompletableResultCode flush() {
-        if (!backlog.isEmpty()) {
-            //note: the zipkin exporter has a no-op flush() method, so no need to call it after this.
-            return export(fillFromBacklog());
+        try {
+            if (!backlog.isEmpty()) {
+                //note: the zipkin exporter has a no-op flush() method, so no need to call it after this.
+                return export(fillFromBacklog());
+            }
+            return delegate.flush();
+        } finally {
+            spillRequested = false;
         }
-        return delegate.flush();
     }
 
     @Override
     public CompletableResultCode shutdown() {
         backlog.clear();
+        statsRecorder.setMemoryBacklogSize(0);
+        if (spilloverExporter != null) {
+            spilloverExporter.shutdown();
+        }
         return delegate.shutdown();
     }
 }
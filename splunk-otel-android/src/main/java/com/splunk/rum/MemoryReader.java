@@ -0,0 +1,88 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.app.ActivityManager;
+import android.os.Build;
+import android.os.Debug;
+
+/**
+ * Reads the current memory usage of the process. Everything in here is cheap, apart from the
+ * system-wide low memory flag, which needs a call into the system server.
+ */
+class MemoryReader {
+    private final ActivityManager activityManager;
+    private final Runtime runtime;
+
+    MemoryReader(ActivityManager activityManager) {
+        this(activityManager, Runtime.getRuntime());
+    }
+
+    // exists for testing
+    MemoryReader(ActivityManager activityManager, Runtime runtime) {
+        this.activityManager = activityManager;
+        this.runtime = runtime;
+    }
+
+    Sample read(boolean includeLowMemory) {
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        long nativeHeapAllocated = Debug.getNativeHeapAllocatedSize();
+        long gcCount = -1;
+        long gcTimeMillis = -1;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            gcCount = parseRuntimeStat(Debug.getRuntimeStat("art.gc.gc-count"));
+            gcTimeMillis = parseRuntimeStat(Debug.getRuntimeStat("art.gc.gc-time"));
+        }
+        boolean lowMemory = false;
+        if (includeLowMemory) {
+            ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+            activityManager.getMemoryInfo(memoryInfo);
+            lowMemory = memoryInfo.lowMemory;
+        }
+        return new Sample(heapUsed, runtime.maxMemory(), nativeHeapAllocated, gcCount, gcTimeMillis, lowMemory);
+    }
+
+    private static long parseRuntimeStat(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static class Sample {
+        final long heapUsed;
+        final long heapMax;
+        final long nativeHeapAllocated;
+        //-1 when not available (before API 23)
+        final long gcCount;
+        final long gcTimeMillis;
+        final boolean lowMemory;
+
+        Sample(long heapUsed, long heapMax, long nativeHeapAllocated, long gcCount, long gcTimeMillis, boolean lowMemory) {
+            this.heapUsed = heapUsed;
+            this.heapMax = heapMax;
+            this.nativeHeapAllocated = nativeHeapAllocated;
+            this.gcCount = gcCount;
+            this.gcTimeMillis = gcTimeMillis;
+            this.lowMemory = lowMemory;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static io.opentelemetry.api.common.AttributeKey.booleanKey;
+import static io.opentelemetry.api.common.AttributeKey.longArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static java.util.Arrays.asList;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Samples the memory usage of the process while the application is in the foreground, and reports
+ * it once per window as a {@code memoryUsage} span, with the min/avg/max of the samples. A window
+ * ends when the visible screen changes, after {@link #WINDOW_SAMPLES} samples, when the application
+ * goes to the background, or when the system asks the application to trim its memory.
+ * <p>
+ * Sampling is kept cheap: the system-wide low memory flag (the only reading that needs a call into
+ * the system server) is only read once per window, and the time spent sampling is measured. If it
+ * goes over {@link #SAMPLING_BUDGET_FRACTION} of the sampling interval, the interval is doubled.
+ */
+class MemorySampler implements Runnable, AppStateListener, ComponentCallbacks2 {
+    static final long DEFAULT_INTERVAL_MILLIS = 5000;
+    static final long MAX_INTERVAL_MILLIS = 60_000;
+    static final int WINDOW_SAMPLES = 12;
+    //sampling may use at most 0.1% of the time.
+    static final double SAMPLING_BUDGET_FRACTION = 0.001;
+
+    //[min, avg, max], in bytes
+    static final AttributeKey<List<Long>> HEAP_USED_KEY = longArrayKey("memory.heap.used");
+    static final AttributeKey<Long> HEAP_MAX_KEY = longKey("memory.heap.max");
+    //[min, avg, max], in bytes
+    static final AttributeKey<List<Long>> NATIVE_HEAP_KEY = longArrayKey("memory.native.allocated");
+    static final AttributeKey<Long> GC_COUNT_KEY = longKey("memory.gc.count");
+    static final AttributeKey<Long> GC_TIME_KEY = longKey("memory.gc.time");
+    static final AttributeKey<Boolean> LOW_MEMORY_KEY = booleanKey("memory.low");
+    static final AttributeKey<Long> TRIM_LEVEL_KEY = longKey("memory.trim.level");
+    static final AttributeKey<Long> SAMPLE_COUNT_KEY = longKey("memory.samples");
+    //the total time spent sampling, in microseconds
+    static final AttributeKey<Long> SAMPLING_TIME_KEY = longKey("memory.sampling.time");
+
+    private final Tracer tracer;
+    private final VisibleScreenTracker visibleScreenTracker;
+    private final SdkScheduler scheduler;
+    private final MemoryReader memoryReader;
+    private final Clock clock;
+
+    private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+    private ScheduledFuture<?> future;
+    private Window window;
+    //the gc counters are reported as a delta since the end of the previous window.
+    private MemoryReader.Sample previousSample;
+
+    MemorySampler(Tracer tracer, VisibleScreenTracker visibleScreenTracker, SdkScheduler scheduler, MemoryReader memoryReader) {
+        this(tracer, visibleScreenTracker, scheduler, memoryReader, Clock.systemDefaultZone());
+    }
+
+    // exists for testing
+    MemorySampler(Tracer tracer, VisibleScreenTracker visibleScreenTracker, SdkScheduler scheduler, MemoryReader memoryReader, Clock clock) {
+        this.tracer = tracer;
+        this.visibleScreenTracker = visibleScreenTracker;
+        this.scheduler = scheduler;
+        this.memoryReader = memoryReader;
+        this.clock = clock;
+    }
+
+    synchronized void start() {
+        if (future == null) {
+            future = scheduler.scheduleAtFixedRate(this, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    @Override
+    public synchronized void run() {
+        String screen = visibleScreenTracker.getCurrentlyVisibleScreen();
+        if (window != null && !window.screen.equals(screen)) {
+            endWindow();
+        }
+        sample(screen, false);
+        if (window.sampleCount >= WINDOW_SAMPLES) {
+            endWindow();
+        }
+    }
+
+    private void sample(String screen, boolean includeLowMemory) {
+        //the low memory flag is system-wide, and expensive to read: once per window is enough.
+        boolean firstSample = window == null;
+        long startNanos = System.nanoTime();
+        MemoryReader.Sample sample = memoryReader.read(firstSample || includeLowMemory);
+        long costNanos = System.nanoTime() - startNanos;
+        if (firstSample) {
+            window = new Window(screen, clock.millis(), previousSample == null ? sample : previousSample);
+        }
+        window.add(sample, clock.millis(), costNanos);
+    }
+
+    private void endWindow() {
+        Window window = this.window;
+        this.window = null;
+        if (window == null) {
+            return;
+        }
+        window.report();
+        previousSample = window.last;
+        adjustInterval(window);
+    }
+
+    private void adjustInterval(Window window) {
+        long averageCostNanos = window.costNanos / window.sampleCount;
+        long budgetNanos = (long) (TimeUnit.MILLISECONDS.toNanos(intervalMillis) * SAMPLING_BUDGET_FRACTION);
+        if (averageCostNanos <= budgetNanos || intervalMillis >= MAX_INTERVAL_MILLIS) {
+            return;
+        }
+        intervalMillis = Math.min(intervalMillis * 2, MAX_INTERVAL_MILLIS);
+        if (future != null) {
+            stop();
+            start();
+        }
+    }
+
+    @Override
+    public void appForegrounded() {
+        start();
+    }
+
+    @Override
+    public void appBackgrounded() {
+        stop();
+        scheduler.execute(() -> {
+            synchronized (this) {
+                endWindow();
+                //don't count what happens in the background towards the next window.
+                previousSample = null;
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level < TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        //this is called on the main thread, so don't sample here.
+        scheduler.execute(() -> {
+            synchronized (this) {
+                String screen = visibleScreenTracker.getCurrentlyVisibleScreen();
+                if (window != null && !window.screen.equals(screen)) {
+                    endWindow();
+                }
+                sample(screen, true);
+                window.trimLevel = Math.max(window.trimLevel, level);
+                endWindow();
+            }
+        });
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    //visible for testing
+    synchronized long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    private class Window {
+        private final String screen;
+        private final long startMillis;
+        private final MemoryReader.Sample baseline;
+        private MemoryReader.Sample last;
+        private long endMillis;
+        private int sampleCount;
+        private long heapMin = Long.MAX_VALUE;
+        private long heapMax = Long.MIN_VALUE;
+        private long heapSum;
+        private long nativeMin = Long.MAX_VALUE;
+        private long nativeMax = Long.MIN_VALUE;
+        private long nativeSum;
+        private long costNanos;
+        private boolean lowMemory;
+        private int trimLevel = -1;
+
+        private Window(String screen, long startMillis, MemoryReader.Sample baseline) {
+            this.screen = screen;
+            this.startMillis = startMillis;
+            this.baseline = baseline;
+        }
+
+        private void add(MemoryReader.Sample sample, long millis, long costNanos) {
+            last = sample;
+            endMillis = millis;
+            sampleCount++;
+            heapMin = Math.min(heapMin, sample.heapUsed);
+            heapMax = Math.max(heapMax, sample.heapUsed);
+            heapSum += sample.heapUsed;
+            nativeMin = Math.min(nativeMin, sample.nativeHeapAllocated);
+            nativeMax = Math.max(nativeMax, sample.nativeHeapAllocated);
+            nativeSum += sample.nativeHeapAllocated;
+            lowMemory |= sample.lowMemory;
+            this.costNanos += costNanos;
+        }
+
+        private void report() {
+            Span span = tracer.spanBuilder("memoryUsage")
+                    .setStartTimestamp(startMillis, TimeUnit.MILLISECONDS)
+                    .setAttribute(HEAP_USED_KEY, asList(heapMin, heapSum / sampleCount, heapMax))
+                    .setAttribute(HEAP_MAX_KEY, last.heapMax)
+                    .setAttribute(NATIVE_HEAP_KEY, asList(nativeMin, nativeSum / sampleCount, nativeMax))
+                    .setAttribute(LOW_MEMORY_KEY, lowMemory)
+                    .setAttribute(SAMPLE_COUNT_KEY, (long) sampleCount)
+                    .setAttribute(SAMPLING_TIME_KEY, TimeUnit.NANOSECONDS.toMicros(costNanos))
+                    .startSpan();
+            //the window may have ended because the screen changed, so don't use the current screen.
+            span.setAttribute(SplunkRum.SCREEN_NAME_KEY, screen);
+            if (baseline.gcCount >= 0 && last.gcCount >= 0) {
+                span.setAttribute(GC_COUNT_KEY, last.gcCount - baseline.gcCount);
+                span.setAttribute(GC_TIME_KEY, last.gcTimeMillis - baseline.gcTimeMillis);
+            }
+            if (trimLevel >= 0) {
+                span.setAttribute(TRIM_LEVEL_KEY, (long) trimLevel);
+            }
+            span.end(endMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
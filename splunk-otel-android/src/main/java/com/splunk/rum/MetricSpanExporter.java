@@ -0,0 +1,236 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+import static io.opentelemetry.api.common.AttributeKey.doubleArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.doubleKey;
+import static io.opentelemetry.api.common.AttributeKey.longArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static io.opentelemetry.api.common.AttributeKey.stringArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import io.opentelemetry.sdk.metrics.data.SummaryPointData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+/**
+ * Exports pre-aggregated metrics through the span pipeline, so that they are sent to the same
+ * beacon (or disk buffer) as everything else. Each metric becomes a single span covering the
+ * collection interval. A metric with a single point carries the point's attributes and its
+ * aggregated value(s) as they are; a metric with several points (i.e. recorded with different
+ * attributes) carries them packed in arrays, one entry per point.
+ * <p>
+ * The number of points is bounded, both per metric and per export, so that a metric recorded
+ * with high-cardinality attributes can't flood the span pipeline. Points over the limits are
+ * dropped, and counted in the {@link SdkStats}.
+ */
+class MetricSpanExporter implements MetricExporter {
+    static final int MAX_POINTS_PER_METRIC = 20;
+    static final int MAX_POINTS_PER_EXPORT = 100;
+
+    static final AttributeKey<String> METRIC_TYPE_KEY = stringKey("metric.type");
+    static final AttributeKey<String> METRIC_UNIT_KEY = stringKey("metric.unit");
+    static final AttributeKey<Long> LONG_VALUE_KEY = longKey("metric.value");
+    static final AttributeKey<Double> DOUBLE_VALUE_KEY = doubleKey("metric.value");
+    static final AttributeKey<Long> COUNT_KEY = longKey("metric.count");
+    static final AttributeKey<Double> SUM_KEY = doubleKey("metric.sum");
+    static final AttributeKey<List<Double>> BOUNDS_KEY = doubleArrayKey("metric.bounds");
+    static final AttributeKey<List<Long>> BUCKET_COUNTS_KEY = longArrayKey("metric.counts");
+
+    //packed points: one entry per point (and bounds + 1 bucket counts per point, for histograms).
+    static final AttributeKey<Long> POINT_COUNT_KEY = longKey("metric.points");
+    static final AttributeKey<List<Long>> LONG_VALUES_KEY = longArrayKey("metric.values");
+    static final AttributeKey<List<Double>> DOUBLE_VALUES_KEY = doubleArrayKey("metric.values");
+    static final AttributeKey<List<Long>> COUNTS_KEY = longArrayKey("metric.point.count");
+    static final AttributeKey<List<Double>> SUMS_KEY = doubleArrayKey("metric.point.sum");
+    static final AttributeKey<List<Long>> POINT_BUCKET_COUNTS_KEY = longArrayKey("metric.point.counts");
+
+    private final Tracer tracer;
+    private final SdkStatsRecorder statsRecorder;
+
+    MetricSpanExporter(Tracer tracer, SdkStatsRecorder statsRecorder) {
+        this.tracer = tracer;
+        this.statsRecorder = statsRecorder;
+    }
+
+    @Override
+    public AggregationTemporality getPreferredTemporality() {
+        return AggregationTemporality.DELTA;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<MetricData> metrics) {
+        int exported = 0;
+        int dropped = 0;
+        for (MetricData metric : metrics) {
+            List<PointData> points = new ArrayList<>();
+            for (PointData point : metric.getData().getPoints()) {
+                if (!isSupported(point)) {
+                    continue;
+                }
+                if (points.size() >= MAX_POINTS_PER_METRIC || exported >= MAX_POINTS_PER_EXPORT) {
+                    dropped++;
+                    continue;
+                }
+                points.add(point);
+                exported++;
+            }
+            if (points.size() == 1) {
+                recordPoint(metric, points.get(0));
+            } else if (!points.isEmpty()) {
+                recordPoints(metric, points);
+            }
+        }
+        if (dropped > 0) {
+            Log.d(LOG_TAG, "Dropped " + dropped + " metric points over the cardinality limit");
+            statsRecorder.recordDroppedMetricPoints(dropped);
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private static boolean isSupported(PointData point) {
+        //exponential histograms are not supported (yet).
+        return point instanceof LongPointData
+                || point instanceof DoublePointData
+                || point instanceof HistogramPointData
+                || point instanceof SummaryPointData;
+    }
+
+    private SpanBuilder spanBuilder(MetricData metric, long startEpochNanos) {
+        return tracer.spanBuilder(metric.getName())
+                .setStartTimestamp(startEpochNanos, TimeUnit.NANOSECONDS)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_METRIC)
+                .setAttribute(METRIC_TYPE_KEY, metric.getType().name().toLowerCase(Locale.ROOT))
+                .setAttribute(METRIC_UNIT_KEY, metric.getUnit());
+    }
+
+    private void recordPoint(MetricData metric, PointData point) {
+        SpanBuilder spanBuilder = spanBuilder(metric, point.getStartEpochNanos())
+                .setAllAttributes(point.getAttributes());
+        if (point instanceof LongPointData) {
+            spanBuilder.setAttribute(LONG_VALUE_KEY, ((LongPointData) point).getValue());
+        } else if (point instanceof DoublePointData) {
+            spanBuilder.setAttribute(DOUBLE_VALUE_KEY, ((DoublePointData) point).getValue());
+        } else if (point instanceof HistogramPointData) {
+            HistogramPointData histogram = (HistogramPointData) point;
+            spanBuilder.setAttribute(COUNT_KEY, histogram.getCount())
+                    .setAttribute(SUM_KEY, histogram.getSum())
+                    .setAttribute(BOUNDS_KEY, histogram.getBoundaries())
+                    .setAttribute(BUCKET_COUNTS_KEY, histogram.getCounts());
+        } else {
+            SummaryPointData summary = (SummaryPointData) point;
+            spanBuilder.setAttribute(COUNT_KEY, summary.getCount())
+                    .setAttribute(SUM_KEY, summary.getSum());
+        }
+        Span span = spanBuilder.startSpan();
+        span.end(point.getEpochNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void recordPoints(MetricData metric, List<PointData> points) {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        //every attribute key used by any of the points, in order of appearance.
+        Set<AttributeKey<?>> keys = new LinkedHashSet<>();
+        for (PointData point : points) {
+            start = Math.min(start, point.getStartEpochNanos());
+            end = Math.max(end, point.getEpochNanos());
+            keys.addAll(point.getAttributes().asMap().keySet());
+        }
+        SpanBuilder spanBuilder = spanBuilder(metric, start)
+                .setAttribute(POINT_COUNT_KEY, (long) points.size());
+        for (AttributeKey<?> key : keys) {
+            List<String> values = new ArrayList<>(points.size());
+            for (PointData point : points) {
+                Object value = point.getAttributes().get(key);
+                values.add(value == null ? "" : String.valueOf(value));
+            }
+            spanBuilder.setAttribute(stringArrayKey(key.getKey()), values);
+        }
+        PointData first = points.get(0);
+        if (first instanceof LongPointData) {
+            List<Long> values = new ArrayList<>(points.size());
+            for (PointData point : points) {
+                values.add(((LongPointData) point).getValue());
+            }
+            spanBuilder.setAttribute(LONG_VALUES_KEY, values);
+        } else if (first instanceof DoublePointData) {
+            List<Double> values = new ArrayList<>(points.size());
+            for (PointData point : points) {
+                values.add(((DoublePointData) point).getValue());
+            }
+            spanBuilder.setAttribute(DOUBLE_VALUES_KEY, values);
+        } else if (first instanceof HistogramPointData) {
+            List<Long> counts = new ArrayList<>(points.size());
+            List<Double> sums = new ArrayList<>(points.size());
+            List<Long> bucketCounts = new ArrayList<>();
+            for (PointData point : points) {
+                HistogramPointData histogram = (HistogramPointData) point;
+                counts.add(histogram.getCount());
+                sums.add(histogram.getSum());
+                bucketCounts.addAll(histogram.getCounts());
+            }
+            //all the points of a histogram share the same bucket boundaries.
+            spanBuilder.setAttribute(BOUNDS_KEY, ((HistogramPointData) first).getBoundaries())
+                    .setAttribute(COUNTS_KEY, counts)
+                    .setAttribute(SUMS_KEY, sums)
+                    .setAttribute(POINT_BUCKET_COUNTS_KEY, bucketCounts);
+        } else {
+            List<Long> counts = new ArrayList<>(points.size());
+            List<Double> sums = new ArrayList<>(points.size());
+            for (PointData point : points) {
+                SummaryPointData summary = (SummaryPointData) point;
+                counts.add(summary.getCount());
+                sums.add(summary.getSum());
+            }
+            spanBuilder.setAttribute(COUNTS_KEY, counts)
+                    .setAttribute(SUMS_KEY, sums);
+        }
+        Span span = spanBuilder.startSpan();
+        span.end(end, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -37,7 +37,7 @@ class NetworkMonitor implements AppStateListener {
     }
 
     void addConnectivityListener(Tracer tracer) {
-        connectionUtil.setInternetStateListener(new TracingConnectionStateListener(tracer, shouldEmitChangeEvents));
+        connectionUtil.addConnectionStateListener(new TracingConnectionStateListener(tracer, shouldEmitChangeEvents));
     }
 
     @Override
@@ -23,6 +23,7 @@ import java.util.function.Consumer;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.instrumentation.okhttp.v3_0.OkHttpTracing;
 import okhttp3.Call;
@@ -51,6 +52,11 @@ class NoOpSplunkRum extends SplunkRum {
         return OpenTelemetry.noop();
     }
 
+    @Override
+    public Meter getMeter() {
+        return getOpenTelemetry().getMeter("unused");
+    }
+
     @Override
     Tracer getTracer() {
         return getOpenTelemetry().getTracer("unused");
@@ -76,6 +82,11 @@ class NoOpSplunkRum extends SplunkRum {
         //no-op
     }
 
+    @Override
+    public void reportFullyDrawn(String screenName) {
+        //no-op
+    }
+
     @Override
     public void integrateWithBrowserRum(WebView webView) {
         //no-op
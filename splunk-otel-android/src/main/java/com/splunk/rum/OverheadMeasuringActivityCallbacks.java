@@ -0,0 +1,184 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Measures the main thread time spent in the activity lifecycle instrumentation.
+ */
+class OverheadMeasuringActivityCallbacks implements Application.ActivityLifecycleCallbacks {
+    private final Application.ActivityLifecycleCallbacks delegate;
+    private final MainThreadOverhead overhead;
+
+    OverheadMeasuringActivityCallbacks(Application.ActivityLifecycleCallbacks delegate, MainThreadOverhead overhead) {
+        this.delegate = delegate;
+        this.overhead = overhead;
+    }
+
+    @Override
+    public void onActivityPreCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPreCreated(activity, savedInstanceState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        long startNanos = overhead.begin();
+        delegate.onActivityCreated(activity, savedInstanceState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostCreated(activity, savedInstanceState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPreStarted(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPreStarted(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityStarted(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityStarted(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostStarted(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostStarted(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPreResumed(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPreResumed(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityResumed(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostResumed(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostResumed(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPrePaused(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPrePaused(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPaused(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostPaused(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostPaused(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPreStopped(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPreStopped(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityStopped(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityStopped(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostStopped(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostStopped(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPreSaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPreSaveInstanceState(activity, outState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        long startNanos = overhead.begin();
+        delegate.onActivitySaveInstanceState(activity, outState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostSaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostSaveInstanceState(activity, outState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPreDestroyed(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPreDestroyed(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityDestroyed(activity);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onActivityPostDestroyed(@NonNull Activity activity) {
+        long startNanos = overhead.begin();
+        delegate.onActivityPostDestroyed(activity);
+        overhead.end(startNanos);
+    }
+}
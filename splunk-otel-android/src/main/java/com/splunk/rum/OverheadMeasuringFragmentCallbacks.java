@@ -0,0 +1,130 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+
+/**
+ * Measures the main thread time spent in the fragment lifecycle instrumentation.
+ */
+class OverheadMeasuringFragmentCallbacks extends FragmentManager.FragmentLifecycleCallbacks {
+    private final FragmentManager.FragmentLifecycleCallbacks delegate;
+    private final MainThreadOverhead overhead;
+
+    OverheadMeasuringFragmentCallbacks(FragmentManager.FragmentLifecycleCallbacks delegate, MainThreadOverhead overhead) {
+        this.delegate = delegate;
+        this.overhead = overhead;
+    }
+
+    @Override
+    public void onFragmentPreAttached(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull Context context) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentPreAttached(fm, f, context);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentAttached(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull Context context) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentAttached(fm, f, context);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentPreCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @Nullable Bundle savedInstanceState) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentPreCreated(fm, f, savedInstanceState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @Nullable Bundle savedInstanceState) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentCreated(fm, f, savedInstanceState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentViewCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull View v, @Nullable Bundle savedInstanceState) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentViewCreated(fm, f, v, savedInstanceState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentStarted(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentStarted(fm, f);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentResumed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentResumed(fm, f);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentPaused(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentPaused(fm, f);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentStopped(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentStopped(fm, f);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentSaveInstanceState(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull Bundle outState) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentSaveInstanceState(fm, f, outState);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentViewDestroyed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentViewDestroyed(fm, f);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentDestroyed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentDestroyed(fm, f);
+        overhead.end(startNanos);
+    }
+
+    @Override
+    public void onFragmentDetached(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        long startNanos = overhead.begin();
+        delegate.onFragmentDetached(fm, f);
+        overhead.end(startNanos);
+    }
+}
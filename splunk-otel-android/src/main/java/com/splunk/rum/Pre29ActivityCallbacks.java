@@ -19,44 +19,56 @@ package com.splunk.rum;
 import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import io.opentelemetry.api.trace.Tracer;
 
 class Pre29ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
     private final Tracer tracer;
     private final VisibleScreenTracker visibleScreenTracker;
-    private final Map<String, ActivityTracer> tracersByActivityClassName = new HashMap<>();
-    private final AtomicReference<String> initialAppActivity = new AtomicReference<>();
     private final AppStartupTimer appStartupTimer;
     private final List<AppStateListener> appStateListeners;
+    private final ActivityTracerCache activityTracers;
+    //one instance for all activities: it only holds per-fragment state, which is released on detach.
+    private final RumFragmentLifecycleCallbacks fragmentCallbacks;
+    private final FragmentManager.FragmentLifecycleCallbacks registeredFragmentCallbacks;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private int numberOfOpenActivities = 0;
 
     Pre29ActivityCallbacks(Tracer tracer, VisibleScreenTracker visibleScreenTracker, AppStartupTimer appStartupTimer, List<AppStateListener> appStateListeners) {
+        this(tracer, visibleScreenTracker, appStartupTimer, appStateListeners, () -> false, null);
+    }
+
+    Pre29ActivityCallbacks(Tracer tracer, VisibleScreenTracker visibleScreenTracker, AppStartupTimer appStartupTimer, List<AppStateListener> appStateListeners,
+                           BooleanSupplier compactLifecycleEvents, @Nullable MainThreadOverhead mainThreadOverhead) {
         this.tracer = tracer;
         this.visibleScreenTracker = visibleScreenTracker;
         this.appStartupTimer = appStartupTimer;
         this.appStateListeners = appStateListeners;
+        this.activityTracers = new ActivityTracerCache(tracer, visibleScreenTracker, appStartupTimer, compactLifecycleEvents);
+        this.fragmentCallbacks = new RumFragmentLifecycleCallbacks(tracer, visibleScreenTracker, compactLifecycleEvents);
+        this.registeredFragmentCallbacks = mainThreadOverhead == null ? fragmentCallbacks
+                : new OverheadMeasuringFragmentCallbacks(fragmentCallbacks, mainThreadOverhead);
     }
 
     @Override
     public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
         getTracer(activity)
                 .startActivityCreation()
-                .addEvent("activityCreated");
+                .addEvent(LifecycleEvent.ACTIVITY_CREATED);
 
         if (activity instanceof FragmentActivity) {
             FragmentManager fragmentManager = ((FragmentActivity) activity).getSupportFragmentManager();
-            fragmentManager.registerFragmentLifecycleCallbacks(new RumFragmentLifecycleCallbacks(tracer, visibleScreenTracker), true);
+            fragmentManager.registerFragmentLifecycleCallbacks(registeredFragmentCallbacks, true);
         }
     }
 
@@ -69,15 +81,16 @@ class Pre29ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
         }
         numberOfOpenActivities++;
         getTracer(activity)
-                .initiateRestartSpanIfNecessary(tracersByActivityClassName.size() > 1)
-                .addEvent("activityStarted");
+                .initiateRestartSpanIfNecessary(activityTracers.isMultiActivityApp())
+                .addEvent(LifecycleEvent.ACTIVITY_STARTED);
     }
 
     @Override
     public void onActivityResumed(@NonNull Activity activity) {
+        appStartupTimer.detectFirstFrame(activity);
         getTracer(activity)
                 .startSpanIfNoneInProgress("Resumed")
-                .addEvent("activityResumed")
+                .addEvent(LifecycleEvent.ACTIVITY_RESUMED)
                 .addPreviousScreenAttribute()
                 .endSpanForActivityResumed();
         visibleScreenTracker.activityResumed(activity);
@@ -87,7 +100,8 @@ class Pre29ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
     public void onActivityPaused(@NonNull Activity activity) {
         getTracer(activity)
                 .startSpanIfNoneInProgress("Paused")
-                .addEvent("activityPaused")
+                .addEvent(LifecycleEvent.ACTIVITY_PAUSED)
+                .addCpuTimeAttributes()
                 .endActiveSpan();
         visibleScreenTracker.activityPaused(activity);
     }
@@ -101,7 +115,7 @@ class Pre29ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
         }
         getTracer(activity)
                 .startSpanIfNoneInProgress("Stopped")
-                .addEvent("activityStopped")
+                .addEvent(LifecycleEvent.ACTIVITY_STOPPED)
                 .endActiveSpan();
     }
 
@@ -114,17 +128,29 @@ class Pre29ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
     public void onActivityDestroyed(@NonNull Activity activity) {
         getTracer(activity)
                 .startSpanIfNoneInProgress("Destroyed")
-                .addEvent("activityDestroyed")
+                .addEvent(LifecycleEvent.ACTIVITY_DESTROYED)
                 .endActiveSpan();
+        activityTracers.remove(activity);
+        visibleScreenTracker.activityDestroyed(activity);
+        if (activity instanceof FragmentActivity) {
+            //FragmentActivity destroys its fragments after this callback, so don't stop listening just yet.
+            FragmentManager fragmentManager = ((FragmentActivity) activity).getSupportFragmentManager();
+            mainHandler.post(() -> fragmentManager.unregisterFragmentLifecycleCallbacks(registeredFragmentCallbacks));
+        }
+    }
+
+    //visible for testing
+    ActivityTracerCache getActivityTracers() {
+        return activityTracers;
+    }
+
+    //visible for testing
+    RumFragmentLifecycleCallbacks getFragmentCallbacks() {
+        return fragmentCallbacks;
     }
 
     private ActivityTracer getTracer(Activity activity) {
-        ActivityTracer activityTracer = tracersByActivityClassName.get(activity.getClass().getName());
-        if (activityTracer == null) {
-            activityTracer = new ActivityTracer(activity, initialAppActivity, tracer, visibleScreenTracker, appStartupTimer);
-            tracersByActivityClassName.put(activity.getClass().getName(), activityTracer);
-        }
-        return activityTracer;
+        return activityTracers.get(activity);
     }
 
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.semconv.resource.attributes.ResourceAttributes;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+/**
+ * Reports the previous processes of the application that were killed by the system (ANRs, low
+ * memory kills, excessive resource usage, ...), as recorded by
+ * {@link ActivityManager#getHistoricalProcessExitReasons}. None of these can be observed from
+ * within the dying process, so they are reported after the fact, on the next launch.
+ * <p>
+ * Crashes are left out, since those are reported by the crash reporters themselves. Only the exits
+ * that happened after the first run of the library are reported: the system remembers exits from
+ * long before the library was added to the application, and those aren't of interest.
+ */
+@RequiresApi(api = Build.VERSION_CODES.R)
+class ProcessExitReporter {
+    static final AttributeKey<String> EXIT_REASON_KEY = stringKey("exit.reason");
+    static final AttributeKey<String> EXIT_DESCRIPTION_KEY = stringKey("exit.description");
+    static final AttributeKey<Long> EXIT_STATUS_KEY = longKey("exit.status");
+    static final AttributeKey<Long> EXIT_IMPORTANCE_KEY = longKey("exit.importance");
+    static final AttributeKey<Long> EXIT_PSS_KEY = longKey("exit.pss");
+    static final AttributeKey<Long> EXIT_RSS_KEY = longKey("exit.rss");
+
+    static final String PREFERENCES_NAME = "com.splunk.rum";
+    static final String WATERMARK_KEY = "processExitWatermark";
+    //ANR traces contain every thread in the process; only the start of it is of interest.
+    private static final int MAX_TRACE_BYTES = 64 * 1024;
+
+    private final Tracer tracer;
+    private final ActivityManager activityManager;
+    private final SharedPreferences preferences;
+    private final String packageName;
+    private final Clock clock;
+
+    ProcessExitReporter(Tracer tracer, ActivityManager activityManager, SharedPreferences preferences, String packageName) {
+        this(tracer, activityManager, preferences, packageName, Clock.systemDefaultZone());
+    }
+
+    // exists for testing
+    ProcessExitReporter(Tracer tracer, ActivityManager activityManager, SharedPreferences preferences, String packageName, Clock clock) {
+        this.tracer = tracer;
+        this.activityManager = activityManager;
+        this.preferences = preferences;
+        this.packageName = packageName;
+        this.clock = clock;
+    }
+
+    /**
+     * Records a span for every process exit that hasn't been seen by a previous run. This reads
+     * the shared preferences and possibly an ANR trace, so don't call it from the main thread.
+     */
+    void reportUnseenExits() {
+        long watermark = preferences.getLong(WATERMARK_KEY, 0);
+        if (watermark == 0) {
+            //first run: everything the system remembers predates the library, so start from now.
+            preferences.edit().putLong(WATERMARK_KEY, clock.millis()).apply();
+            return;
+        }
+        //returns every exit the system still remembers, most recent first.
+        List<ApplicationExitInfo> exits = activityManager.getHistoricalProcessExitReasons(packageName, 0, 0);
+        long newWatermark = watermark;
+        for (ApplicationExitInfo exit : exits) {
+            if (exit.getTimestamp() <= watermark) {
+                continue;
+            }
+            newWatermark = Math.max(newWatermark, exit.getTimestamp());
+            if (isReported(exit.getReason())) {
+                recordExitSpan(exit);
+            }
+        }
+        if (newWatermark != watermark) {
+            preferences.edit().putLong(WATERMARK_KEY, newWatermark).apply();
+        }
+    }
+
+    private void recordExitSpan(ApplicationExitInfo exit) {
+        Span span = tracer.spanBuilder("ProcessExit")
+                .setStartTimestamp(exit.getTimestamp(), TimeUnit.MILLISECONDS)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_ERROR)
+                .setAttribute(EXIT_REASON_KEY, reasonName(exit.getReason()))
+                .setAttribute(EXIT_STATUS_KEY, (long) exit.getStatus())
+                .setAttribute(EXIT_IMPORTANCE_KEY, (long) exit.getImportance())
+                .setAttribute(EXIT_PSS_KEY, exit.getPss())
+                .setAttribute(EXIT_RSS_KEY, exit.getRss())
+                .setAttribute(ResourceAttributes.PROCESS_PID, (long) exit.getPid())
+                .startSpan();
+        if (exit.getDescription() != null) {
+            span.setAttribute(EXIT_DESCRIPTION_KEY, exit.getDescription());
+        }
+        if (exit.getReason() == ApplicationExitInfo.REASON_ANR) {
+            String trace = readAnrTrace(exit);
+            if (trace != null) {
+                span.setAttribute(SemanticAttributes.EXCEPTION_STACKTRACE, trace);
+            }
+        }
+        span.setStatus(StatusCode.ERROR);
+        span.end(exit.getTimestamp(), TimeUnit.MILLISECONDS);
+    }
+
+    @Nullable
+    private static String readAnrTrace(ApplicationExitInfo exit) {
+        try (InputStream in = exit.getTraceInputStream()) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while (out.size() < MAX_TRACE_BYTES && (read = in.read(buffer, 0, Math.min(buffer.length, MAX_TRACE_BYTES - out.size()))) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return mainThreadTrace(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to read the ANR trace", e);
+            return null;
+        }
+    }
+
+    //visible for testing
+    static String mainThreadTrace(String trace) {
+        //the attribute length is limited, so skip straight to the thread that was not responding.
+        int start = trace.indexOf("\"main\"");
+        if (start < 0) {
+            return trace;
+        }
+        int end = trace.indexOf("\n\n", start);
+        return end < 0 ? trace.substring(start) : trace.substring(start, end + 1);
+    }
+
+    private static boolean isReported(int reason) {
+        switch (reason) {
+            case ApplicationExitInfo.REASON_ANR:
+            case ApplicationExitInfo.REASON_LOW_MEMORY:
+            case ApplicationExitInfo.REASON_EXCESSIVE_RESOURCE_USAGE:
+            case ApplicationExitInfo.REASON_SIGNALED:
+            case ApplicationExitInfo.REASON_INITIALIZATION_FAILURE:
+            case ApplicationExitInfo.REASON_DEPENDENCY_DIED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String reasonName(int reason) {
+        switch (reason) {
+            case ApplicationExitInfo.REASON_ANR:
+                return "ANR";
+            case ApplicationExitInfo.REASON_LOW_MEMORY:
+                return "LOW_MEMORY";
+            case ApplicationExitInfo.REASON_EXCESSIVE_RESOURCE_USAGE:
+                return "EXCESSIVE_RESOURCE_USAGE";
+            case ApplicationExitInfo.REASON_SIGNALED:
+                return "SIGNALED";
+            case ApplicationExitInfo.REASON_INITIALIZATION_FAILURE:
+                return "INITIALIZATION_FAILURE";
+            case ApplicationExitInfo.REASON_DEPENDENCY_DIED:
+                return "DEPENDENCY_DIED";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
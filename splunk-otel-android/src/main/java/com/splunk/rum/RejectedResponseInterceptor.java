@@ -0,0 +1,47 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.splunk.rum;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Fails the request with a {@link BeaconResponseException} when the beacon doesn't accept it. The
+ * zipkin sender would fail it as well, but without the status code, which is needed to tell a
+ * rejected payload from a temporary problem.
+ */
+class RejectedResponseInterceptor implements Interceptor {
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        if (response.isSuccessful()) {
+            return response;
+        }
+        int statusCode = response.code();
+        ResponseBody body = response.body();
+        if (body != null) {
+            body.close();
+        }
+        throw new BeaconResponseException(statusCode, "Beacon responded with " + statusCode + " to " + chain.request().url().encodedPath());
+    }
+}
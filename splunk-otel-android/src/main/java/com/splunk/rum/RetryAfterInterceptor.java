@@ -0,0 +1,81 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Passes the {@code Retry-After} header of throttled (429) and unavailable (503) responses from
+ * the beacon on to the {@link ExportBackoff}. The zipkin sender only reports that the request
+ * failed, without the response.
+ */
+class RetryAfterInterceptor implements Interceptor {
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private final ExportBackoff backoff;
+    private final Clock clock;
+
+    RetryAfterInterceptor(ExportBackoff backoff) {
+        this(backoff, Clock.systemDefaultZone());
+    }
+
+    // exists for testing
+    RetryAfterInterceptor(ExportBackoff backoff, Clock clock) {
+        this.backoff = backoff;
+        this.clock = clock;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        if (response.code() == 429 || response.code() == 503) {
+            long delayMillis = retryAfterMillis(response);
+            if (delayMillis >= 0) {
+                Log.i(LOG_TAG, "Beacon responded with " + response.code() + ", retrying after " + delayMillis + "ms");
+                backoff.retryAfter(delayMillis);
+            }
+        }
+        return response;
+    }
+
+    //the header holds either a number of seconds or an http date. returns -1 if there is no usable value.
+    private long retryAfterMillis(Response response) {
+        String value = response.header(RETRY_AFTER);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate(RETRY_AFTER);
+            return date == null ? -1 : Math.max(0, date.getTime() - clock.millis());
+        }
+    }
+}
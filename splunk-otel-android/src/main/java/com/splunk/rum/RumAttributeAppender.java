@@ -16,6 +16,8 @@
 
 package com.splunk.rum;
 
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+import static io.opentelemetry.api.common.AttributeKey.longKey;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.DEVICE_MODEL_IDENTIFIER;
 import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.DEVICE_MODEL_NAME;
@@ -26,36 +28,77 @@ import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.NET_H
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.NET_HOST_CONNECTION_TYPE;
 
 import android.os.Build;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.sdk.trace.ReadWriteSpan;
 import io.opentelemetry.sdk.trace.ReadableSpan;
 import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
 
+/**
+ * Adds the RUM attributes (app, session, screen, device, network and the global attributes) to
+ * every span.
+ * <p>
+ * When enrichment is deferred, the span only gets a reference to an immutable snapshot of the
+ * values that change over time (session, screen, network and global attributes) when it starts,
+ * and the full set of attributes is filled in by {@link #materialize(SpanData)}, on the export
+ * thread. The snapshot is shared by all the spans started while none of those values changes, and
+ * it is kept for as long as any of those spans (or the span data exported from them) is around.
+ */
 class RumAttributeAppender implements SpanProcessor {
     static final AttributeKey<String> APP_NAME_KEY = stringKey("app");
     static final AttributeKey<String> SESSION_ID_KEY = stringKey("splunk.rumSessionId");
     static final AttributeKey<String> RUM_VERSION_KEY = stringKey("splunk.rum.version");
 
     static final AttributeKey<String> SPLUNK_OPERATION_KEY = stringKey("_splunk_operation");
+    //only present until the span is materialized; it's never exported.
+    static final AttributeKey<Long> ATTRIBUTES_SNAPSHOT_KEY = longKey("_splunk_attributes_snapshot");
 
     private final Config config;
     private final SessionId sessionId;
     private final String rumVersion;
     private final VisibleScreenTracker visibleScreenTracker;
-    private final ConnectionUtil connectionUtil;
+    private final BooleanSupplier deferEnrichment;
+    private volatile ConnectionUtil connectionUtil;
+
+    private final AtomicLong snapshotIds = new AtomicLong();
+    //keyed weakly by the span context, which both the span and its exported span data refer to.
+    private final Map<SpanContext, AttributesSnapshot> pendingSnapshots = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile AttributesSnapshot currentSnapshot;
 
     RumAttributeAppender(Config config, SessionId sessionId, String rumVersion, VisibleScreenTracker visibleScreenTracker, ConnectionUtil connectionUtil) {
+        this(config, sessionId, rumVersion, visibleScreenTracker, connectionUtil, () -> false);
+    }
+
+    RumAttributeAppender(Config config, SessionId sessionId, String rumVersion, VisibleScreenTracker visibleScreenTracker, ConnectionUtil connectionUtil,
+                         BooleanSupplier deferEnrichment) {
         this.config = config;
         this.sessionId = sessionId;
         this.rumVersion = rumVersion;
         this.visibleScreenTracker = visibleScreenTracker;
         this.connectionUtil = connectionUtil;
+        this.deferEnrichment = deferEnrichment;
     }
 
     @Override
     public void onStart(Context parentContext, ReadWriteSpan span) {
+        if (deferEnrichment.getAsBoolean()) {
+            AttributesSnapshot snapshot = captureSnapshot();
+            pendingSnapshots.put(span.getSpanContext(), snapshot);
+            span.setAttribute(ATTRIBUTES_SNAPSHOT_KEY, snapshot.id);
+            return;
+        }
         //set this custom attribute in order to let the CustomZipkinEncoder use it for the span name on the wire.
         span.setAttribute(SPLUNK_OPERATION_KEY, span.getName());
 
@@ -72,9 +115,83 @@ class RumAttributeAppender implements SpanProcessor {
 
         String currentScreen = visibleScreenTracker.getCurrentlyVisibleScreen();
         span.setAttribute(SplunkRum.SCREEN_NAME_KEY, currentScreen);
-        CurrentNetwork currentNetwork = connectionUtil.getActiveNetwork();
-        span.setAttribute(NET_HOST_CONNECTION_TYPE, currentNetwork.getState().getHumanName());
-        currentNetwork.getSubType().ifPresent(subtype -> span.setAttribute(NET_HOST_CONNECTION_SUBTYPE, subtype));
+        ConnectionUtil connectionUtil = this.connectionUtil;
+        //with deferred initialization, the network isn't known until the initialization has completed.
+        if (connectionUtil != null) {
+            CurrentNetwork currentNetwork = connectionUtil.getActiveNetwork();
+            span.setAttribute(NET_HOST_CONNECTION_TYPE, currentNetwork.getState().getHumanName());
+            currentNetwork.getSubType().ifPresent(subtype -> span.setAttribute(NET_HOST_CONNECTION_SUBTYPE, subtype));
+        }
+    }
+
+    private AttributesSnapshot captureSnapshot() {
+        String session = sessionId.getSessionId();
+        String screen = visibleScreenTracker.getCurrentlyVisibleScreen();
+        ConnectionUtil connectionUtil = this.connectionUtil;
+        CurrentNetwork network = connectionUtil == null ? null : connectionUtil.getActiveNetwork();
+        Attributes globalAttributes = config.getGlobalAttributes();
+
+        AttributesSnapshot snapshot = currentSnapshot;
+        if (snapshot != null && snapshot.isSameAs(session, screen, network, globalAttributes)) {
+            return snapshot;
+        }
+        snapshot = new AttributesSnapshot(snapshotIds.incrementAndGet(), session, screen, network, globalAttributes);
+        currentSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Fills in the RUM attributes of a span that was started while enrichment was deferred. Spans
+     * which already have them are returned as they are. Attributes set on the span itself take
+     * precedence over the RUM ones. If the snapshot can't be found, the session and screen are
+     * left out rather than guessed. This can be called for the same span by several exporters.
+     */
+    SpanData materialize(SpanData span) {
+        Long snapshotId = span.getAttributes().get(ATTRIBUTES_SNAPSHOT_KEY);
+        if (snapshotId == null) {
+            return span;
+        }
+        //the same span can be exported more than once (e.g. by the debug logging exporter too), so
+        //the snapshot is only dropped once the span and its span data are gone.
+        AttributesSnapshot snapshot = pendingSnapshots.get(span.getSpanContext());
+        if (snapshot == null || snapshot.id != snapshotId) {
+            Log.w(LOG_TAG, "No attributes snapshot found for span " + span.getName() + ", exporting it without session and screen.");
+            snapshot = null;
+        }
+
+        AttributesBuilder attributes = Attributes.builder()
+                .put(SPLUNK_OPERATION_KEY, span.getName())
+                .put(APP_NAME_KEY, config.getApplicationName())
+                .put(RUM_VERSION_KEY, rumVersion)
+                .put(DEVICE_MODEL_NAME, Build.MODEL)
+                .put(DEVICE_MODEL_IDENTIFIER, Build.MODEL)
+                .put(OS_NAME, "Android")
+                .put(OS_TYPE, "linux")
+                .put(OS_VERSION, Build.VERSION.RELEASE);
+        if (snapshot != null) {
+            attributes.putAll(snapshot.globalAttributes)
+                    .put(SESSION_ID_KEY, snapshot.sessionId);
+            if (snapshot.screenName != null) {
+                attributes.put(SplunkRum.SCREEN_NAME_KEY, snapshot.screenName);
+            }
+        }
+        //with deferred initialization, the network may not have been known when the span started.
+        CurrentNetwork network = snapshot == null ? null : snapshot.network;
+        ConnectionUtil connectionUtil = this.connectionUtil;
+        if (network == null && connectionUtil != null) {
+            network = connectionUtil.getActiveNetwork();
+        }
+        if (network != null) {
+            attributes.put(NET_HOST_CONNECTION_TYPE, network.getState().getHumanName());
+            network.getSubType().ifPresent(subtype -> attributes.put(NET_HOST_CONNECTION_SUBTYPE, subtype));
+        }
+        attributes.putAll(span.getAttributes())
+                .remove(ATTRIBUTES_SNAPSHOT_KEY);
+        return new ModifiedSpanData(span, attributes.build());
+    }
+
+    void setConnectionUtil(ConnectionUtil connectionUtil) {
+        this.connectionUtil = connectionUtil;
     }
 
     @Override
@@ -90,4 +207,28 @@ class RumAttributeAppender implements SpanProcessor {
     public boolean isEndRequired() {
         return false;
     }
+
+    private static final class AttributesSnapshot {
+        private final long id;
+        private final String sessionId;
+        private final String screenName;
+        private final CurrentNetwork network;
+        private final Attributes globalAttributes;
+
+        private AttributesSnapshot(long id, String sessionId, String screenName, CurrentNetwork network, Attributes globalAttributes) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.screenName = screenName;
+            this.network = network;
+            this.globalAttributes = globalAttributes;
+        }
+
+        //all of these are only replaced when they change, so comparing references is enough (and cheap).
+        private boolean isSameAs(String sessionId, String screenName, CurrentNetwork network, Attributes globalAttributes) {
+            return this.sessionId == sessionId
+                    && this.screenName == screenName
+                    && this.network == network
+                    && this.globalAttributes == globalAttributes;
+        }
+    }
 }
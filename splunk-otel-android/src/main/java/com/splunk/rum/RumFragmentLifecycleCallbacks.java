@@ -25,20 +25,28 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
 
 import io.opentelemetry.api.trace.Tracer;
 
 class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCallbacks {
-    private final Map<String, FragmentTracer> tracersByFragmentClassName = new HashMap<>();
+    //one tracer per fragment instance (fragments compare by identity), removed when the fragment is detached.
+    private final Map<Fragment, FragmentTracer> tracersByFragment = new WeakHashMap<>();
 
     private final Tracer tracer;
     private final VisibleScreenTracker visibleScreenTracker;
+    private final BooleanSupplier compactLifecycleEvents;
 
     RumFragmentLifecycleCallbacks(Tracer tracer, VisibleScreenTracker visibleScreenTracker) {
+        this(tracer, visibleScreenTracker, () -> false);
+    }
+
+    RumFragmentLifecycleCallbacks(Tracer tracer, VisibleScreenTracker visibleScreenTracker, BooleanSupplier compactLifecycleEvents) {
         this.tracer = tracer;
         this.visibleScreenTracker = visibleScreenTracker;
+        this.compactLifecycleEvents = compactLifecycleEvents;
     }
 
     @Override
@@ -46,25 +54,25 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
         super.onFragmentPreAttached(fm, f, context);
         getTracer(f)
                 .startFragmentCreation()
-                .addEvent("fragmentPreAttached");
+                .addEvent(LifecycleEvent.FRAGMENT_PRE_ATTACHED);
     }
 
     @Override
     public void onFragmentAttached(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull Context context) {
         super.onFragmentAttached(fm, f, context);
-        addEvent(f, "fragmentAttached");
+        addEvent(f, LifecycleEvent.FRAGMENT_ATTACHED);
     }
 
     @Override
     public void onFragmentPreCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @Nullable Bundle savedInstanceState) {
         super.onFragmentPreCreated(fm, f, savedInstanceState);
-        addEvent(f, "fragmentPreCreated");
+        addEvent(f, LifecycleEvent.FRAGMENT_PRE_CREATED);
     }
 
     @Override
     public void onFragmentCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @Nullable Bundle savedInstanceState) {
         super.onFragmentCreated(fm, f, savedInstanceState);
-        addEvent(f, "fragmentCreated");
+        addEvent(f, LifecycleEvent.FRAGMENT_CREATED);
     }
 
     @Override
@@ -72,13 +80,13 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
         super.onFragmentViewCreated(fm, f, v, savedInstanceState);
         getTracer(f)
                 .startSpanIfNoneInProgress("Restored")
-                .addEvent("fragmentViewCreated");
+                .addEvent(LifecycleEvent.FRAGMENT_VIEW_CREATED);
     }
 
     @Override
     public void onFragmentStarted(@NonNull FragmentManager fm, @NonNull Fragment f) {
         super.onFragmentStarted(fm, f);
-        addEvent(f, "fragmentStarted");
+        addEvent(f, LifecycleEvent.FRAGMENT_STARTED);
     }
 
     @Override
@@ -86,7 +94,7 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
         super.onFragmentResumed(fm, f);
         getTracer(f)
                 .startSpanIfNoneInProgress("Resumed")
-                .addEvent("fragmentResumed")
+                .addEvent(LifecycleEvent.FRAGMENT_RESUMED)
                 .addPreviousScreenAttribute()
                 .endActiveSpan();
         visibleScreenTracker.fragmentResumed(f);
@@ -96,14 +104,17 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
     public void onFragmentPaused(@NonNull FragmentManager fm, @NonNull Fragment f) {
         super.onFragmentPaused(fm, f);
         visibleScreenTracker.fragmentPaused(f);
-        getTracer(f).startSpanIfNoneInProgress("Paused").addEvent("fragmentPaused");
+        getTracer(f)
+                .startSpanIfNoneInProgress("Paused")
+                .addEvent(LifecycleEvent.FRAGMENT_PAUSED)
+                .addCpuTimeAttributes();
     }
 
     @Override
     public void onFragmentStopped(@NonNull FragmentManager fm, @NonNull Fragment f) {
         super.onFragmentStopped(fm, f);
         getTracer(f)
-                .addEvent("fragmentStopped")
+                .addEvent(LifecycleEvent.FRAGMENT_STOPPED)
                 .endActiveSpan();
     }
 
@@ -117,7 +128,7 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
         super.onFragmentViewDestroyed(fm, f);
         getTracer(f)
                 .startSpanIfNoneInProgress("ViewDestroyed")
-                .addEvent("fragmentViewDestroyed")
+                .addEvent(LifecycleEvent.FRAGMENT_VIEW_DESTROYED)
                 .endActiveSpan();
     }
 
@@ -127,7 +138,7 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
         //note: this might not get called if the dev has checked "retainInstance" on the fragment
         getTracer(f)
                 .startSpanIfNoneInProgress("Destroyed")
-                .addEvent("fragmentDestroyed");
+                .addEvent(LifecycleEvent.FRAGMENT_DESTROYED);
     }
 
     @Override
@@ -136,23 +147,29 @@ class RumFragmentLifecycleCallbacks extends FragmentManager.FragmentLifecycleCal
         // this is a terminal operation, but might also be the only thing we see on app getting killed, so
         getTracer(f)
                 .startSpanIfNoneInProgress("Detached")
-                .addEvent("fragmentDetached")
+                .addEvent(LifecycleEvent.FRAGMENT_DETACHED)
                 .endActiveSpan();
+        tracersByFragment.remove(f);
+    }
+
+    //visible for testing
+    int getTrackedFragmentCount() {
+        return tracersByFragment.size();
     }
 
-    private void addEvent(@NonNull Fragment fragment, String eventName) {
-        FragmentTracer fragmentTracer = tracersByFragmentClassName.get(fragment.getClass().getName());
+    private void addEvent(@NonNull Fragment fragment, LifecycleEvent event) {
+        FragmentTracer fragmentTracer = tracersByFragment.get(fragment);
         if (fragmentTracer != null) {
-            fragmentTracer.addEvent(eventName);
+            fragmentTracer.addEvent(event);
         }
     }
 
     private FragmentTracer getTracer(Fragment fragment) {
-        FragmentTracer activityTracer = tracersByFragmentClassName.get(fragment.getClass().getName());
-        if (activityTracer == null) {
-            activityTracer = new FragmentTracer(fragment, tracer, visibleScreenTracker);
-            tracersByFragmentClassName.put(fragment.getClass().getName(), activityTracer);
+        FragmentTracer fragmentTracer = tracersByFragment.get(fragment);
+        if (fragmentTracer == null) {
+            fragmentTracer = new FragmentTracer(fragment, tracer, visibleScreenTracker, compactLifecycleEvents);
+            tracersByFragment.put(fragment, fragmentTracer);
         }
-        return activityTracer;
+        return fragmentTracer;
     }
 }
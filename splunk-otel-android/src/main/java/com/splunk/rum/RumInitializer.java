@@ -18,13 +18,17 @@ package com.splunk.rum;
 
 import static com.splunk.rum.SplunkRum.LOG_TAG;
 
+import android.app.ActivityManager;
 import android.app.Application;
+import android.content.SharedPreferences;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
 import com.splunk.android.rum.R;
 
@@ -34,10 +38,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 
@@ -49,12 +53,13 @@ import io.opentelemetry.exporter.zipkin.ZipkinSpanExporter;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.common.Clock;
 import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.SpanLimits;
 import io.opentelemetry.sdk.trace.data.SpanData;
-import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
 import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import zipkin2.reporter.Sender;
@@ -67,15 +72,37 @@ class RumInitializer {
     private final AppStartupTimer startupTimer;
     private final List<RumInitializer.InitializationEvent> initializationEvents = new ArrayList<>();
     private final AnchoredClock timingClock;
+    private final SdkScheduler scheduler;
+    //work which may block for a while (file and network I/O, binder calls, the upload of disk-buffered
+    //spans) doesn't run on the shared scheduler.
+    private final SdkScheduler blockingScheduler;
+    private final SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+    private final MainThreadOverhead mainThreadOverhead;
+    //these are set on a worker thread with deferred initialization, and read by other tasks.
+    //only set when spans spill over from memory to disk.
+    @Nullable
+    private volatile MemoryBufferingExporter spilloverExporter;
+    @Nullable
+    private volatile DiskSpilloverTrigger spilloverTrigger;
+    //only set when spans are sent from disk, with disk buffering or spillover.
+    @Nullable
+    private volatile DiskToZipkinExporter diskToZipkinExporter;
 
     RumInitializer(Config config, Application application, AppStartupTimer startupTimer) {
         this.config = config;
         this.application = application;
         this.startupTimer = startupTimer;
         this.timingClock = startupTimer.startupClock;
+        this.scheduler = SdkScheduler.create(config);
+        this.blockingScheduler = SdkScheduler.createForBlockingWork("splunk-rum-io");
+        this.mainThreadOverhead = new MainThreadOverhead(config.getMainThreadBudget().toNanos(), config.isMainThreadBudgetEnabled());
+        statsRecorder.setMainThreadOverhead(mainThreadOverhead);
     }
 
     SplunkRum initialize(Supplier<ConnectionUtil> connectionUtilSupplier, Looper mainLooper) {
+        if (config.isDeferredInitializationEnabled()) {
+            return initializeDeferred(connectionUtilSupplier, mainLooper);
+        }
         String rumVersion = detectRumVersion();
         VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker();
 
@@ -90,13 +117,25 @@ class RumInitializer {
         SessionId sessionId = new SessionId();
         initializationEvents.add(new RumInitializer.InitializationEvent("sessionIdInitialized", timingClock.now()));
 
-        SdkTracerProvider sdkTracerProvider = buildTracerProvider(Clock.getDefault(), zipkinExporter, sessionId, rumVersion, visibleScreenTracker, connectionUtil);
+        RumAttributeAppender attributeAppender = new RumAttributeAppender(config, sessionId, rumVersion, visibleScreenTracker, connectionUtil, deferAttributeEnrichment());
+        FullyDrawnTracker fullyDrawnTracker = new FullyDrawnTracker(scheduler);
+        SdkTracerProvider sdkTracerProvider = buildTracerProvider(Clock.getDefault(), buildExportingSpanProcessor(zipkinExporter, attributeAppender), attributeAppender, fullyDrawnTracker);
         initializationEvents.add(new RumInitializer.InitializationEvent("tracerProviderInitialized", timingClock.now()));
 
-        OpenTelemetrySdk openTelemetrySdk = OpenTelemetrySdk.builder().setTracerProvider(sdkTracerProvider).build();
+        SdkMeterProvider sdkMeterProvider = buildMeterProvider(Clock.getDefault(), sdkTracerProvider);
+        initializationEvents.add(new RumInitializer.InitializationEvent("meterProviderInitialized", timingClock.now()));
+
+        OpenTelemetrySdk openTelemetrySdk = OpenTelemetrySdk.builder()
+                .setTracerProvider(sdkTracerProvider)
+                .setMeterProvider(sdkMeterProvider)
+                .build();
         initializationEvents.add(new RumInitializer.InitializationEvent("openTelemetrySdkInitialized", timingClock.now()));
 
-        List<AppStateListener> appStateListeners = new ArrayList<>();
+        //more listeners can be added after initialization, see SplunkRum.addAppStateListener().
+        List<AppStateListener> appStateListeners = new CopyOnWriteArrayList<>();
+        if (spilloverTrigger != null) {
+            appStateListeners.add(spilloverTrigger);
+        }
         if (config.isAnrDetectionEnabled()) {
             appStateListeners.add(initializeAnrReporting(mainLooper));
             initializationEvents.add(new RumInitializer.InitializationEvent("anrMonitorInitialized", timingClock.now()));
@@ -106,9 +145,7 @@ class RumInitializer {
         sessionId.setSessionIdChangeListener(new SessionIdChangeTracer(tracer));
 
         if (config.isNetworkMonitorEnabled()) {
-            NetworkMonitor networkMonitor = new NetworkMonitor(connectionUtil);
-            networkMonitor.addConnectivityListener(tracer);
-            appStateListeners.add(networkMonitor);
+            appStateListeners.add(initializeNetworkMonitor(connectionUtil, tracer));
             initializationEvents.add(new RumInitializer.InitializationEvent("networkMonitorInitialized", timingClock.now()));
         }
 
@@ -116,8 +153,200 @@ class RumInitializer {
         SlowRenderingDetector slowRenderingDetector = buildSlowRenderingDetector(config, tracer);
         slowRenderingDetector.start();
 
+        if (config.isMemorySamplingEnabled()) {
+            appStateListeners.add(initializeMemorySampling(tracer, visibleScreenTracker));
+            initializationEvents.add(new RumInitializer.InitializationEvent("memorySamplerInitialized", timingClock.now()));
+        }
+
+        startSdkStatsReporting(tracer);
+
+        registerActivityLifecycleCallbacks(tracer, visibleScreenTracker, appStateListeners, slowRenderingDetector);
+        initializationEvents.add(new RumInitializer.InitializationEvent("activityLifecycleCallbacksInitialized", timingClock.now()));
+
+        if (config.isCrashReportingEnabled()) {
+            CrashSpanStorage crashSpanStorage = new CrashSpanStorage(application);
+            SpanExporter crashSpanExporter = buildCrashSpanExporter(crashSpanStorage, attributeAppender);
+            CrashReporter.initializeCrashReporting(tracer, openTelemetrySdk, crashSpanExporter);
+            recoverPersistedCrashSpans(crashSpanStorage, crashSpanExporter, connectionUtil);
+            initializationEvents.add(new RumInitializer.InitializationEvent("crashReportingInitialized", timingClock.now()));
+
+            //processes killed by the system are reported along with the crashes (see Config.Builder.crashReportingEnabled).
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                reportProcessExits(tracer);
+                initializationEvents.add(new RumInitializer.InitializationEvent("processExitReportingInitialized", timingClock.now()));
+            }
+        }
+
+        recordInitializationSpans(startTimeNanos, initializationEvents, tracer, config);
+
+        return new SplunkRum(openTelemetrySdk, sessionId, config, statsRecorder, fullyDrawnTracker, visibleScreenTracker, appStateListeners);
+    }
+
+    /**
+     * Only does what has to happen before {@code Application.onCreate()} returns: the activity
+     * lifecycle callbacks and the crash handler are installed, backed by a tracer provider which
+     * buffers the ended spans. The rest is built on a background thread, which then replays the
+     * buffered spans into the real exporter.
+     */
+    private SplunkRum initializeDeferred(Supplier<ConnectionUtil> connectionUtilSupplier, Looper mainLooper) {
+        String rumVersion = detectRumVersion();
+        VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker();
+
+        long startTimeNanos = timingClock.now();
+
+        SessionId sessionId = new SessionId();
+        initializationEvents.add(new RumInitializer.InitializationEvent("sessionIdInitialized", timingClock.now()));
+
+        DeferredSpanProcessor deferredSpanProcessor = new DeferredSpanProcessor();
+        //the network will be filled in once the connectionUtil has been built in the background.
+        RumAttributeAppender attributeAppender = new RumAttributeAppender(config, sessionId, rumVersion, visibleScreenTracker, null, deferAttributeEnrichment());
+        FullyDrawnTracker fullyDrawnTracker = new FullyDrawnTracker(scheduler);
+        SdkTracerProvider sdkTracerProvider = buildTracerProvider(Clock.getDefault(), deferredSpanProcessor, attributeAppender, fullyDrawnTracker);
+        initializationEvents.add(new RumInitializer.InitializationEvent("tracerProviderInitialized", timingClock.now()));
+
+        SdkMeterProvider sdkMeterProvider = buildMeterProvider(Clock.getDefault(), sdkTracerProvider);
+        initializationEvents.add(new RumInitializer.InitializationEvent("meterProviderInitialized", timingClock.now()));
+
+        OpenTelemetrySdk openTelemetrySdk = OpenTelemetrySdk.builder()
+                .setTracerProvider(sdkTracerProvider)
+                .setMeterProvider(sdkMeterProvider)
+                .build();
+        initializationEvents.add(new RumInitializer.InitializationEvent("openTelemetrySdkInitialized", timingClock.now()));
+
+        Tracer tracer = openTelemetrySdk.getTracer(SplunkRum.RUM_TRACER_NAME);
+        sessionId.setSessionIdChangeListener(new SessionIdChangeTracer(tracer));
+
+        //the ANR and network monitors are added from the background thread.
+        List<AppStateListener> appStateListeners = new CopyOnWriteArrayList<>();
+        SlowRenderingDetector slowRenderingDetector = buildSlowRenderingDetector(config, tracer);
+        registerActivityLifecycleCallbacks(tracer, visibleScreenTracker, appStateListeners, slowRenderingDetector);
+        initializationEvents.add(new RumInitializer.InitializationEvent("activityLifecycleCallbacksInitialized", timingClock.now()));
+
+        CrashSpanStorage crashSpanStorage = null;
+        SpanExporter crashSpanExporter = null;
+        if (config.isCrashReportingEnabled()) {
+            crashSpanStorage = new CrashSpanStorage(application);
+            crashSpanExporter = buildCrashSpanExporter(crashSpanStorage, attributeAppender);
+            CrashReporter.initializeCrashReporting(tracer, openTelemetrySdk, crashSpanExporter);
+            initializationEvents.add(new RumInitializer.InitializationEvent("crashReportingInitialized", timingClock.now()));
+        }
+
+        Span initializationSpan = recordInitializationSpans(startTimeNanos, initializationEvents, tracer, config);
+
+        DeferredInitialization deferredInitialization = new DeferredInitialization(connectionUtilSupplier, mainLooper, tracer,
+                visibleScreenTracker, deferredSpanProcessor, attributeAppender, appStateListeners, slowRenderingDetector, crashSpanStorage, crashSpanExporter);
+        //builds the network detection and the http client, which may block.
+        blockingScheduler.execute(() -> {
+            try {
+                deferredInitialization.complete(initializationSpan);
+            } catch (Exception e) {
+                Log.w(LOG_TAG, "Deferred initialization of Splunk RUM failed", e);
+            }
+        });
+
+        return new SplunkRum(openTelemetrySdk, sessionId, config, statsRecorder, fullyDrawnTracker, visibleScreenTracker, appStateListeners);
+    }
+
+    private class DeferredInitialization {
+        private final Supplier<ConnectionUtil> connectionUtilSupplier;
+        private final Looper mainLooper;
+        private final Tracer tracer;
+        private final VisibleScreenTracker visibleScreenTracker;
+        private final DeferredSpanProcessor deferredSpanProcessor;
+        private final RumAttributeAppender attributeAppender;
+        private final List<AppStateListener> appStateListeners;
+        private final SlowRenderingDetector slowRenderingDetector;
+        @Nullable
+        private final CrashSpanStorage crashSpanStorage;
+        @Nullable
+        private final SpanExporter crashSpanExporter;
+
+        private DeferredInitialization(Supplier<ConnectionUtil> connectionUtilSupplier, Looper mainLooper, Tracer tracer,
+                                       VisibleScreenTracker visibleScreenTracker, DeferredSpanProcessor deferredSpanProcessor, RumAttributeAppender attributeAppender,
+                                       List<AppStateListener> appStateListeners, SlowRenderingDetector slowRenderingDetector,
+                                       @Nullable CrashSpanStorage crashSpanStorage, @Nullable SpanExporter crashSpanExporter) {
+            this.connectionUtilSupplier = connectionUtilSupplier;
+            this.mainLooper = mainLooper;
+            this.tracer = tracer;
+            this.visibleScreenTracker = visibleScreenTracker;
+            this.deferredSpanProcessor = deferredSpanProcessor;
+            this.attributeAppender = attributeAppender;
+            this.appStateListeners = appStateListeners;
+            this.slowRenderingDetector = slowRenderingDetector;
+            this.crashSpanStorage = crashSpanStorage;
+            this.crashSpanExporter = crashSpanExporter;
+        }
+
+        void complete(Span initializationSpan) {
+            //the main thread is done with the events by now.
+            initializationEvents.clear();
+            long startTimeNanos = timingClock.now();
+
+            ConnectionUtil connectionUtil = connectionUtilSupplier.get();
+            attributeAppender.setConnectionUtil(connectionUtil);
+            initializationEvents.add(new InitializationEvent("connectionUtilInitialized", timingClock.now()));
+
+            SpanExporter zipkinExporter = buildFilteringExporter(connectionUtil);
+            initializationEvents.add(new RumInitializer.InitializationEvent("exporterInitialized", timingClock.now()));
+
+            if (config.isAnrDetectionEnabled()) {
+                appStateListeners.add(initializeAnrReporting(mainLooper));
+                initializationEvents.add(new RumInitializer.InitializationEvent("anrMonitorInitialized", timingClock.now()));
+            }
+
+            if (config.isNetworkMonitorEnabled()) {
+                appStateListeners.add(initializeNetworkMonitor(connectionUtil, tracer));
+                initializationEvents.add(new RumInitializer.InitializationEvent("networkMonitorInitialized", timingClock.now()));
+            }
+
+            slowRenderingDetector.start();
+
+            if (config.isMemorySamplingEnabled()) {
+                appStateListeners.add(initializeMemorySampling(tracer, visibleScreenTracker));
+                initializationEvents.add(new RumInitializer.InitializationEvent("memorySamplerInitialized", timingClock.now()));
+            }
+
+            startSdkStatsReporting(tracer);
+
+            if (crashSpanStorage != null) {
+                recoverPersistedCrashSpans(crashSpanStorage, crashSpanExporter, connectionUtil);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    reportProcessExits(tracer);
+                    initializationEvents.add(new RumInitializer.InitializationEvent("processExitReportingInitialized", timingClock.now()));
+                }
+            }
+
+            deferredSpanProcessor.start(buildExportingSpanProcessor(zipkinExporter, attributeAppender), connectionUtil);
+            initializationEvents.add(new RumInitializer.InitializationEvent("bufferedSpansReplayed", timingClock.now()));
+            if (spilloverTrigger != null) {
+                appStateListeners.add(spilloverTrigger);
+            }
+
+            recordDeferredInitializationSpan(startTimeNanos, initializationSpan, tracer);
+        }
+    }
+
+    private NetworkMonitor initializeNetworkMonitor(ConnectionUtil connectionUtil, Tracer tracer) {
+        NetworkMonitor networkMonitor = new NetworkMonitor(connectionUtil);
+        networkMonitor.addConnectivityListener(tracer);
+        return networkMonitor;
+    }
+
+    //the span attributes are filled in on the export thread if configured, or once the main thread is over budget.
+    private BooleanSupplier deferAttributeEnrichment() {
+        boolean deferredAttributeEnrichmentEnabled = config.isDeferredAttributeEnrichmentEnabled();
+        return () -> deferredAttributeEnrichmentEnabled || mainThreadOverhead.isOverBudget();
+    }
+
+    private void registerActivityLifecycleCallbacks(Tracer tracer, VisibleScreenTracker visibleScreenTracker,
+                                                    List<AppStateListener> appStateListeners, SlowRenderingDetector slowRenderingDetector) {
+        boolean compactLifecycleEventsEnabled = config.isCompactLifecycleEventsEnabled();
+        //changes the payload, so only when configured, never because of the main thread budget.
+        BooleanSupplier compactLifecycleEvents = () -> compactLifecycleEventsEnabled;
         if (Build.VERSION.SDK_INT < 29) {
-            application.registerActivityLifecycleCallbacks(new Pre29ActivityCallbacks(tracer, visibleScreenTracker, startupTimer, appStateListeners));
+            Pre29ActivityCallbacks activityCallbacks = new Pre29ActivityCallbacks(tracer, visibleScreenTracker, startupTimer, appStateListeners,
+                    compactLifecycleEvents, mainThreadOverhead);
+            application.registerActivityLifecycleCallbacks(new OverheadMeasuringActivityCallbacks(activityCallbacks, mainThreadOverhead));
         } else {
             ActivityCallbacks activityCallbacks = ActivityCallbacks.builder()
                     .tracer(tracer)
@@ -125,19 +354,11 @@ class RumInitializer {
                     .startupTimer(startupTimer)
                     .appStateListeners(appStateListeners)
                     .slowRenderingDetector(slowRenderingDetector)
+                    .compactLifecycleEvents(compactLifecycleEvents)
+                    .mainThreadOverhead(mainThreadOverhead)
                     .build();
-            application.registerActivityLifecycleCallbacks(activityCallbacks);
-        }
-        initializationEvents.add(new RumInitializer.InitializationEvent("activityLifecycleCallbacksInitialized", timingClock.now()));
-
-        if (config.isCrashReportingEnabled()) {
-            CrashReporter.initializeCrashReporting(tracer, openTelemetrySdk);
-            initializationEvents.add(new RumInitializer.InitializationEvent("crashReportingInitialized", timingClock.now()));
+            application.registerActivityLifecycleCallbacks(new OverheadMeasuringActivityCallbacks(activityCallbacks, mainThreadOverhead));
         }
-
-        recordInitializationSpans(startTimeNanos, initializationEvents, tracer, config);
-
-        return new SplunkRum(openTelemetrySdk, sessionId, config);
     }
 
     private SlowRenderingDetector buildSlowRenderingDetector(Config config, Tracer tracer) {
@@ -148,7 +369,7 @@ class RumInitializer {
         try {
             initializationEvents.add(new RumInitializer.InitializationEvent("slowRenderingDetectorInitialized", timingClock.now()));
             Class.forName("androidx.core.app.FrameMetricsAggregator");
-            return new SlowRenderingDetectorImpl(tracer, config.getSlowRenderPollingDuration());
+            return new SlowRenderingDetectorImpl(tracer, scheduler, config.getSlowRenderPollingDuration());
         } catch (ClassNotFoundException e) {
             Log.w(LOG_TAG, "FrameMetricsAggregator is not available on this platform - slow/frozen rendering detection is disabled.");
             return SlowRenderingDetector.NO_OP;
@@ -159,15 +380,14 @@ class RumInitializer {
         Thread mainThread = mainLooper.getThread();
         Handler uiHandler = new Handler(mainLooper);
         AnrWatcher anrWatcher = new AnrWatcher(uiHandler, mainThread, SplunkRum::getInstance);
-        ScheduledExecutorService anrScheduler = Executors.newScheduledThreadPool(1);
-        final ScheduledFuture<?> scheduledFuture = anrScheduler.scheduleAtFixedRate(anrWatcher, 1, 1, TimeUnit.SECONDS);
+        final ScheduledFuture<?> scheduledFuture = scheduler.scheduleAtFixedRate(anrWatcher, 1, TimeUnit.SECONDS);
         return new AppStateListener() {
             private ScheduledFuture<?> future = scheduledFuture;
 
             @Override
             public void appForegrounded() {
                 if (future == null) {
-                    future = anrScheduler.scheduleAtFixedRate(anrWatcher, 1, 1, TimeUnit.SECONDS);
+                    future = scheduler.scheduleAtFixedRate(anrWatcher, 1, TimeUnit.SECONDS);
                 }
             }
 
@@ -181,6 +401,67 @@ class RumInitializer {
         };
     }
 
+    private AppStateListener initializeMemorySampling(Tracer tracer, VisibleScreenTracker visibleScreenTracker) {
+        ActivityManager activityManager = (ActivityManager) application.getSystemService(Application.ACTIVITY_SERVICE);
+        MemorySampler memorySampler = new MemorySampler(tracer, visibleScreenTracker, scheduler, new MemoryReader(activityManager));
+        application.registerComponentCallbacks(memorySampler);
+        memorySampler.start();
+        return memorySampler;
+    }
+
+    private void startSdkStatsReporting(Tracer tracer) {
+        scheduler.scheduleAtFixedRate(new SdkStatsReporter(tracer, statsRecorder), SdkStatsReporter.REPORTING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        initializationEvents.add(new RumInitializer.InitializationEvent("sdkStatsReportingInitialized", timingClock.now()));
+    }
+
+    private SpanExporter buildCrashSpanExporter(CrashSpanStorage crashSpanStorage, RumAttributeAppender attributeAppender) {
+        return new AttributeMaterializingExporter(config.decorateWithSpanFilter(new LazyInitSpanExporter(() -> ZipkinSpanExporter.builder()
+                .setEncoder(new CustomZipkinEncoder())
+                .setSender(crashSpanStorage.sender())
+                .build())), attributeAppender);
+    }
+
+    private void recoverPersistedCrashSpans(CrashSpanStorage crashSpanStorage, SpanExporter crashSpanExporter, ConnectionUtil connectionUtil) {
+        blockingScheduler.execute(() -> {
+            try {
+                crashSpanStorage.recoverAndPreallocate();
+                //initialize the exporter now, rather than on the crashing thread.
+                crashSpanExporter.flush();
+                DiskToZipkinExporter spanUploader = diskToZipkinExporter;
+                if (spanUploader != null) {
+                    spanUploader.requestExport();
+                } else if (hasPendingSpanFiles()) {
+                    //only the crash spans of a previous run end up in the spans directory. The
+                    //uploader retries failed uploads with backoff and when the network comes back,
+                    //and stops once they have all been sent.
+                    DiskToZipkinExporter crashSpanUploader = buildDiskToZipkinExporter(connectionUtil, true);
+                    crashSpanUploader.startPolling();
+                }
+            } catch (Exception e) {
+                Log.w(LOG_TAG, "Unable to set up crash span storage", e);
+            }
+        });
+    }
+
+    private boolean hasPendingSpanFiles() {
+        File[] spanFiles = FileUtils.getSpansDirectory(application).listFiles((dir, name) -> name.endsWith(".spans"));
+        return spanFiles != null && spanFiles.length > 0;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    private void reportProcessExits(Tracer tracer) {
+        //a binder call, plus reading the ANR traces.
+        blockingScheduler.execute(() -> {
+            try {
+                ActivityManager activityManager = (ActivityManager) application.getSystemService(Application.ACTIVITY_SERVICE);
+                SharedPreferences preferences = application.getSharedPreferences(ProcessExitReporter.PREFERENCES_NAME, Application.MODE_PRIVATE);
+                new ProcessExitReporter(tracer, activityManager, preferences, application.getPackageName()).reportUnseenExits();
+            } catch (Exception e) {
+                Log.w(LOG_TAG, "Unable to report historical process exits", e);
+            }
+        });
+    }
+
     private String detectRumVersion() {
         try {
             //todo: figure out if there's a way to get access to resources from pure non-UI library code.
@@ -191,8 +472,9 @@ class RumInitializer {
         return "unknown";
     }
 
-    private void recordInitializationSpans(long startTimeNanos, List<InitializationEvent> initializationEvents, Tracer tracer, Config config) {
+    private Span recordInitializationSpans(long startTimeNanos, List<InitializationEvent> initializationEvents, Tracer tracer, Config config) {
         Span overallAppStart = startupTimer.start(tracer);
+        startupTimer.recordPreInitializationPhases(startTimeNanos);
         Span span = tracer.spanBuilder("SplunkRum.initialize")
                 .setParent(Context.current().with(overallAppStart))
                 .setStartTimestamp(startTimeNanos, TimeUnit.NANOSECONDS)
@@ -203,48 +485,90 @@ class RumInitializer {
                 "crashReporting:" + config.isCrashReportingEnabled() + "," +
                 "anrReporting:" + config.isAnrDetectionEnabled() + "," +
                 "slowRenderingDetector:" + config.isSlowRenderingDetectionEnabled() + "," +
-                "networkMonitor:" + config.isNetworkMonitorEnabled() + "]";
+                "networkMonitor:" + config.isNetworkMonitorEnabled() + "," +
+                "memorySampling:" + config.isMemorySamplingEnabled() + "]";
         span.setAttribute("config_settings", configSettings);
+        if (config.isDeferredInitializationEnabled()) {
+            span.setAttribute("deferred", true);
+        }
+
+        addInitializationEvents(span, initializationEvents);
+        span.end(timingClock.now(), TimeUnit.NANOSECONDS);
+        return span;
+    }
+
+    //the part of the initialization done in the background is a child of the SplunkRum.initialize span.
+    private void recordDeferredInitializationSpan(long startTimeNanos, Span initializationSpan, Tracer tracer) {
+        Span span = tracer.spanBuilder("SplunkRum.initializeDeferred")
+                .setParent(Context.current().with(initializationSpan))
+                .setStartTimestamp(startTimeNanos, TimeUnit.NANOSECONDS)
+                .setAttribute(SplunkRum.COMPONENT_KEY, SplunkRum.COMPONENT_APPSTART)
+                .startSpan();
+        addInitializationEvents(span, initializationEvents);
+        span.end(timingClock.now(), TimeUnit.NANOSECONDS);
+    }
 
+    private static void addInitializationEvents(Span span, List<InitializationEvent> initializationEvents) {
         for (RumInitializer.InitializationEvent initializationEvent : initializationEvents) {
             span.addEvent(initializationEvent.name, initializationEvent.time, TimeUnit.NANOSECONDS);
         }
-        span.end(timingClock.now(), TimeUnit.NANOSECONDS);
     }
 
-    private SdkTracerProvider buildTracerProvider(
-            Clock clock,
-            SpanExporter zipkinExporter,
-            SessionId sessionId,
-            String rumVersion,
-            VisibleScreenTracker visibleScreenTracker,
-            ConnectionUtil connectionUtil) {
-        BatchSpanProcessor batchSpanProcessor = BatchSpanProcessor.builder(zipkinExporter).build();
+    private SpanProcessor buildExportingSpanProcessor(SpanExporter zipkinExporter, RumAttributeAppender attributeAppender) {
+        SpanProcessor batchSpanProcessor = new ScheduledBatchSpanProcessor(new AttributeMaterializingExporter(zipkinExporter, attributeAppender), scheduler, statsRecorder);
         initializationEvents.add(new RumInitializer.InitializationEvent("batchSpanProcessorInitialized", timingClock.now()));
+        MemoryBufferingExporter spilloverExporter = this.spilloverExporter;
+        if (spilloverExporter != null) {
+            DiskSpilloverTrigger spilloverTrigger = new DiskSpilloverTrigger(spilloverExporter, batchSpanProcessor);
+            application.registerComponentCallbacks(spilloverTrigger);
+            this.spilloverTrigger = spilloverTrigger;
+        }
 
-        RumAttributeAppender attributeAppender = new RumAttributeAppender(config, sessionId, rumVersion, visibleScreenTracker, connectionUtil);
+        if (!config.isDebugEnabled()) {
+            return batchSpanProcessor;
+        }
+        SpanProcessor debugSpanProcessor = SimpleSpanProcessor.create(
+                new AttributeMaterializingExporter(config.decorateWithSpanFilter(LoggingSpanExporter.create()), attributeAppender));
+        initializationEvents.add(new RumInitializer.InitializationEvent("debugSpanExporterInitialized", timingClock.now()));
+        return SpanProcessor.composite(batchSpanProcessor, debugSpanProcessor);
+    }
+
+    private SdkTracerProvider buildTracerProvider(
+            Clock clock,
+            SpanProcessor exportingSpanProcessor,
+            RumAttributeAppender attributeAppender,
+            FullyDrawnTracker fullyDrawnTracker) {
         initializationEvents.add(new RumInitializer.InitializationEvent("attributeAppenderInitialized", timingClock.now()));
 
-        Resource resource = Resource.getDefault().toBuilder().put("service.name", config.getApplicationName()).build();
+        Resource resource = buildResource();
         initializationEvents.add(new RumInitializer.InitializationEvent("resourceInitialized", timingClock.now()));
 
         SdkTracerProviderBuilder tracerProviderBuilder = SdkTracerProvider.builder()
                 .setClock(clock)
-                .addSpanProcessor(batchSpanProcessor)
+                .addSpanProcessor(exportingSpanProcessor)
                 .addSpanProcessor(attributeAppender)
+                .addSpanProcessor(fullyDrawnTracker)
                 .setSpanLimits(SpanLimits.builder().setMaxAttributeValueLength(2048).build())
                 .setResource(resource);
         initializationEvents.add(new RumInitializer.InitializationEvent("tracerProviderBuilderInitialized", timingClock.now()));
 
-        if (config.isDebugEnabled()) {
-            tracerProviderBuilder.addSpanProcessor(
-                    SimpleSpanProcessor.create(
-                            config.decorateWithSpanFilter(LoggingSpanExporter.create())));
-            initializationEvents.add(new RumInitializer.InitializationEvent("debugSpanExporterInitialized", timingClock.now()));
-        }
         return tracerProviderBuilder.build();
     }
 
+    //metrics are sent as spans, so they go through the same filtering, buffering and export.
+    private SdkMeterProvider buildMeterProvider(Clock clock, SdkTracerProvider sdkTracerProvider) {
+        MetricSpanExporter metricExporter = new MetricSpanExporter(sdkTracerProvider.get(SplunkRum.RUM_TRACER_NAME), statsRecorder);
+        return SdkMeterProvider.builder()
+                .setClock(clock)
+                .setResource(buildResource())
+                .registerMetricReader(ScheduledMetricReader.factory(metricExporter, scheduler))
+                .build();
+    }
+
+    private Resource buildResource() {
+        return Resource.getDefault().toBuilder().put("service.name", config.getApplicationName()).build();
+    }
+
     //visible for testing
     SpanExporter buildFilteringExporter(ConnectionUtil connectionUtil) {
         SpanExporter exporter = buildExporter(connectionUtil);
@@ -269,19 +593,33 @@ class RumInitializer {
     }
 
     private SpanExporter buildStorageBufferingExporter(ConnectionUtil connectionUtil) {
-        Sender sender = OkHttpSender.newBuilder()
-                .endpoint(getEndpoint())
-                .build();
+        diskToZipkinExporter = buildDiskToZipkinExporter(connectionUtil, false);
+        diskToZipkinExporter.startPolling();
+
+        return getToDiskExporter(diskToZipkinExporter);
+    }
+
+    private DiskToZipkinExporter buildDiskToZipkinExporter(ConnectionUtil connectionUtil, boolean stopWhenDrained) {
+        ExportBackoff backoff = new ExportBackoff();
+        OkHttpSender.Builder senderBuilder = OkHttpSender.newBuilder()
+                .endpoint(getEndpoint());
+        //added first so that it runs outermost, after the Retry-After header has been seen.
+        senderBuilder.clientBuilder()
+                .addInterceptor(new RejectedResponseInterceptor())
+                .addInterceptor(new RetryAfterInterceptor(backoff));
+        Sender sender = new StatsRecordingSender(senderBuilder.build(), statsRecorder);
         File spanFilesPath = FileUtils.getSpansDirectory(application);
 
-        DiskToZipkinExporter diskToZipkinExporter = DiskToZipkinExporter.builder()
+        return DiskToZipkinExporter.builder()
+                .scheduler(blockingScheduler)
                 .connectionUtil(connectionUtil)
                 .sender(sender)
                 .spanFilesPath(spanFilesPath)
+                .statsRecorder(statsRecorder)
+                .maxInFlightRequests(config.getMaxConcurrentUploads())
+                .backoff(backoff)
+                .stopWhenDrained(stopWhenDrained)
                 .build();
-        diskToZipkinExporter.startPolling();
-
-        return getToDiskExporter();
     }
 
     @NonNull
@@ -292,25 +630,47 @@ class RumInitializer {
     private SpanExporter buildMemoryBufferingThrottledExporter(ConnectionUtil connectionUtil) {
         String endpoint = getEndpoint();
         SpanExporter zipkinSpanExporter = getCoreSpanExporter(endpoint);
-        return ThrottlingExporter.newBuilder(new MemoryBufferingExporter(connectionUtil, zipkinSpanExporter))
+        MemoryBufferingExporter memoryBufferingExporter;
+        if (config.isDiskSpilloverEnabled()) {
+            //spilled spans are sent by the same exporter that disk buffering uses.
+            diskToZipkinExporter = buildDiskToZipkinExporter(connectionUtil, false);
+            diskToZipkinExporter.startPolling();
+            memoryBufferingExporter = new MemoryBufferingExporter(connectionUtil, zipkinSpanExporter, statsRecorder, getToDiskExporter(diskToZipkinExporter));
+            spilloverExporter = memoryBufferingExporter;
+        } else {
+            memoryBufferingExporter = new MemoryBufferingExporter(connectionUtil, zipkinSpanExporter, statsRecorder);
+        }
+        return ThrottlingExporter.newBuilder(memoryBufferingExporter)
                 .categorizeByAttribute(SplunkRum.COMPONENT_KEY)
+                .statsRecorder(statsRecorder)
                 .maxSpansInWindow(100)
                 .windowSize(Duration.ofSeconds(30))
                 .build();
     }
 
-    SpanExporter getToDiskExporter(){
+    SpanExporter getToDiskExporter(DiskToZipkinExporter diskToZipkinExporter){
         return new LazyInitSpanExporter(() -> {
-            return ZipkinWriteToDiskExporterFactory.create(application);
+            return ZipkinWriteToDiskExporterFactory.create(application, config.isBatchAttributeHoistingEnabled(), diskToZipkinExporter::requestExport);
         });
     }
 
     //visible for testing
     SpanExporter getCoreSpanExporter(String endpoint) {
         //return a lazy init exporter so the main thread doesn't block on the setup.
-        return new LazyInitSpanExporter(() -> ZipkinSpanExporter.builder()
-                .setEncoder(new CustomZipkinEncoder())
-                .setEndpoint(endpoint).build());
+        return new LazyInitSpanExporter(() -> {
+            Sender sender = new StatsRecordingSender(OkHttpSender.create(endpoint), statsRecorder);
+            if (!config.isBatchAttributeHoistingEnabled()) {
+                return ZipkinSpanExporter.builder()
+                        .setEncoder(new CustomZipkinEncoder())
+                        .setSender(sender)
+                        .build();
+            }
+            AttributeHoistingSender hoistingSender = new AttributeHoistingSender(sender);
+            return new AttributeHoistingExporter(ZipkinSpanExporter.builder()
+                    .setEncoder(new CustomZipkinEncoder())
+                    .setSender(hoistingSender)
+                    .build(), hoistingSender);
+        });
     }
 
     static class InitializationEvent {
@@ -0,0 +1,191 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Batches ended spans for export, just like the {@link BatchSpanProcessor} (and with the same
+ * defaults), but runs on the shared {@link SdkScheduler} rather than on a dedicated worker thread.
+ * <p>
+ * It never waits for the exporter, which would hold up the other users of the scheduler: the next
+ * batch is exported once the previous one completes, or once {@link #EXPORT_TIMEOUT_MILLIS} have
+ * passed.
+ */
+class ScheduledBatchSpanProcessor implements SpanProcessor {
+    static final long EXPORT_INTERVAL_MILLIS = 5000;
+    static final int MAX_QUEUE_SIZE = 2048;
+    static final int MAX_EXPORT_BATCH_SIZE = 512;
+    static final long EXPORT_TIMEOUT_MILLIS = 30_000;
+
+    private final SpanExporter exporter;
+    private final SdkScheduler scheduler;
+    private final SdkStatsRecorder statsRecorder;
+    private final BlockingQueue<ReadableSpan> queue = new ArrayBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final AtomicBoolean earlyExportScheduled = new AtomicBoolean();
+    //exports may be kicked off from more than one scheduler thread, but must not overlap.
+    private final AtomicBoolean exportRunning = new AtomicBoolean();
+    //run once the queue has been emptied by the running (or next) export.
+    private final Queue<Runnable> drainedListeners = new ConcurrentLinkedQueue<>();
+    private final ScheduledFuture<?> periodicExport;
+
+    ScheduledBatchSpanProcessor(SpanExporter exporter, SdkScheduler scheduler, SdkStatsRecorder statsRecorder) {
+        this.exporter = exporter;
+        this.scheduler = scheduler;
+        this.statsRecorder = statsRecorder;
+        statsRecorder.setSpanQueueSize(queue::size);
+        this.periodicExport = scheduler.scheduleAtFixedRate(this::exportQueuedSpans, EXPORT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!span.getSpanContext().isSampled()) {
+            return;
+        }
+        statsRecorder.recordEndedSpan();
+        if (!queue.offer(span)) {
+            statsRecorder.recordDroppedSpan();
+            Log.d(LOG_TAG, "Span export queue is full, dropping span " + span.getName());
+            return;
+        }
+        //don't wait for the next tick if there's a full batch ready to go.
+        if (queue.size() >= MAX_EXPORT_BATCH_SIZE && earlyExportScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                earlyExportScheduled.set(false);
+                exportQueuedSpans();
+            });
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    private void exportQueuedSpans() {
+        if (exportRunning.compareAndSet(false, true)) {
+            exportNextBatch();
+        }
+    }
+
+    private void exportNextBatch() {
+        List<SpanData> batch = new ArrayList<>(MAX_EXPORT_BATCH_SIZE);
+        ReadableSpan span;
+        while (batch.size() < MAX_EXPORT_BATCH_SIZE && (span = queue.poll()) != null) {
+            batch.add(span.toSpanData());
+        }
+        if (batch.isEmpty()) {
+            exportRunning.set(false);
+            Runnable listener;
+            while ((listener = drainedListeners.poll()) != null) {
+                listener.run();
+            }
+            return;
+        }
+        //whichever comes first, the completion or the timeout, moves on to the next batch.
+        AtomicBoolean batchDone = new AtomicBoolean();
+        CompletableResultCode result;
+        try {
+            result = exporter.export(batch);
+        } catch (RuntimeException e) {
+            Log.w(LOG_TAG, "Failed to export a batch of " + batch.size() + " spans", e);
+            scheduler.execute(this::exportNextBatch);
+            return;
+        }
+        result.whenComplete(() -> {
+            if (batchDone.compareAndSet(false, true)) {
+                if (!result.isSuccess()) {
+                    Log.d(LOG_TAG, "Failed to export a batch of " + batch.size() + " spans");
+                }
+                scheduler.execute(this::exportNextBatch);
+            }
+        });
+        if (!batchDone.get()) {
+            scheduler.schedule(() -> {
+                if (batchDone.compareAndSet(false, true)) {
+                    Log.d(LOG_TAG, "Timed out exporting a batch of " + batch.size() + " spans");
+                    exportNextBatch();
+                }
+            }, EXPORT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        CompletableResultCode result = new CompletableResultCode();
+        drainedListeners.add(() -> {
+            CompletableResultCode flushResult = exporter.flush();
+            flushResult.whenComplete(() -> {
+                if (flushResult.isSuccess()) {
+                    result.succeed();
+                } else {
+                    result.fail();
+                }
+            });
+        });
+        scheduler.execute(this::exportQueuedSpans);
+        return result;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        periodicExport.cancel(false);
+        CompletableResultCode result = new CompletableResultCode();
+        CompletableResultCode flushResult = forceFlush();
+        flushResult.whenComplete(() -> {
+            CompletableResultCode shutdownResult = exporter.shutdown();
+            shutdownResult.whenComplete(() -> {
+                if (flushResult.isSuccess() && shutdownResult.isSuccess()) {
+                    result.succeed();
+                } else {
+                    result.fail();
+                }
+            });
+        });
+        return result;
+    }
+}
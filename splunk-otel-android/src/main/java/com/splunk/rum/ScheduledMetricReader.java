@@ -0,0 +1,92 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.MetricProducer;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.metrics.export.MetricReaderFactory;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+
+/**
+ * Periodically collects the metrics and hands them to the exporter, just like the
+ * {@link PeriodicMetricReader}, but on the shared {@link SdkScheduler}.
+ */
+class ScheduledMetricReader implements MetricReader {
+    static final long EXPORT_INTERVAL_SECONDS = 60;
+
+    private final MetricProducer producer;
+    private final MetricExporter exporter;
+    //collections may be kicked off from more than one scheduler thread, but must not overlap.
+    private final Object collectLock = new Object();
+    private final ScheduledFuture<?> periodicCollection;
+
+    ScheduledMetricReader(MetricProducer producer, MetricExporter exporter, SdkScheduler scheduler) {
+        this.producer = producer;
+        this.exporter = exporter;
+        this.periodicCollection = scheduler.scheduleAtFixedRate(this::collectAndExport, EXPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static MetricReaderFactory factory(MetricExporter exporter, SdkScheduler scheduler) {
+        return producer -> new ScheduledMetricReader(producer, exporter, scheduler);
+    }
+
+    @Override
+    public AggregationTemporality getPreferredTemporality() {
+        return exporter.getPreferredTemporality();
+    }
+
+    private CompletableResultCode collectAndExport() {
+        synchronized (collectLock) {
+            Collection<MetricData> metrics = producer.collectAllMetrics();
+            if (metrics.isEmpty()) {
+                return CompletableResultCode.ofSuccess();
+            }
+            return exporter.export(metrics);
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return collectAndExport();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        periodicCollection.cancel(false);
+        CompletableResultCode result = new CompletableResultCode();
+        CompletableResultCode exportResult = collectAndExport();
+        exportResult.whenComplete(() -> {
+            CompletableResultCode shutdownResult = exporter.shutdown();
+            shutdownResult.whenComplete(() -> {
+                if (exportResult.isSuccess() && shutdownResult.isSuccess()) {
+                    result.succeed();
+                } else {
+                    result.fail();
+                }
+            });
+        });
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Accounts for the process and main thread CPU time used while a screen is visible (between it
+ * being resumed and paused). Only used from the main thread.
+ */
+class ScreenCpuTracker {
+    static final AttributeKey<Long> PROCESS_CPU_TIME_KEY = AttributeKey.longKey("cpu.process.time");
+    static final AttributeKey<Long> MAIN_THREAD_CPU_TIME_KEY = AttributeKey.longKey("cpu.main_thread.time");
+    static final AttributeKey<Long> VISIBLE_TIME_KEY = AttributeKey.longKey("screen.visible.time");
+
+    private static final int VISIBLE_SINCE = 0;
+    private static final int PROCESS_CPU_TIME = 1;
+    private static final int MAIN_THREAD_CPU_TIME = 2;
+
+    private final CpuTimeReader cpuTimeReader;
+    private final Clock clock;
+    //the arrays are re-used across resumes of the same screen.
+    private final Map<String, long[]> resumedScreens = new HashMap<>();
+
+    ScreenCpuTracker() {
+        this(new CpuTimeReader(), Clock.systemDefaultZone());
+    }
+
+    // exists for testing
+    ScreenCpuTracker(CpuTimeReader cpuTimeReader, Clock clock) {
+        this.cpuTimeReader = cpuTimeReader;
+        this.clock = clock;
+    }
+
+    void screenResumed(String screenName) {
+        long[] snapshot = resumedScreens.get(screenName);
+        if (snapshot == null) {
+            snapshot = new long[3];
+            resumedScreens.put(screenName, snapshot);
+        }
+        snapshot[VISIBLE_SINCE] = clock.millis();
+        snapshot[PROCESS_CPU_TIME] = cpuTimeReader.getProcessCpuTimeMillis();
+        snapshot[MAIN_THREAD_CPU_TIME] = cpuTimeReader.getMainThreadCpuTimeMillis();
+    }
+
+    /**
+     * Adds the CPU time used since the screen was resumed to the span.
+     */
+    void screenPaused(String screenName, Span span) {
+        long[] snapshot = resumedScreens.get(screenName);
+        if (snapshot == null || snapshot[VISIBLE_SINCE] < 0) {
+            return;
+        }
+        span.setAttribute(VISIBLE_TIME_KEY, clock.millis() - snapshot[VISIBLE_SINCE]);
+        span.setAttribute(PROCESS_CPU_TIME_KEY, cpuTimeReader.getProcessCpuTimeMillis() - snapshot[PROCESS_CPU_TIME]);
+        long mainThreadCpuTime = cpuTimeReader.getMainThreadCpuTimeMillis();
+        if (mainThreadCpuTime >= 0 && snapshot[MAIN_THREAD_CPU_TIME] >= 0) {
+            span.setAttribute(MAIN_THREAD_CPU_TIME_KEY, mainThreadCpuTime - snapshot[MAIN_THREAD_CPU_TIME]);
+        }
+        //only report once per resume.
+        snapshot[VISIBLE_SINCE] = -1;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.util.Log;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the background work of the SDK, on a small, bounded set of low-priority threads (or on the
+ * executor provided with {@link Config.Builder#scheduledExecutor}).
+ * <p>
+ * The threads are shared by the ANR watchdog, slow rendering detection and the like, so tasks must
+ * not block. Work which may block for a long time (file and network I/O, such as the upload of
+ * disk-buffered spans) gets its own thread instead, see {@link #createForBlockingWork(String)}.
+ * <p>
+ * Periodic tasks are aligned on shared ticks: every task runs at a whole multiple of its period,
+ * counted from the same origin. Tasks with the same period (or with periods that divide each other)
+ * therefore run back to back, and the device is woken up once per tick rather than once per task.
+ */
+class SdkScheduler {
+    static final int DEFAULT_THREAD_COUNT = 2;
+
+    private final ScheduledExecutorService executor;
+    private final LongSupplier nanoTime;
+    private final long originNanos;
+
+    SdkScheduler(ScheduledExecutorService executor) {
+        this(executor, System::nanoTime);
+    }
+
+    // exists for testing
+    SdkScheduler(ScheduledExecutorService executor, LongSupplier nanoTime) {
+        this.executor = executor;
+        this.nanoTime = nanoTime;
+        this.originNanos = nanoTime.getAsLong();
+    }
+
+    static SdkScheduler create(Config config) {
+        ScheduledExecutorService executor = config.getScheduledExecutor();
+        return new SdkScheduler(executor == null ? createDefaultExecutor() : executor);
+    }
+
+    /**
+     * A scheduler with a single thread of its own, for work which may block for a long time. It
+     * never runs on the executor provided with {@link Config.Builder#scheduledExecutor}.
+     */
+    static SdkScheduler createForBlockingWork(String threadName) {
+        return new SdkScheduler(createExecutor(1, new SdkThreadFactory(threadName)));
+    }
+
+    private static ScheduledExecutorService createDefaultExecutor() {
+        return createExecutor(DEFAULT_THREAD_COUNT, new SdkThreadFactory("splunk-rum-worker"));
+    }
+
+    private static ScheduledExecutorService createExecutor(int threadCount, ThreadFactory threadFactory) {
+        //threads are only created once there's work to do, so this is cheap to call on the main thread.
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threadCount, threadFactory);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    void execute(Runnable task) {
+        executor.execute(guarded(task));
+    }
+
+    ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return executor.schedule(guarded(task), delay, unit);
+    }
+
+    /**
+     * Runs the task periodically, on the next tick aligned to the period and every period after
+     * that. The first run is therefore at most one period away.
+     */
+    ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period, TimeUnit unit) {
+        long periodNanos = unit.toNanos(period);
+        return executor.scheduleAtFixedRate(guarded(task), delayToNextTick(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    //visible for testing
+    long delayToNextTick(long periodNanos) {
+        long elapsedNanos = nanoTime.getAsLong() - originNanos;
+        return periodNanos - (elapsedNanos % periodNanos);
+    }
+
+    //a failing periodic task would otherwise be cancelled, silently.
+    private static Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.w(LOG_TAG, "Background task failed", e);
+            }
+        };
+    }
+
+    private static class SdkThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private SdkThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            //maps to THREAD_PRIORITY_BACKGROUND on Android.
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A point-in-time snapshot of the internal statistics of the Splunk RUM library: how many spans are
+ * waiting to be exported, how many were dropped, how long exports take and how much data they send.
+ * <p>
+ * Counters are cumulative since the library was initialized. Obtain a snapshot with
+ * {@link SplunkRum#getSdkStats()}.
+ */
+public final class SdkStats {
+    private final long spanQueueSize;
+    private final long droppedSpanCount;
+    private final Map<String, Long> throttledSpanCounts;
+    private final long droppedMetricPointCount;
+    private final long memoryBacklogSize;
+    private final long pendingFileCount;
+    private final long pendingFileBytes;
+    private final double bandwidthBytesPerSecond;
+    private final long exportCount;
+    private final long failedExportCount;
+    private final long exportedBytes;
+    private final List<Long> exportLatencyBoundsMillis;
+    private final List<Long> exportLatencyCounts;
+    private final long mainThreadNanos;
+    private final long mainThreadCallbackCount;
+    private final long maxMainThreadWindowNanos;
+    private final boolean mainThreadOverBudget;
+
+    SdkStats(long spanQueueSize, long droppedSpanCount, Map<String, Long> throttledSpanCounts,
+             long droppedMetricPointCount, long memoryBacklogSize, long pendingFileCount, long pendingFileBytes,
+             double bandwidthBytesPerSecond, long exportCount, long failedExportCount, long exportedBytes,
+             List<Long> exportLatencyBoundsMillis, List<Long> exportLatencyCounts,
+             long mainThreadNanos, long mainThreadCallbackCount, long maxMainThreadWindowNanos,
+             boolean mainThreadOverBudget) {
+        this.spanQueueSize = spanQueueSize;
+        this.droppedSpanCount = droppedSpanCount;
+        this.throttledSpanCounts = throttledSpanCounts;
+        this.droppedMetricPointCount = droppedMetricPointCount;
+        this.memoryBacklogSize = memoryBacklogSize;
+        this.pendingFileCount = pendingFileCount;
+        this.pendingFileBytes = pendingFileBytes;
+        this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+        this.exportCount = exportCount;
+        this.failedExportCount = failedExportCount;
+        this.exportedBytes = exportedBytes;
+        this.exportLatencyBoundsMillis = exportLatencyBoundsMillis;
+        this.exportLatencyCounts = exportLatencyCounts;
+        this.mainThreadNanos = mainThreadNanos;
+        this.mainThreadCallbackCount = mainThreadCallbackCount;
+        this.maxMainThreadWindowNanos = maxMainThreadWindowNanos;
+        this.mainThreadOverBudget = mainThreadOverBudget;
+    }
+
+    /**
+     * The number of ended spans waiting in the batching queue.
+     */
+    public long getSpanQueueSize() {
+        return spanQueueSize;
+    }
+
+    /**
+     * The number of spans dropped because the batching queue was full.
+     */
+    public long getDroppedSpanCount() {
+        return droppedSpanCount;
+    }
+
+    /**
+     * The number of spans dropped by throttling, by span category (the {@code component} attribute).
+     */
+    public Map<String, Long> getThrottledSpanCounts() {
+        return throttledSpanCounts;
+    }
+
+    /**
+     * The number of metric points dropped because a metric, or a single export, had too many
+     * points (i.e. was recorded with too many different attributes).
+     */
+    public long getDroppedMetricPointCount() {
+        return droppedMetricPointCount;
+    }
+
+    /**
+     * The number of spans held in memory while the network is unavailable. Only used when disk
+     * buffering is disabled.
+     */
+    public long getMemoryBacklogSize() {
+        return memoryBacklogSize;
+    }
+
+    /**
+     * The number of span files waiting on disk to be sent. Only used when disk buffering is enabled.
+     */
+    public long getPendingFileCount() {
+        return pendingFileCount;
+    }
+
+    /**
+     * The total size of the span files waiting on disk to be sent, in bytes.
+     */
+    public long getPendingFileBytes() {
+        return pendingFileBytes;
+    }
+
+    /**
+     * The sustained rate at which buffered spans are sent from disk, in bytes per second.
+     */
+    public double getBandwidthBytesPerSecond() {
+        return bandwidthBytesPerSecond;
+    }
+
+    /**
+     * The number of requests sent to the ingest endpoint.
+     */
+    public long getExportCount() {
+        return exportCount;
+    }
+
+    /**
+     * The number of requests to the ingest endpoint that failed.
+     */
+    public long getFailedExportCount() {
+        return failedExportCount;
+    }
+
+    /**
+     * The number of (uncompressed) bytes sent to the ingest endpoint.
+     */
+    public long getExportedBytes() {
+        return exportedBytes;
+    }
+
+    /**
+     * The upper bounds, in milliseconds, of the buckets of the export latency histogram.
+     */
+    public List<Long> getExportLatencyBoundsMillis() {
+        return exportLatencyBoundsMillis;
+    }
+
+    /**
+     * The export latency histogram: the number of requests that took at most the corresponding
+     * {@link #getExportLatencyBoundsMillis() bound}. The last entry counts the requests that took
+     * longer than the last bound.
+     */
+    public List<Long> getExportLatencyCounts() {
+        return exportLatencyCounts;
+    }
+
+    /**
+     * The total time the lifecycle instrumentation has spent on the main thread, in nanoseconds.
+     */
+    public long getMainThreadNanos() {
+        return mainThreadNanos;
+    }
+
+    /**
+     * The number of lifecycle callbacks handled by the instrumentation on the main thread.
+     */
+    public long getMainThreadCallbackCount() {
+        return mainThreadCallbackCount;
+    }
+
+    /**
+     * The most time the lifecycle instrumentation has spent on the main thread within a single
+     * 16ms window, in nanoseconds.
+     */
+    public long getMaxMainThreadWindowNanos() {
+        return maxMainThreadWindowNanos;
+    }
+
+    /**
+     * Whether the lifecycle instrumentation has exceeded its main thread budget, and has degraded
+     * to doing less work on the main thread. See {@link Config.Builder#mainThreadBudget}.
+     */
+    public boolean isMainThreadOverBudget() {
+        return mainThreadOverBudget;
+    }
+
+    @Override
+    public String toString() {
+        return "SdkStats{" +
+                "spanQueueSize=" + spanQueueSize +
+                ", droppedSpanCount=" + droppedSpanCount +
+                ", throttledSpanCounts=" + throttledSpanCounts +
+                ", droppedMetricPointCount=" + droppedMetricPointCount +
+                ", memoryBacklogSize=" + memoryBacklogSize +
+                ", pendingFileCount=" + pendingFileCount +
+                ", pendingFileBytes=" + pendingFileBytes +
+                ", bandwidthBytesPerSecond=" + bandwidthBytesPerSecond +
+                ", exportCount=" + exportCount +
+                ", failedExportCount=" + failedExportCount +
+                ", exportedBytes=" + exportedBytes +
+                ", exportLatencyCounts=" + exportLatencyCounts +
+                ", mainThreadNanos=" + mainThreadNanos +
+                ", mainThreadCallbackCount=" + mainThreadCallbackCount +
+                ", maxMainThreadWindowNanos=" + maxMainThreadWindowNanos +
+                ", mainThreadOverBudget=" + mainThreadOverBudget +
+                '}';
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
+
+/**
+ * Collects the internal statistics of the library. Everything in here is recorded from the export
+ * path, so it only uses lock-free counters: recording never blocks, and never makes one component
+ * wait for another.
+ */
+class SdkStatsRecorder {
+    static final List<Long> EXPORT_LATENCY_BOUNDS_MILLIS = unmodifiableList(asList(50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L));
+    //spans without a category are throttled under this name.
+    static final String UNKNOWN_CATEGORY = "unknown";
+
+    private volatile IntSupplier spanQueueSize = () -> 0;
+    private volatile MainThreadOverhead mainThreadOverhead;
+    private final AtomicLong endedSpans = new AtomicLong();
+    private final AtomicLong droppedSpans = new AtomicLong();
+    private final AtomicLong droppedMetricPoints = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> throttledSpans = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBacklogSize = new AtomicLong();
+    private final AtomicLong pendingFileCount = new AtomicLong();
+    private final AtomicLong pendingFileBytes = new AtomicLong();
+    //there's no AtomicDouble, so this holds the raw bits of the double.
+    private final AtomicLong bandwidthRateBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private final AtomicLong exportCount = new AtomicLong();
+    private final AtomicLong failedExportCount = new AtomicLong();
+    private final AtomicLong exportedBytes = new AtomicLong();
+    private final AtomicLongArray exportLatencyCounts = new AtomicLongArray(EXPORT_LATENCY_BOUNDS_MILLIS.size() + 1);
+
+    void setSpanQueueSize(IntSupplier spanQueueSize) {
+        this.spanQueueSize = spanQueueSize;
+    }
+
+    void setMainThreadOverhead(MainThreadOverhead mainThreadOverhead) {
+        this.mainThreadOverhead = mainThreadOverhead;
+    }
+
+    void recordEndedSpan() {
+        endedSpans.incrementAndGet();
+    }
+
+    long getEndedSpanCount() {
+        return endedSpans.get();
+    }
+
+    void recordDroppedSpan() {
+        droppedSpans.incrementAndGet();
+    }
+
+    void recordDroppedMetricPoints(int count) {
+        droppedMetricPoints.addAndGet(count);
+    }
+
+    void recordThrottledSpans(String category, int count) {
+        String key = category == null ? UNKNOWN_CATEGORY : category;
+        AtomicLong counter = throttledSpans.get(key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = throttledSpans.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.addAndGet(count);
+    }
+
+    void setMemoryBacklogSize(int size) {
+        memoryBacklogSize.set(size);
+    }
+
+    void setPendingFiles(int count, long bytes) {
+        pendingFileCount.set(count);
+        pendingFileBytes.set(bytes);
+    }
+
+    void setBandwidthRate(double bytesPerSecond) {
+        bandwidthRateBits.set(Double.doubleToRawLongBits(bytesPerSecond));
+    }
+
+    void recordExport(long bytes, long latencyMillis, boolean success) {
+        exportCount.incrementAndGet();
+        if (!success) {
+            failedExportCount.incrementAndGet();
+        }
+        exportedBytes.addAndGet(bytes);
+        exportLatencyCounts.incrementAndGet(latencyBucket(latencyMillis));
+    }
+
+    private static int latencyBucket(long latencyMillis) {
+        int bucket = 0;
+        while (bucket < EXPORT_LATENCY_BOUNDS_MILLIS.size() && latencyMillis > EXPORT_LATENCY_BOUNDS_MILLIS.get(bucket)) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Note: the values are read one by one, so the snapshot is not guaranteed to be consistent
+     * across the different counters.
+     */
+    SdkStats snapshot() {
+        Map<String, Long> throttled = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : throttledSpans.entrySet()) {
+            throttled.put(entry.getKey(), entry.getValue().get());
+        }
+        List<Long> latencyCounts = new ArrayList<>(exportLatencyCounts.length());
+        for (int i = 0; i < exportLatencyCounts.length(); i++) {
+            latencyCounts.add(exportLatencyCounts.get(i));
+        }
+        MainThreadOverhead overhead = mainThreadOverhead;
+        return new SdkStats(
+                spanQueueSize.getAsInt(),
+                droppedSpans.get(),
+                unmodifiableMap(throttled),
+                droppedMetricPoints.get(),
+                memoryBacklogSize.get(),
+                pendingFileCount.get(),
+                pendingFileBytes.get(),
+                Double.longBitsToDouble(bandwidthRateBits.get()),
+                exportCount.get(),
+                failedExportCount.get(),
+                exportedBytes.get(),
+                EXPORT_LATENCY_BOUNDS_MILLIS,
+                unmodifiableList(latencyCounts),
+                overhead == null ? 0 : overhead.getTotalNanos(),
+                overhead == null ? 0 : overhead.getCallbackCount(),
+                overhead == null ? 0 : overhead.getMaxWindowNanos(),
+                overhead != null && overhead.isOverBudget());
+    }
+}
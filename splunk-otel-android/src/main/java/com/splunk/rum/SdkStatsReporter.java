@@ -0,0 +1,100 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static io.opentelemetry.api.common.AttributeKey.booleanKey;
+import static io.opentelemetry.api.common.AttributeKey.doubleKey;
+import static io.opentelemetry.api.common.AttributeKey.longArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Periodically records the {@link SdkStats} as a {@code splunk.rum.sdk.stats} span. Nothing is
+ * recorded while the application is idle: if no other span has ended since the last report, the
+ * report is skipped, so the stats span never keeps the export pipeline busy on its own.
+ */
+class SdkStatsReporter implements Runnable {
+    static final long REPORTING_INTERVAL_SECONDS = 60;
+    static final String SPAN_NAME = "splunk.rum.sdk.stats";
+
+    static final AttributeKey<Long> SPAN_QUEUE_SIZE_KEY = longKey("splunk.rum.sdk.span_queue.size");
+    static final AttributeKey<Long> DROPPED_SPANS_KEY = longKey("splunk.rum.sdk.span_queue.dropped");
+    static final String THROTTLED_SPANS_PREFIX = "splunk.rum.sdk.throttled.";
+    static final AttributeKey<Long> DROPPED_METRIC_POINTS_KEY = longKey("splunk.rum.sdk.metrics.dropped");
+    static final AttributeKey<Long> MEMORY_BACKLOG_SIZE_KEY = longKey("splunk.rum.sdk.memory_backlog.size");
+    static final AttributeKey<Long> PENDING_FILES_KEY = longKey("splunk.rum.sdk.disk.pending_files");
+    static final AttributeKey<Long> PENDING_BYTES_KEY = longKey("splunk.rum.sdk.disk.pending_bytes");
+    static final AttributeKey<Double> BANDWIDTH_KEY = doubleKey("splunk.rum.sdk.disk.bandwidth");
+    static final AttributeKey<Long> EXPORT_COUNT_KEY = longKey("splunk.rum.sdk.export.count");
+    static final AttributeKey<Long> FAILED_EXPORT_COUNT_KEY = longKey("splunk.rum.sdk.export.failed");
+    static final AttributeKey<Long> EXPORTED_BYTES_KEY = longKey("splunk.rum.sdk.export.bytes");
+    static final AttributeKey<List<Long>> EXPORT_LATENCY_BOUNDS_KEY = longArrayKey("splunk.rum.sdk.export.latency.bounds");
+    static final AttributeKey<List<Long>> EXPORT_LATENCY_COUNTS_KEY = longArrayKey("splunk.rum.sdk.export.latency.counts");
+    static final AttributeKey<Long> MAIN_THREAD_TIME_KEY = longKey("splunk.rum.sdk.main_thread.time");
+    static final AttributeKey<Long> MAIN_THREAD_CALLBACKS_KEY = longKey("splunk.rum.sdk.main_thread.callbacks");
+    static final AttributeKey<Long> MAIN_THREAD_MAX_WINDOW_KEY = longKey("splunk.rum.sdk.main_thread.window.max");
+    static final AttributeKey<Boolean> MAIN_THREAD_DEGRADED_KEY = booleanKey("splunk.rum.sdk.main_thread.degraded");
+
+    private final Tracer tracer;
+    private final SdkStatsRecorder statsRecorder;
+    private long lastReportedEndedSpans;
+
+    SdkStatsReporter(Tracer tracer, SdkStatsRecorder statsRecorder) {
+        this.tracer = tracer;
+        this.statsRecorder = statsRecorder;
+    }
+
+    @Override
+    public void run() {
+        if (statsRecorder.getEndedSpanCount() == lastReportedEndedSpans) {
+            return;
+        }
+        SdkStats stats = statsRecorder.snapshot();
+        Span span = tracer.spanBuilder(SPAN_NAME)
+                .setAttribute(SPAN_QUEUE_SIZE_KEY, stats.getSpanQueueSize())
+                .setAttribute(DROPPED_SPANS_KEY, stats.getDroppedSpanCount())
+                .setAttribute(DROPPED_METRIC_POINTS_KEY, stats.getDroppedMetricPointCount())
+                .setAttribute(MEMORY_BACKLOG_SIZE_KEY, stats.getMemoryBacklogSize())
+                .setAttribute(PENDING_FILES_KEY, stats.getPendingFileCount())
+                .setAttribute(PENDING_BYTES_KEY, stats.getPendingFileBytes())
+                .setAttribute(BANDWIDTH_KEY, stats.getBandwidthBytesPerSecond())
+                .setAttribute(EXPORT_COUNT_KEY, stats.getExportCount())
+                .setAttribute(FAILED_EXPORT_COUNT_KEY, stats.getFailedExportCount())
+                .setAttribute(EXPORTED_BYTES_KEY, stats.getExportedBytes())
+                .setAttribute(EXPORT_LATENCY_BOUNDS_KEY, stats.getExportLatencyBoundsMillis())
+                .setAttribute(EXPORT_LATENCY_COUNTS_KEY, stats.getExportLatencyCounts())
+                //main thread times are reported in microseconds.
+                .setAttribute(MAIN_THREAD_TIME_KEY, TimeUnit.NANOSECONDS.toMicros(stats.getMainThreadNanos()))
+                .setAttribute(MAIN_THREAD_CALLBACKS_KEY, stats.getMainThreadCallbackCount())
+                .setAttribute(MAIN_THREAD_MAX_WINDOW_KEY, TimeUnit.NANOSECONDS.toMicros(stats.getMaxMainThreadWindowNanos()))
+                .setAttribute(MAIN_THREAD_DEGRADED_KEY, stats.isMainThreadOverBudget())
+                .startSpan();
+        for (Map.Entry<String, Long> entry : stats.getThrottledSpanCounts().entrySet()) {
+            span.setAttribute(longKey(THROTTLED_SPANS_PREFIX + entry.getKey()), entry.getValue());
+        }
+        span.end();
+        //the stats span we just ended doesn't count as activity.
+        lastReportedEndedSpans = statsRecorder.getEndedSpanCount();
+    }
+}
@@ -14,8 +14,6 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import io.opentelemetry.api.trace.Span;
@@ -26,21 +24,21 @@ public class SlowRenderingDetectorImpl implements SlowRenderingDetector {
     public static final int SLOW_THRESHOLD_MS = 16;
     public static final int FROZEN_THRESHOLD_MS = 700;
     private final FrameMetricsAggregator frameMetrics;
-    private final ScheduledExecutorService executorService;
+    private final SdkScheduler scheduler;
 
     private final Set<Activity> activities = new HashSet<>();
     private final Tracer tracer;
     private final Duration slowRenderPollingDuration;
 
-    public SlowRenderingDetectorImpl(Tracer tracer, Duration slowRenderPollingDuration) {
-        this(tracer, new FrameMetricsAggregator(DRAW_DURATION), Executors.newScheduledThreadPool(1), slowRenderPollingDuration);
+    SlowRenderingDetectorImpl(Tracer tracer, SdkScheduler scheduler, Duration slowRenderPollingDuration) {
+        this(tracer, new FrameMetricsAggregator(DRAW_DURATION), scheduler, slowRenderPollingDuration);
     }
 
     // Exists for testing
-    SlowRenderingDetectorImpl(Tracer tracer, FrameMetricsAggregator frameMetricsAggregator, ScheduledExecutorService executorService, Duration slowRenderPollingDuration) {
+    SlowRenderingDetectorImpl(Tracer tracer, FrameMetricsAggregator frameMetricsAggregator, SdkScheduler scheduler, Duration slowRenderPollingDuration) {
         this.tracer = tracer;
         this.frameMetrics = frameMetricsAggregator;
-        this.executorService = executorService;
+        this.scheduler = scheduler;
         this.slowRenderPollingDuration = slowRenderPollingDuration;
     }
 
@@ -61,7 +59,7 @@ public class SlowRenderingDetectorImpl implements SlowRenderingDetector {
 
     @Override
     public void start() {
-        executorService.scheduleAtFixedRate(this::reportSlowRenders, slowRenderPollingDuration.toMillis(), slowRenderPollingDuration.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::reportSlowRenders, slowRenderPollingDuration.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     private void reportSlowRenders() {
@@ -0,0 +1,114 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static com.splunk.rum.SplunkRum.LOG_TAG;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the failed attempts to send each span file, so that a file which can't be sent
+ * (a "poison" file, e.g. one the beacon keeps rejecting) doesn't block the ones behind it forever.
+ * <p>
+ * The count is kept in the file name ({@code <timestamp>-<attempts>.spans}), so it survives the
+ * process, and the files keep their order. After {@link #MAX_ATTEMPTS} failed attempts, a file is
+ * moved to the {@link #QUARANTINE_DIRECTORY}, where only the last {@link #MAX_QUARANTINED_FILES}
+ * are kept.
+ */
+class SpanFileRetries {
+    static final int MAX_ATTEMPTS = 5;
+    static final int MAX_QUARANTINED_FILES = 10;
+    static final String QUARANTINE_DIRECTORY = "quarantine";
+    private static final String SUFFIX = ".spans";
+
+    private final File spanFilesPath;
+    private final FileUtils fileUtils;
+
+    SpanFileRetries(File spanFilesPath, FileUtils fileUtils) {
+        this.spanFilesPath = spanFilesPath;
+        this.fileUtils = fileUtils;
+    }
+
+    static int getFailedAttempts(File file) {
+        String name = baseName(file);
+        int separator = name.lastIndexOf('-');
+        if (separator < 0) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(name.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Only the responses which say the content of the files is at fault (400, 413 and 422) are
+     * counted. Connectivity problems, the beacon being overloaded or unavailable, and auth or
+     * endpoint errors (e.g. a bad token or beacon URL, until the app is fixed) say nothing about
+     * the files: those failures aren't counted, the exporter just backs off.
+     */
+    static boolean isCountedFailure(Throwable error) {
+        if (error instanceof BeaconResponseException) {
+            int statusCode = ((BeaconResponseException) error).getStatusCode();
+            return statusCode == 400 || statusCode == 413 || statusCode == 422;
+        }
+        return !(error instanceof IOException);
+    }
+
+    void recordFailedAttempt(File file) {
+        int attempts = getFailedAttempts(file) + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            quarantine(file);
+            return;
+        }
+        String name = baseName(file);
+        int separator = name.lastIndexOf('-');
+        String timestamp = separator < 0 ? name : name.substring(0, separator);
+        File renamed = new File(file.getParentFile(), timestamp + "-" + attempts + SUFFIX);
+        if (!fileUtils.moveTo(file, renamed)) {
+            Log.w(LOG_TAG, "Unable to record the failed attempt to send " + file);
+        }
+    }
+
+    private void quarantine(File file) {
+        File quarantineDirectory = new File(spanFilesPath, QUARANTINE_DIRECTORY);
+        Log.w(LOG_TAG, "Giving up on " + file + " after " + MAX_ATTEMPTS + " attempts, moving it to " + quarantineDirectory);
+        if (!fileUtils.moveTo(file, new File(quarantineDirectory, file.getName()))) {
+            //it can't stay where it is, or it will block the other files forever.
+            fileUtils.safeDelete(file);
+            return;
+        }
+        List<File> quarantined = fileUtils.listFiles(quarantineDirectory)
+                .sorted(Comparator.comparing(File::getName))
+                .collect(Collectors.toList());
+        for (int i = 0; i < quarantined.size() - MAX_QUARANTINED_FILES; i++) {
+            fileUtils.safeDelete(quarantined.get(i));
+        }
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        return name.endsWith(SUFFIX) ? name.substring(0, name.length() - SUFFIX.length()) : name;
+    }
+}
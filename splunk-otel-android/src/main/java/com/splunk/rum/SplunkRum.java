@@ -19,6 +19,7 @@ package com.splunk.rum;
 import static io.opentelemetry.api.common.AttributeKey.doubleKey;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 
+import android.app.Activity;
 import android.app.Application;
 import android.content.Context;
 import android.location.Location;
@@ -29,6 +30,8 @@ import android.webkit.WebView;
 
 import androidx.annotation.Nullable;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -38,6 +41,7 @@ import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
@@ -68,6 +72,7 @@ public class SplunkRum {
     static final String COMPONENT_APPSTART = "appstart";
     static final String COMPONENT_CRASH = "crash";
     static final String COMPONENT_ERROR = "error";
+    static final String COMPONENT_METRIC = "metric";
     static final String COMPONENT_UI = "ui";
     static final String LOG_TAG = "SplunkRum";
     static final String RUM_TRACER_NAME = "SplunkRum";
@@ -80,11 +85,48 @@ public class SplunkRum {
     private final SessionId sessionId;
     private final OpenTelemetrySdk openTelemetrySdk;
     private final Config config;
+    private final SdkStatsRecorder statsRecorder;
+    private final FullyDrawnTracker fullyDrawnTracker;
+    private final VisibleScreenTracker visibleScreenTracker;
+    private final List<AppStateListener> appStateListeners;
 
     SplunkRum(OpenTelemetrySdk openTelemetrySdk, SessionId sessionId, Config config) {
+        this(openTelemetrySdk, sessionId, config, new SdkStatsRecorder());
+    }
+
+    SplunkRum(OpenTelemetrySdk openTelemetrySdk, SessionId sessionId, Config config, SdkStatsRecorder statsRecorder) {
+        this(openTelemetrySdk, sessionId, config, statsRecorder, new FullyDrawnTracker(), new VisibleScreenTracker());
+    }
+
+    SplunkRum(OpenTelemetrySdk openTelemetrySdk, SessionId sessionId, Config config, SdkStatsRecorder statsRecorder,
+              FullyDrawnTracker fullyDrawnTracker, VisibleScreenTracker visibleScreenTracker) {
+        this(openTelemetrySdk, sessionId, config, statsRecorder, fullyDrawnTracker, visibleScreenTracker, new CopyOnWriteArrayList<>());
+    }
+
+    SplunkRum(OpenTelemetrySdk openTelemetrySdk, SessionId sessionId, Config config, SdkStatsRecorder statsRecorder,
+              FullyDrawnTracker fullyDrawnTracker, VisibleScreenTracker visibleScreenTracker, List<AppStateListener> appStateListeners) {
         this.openTelemetrySdk = openTelemetrySdk;
         this.sessionId = sessionId;
         this.config = config;
+        this.statsRecorder = statsRecorder;
+        this.fullyDrawnTracker = fullyDrawnTracker;
+        this.visibleScreenTracker = visibleScreenTracker;
+        this.appStateListeners = appStateListeners;
+    }
+
+    //exposed for the navigation instrumentation in the compose module.
+    VisibleScreenTracker getVisibleScreenTracker() {
+        return visibleScreenTracker;
+    }
+
+    //exposed for the recomposition summaries in the compose module.
+    void addAppStateListener(AppStateListener appStateListener) {
+        appStateListeners.add(appStateListener);
+    }
+
+    //exposed for the SplunkStartupProvider.
+    static AppStartupTimer getStartupTimer() {
+        return startupTimer;
     }
 
     /**
@@ -180,6 +222,15 @@ public class SplunkRum {
         return openTelemetrySdk;
     }
 
+    /**
+     * Get a {@link Meter} which can be used to record counters, histograms and gauges. Metrics are
+     * aggregated in memory (with delta temporality) and sent along with the RUM spans once a minute,
+     * which makes them a lot cheaper than a span per measurement for frequently recorded values.
+     */
+    public Meter getMeter() {
+        return openTelemetrySdk.getMeter(RUM_TRACER_NAME);
+    }
+
     /**
      * Get the Splunk Session ID associated with this instance of the RUM instrumentation library.
      * Note: this value can change throughout the lifetime of an application instance, so it
@@ -190,6 +241,15 @@ public class SplunkRum {
         return sessionId.getSessionId();
     }
 
+    /**
+     * Get a snapshot of the internal statistics of the RUM instrumentation library, such as the
+     * number of spans waiting to be exported or dropped, and the latency and size of the exports.
+     * The same statistics are periodically reported in a {@code splunk.rum.sdk.stats} span.
+     */
+    public SdkStats getSdkStats() {
+        return statsRecorder.snapshot();
+    }
+
     /**
      * Add a custom event to RUM monitoring. This can be useful to capture business events, or
      * simply add instrumentation to your application.
@@ -221,6 +281,37 @@ public class SplunkRum {
                 .startSpan();
     }
 
+    /**
+     * Report that a screen has been fully drawn: its content has been loaded and is displayed to the
+     * user. This creates a {@code TTFD} (time to full display) span, which starts along with the
+     * {@code Created}, {@code Restarted} or {@code Restored} span of the screen.
+     * <p>
+     * Reports made before the screen has been resumed end the span along with its load span.
+     * Reports that come in more than 30 seconds after the screen started loading end it at 30
+     * seconds, with {@code ttfd.timed_out} set to {@code true}; once a screen has been reported,
+     * its later loads get that span automatically if they aren't reported in time. Reports for
+     * screens that have already been paused are ignored.
+     *
+     * @param screenName The name of the screen: the simple class name of the {@link Activity} or
+     *                   {@code Fragment}.
+     */
+    public void reportFullyDrawn(String screenName) {
+        fullyDrawnTracker.reportFullyDrawn(getTracer(), screenName);
+    }
+
+    /**
+     * Report that an {@link Activity} has been fully drawn. This also calls
+     * {@link Activity#reportFullyDrawn()}, so the system's own time to full display is recorded as
+     * well.
+     *
+     * @param activity The {@link Activity} that has been fully drawn.
+     * @see #reportFullyDrawn(String)
+     */
+    public void reportFullyDrawn(Activity activity) {
+        activity.reportFullyDrawn();
+        reportFullyDrawn(activity.getClass().getSimpleName());
+    }
+
     /**
      * Add a custom exception to RUM monitoring. This can be useful for tracking custom error
      * handling in your application.
@@ -0,0 +1,133 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * Records the latency and size of every request sent by the wrapped {@link Sender}.
+ */
+class StatsRecordingSender extends Sender {
+    private final Sender delegate;
+    private final SdkStatsRecorder statsRecorder;
+    private final LongSupplier millisClock;
+
+    StatsRecordingSender(Sender delegate, SdkStatsRecorder statsRecorder) {
+        this(delegate, statsRecorder, System::currentTimeMillis);
+    }
+
+    // exists for testing
+    StatsRecordingSender(Sender delegate, SdkStatsRecorder statsRecorder, LongSupplier millisClock) {
+        this.delegate = delegate;
+        this.statsRecorder = statsRecorder;
+        this.millisClock = millisClock;
+    }
+
+    @Override
+    public Encoding encoding() {
+        return delegate.encoding();
+    }
+
+    @Override
+    public int messageMaxBytes() {
+        return delegate.messageMaxBytes();
+    }
+
+    @Override
+    public int messageSizeInBytes(List<byte[]> encodedSpans) {
+        return delegate.messageSizeInBytes(encodedSpans);
+    }
+
+    @Override
+    public int messageSizeInBytes(int encodedSizeInBytes) {
+        return delegate.messageSizeInBytes(encodedSizeInBytes);
+    }
+
+    @Override
+    public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+        return new RecordingCall(delegate.sendSpans(encodedSpans), delegate.messageSizeInBytes(encodedSpans));
+    }
+
+    @Override
+    public CheckResult check() {
+        return delegate.check();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private class RecordingCall extends Call.Base<Void> {
+        private final Call<Void> call;
+        private final int messageSize;
+
+        private RecordingCall(Call<Void> call, int messageSize) {
+            this.call = call;
+            this.messageSize = messageSize;
+        }
+
+        @Override
+        protected Void doExecute() throws IOException {
+            long start = millisClock.getAsLong();
+            boolean success = false;
+            try {
+                Void result = call.execute();
+                success = true;
+                return result;
+            } finally {
+                statsRecorder.recordExport(messageSize, millisClock.getAsLong() - start, success);
+            }
+        }
+
+        @Override
+        protected void doEnqueue(Callback<Void> callback) {
+            long start = millisClock.getAsLong();
+            call.enqueue(new Callback<Void>() {
+                @Override
+                public void onSuccess(Void value) {
+                    statsRecorder.recordExport(messageSize, millisClock.getAsLong() - start, true);
+                    callback.onSuccess(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    statsRecorder.recordExport(messageSize, millisClock.getAsLong() - start, false);
+                    callback.onError(t);
+                }
+            });
+        }
+
+        @Override
+        protected void doCancel() {
+            call.cancel();
+        }
+
+        @Override
+        public Call<Void> clone() {
+            return new RecordingCall(call.clone(), messageSize);
+        }
+    }
+}
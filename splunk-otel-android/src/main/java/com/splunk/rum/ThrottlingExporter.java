@@ -38,6 +38,7 @@ class ThrottlingExporter implements SpanExporter {
     private final Function<SpanData, String> categoryFunction;
     private final long windowSizeInNanos;
     private final int maxSpansInWindow;
+    private final SdkStatsRecorder statsRecorder;
     // note: no need to make this thread-safe since it will only ever be called from the BatchSpanProcessor worker thread.
     // the implementation here needs to support null keys, or we'd need to use a default component value.
     private final Map<String, Window> categoryToWindow = new HashMap<>();
@@ -47,6 +48,7 @@ class ThrottlingExporter implements SpanExporter {
         this.categoryFunction = builder.categoryFunction;
         this.windowSizeInNanos = builder.windowSize.toNanos();
         this.maxSpansInWindow = builder.maxSpansInWindow;
+        this.statsRecorder = builder.statsRecorder;
     }
 
     static Builder newBuilder(SpanExporter delegate) {
@@ -59,7 +61,9 @@ class ThrottlingExporter implements SpanExporter {
         for (SpanData span : spans) {
             String category = categoryFunction.apply(span);
             Window window = categoryToWindow.computeIfAbsent(category, k -> new Window());
-            if (!window.aboveLimit(span)) {
+            if (window.aboveLimit(span)) {
+                statsRecorder.recordThrottledSpans(category, 1);
+            } else {
                 spansBelowLimit.add(span);
             }
         }
@@ -116,6 +120,7 @@ class ThrottlingExporter implements SpanExporter {
         Function<SpanData, String> categoryFunction = span -> "default";
         Duration windowSize = Duration.ofSeconds(30);
         int maxSpansInWindow = 100;
+        SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
 
         private Builder(SpanExporter delegate) {
             this.delegate = delegate;
@@ -136,6 +141,11 @@ class ThrottlingExporter implements SpanExporter {
             return this;
         }
 
+        Builder statsRecorder(SdkStatsRecorder statsRecorder) {
+            this.statsRecorder = statsRecorder;
+            return this;
+        }
+
         ThrottlingExporter build() {
             return new ThrottlingExporter(this);
         }
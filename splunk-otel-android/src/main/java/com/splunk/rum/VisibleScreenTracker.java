@@ -24,6 +24,8 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import java.util.concurrent.atomic.AtomicReference;
 
+import io.opentelemetry.api.trace.Span;
+
 /**
  * Wherein we do our best to figure out what "screen" is visible and what was the previously visible "screen".
  * <p>
@@ -32,16 +34,42 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p>
  * We always ignore NavHostFragment instances since they aren't ever visible to the user.
  * <p>
+ * Navigation destinations which aren't fragments (e.g. Compose destinations) are reported via
+ * {@link #navigationDestinationChanged(String)}; they take precedence over both fragments and
+ * activities, but only while the activity hosting them (the one resumed when the destination was
+ * reported) is resumed. They are forgotten once that activity is destroyed.
+ * <p>
  * We have to treat DialogFragments slightly differently since they don't replace the launching screen, and
  * the launching screen never leaves visibility.
+ * <p>
+ * The CPU time used while each screen is visible is accounted for by the {@link ScreenCpuTracker}.
  */
 class VisibleScreenTracker {
     private final AtomicReference<String> lastResumedActivity = new AtomicReference<>();
     private final AtomicReference<String> previouslyLastResumedActivity = new AtomicReference<>();
     private final AtomicReference<String> lastResumedFragment = new AtomicReference<>();
     private final AtomicReference<String> previouslyLastResumedFragment = new AtomicReference<>();
+    private final AtomicReference<String> currentDestination = new AtomicReference<>();
+    private final AtomicReference<String> previousDestination = new AtomicReference<>();
+    //the last destination of the host activity, which is kept while it's paused.
+    private final AtomicReference<String> hostDestination = new AtomicReference<>();
+    //null until the host has been resumed, if the destination was reported before that.
+    private final AtomicReference<String> destinationHost = new AtomicReference<>();
+    private final ScreenCpuTracker screenCpuTracker;
+
+    VisibleScreenTracker() {
+        this(new ScreenCpuTracker());
+    }
+
+    // exists for testing
+    VisibleScreenTracker(ScreenCpuTracker screenCpuTracker) {
+        this.screenCpuTracker = screenCpuTracker;
+    }
 
     String getPreviouslyVisibleScreen() {
+        if (currentDestination.get() != null) {
+            return previousDestination.get();
+        }
         String previouslyLastFragment = previouslyLastResumedFragment.get();
         if (previouslyLastFragment != null) {
             return previouslyLastFragment;
@@ -50,6 +78,10 @@ class VisibleScreenTracker {
     }
 
     String getCurrentlyVisibleScreen() {
+        String destination = currentDestination.get();
+        if (destination != null) {
+            return destination;
+        }
         String lastFragment = lastResumedFragment.get();
         if (lastFragment != null) {
             return lastFragment;
@@ -62,12 +94,39 @@ class VisibleScreenTracker {
     }
 
     void activityResumed(Activity activity) {
-        lastResumedActivity.set(activity.getClass().getSimpleName());
+        String activityName = activity.getClass().getSimpleName();
+        lastResumedActivity.set(activityName);
+        screenCpuTracker.screenResumed(activityName);
+        String destination = hostDestination.get();
+        if (destination == null) {
+            return;
+        }
+        if (destinationHost.compareAndSet(null, activityName)) {
+            return;
+        }
+        //back to the host, and to its destination.
+        if (activityName.equals(destinationHost.get()) && currentDestination.get() == null) {
+            previousDestination.set(previouslyLastResumedActivity.get());
+            currentDestination.set(destination);
+        }
     }
 
     void activityPaused(Activity activity) {
-        previouslyLastResumedActivity.set(activity.getClass().getSimpleName());
-        lastResumedActivity.compareAndSet(activity.getClass().getSimpleName(), null);
+        String activityName = activity.getClass().getSimpleName();
+        String destination = null;
+        if (activityName.equals(destinationHost.get())) {
+            destination = currentDestination.getAndSet(null);
+        }
+        previouslyLastResumedActivity.set(destination == null ? activityName : destination);
+        lastResumedActivity.compareAndSet(activityName, null);
+    }
+
+    void activityDestroyed(Activity activity) {
+        if (activity.getClass().getSimpleName().equals(destinationHost.get())) {
+            destinationHost.set(null);
+            hostDestination.set(null);
+            currentDestination.set(null);
+        }
     }
 
     void fragmentResumed(Fragment fragment) {
@@ -80,6 +139,7 @@ class VisibleScreenTracker {
             previouslyLastResumedFragment.set(lastResumedFragment.get());
         }
         lastResumedFragment.set(fragment.getClass().getSimpleName());
+        screenCpuTracker.screenResumed(fragment.getClass().getSimpleName());
     }
 
     void fragmentPaused(Fragment fragment) {
@@ -94,4 +154,15 @@ class VisibleScreenTracker {
         }
         previouslyLastResumedFragment.set(fragment.getClass().getSimpleName());
     }
+
+    void navigationDestinationChanged(String destination) {
+        previousDestination.set(getCurrentlyVisibleScreen());
+        destinationHost.set(lastResumedActivity.get());
+        hostDestination.set(destination);
+        currentDestination.set(destination);
+    }
+
+    void addCpuTimeAttributes(String screenName, Span span) {
+        screenCpuTracker.screenPaused(screenName, span);
+    }
 }
@@ -7,8 +7,10 @@ import java.io.IOException;
 import java.time.Clock;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
 import zipkin2.Call;
+import zipkin2.Callback;
 import zipkin2.codec.Encoding;
 import zipkin2.reporter.Sender;
 
@@ -17,16 +19,20 @@ class ZipkinToDiskSender extends Sender {
     private final File path;
     private final FileUtils fileUtils;
     private final Clock clock;
+    private final Runnable onSpansWritten;
+    //spans may be written from more than one thread, so make sure they never get the same file.
+    private final AtomicLong lastTimestamp = new AtomicLong();
 
-    ZipkinToDiskSender(File path) {
-        this(path, new FileUtils(), Clock.systemDefaultZone());
+    ZipkinToDiskSender(File path, Runnable onSpansWritten) {
+        this(path, new FileUtils(), Clock.systemDefaultZone(), onSpansWritten);
     }
 
     // exists for testing
-    ZipkinToDiskSender(File path, FileUtils fileUtils, Clock clock) {
+    ZipkinToDiskSender(File path, FileUtils fileUtils, Clock clock, Runnable onSpansWritten) {
         this.path = path;
         this.fileUtils = fileUtils;
         this.clock = clock;
+        this.onSpansWritten = onSpansWritten;
     }
 
     @Override
@@ -44,19 +50,53 @@ class ZipkinToDiskSender extends Sender {
         return encodedSpans.stream().reduce(0, (acc, cur) -> acc + cur.length + 1, Integer::sum);
     }
 
+    //the spans are written when the call is executed, and the call fails if they can't be.
     @Override
     public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+        return new WriteCall(encodedSpans);
+    }
+
+    private void write(List<byte[]> encodedSpans) throws IOException {
         long now = clock.millis();
-        File filename = createFilename(now);
+        File filename = createFilename(lastTimestamp.updateAndGet(last -> Math.max(now, last + 1)));
         try {
             fileUtils.writeAsLines(filename, encodedSpans);
         } catch (IOException e) {
             Log.e(SplunkRum.LOG_TAG, "Error writing spans to storage", e);
+            throw e;
         }
-        return Call.create(null);
+        onSpansWritten.run();
     }
 
     private File createFilename(long now) {
         return new File(path, now + ".spans");
     }
+
+    private class WriteCall extends Call.Base<Void> {
+        private final List<byte[]> encodedSpans;
+
+        private WriteCall(List<byte[]> encodedSpans) {
+            this.encodedSpans = encodedSpans;
+        }
+
+        @Override
+        protected Void doExecute() throws IOException {
+            write(encodedSpans);
+            return null;
+        }
+
+        @Override
+        protected void doEnqueue(Callback<Void> callback) {
+            try {
+                callback.onSuccess(doExecute());
+            } catch (IOException e) {
+                callback.onError(e);
+            }
+        }
+
+        @Override
+        public Call<Void> clone() {
+            return new WriteCall(encodedSpans);
+        }
+    }
 }
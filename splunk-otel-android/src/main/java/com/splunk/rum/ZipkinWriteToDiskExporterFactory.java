@@ -7,6 +7,7 @@ import java.io.File;
 import java.util.Locale;
 
 import io.opentelemetry.exporter.zipkin.ZipkinSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import zipkin2.reporter.Sender;
 
 /**
@@ -18,7 +19,10 @@ class ZipkinWriteToDiskExporterFactory {
     private ZipkinWriteToDiskExporterFactory(){
     }
 
-    static ZipkinSpanExporter create(Application application) {
+    /**
+     * @param onSpansWritten called after every file written, to let the exporter which sends them know.
+     */
+    static SpanExporter create(Application application, boolean batchAttributeHoisting, Runnable onSpansWritten) {
         File spansPath = FileUtils.getSpansDirectory(application);
         if (!spansPath.exists()) {
             if(!spansPath.mkdirs()){
@@ -27,10 +31,18 @@ class ZipkinWriteToDiskExporterFactory {
             }
         }
 
-        Sender sender = new ZipkinToDiskSender(spansPath);
-        return ZipkinSpanExporter.builder()
+        Sender sender = new ZipkinToDiskSender(spansPath, onSpansWritten);
+        if (!batchAttributeHoisting) {
+            return ZipkinSpanExporter.builder()
+                    .setEncoder(new CustomZipkinEncoder())
+                    .setSender(sender)
+                    .build();
+        }
+        //the header is written to the file with the spans, and sent with them.
+        AttributeHoistingSender hoistingSender = new AttributeHoistingSender(sender);
+        return new AttributeHoistingExporter(ZipkinSpanExporter.builder()
                 .setEncoder(new CustomZipkinEncoder())
-                .setSender(sender)
-                .build();
+                .setSender(hoistingSender)
+                .build(), hoistingSender);
     }
 }
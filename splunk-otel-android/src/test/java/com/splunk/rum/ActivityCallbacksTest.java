@@ -28,6 +28,10 @@ import static java.util.Collections.singletonList;
 
 import android.app.Activity;
 
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.fragment.app.FragmentManager;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -388,4 +392,43 @@ public class ActivityCallbacksTest {
         Optional<EventData> event = events.stream().filter(e -> e.getName().equals(eventName)).findAny();
         assertTrue("Event with name " + eventName + " not found", event.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void recreationReleasesFragmentState() {
+        ActivityCallbacks activityCallbacks = ActivityCallbacks.builder()
+                .tracer(tracer)
+                .visibleScreenTracker(visibleScreenTracker)
+                .startupTimer(startupTimer)
+                .appStateListeners(singletonList(appStateListener))
+                .slowRenderingDetector(slowRenderingDetector)
+                .build();
+        ActivityCallbackTestHarness testHarness = new ActivityCallbackTestHarness(activityCallbacks);
+        FragmentCallbackTestHarness fragmentTestHarness = new FragmentCallbackTestHarness(activityCallbacks.getFragmentCallbacks());
+
+        for (int i = 0; i < 100; i++) {
+            FragmentActivity activity = mock(FragmentActivity.class);
+            FragmentManager fragmentManager = mock(FragmentManager.class);
+            when(activity.getSupportFragmentManager()).thenReturn(fragmentManager);
+
+            testHarness.runActivityCreationLifecycle(activity);
+            //every activity instance gets the same, shared, callbacks.
+            verify(fragmentManager).registerFragmentLifecycleCallbacks(activityCallbacks.getFragmentCallbacks(), true);
+
+            Fragment fragment = mock(Fragment.class);
+            Fragment otherFragment = mock(Fragment.class);
+            fragmentTestHarness.runFragmentCreationLifecycle(fragment);
+            fragmentTestHarness.runFragmentCreationLifecycle(otherFragment);
+            assertEquals(2, activityCallbacks.getFragmentCallbacks().getTrackedFragmentCount());
+
+            //recreation: the fragments are torn down along with the activity.
+            testHarness.runActivityPausedLifecycle(activity);
+            fragmentTestHarness.runFragmentDetachedFromActiveLifecycle(fragment);
+            fragmentTestHarness.runFragmentDetachedFromActiveLifecycle(otherFragment);
+            testHarness.runActivityDestroyedFromPausedLifecycle(activity);
+            verify(fragmentManager).unregisterFragmentLifecycleCallbacks(activityCallbacks.getFragmentCallbacks());
+        }
+
+        assertEquals(0, activityCallbacks.getFragmentCallbacks().getTrackedFragmentCount());
+        assertEquals(0, activityCallbacks.getActivityTracers().size());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+
+/**
+ * Rotates an activity (with a fragment) many times, and checks that the lifecycle tracking state
+ * doesn't grow with the number of instances that have come and gone.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ActivityRecreationLeakTest {
+    //any leak shows up as more than one tracked instance; 1000 recreations took over a minute per SDK.
+    private static final int RECREATIONS = 100;
+
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private Tracer tracer;
+    private Application application;
+
+    @Before
+    public void setup() {
+        tracer = otelTesting.getOpenTelemetry().getTracer("testTracer");
+        application = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.Q)
+    public void recreationDoesNotRetainState() {
+        ActivityCallbacks callbacks = ActivityCallbacks.builder()
+                .tracer(tracer)
+                .visibleScreenTracker(mock(VisibleScreenTracker.class))
+                .startupTimer(mock(AppStartupTimer.class))
+                .appStateListeners(emptyList())
+                .slowRenderingDetector(mock(SlowRenderingDetector.class))
+                .build();
+        application.registerActivityLifecycleCallbacks(callbacks);
+        try {
+            rotate();
+
+            assertEquals(1, callbacks.getActivityTracers().size());
+            assertEquals(1, callbacks.getFragmentCallbacks().getTrackedFragmentCount());
+        } finally {
+            application.unregisterActivityLifecycleCallbacks(callbacks);
+        }
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.P)
+    public void recreationDoesNotRetainState_pre29() {
+        Pre29ActivityCallbacks callbacks = new Pre29ActivityCallbacks(tracer, mock(VisibleScreenTracker.class), mock(AppStartupTimer.class), emptyList());
+        application.registerActivityLifecycleCallbacks(callbacks);
+        try {
+            rotate();
+
+            assertEquals(1, callbacks.getActivityTracers().size());
+            assertEquals(1, callbacks.getFragmentCallbacks().getTrackedFragmentCount());
+        } finally {
+            application.unregisterActivityLifecycleCallbacks(callbacks);
+        }
+    }
+
+    private static void rotate() {
+        ActivityController<TestActivity> controller = Robolectric.buildActivity(TestActivity.class).setup();
+        for (int i = 0; i < RECREATIONS; i++) {
+            controller.recreate();
+            //runs the deferred unregistration of the fragment callbacks on older APIs.
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+
+    public static class TestActivity extends FragmentActivity {
+        @Override
+        protected void onCreate(@Nullable Bundle savedInstanceState) {
+            super.onCreate(savedInstanceState);
+            //the fragment manager restores the fragment on recreation.
+            if (savedInstanceState == null) {
+                getSupportFragmentManager().beginTransaction()
+                        .add(new TestFragment(), "test")
+                        .commitNow();
+            }
+        }
+    }
+
+    public static class TestFragment extends Fragment {
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.app.Activity;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+
+public class ActivityTracerCacheTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private ActivityTracerCache cache;
+
+    @Before
+    public void setup() {
+        cache = new ActivityTracerCache(otelTesting.getOpenTelemetry().getTracer("testTracer"), mock(VisibleScreenTracker.class), mock(AppStartupTimer.class), () -> false);
+    }
+
+    @Test
+    public void oneTracerPerActivityInstance() {
+        Activity first = mock(Activity.class);
+        Activity second = mock(Activity.class);
+
+        ActivityTracer firstTracer = cache.get(first);
+        assertSame(firstTracer, cache.get(first));
+        assertNotSame(firstTracer, cache.get(second));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void tracerRemovedWhenDestroyed() {
+        Activity activity = mock(Activity.class);
+        ActivityTracer tracer = cache.get(activity);
+
+        cache.remove(activity);
+        assertEquals(0, cache.size());
+        assertNotSame(tracer, cache.get(activity));
+    }
+
+    @Test
+    public void multiActivityApp() {
+        cache.get(mock(Activity.class));
+        cache.get(mock(Activity.class));
+        assertFalse(cache.isMultiActivityApp());
+
+        cache.get(mock(OtherActivity.class));
+        assertTrue(cache.isMultiActivityApp());
+    }
+
+    private static class OtherActivity extends Activity {
+    }
+}
@@ -18,6 +18,7 @@ package com.splunk.rum;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -160,6 +161,54 @@ public class ActivityTracerTest {
         assertEquals("previousScreen", span.getAttributes().get(SplunkRum.LAST_SCREEN_NAME_KEY));
     }
 
+    @Test
+    public void verboseLifecycleEvents() {
+        ActivityTracer trackableTracer = new ActivityTracer(mock(Activity.class), new AtomicReference<>(), tracer, visibleScreenTracker, appStartupTimer, () -> false);
+
+        trackableTracer.startSpanIfNoneInProgress("Paused");
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_PRE_PAUSED);
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_PAUSED);
+        trackableTracer.endActiveSpan();
+
+        SpanData span = getSingleSpan();
+        assertEquals(2, span.getEvents().size());
+        assertEquals("activityPrePaused", span.getEvents().get(0).getName());
+        assertEquals("activityPaused", span.getEvents().get(1).getName());
+        assertNull(span.getAttributes().get(ActiveSpan.LIFECYCLE_EVENTS_KEY));
+    }
+
+    @Test
+    public void compactLifecycleEvents() {
+        ActivityTracer trackableTracer = new ActivityTracer(mock(Activity.class), new AtomicReference<>(), tracer, visibleScreenTracker, appStartupTimer, () -> true);
+
+        trackableTracer.startSpanIfNoneInProgress("Paused");
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_PRE_PAUSED);
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_PAUSED);
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_POST_PAUSED);
+        trackableTracer.endActiveSpan();
+
+        SpanData span = getSingleSpan();
+        assertTrue(span.getEvents().isEmpty());
+        String encoded = span.getAttributes().get(ActiveSpan.LIFECYCLE_EVENTS_KEY);
+        assertTrue(encoded, encoded.matches("activityPrePaused:\\d+,activityPaused:\\d+,activityPostPaused:\\d+"));
+    }
+
+    @Test
+    public void compactLifecycleEvents_resetBetweenSpans() {
+        ActivityTracer trackableTracer = new ActivityTracer(mock(Activity.class), new AtomicReference<>(), tracer, visibleScreenTracker, appStartupTimer, () -> true);
+
+        trackableTracer.startSpanIfNoneInProgress("Paused");
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_PAUSED);
+        trackableTracer.endActiveSpan();
+        trackableTracer.startSpanIfNoneInProgress("Stopped");
+        trackableTracer.addEvent(LifecycleEvent.ACTIVITY_STOPPED);
+        trackableTracer.endActiveSpan();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(2, spans.size());
+        assertTrue(spans.get(1).getAttributes().get(ActiveSpan.LIFECYCLE_EVENTS_KEY).matches("activityStopped:\\d+"));
+    }
+
     private SpanData getSingleSpan() {
         List<SpanData> generatedSpans = otelTesting.getSpans();
         assertEquals(1, generatedSpans.size());
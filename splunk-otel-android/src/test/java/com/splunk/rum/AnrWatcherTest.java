@@ -95,7 +95,8 @@ public class AnrWatcherTest {
 
         AnrWatcher anrWatcher = new AnrWatcher(handler, mainThread, () -> splunkRum);
         when(handler.post(isA(Runnable.class))).thenReturn(true);
-        for (int i = 0; i < 5; i++) {
+        //the first run only posts the first ping.
+        for (int i = 0; i < 6; i++) {
             anrWatcher.run();
         }
         verify(splunkRum, times(1)).recordAnr(stackTrace);
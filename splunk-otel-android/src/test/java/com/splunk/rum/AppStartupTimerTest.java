@@ -18,6 +18,7 @@ package com.splunk.rum;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import org.junit.Before;
@@ -25,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
@@ -76,4 +78,87 @@ public class AppStartupTimerTest {
         appStartupTimer.end();
         assertEquals(1, otelTesting.getSpans().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void contentProviderAnchorsTheStart() {
+        AppStartupTimer appStartupTimer = new AppStartupTimer();
+        long now = appStartupTimer.startupClock.now();
+        long processStart = now - TimeUnit.MILLISECONDS.toNanos(300);
+        long contentProviderCreated = now - TimeUnit.MILLISECONDS.toNanos(100);
+        appStartupTimer.contentProviderCreated(processStart, contentProviderCreated);
+
+        Span appStart = appStartupTimer.start(tracer);
+        appStartupTimer.recordPreInitializationPhases(now);
+        appStartupTimer.end();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(3, spans.size());
+        SpanData processStartSpan = spans.get(0);
+        assertEquals("ProcessStart", processStartSpan.getName());
+        assertEquals(processStart, processStartSpan.getStartEpochNanos());
+        assertEquals(contentProviderCreated, processStartSpan.getEndEpochNanos());
+        assertEquals(appStart.getSpanContext(), processStartSpan.getParentSpanContext());
+
+        SpanData applicationInitSpan = spans.get(1);
+        assertEquals("ApplicationInit", applicationInitSpan.getName());
+        assertEquals(contentProviderCreated, applicationInitSpan.getStartEpochNanos());
+        assertEquals(now, applicationInitSpan.getEndEpochNanos());
+        assertEquals(appStart.getSpanContext(), applicationInitSpan.getParentSpanContext());
+
+        SpanData appStartSpan = spans.get(2);
+        assertEquals("AppStart", appStartSpan.getName());
+        assertEquals(processStart, appStartSpan.getStartEpochNanos());
+    }
+
+    @Test
+    public void noPhasesWithoutContentProvider() {
+        AppStartupTimer appStartupTimer = new AppStartupTimer();
+        appStartupTimer.start(tracer);
+        appStartupTimer.recordPreInitializationPhases(appStartupTimer.startupClock.now());
+        appStartupTimer.end();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("AppStart", spans.get(0).getName());
+    }
+
+    @Test
+    public void endsOnFirstFrame() {
+        AppStartupTimer appStartupTimer = new AppStartupTimer();
+        Span appStart = appStartupTimer.start(tracer);
+        appStartupTimer.waitForFirstFrame();
+
+        //the first activity is resumed
+        appStartupTimer.end();
+        assertSame(appStart, appStartupTimer.getStartupSpan());
+        assertEquals(0, otelTesting.getSpans().size());
+
+        appStartupTimer.firstFrameDrawn();
+        assertNull(appStartupTimer.getStartupSpan());
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(2, spans.size());
+        SpanData firstFrameSpan = spans.get(0);
+        assertEquals("FirstFrame", firstFrameSpan.getName());
+        assertEquals(appStart.getSpanContext(), firstFrameSpan.getParentSpanContext());
+        SpanData appStartSpan = spans.get(1);
+        assertEquals("AppStart", appStartSpan.getName());
+        assertEquals(firstFrameSpan.getEndEpochNanos(), appStartSpan.getEndEpochNanos());
+    }
+
+    @Test
+    public void stopsWaitingForFirstFrame() {
+        AppStartupTimer appStartupTimer = new AppStartupTimer();
+        appStartupTimer.start(tracer);
+        appStartupTimer.waitForFirstFrame();
+
+        appStartupTimer.end();
+        //eg. the activity is paused before anything was drawn
+        appStartupTimer.end();
+        appStartupTimer.firstFrameDrawn();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("AppStart", spans.get(0).getName());
+    }
+}
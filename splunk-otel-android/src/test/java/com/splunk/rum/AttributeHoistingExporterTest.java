@@ -0,0 +1,195 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.zipkin.ZipkinSpanExporter;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.semconv.resource.attributes.ResourceAttributes;
+import zipkin2.Call;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+public class AttributeHoistingExporterTest {
+    private static final int BATCH_SIZE = 50;
+
+    private List<SpanData> batch;
+
+    @Before
+    public void setUp() {
+        InMemorySpanExporter spans = InMemorySpanExporter.create();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(spans))
+                .build();
+        Tracer tracer = tracerProvider.get("test");
+        String[] screens = {"MainActivity", "SettingsFragment", "CheckoutActivity"};
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            boolean http = i % 4 == 0;
+            String name = http ? "HTTP GET" : "Resumed";
+            Span span = tracer.spanBuilder(name)
+                    .setAttribute(RumAttributeAppender.SPLUNK_OPERATION_KEY, name)
+                    .setAttribute(RumAttributeAppender.APP_NAME_KEY, "shop-android")
+                    .setAttribute(RumAttributeAppender.SESSION_ID_KEY, "b6d2a32e6f4fcfe2ba0ec4e3f6fa1c53")
+                    .setAttribute(RumAttributeAppender.RUM_VERSION_KEY, "0.13.0")
+                    .setAttribute(ResourceAttributes.DEVICE_MODEL_NAME, "Pixel 6")
+                    .setAttribute(ResourceAttributes.DEVICE_MODEL_IDENTIFIER, "Pixel 6")
+                    .setAttribute(ResourceAttributes.OS_NAME, "Android")
+                    .setAttribute(ResourceAttributes.OS_TYPE, "linux")
+                    .setAttribute(ResourceAttributes.OS_VERSION, "12")
+                    .setAttribute(ResourceAttributes.DEPLOYMENT_ENVIRONMENT, "production")
+                    .setAttribute(SplunkRum.SCREEN_NAME_KEY, screens[i % screens.length])
+                    .setAttribute(SplunkRum.COMPONENT_KEY, http ? "http" : "ui")
+                    .startSpan();
+            if (http) {
+                span.setAttribute(stringKey("http.url"), "https://api.example.com/products/" + i);
+            }
+            span.end();
+        }
+        batch = spans.getFinishedSpanItems();
+    }
+
+    @Test
+    public void sharedAttributes() {
+        Map<AttributeKey<?>, Object> shared = AttributeHoistingExporter.sharedAttributes(batch);
+
+        assertEquals("shop-android", shared.get(RumAttributeAppender.APP_NAME_KEY));
+        assertEquals("b6d2a32e6f4fcfe2ba0ec4e3f6fa1c53", shared.get(RumAttributeAppender.SESSION_ID_KEY));
+        assertEquals("production", shared.get(ResourceAttributes.DEPLOYMENT_ENVIRONMENT));
+        //these differ from span to span.
+        assertFalse(shared.containsKey(SplunkRum.SCREEN_NAME_KEY));
+        assertFalse(shared.containsKey(SplunkRum.COMPONENT_KEY));
+        assertFalse(shared.containsKey(stringKey("http.url")));
+        //the encoder needs this one.
+        assertFalse(shared.containsKey(RumAttributeAppender.SPLUNK_OPERATION_KEY));
+        assertEquals(9, shared.size());
+    }
+
+    @Test
+    public void smallBatchesAreLeftAlone() {
+        assertTrue(AttributeHoistingExporter.sharedAttributes(batch.subList(0, AttributeHoistingExporter.MIN_BATCH_SIZE - 1)).isEmpty());
+    }
+
+    @Test
+    public void sendsSharedAttributesOncePerBatch() {
+        CapturingSender plainSender = new CapturingSender();
+        ZipkinSpanExporter.builder().setEncoder(new CustomZipkinEncoder()).setSender(plainSender).build()
+                .export(batch);
+
+        CapturingSender capturingSender = new CapturingSender();
+        AttributeHoistingSender hoistingSender = new AttributeHoistingSender(capturingSender);
+        new AttributeHoistingExporter(ZipkinSpanExporter.builder().setEncoder(new CustomZipkinEncoder()).setSender(hoistingSender).build(), hoistingSender)
+                .export(batch);
+
+        List<byte[]> hoisted = capturingSender.sent.get(0);
+        assertEquals(BATCH_SIZE + 1, hoisted.size());
+        String header = new String(hoisted.get(0), StandardCharsets.UTF_8);
+        assertTrue(header, header.startsWith("{\"batchTags\":{"));
+        assertTrue(header, header.contains("\"splunk.rumSessionId\":\"b6d2a32e6f4fcfe2ba0ec4e3f6fa1c53\""));
+        String span = new String(hoisted.get(1), StandardCharsets.UTF_8);
+        assertFalse(span, span.contains("splunk.rumSessionId"));
+        assertTrue(span, span.contains("\"screen.name\":\"MainActivity\""));
+        assertTrue(span, span.contains("\"_splunk_operation\""));
+
+        //a typical 50 span batch goes from about 29KB to about 16KB.
+        int plainBytes = Encoding.JSON.listSizeInBytes(plainSender.sent.get(0));
+        int hoistedBytes = Encoding.JSON.listSizeInBytes(hoisted);
+        assertTrue(plainBytes + " -> " + hoistedBytes, hoistedBytes * 3 < plainBytes * 2);
+    }
+
+    @Test
+    public void concurrentExportsKeepTheirOwnHeader() throws InterruptedException {
+        List<SpanData> otherSession = new ArrayList<>();
+        for (SpanData span : batch) {
+            otherSession.add(new ModifiedSpanData(span, span.getAttributes().toBuilder()
+                    .put(RumAttributeAppender.SESSION_ID_KEY, "otherSession")
+                    .build()));
+        }
+        CapturingSender capturingSender = new CapturingSender();
+        AttributeHoistingSender hoistingSender = new AttributeHoistingSender(capturingSender);
+        SpanExporter zipkinExporter = ZipkinSpanExporter.builder().setEncoder(new CustomZipkinEncoder()).setSender(hoistingSender).build();
+        AtomicReference<AttributeHoistingExporter> exporter = new AtomicReference<>();
+        Thread otherExport = new Thread(() -> exporter.get().export(otherSession));
+        //another thread exports while the first export is between setting its header and sending.
+        SpanExporter interleavingExporter = mock(SpanExporter.class);
+        when(interleavingExporter.export(any())).thenAnswer(invocation -> {
+            if (!otherExport.isAlive() && capturingSender.sent.isEmpty()) {
+                otherExport.start();
+                otherExport.join(200);
+            }
+            return zipkinExporter.export(invocation.getArgument(0));
+        });
+        exporter.set(new AttributeHoistingExporter(interleavingExporter, hoistingSender));
+
+        exporter.get().export(batch);
+        otherExport.join();
+
+        assertEquals(2, capturingSender.sent.size());
+        String firstHeader = new String(capturingSender.sent.get(0).get(0), StandardCharsets.UTF_8);
+        String secondHeader = new String(capturingSender.sent.get(1).get(0), StandardCharsets.UTF_8);
+        assertTrue(firstHeader, firstHeader.contains("\"splunk.rumSessionId\":\"b6d2a32e6f4fcfe2ba0ec4e3f6fa1c53\""));
+        assertTrue(secondHeader, secondHeader.contains("\"splunk.rumSessionId\":\"otherSession\""));
+    }
+
+    private static class CapturingSender extends Sender {
+        private final List<List<byte[]>> sent = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Encoding encoding() {
+            return Encoding.JSON;
+        }
+
+        @Override
+        public int messageMaxBytes() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int messageSizeInBytes(List<byte[]> encodedSpans) {
+            return Encoding.JSON.listSizeInBytes(encodedSpans);
+        }
+
+        @Override
+        public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+            sent.add(encodedSpans);
+            return Call.create(null);
+        }
+    }
+}
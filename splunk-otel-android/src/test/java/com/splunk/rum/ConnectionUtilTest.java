@@ -68,7 +68,7 @@ public class ConnectionUtilTest {
         verify(connectivityManager).registerNetworkCallback(eq(networkRequest), monitorCaptor.capture());
 
         AtomicInteger notified = new AtomicInteger(0);
-        connectionUtil.setInternetStateListener((deviceIsOnline, currentNetwork) -> {
+        connectionUtil.addConnectionStateListener((deviceIsOnline, currentNetwork) -> {
             int timesCalled = notified.incrementAndGet();
             if (timesCalled == 1) {
                 assertTrue(deviceIsOnline);
@@ -107,7 +107,7 @@ public class ConnectionUtilTest {
         verify(connectivityManager).registerDefaultNetworkCallback(monitorCaptor.capture());
 
         AtomicInteger notified = new AtomicInteger(0);
-        connectionUtil.setInternetStateListener((deviceIsOnline, currentNetwork) -> {
+        connectionUtil.addConnectionStateListener((deviceIsOnline, currentNetwork) -> {
             int timesCalled = notified.incrementAndGet();
             if (timesCalled == 1) {
                 assertTrue(deviceIsOnline);
@@ -0,0 +1,68 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class CpuTimeReaderTest {
+    private static final String STAT = "1234 (com.example (app)) S 567 567 0 0 -1 4194624 27915 0 1 0 250 130 0 0 10 -10 30 0 1021 0";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void parsesUserAndSystemTime() {
+        byte[] stat = STAT.getBytes(UTF_8);
+        assertEquals(380, CpuTimeReader.parseCpuTicks(stat, stat.length));
+    }
+
+    @Test
+    public void malformedStat() {
+        byte[] noName = "1234 S 567".getBytes(UTF_8);
+        assertEquals(-1, CpuTimeReader.parseCpuTicks(noName, noName.length));
+        byte[] truncated = "1234 (app) S 567 567 0".getBytes(UTF_8);
+        assertEquals(-1, CpuTimeReader.parseCpuTicks(truncated, truncated.length));
+    }
+
+    @Test
+    public void rereadsTheSameFile() throws Exception {
+        File stat = temporaryFolder.newFile("stat");
+        Files.write(stat.toPath(), STAT.getBytes(UTF_8));
+        CpuTimeReader reader = new CpuTimeReader(stat.getAbsolutePath(), 100);
+
+        assertEquals(3800, reader.getMainThreadCpuTimeMillis());
+
+        Files.write(stat.toPath(), STAT.replace(" 250 130 ", " 300 150 ").getBytes(UTF_8));
+        assertEquals(4500, reader.getMainThreadCpuTimeMillis());
+    }
+
+    @Test
+    public void missingFile() {
+        CpuTimeReader reader = new CpuTimeReader(new File(temporaryFolder.getRoot(), "missing").getAbsolutePath(), 100);
+
+        assertEquals(-1, reader.getMainThreadCpuTimeMillis());
+        assertEquals(-1, reader.getMainThreadCpuTimeMillis());
+    }
+}
@@ -27,16 +27,21 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
 import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class CrashReporterTest {
     @Rule
@@ -52,17 +57,67 @@ public class CrashReporterTest {
     public void crashReportingSpan() {
         TestDelegateHandler existingHandler = new TestDelegateHandler();
         SdkTracerProvider sdkTracerProvider = mock(SdkTracerProvider.class);
-        CrashReporter.CrashReportingExceptionHandler crashReporter = new CrashReporter.CrashReportingExceptionHandler(tracer, sdkTracerProvider, existingHandler);
+        InMemorySpanExporter crashSpanExporter = InMemorySpanExporter.create();
+        CrashReporter.CrashReportingExceptionHandler crashReporter = new CrashReporter.CrashReportingExceptionHandler(tracer, sdkTracerProvider, crashSpanExporter, existingHandler);
 
         NullPointerException oopsie = new NullPointerException("oopsie");
         Thread crashThread = new Thread("badThread");
 
         crashReporter.uncaughtException(crashThread, oopsie);
 
-        List<SpanData> spans = otelTesting.getSpans();
+        //the persisted span does not go through the regular span pipeline
+        assertTrue(otelTesting.getSpans().isEmpty());
+        List<SpanData> spans = crashSpanExporter.getFinishedSpanItems();
         assertEquals(1, spans.size());
         SpanData crashSpan = spans.get(0);
-        assertEquals(oopsie.getClass().getSimpleName(), crashSpan.getName());
+        assertTrue(crashSpan.hasEnded());
+        assertTrue(crashSpan.getEndEpochNanos() >= crashSpan.getStartEpochNanos());
+        assertCrashSpanAttributes(crashThread, crashSpan);
+
+        assertTrue(existingHandler.wasDelegatedTo.get());
+        //the spans that were already queued still get flushed.
+        verify(sdkTracerProvider).forceFlush();
+    }
+
+    @Test
+    public void crashReportingSpan_persistenceFails() {
+        TestDelegateHandler existingHandler = new TestDelegateHandler();
+        SdkTracerProvider sdkTracerProvider = mock(SdkTracerProvider.class);
+        SpanExporter crashSpanExporter = mock(SpanExporter.class);
+        when(crashSpanExporter.export(any())).thenReturn(CompletableResultCode.ofFailure());
+        CrashReporter.CrashReportingExceptionHandler crashReporter = new CrashReporter.CrashReportingExceptionHandler(tracer, sdkTracerProvider, crashSpanExporter, existingHandler);
+
+        NullPointerException oopsie = new NullPointerException("oopsie");
+        Thread crashThread = new Thread("badThread");
+
+        crashReporter.uncaughtException(crashThread, oopsie);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertCrashSpanAttributes(crashThread, spans.get(0));
+
+        assertTrue(existingHandler.wasDelegatedTo.get());
+        verify(sdkTracerProvider).forceFlush();
+    }
+
+    @Test
+    public void crashReportingSpan_persistenceTimesOut() {
+        TestDelegateHandler existingHandler = new TestDelegateHandler();
+        SdkTracerProvider sdkTracerProvider = mock(SdkTracerProvider.class);
+        SpanExporter crashSpanExporter = mock(SpanExporter.class);
+        //never completes
+        when(crashSpanExporter.export(any())).thenReturn(new CompletableResultCode());
+        CrashReporter.CrashReportingExceptionHandler crashReporter = new CrashReporter.CrashReportingExceptionHandler(tracer, sdkTracerProvider, crashSpanExporter, existingHandler);
+
+        crashReporter.uncaughtException(new Thread("badThread"), new NullPointerException("oopsie"));
+
+        assertEquals(1, otelTesting.getSpans().size());
+        assertTrue(existingHandler.wasDelegatedTo.get());
+        verify(sdkTracerProvider).forceFlush();
+    }
+
+    private static void assertCrashSpanAttributes(Thread crashThread, SpanData crashSpan) {
+        assertEquals("NullPointerException", crashSpan.getName());
         assertEquals(crashThread.getId(), (long) crashSpan.getAttributes().get(SemanticAttributes.THREAD_ID));
         assertEquals(SplunkRum.COMPONENT_CRASH, crashSpan.getAttributes().get(SplunkRum.COMPONENT_KEY));
         assertEquals("badThread", crashSpan.getAttributes().get(SemanticAttributes.THREAD_NAME));
@@ -78,9 +133,6 @@ public class CrashReporterTest {
         assertEquals("oopsie", crashSpan.getAttributes().get(SplunkRum.ERROR_MESSAGE_KEY));
 
         assertEquals(StatusCode.ERROR, crashSpan.getStatus().getStatusCode());
-
-        assertTrue(existingHandler.wasDelegatedTo.get());
-        verify(sdkTracerProvider).forceFlush();
     }
 
     private static class TestDelegateHandler implements Thread.UncaughtExceptionHandler {
@@ -0,0 +1,175 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Application;
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import zipkin2.Call;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CrashSpanStorageTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final long now = System.currentTimeMillis();
+    private final byte[] span1 = "span one".getBytes(StandardCharsets.UTF_8);
+    private final byte[] span2 = "span two".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private Application application;
+    @Mock
+    private Context context;
+    @Mock
+    private FileUtils fileUtils;
+    @Mock
+    private Clock clock;
+    private File filesDir;
+
+    @Before
+    public void setup() throws Exception {
+        filesDir = temporaryFolder.newFolder("files");
+        when(application.getApplicationContext()).thenReturn(context);
+        when(context.getFilesDir()).thenReturn(filesDir);
+    }
+
+    @Test
+    public void preallocatesEmptyFile() throws Exception {
+        CrashSpanStorage storage = new CrashSpanStorage(application, fileUtils, clock);
+
+        storage.recoverAndPreallocate();
+
+        File crashFile = storage.getCrashFile();
+        assertEquals(CrashSpanStorage.MAX_PAYLOAD_BYTES + 4, crashFile.length());
+        assertTrue(storage.readPersistedSpans(crashFile).isEmpty());
+        verify(fileUtils, never()).writeAsLines(any(), any());
+    }
+
+    @Test
+    public void persistAndRecover() throws Exception {
+        when(clock.millis()).thenReturn(now);
+        CrashSpanStorage storage = new CrashSpanStorage(application, fileUtils, clock);
+        storage.recoverAndPreallocate();
+
+        Call<Void> call = storage.sender().sendSpans(Arrays.asList(span1, span2));
+        call.execute();
+
+        List<byte[]> persisted = storage.readPersistedSpans(storage.getCrashFile());
+        assertEquals(2, persisted.size());
+        assertArrayEquals(span1, persisted.get(0));
+        assertArrayEquals(span2, persisted.get(1));
+
+        //the next process start
+        CrashSpanStorage nextStorage = new CrashSpanStorage(application, fileUtils, clock);
+        nextStorage.recoverAndPreallocate();
+
+        File expectedFile = new File(new File(filesDir, "spans"), now + ".spans");
+        ArgumentCaptor<List<byte[]>> recovered = ArgumentCaptor.forClass(List.class);
+        verify(fileUtils).writeAsLines(eq(expectedFile), recovered.capture());
+        assertEquals(2, recovered.getValue().size());
+        assertArrayEquals(span1, recovered.getValue().get(0));
+        assertArrayEquals(span2, recovered.getValue().get(1));
+        assertTrue(new File(filesDir, "spans").isDirectory());
+        assertTrue(nextStorage.readPersistedSpans(nextStorage.getCrashFile()).isEmpty());
+    }
+
+    @Test
+    public void failedRecoveryKeepsCrashData() throws Exception {
+        CrashSpanStorage storage = new CrashSpanStorage(application, fileUtils, clock);
+        storage.recoverAndPreallocate();
+        storage.persist(Collections.singletonList(span1));
+
+        doThrow(new IOException("disk full")).when(fileUtils).writeAsLines(any(), any());
+        CrashSpanStorage nextStorage = new CrashSpanStorage(application, fileUtils, clock);
+        try {
+            nextStorage.recoverAndPreallocate();
+            fail("expected an IOException");
+        } catch (IOException expected) {
+        }
+
+        assertEquals(1, nextStorage.readPersistedSpans(nextStorage.getCrashFile()).size());
+    }
+
+    @Test
+    public void persistWithoutPreallocationWritesSpansFile() throws Exception {
+        when(clock.millis()).thenReturn(now);
+        CrashSpanStorage storage = new CrashSpanStorage(application, fileUtils, clock);
+
+        storage.sender().sendSpans(Collections.singletonList(span1)).execute();
+
+        File expectedFile = new File(new File(filesDir, "spans"), now + ".spans");
+        ArgumentCaptor<List<byte[]>> written = ArgumentCaptor.forClass(List.class);
+        verify(fileUtils).writeAsLines(eq(expectedFile), written.capture());
+        assertEquals(1, written.getValue().size());
+        assertArrayEquals(span1, written.getValue().get(0));
+        assertFalse(storage.getCrashFile().exists());
+    }
+
+    @Test
+    public void persistRejectsOversizedPayload() throws Exception {
+        CrashSpanStorage storage = new CrashSpanStorage(application, fileUtils, clock);
+        storage.recoverAndPreallocate();
+        try {
+            storage.persist(Collections.singletonList(new byte[CrashSpanStorage.MAX_PAYLOAD_BYTES]));
+            fail("expected an IOException");
+        } catch (IOException expected) {
+        }
+        assertTrue(storage.readPersistedSpans(storage.getCrashFile()).isEmpty());
+    }
+
+    @Test
+    public void corruptHeaderIsIgnored() throws Exception {
+        CrashSpanStorage storage = new CrashSpanStorage(application, fileUtils, clock);
+        File crashFile = storage.getCrashFile();
+        try (RandomAccessFile file = new RandomAccessFile(crashFile, "rw")) {
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertTrue(storage.readPersistedSpans(crashFile).isEmpty());
+    }
+}
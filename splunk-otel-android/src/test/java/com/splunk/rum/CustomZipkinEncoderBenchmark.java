@@ -0,0 +1,141 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceId;
+import zipkin2.Endpoint;
+import zipkin2.Span;
+import zipkin2.internal.JsonCodec;
+import zipkin2.internal.V2SpanWriter;
+
+/**
+ * Compares the {@link CustomZipkinEncoder} with the way spans used to be encoded (zipkin's writer
+ * followed by a string replacement of the name), on a batch of typical RUM spans. Run it with
+ * {@code ./gradlew :splunk-otel-android:jmh} (or the {@link #main} method); the
+ * {@code gc.alloc.rate.norm} column shows the bytes allocated per batch.
+ * <p>
+ * This isn't a unit test, and isn't run as part of the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomZipkinEncoderBenchmark {
+    //the default max batch size of the batch span processor.
+    private static final int BATCH_SIZE = 512;
+    private static final String[] SCREENS = {"MainActivity", "SettingsFragment", "CheckoutActivity", "ProductListFragment"};
+    private static final String[] LIFECYCLE_EVENTS = {"activityPreCreated", "activityCreated", "activityPostCreated",
+            "activityPreStarted", "activityStarted", "activityPostStarted", "activityPreResumed", "activityResumed"};
+
+    private final List<Span> batch = new ArrayList<>();
+    private final V2SpanWriter writer = new V2SpanWriter();
+    private CustomZipkinEncoder encoder;
+
+    @Setup
+    public void setUp() {
+        encoder = new CustomZipkinEncoder();
+        Endpoint localEndpoint = Endpoint.newBuilder().serviceName("shop-android").build();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String screen = SCREENS[i % SCREENS.length];
+            boolean http = i % 4 == 0;
+            String name = http ? "HTTP GET" : (i % 2 == 0 ? "Created" : "Resumed");
+            Span.Builder span = Span.newBuilder()
+                    .traceId(TraceId.fromLongs(i, i + 1))
+                    .id(SpanId.fromLong(i + 1))
+                    .name(name)
+                    .kind(http ? Span.Kind.CLIENT : null)
+                    .timestamp(1_650_000_000_000_000L + i * 1000L)
+                    .duration(1000 + i)
+                    .localEndpoint(localEndpoint)
+                    .putTag("_splunk_operation", name)
+                    .putTag("app", "shop-android")
+                    .putTag("splunk.rumSessionId", "b6d2a32e6f4fcfe2ba0ec4e3f6fa1c53")
+                    .putTag("splunk.rum.version", "0.13.0")
+                    .putTag("device.model.name", "Pixel 6")
+                    .putTag("device.model.identifier", "Pixel 6")
+                    .putTag("os.name", "Android")
+                    .putTag("os.type", "linux")
+                    .putTag("os.version", "12")
+                    .putTag("screen.name", screen)
+                    .putTag("net.host.connection.type", "wifi")
+                    .putTag("otel.library.name", "SplunkRum")
+                    .putTag("component", http ? "http" : "ui");
+            if (http) {
+                span.putTag("http.method", "GET")
+                        .putTag("http.url", "https://api.example.com/products/" + i + "?page=" + (i % 7))
+                        .putTag("http.status_code", "200");
+            } else {
+                span.putTag("activityName", screen);
+                for (int e = 0; e < LIFECYCLE_EVENTS.length; e++) {
+                    span.addAnnotation(1_650_000_000_000_000L + i * 1000L + e, LIFECYCLE_EVENTS[e]);
+                }
+            }
+            batch.add(span.build());
+        }
+    }
+
+    @Benchmark
+    public void customEncoder(Blackhole blackhole) {
+        for (Span span : batch) {
+            blackhole.consume(encoder.encode(span));
+        }
+    }
+
+    @Benchmark
+    public void zipkinWriterWithRename(Blackhole blackhole) {
+        for (Span span : batch) {
+            String properSpanName = span.tags().get(RumAttributeAppender.SPLUNK_OPERATION_KEY.getKey());
+            byte[] rawBytes = JsonCodec.write(writer, span);
+            String renamedResult = new String(rawBytes).replace(
+                    "\"name\":\"" + span.name() + "\"",
+                    "\"name\":\"" + properSpanName + "\"");
+            blackhole.consume(renamedResult.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomZipkinEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -16,13 +16,16 @@
 
 package com.splunk.rum;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
 
 import io.opentelemetry.api.trace.SpanId;
 import io.opentelemetry.api.trace.TraceId;
+import zipkin2.Endpoint;
 import zipkin2.Span;
+import zipkin2.codec.SpanBytesEncoder;
 
 public class CustomZipkinEncoderTest {
 
@@ -40,4 +43,50 @@ public class CustomZipkinEncoderTest {
         assertEquals("{\"traceId\":\"00000000000000010000000000000002\",\"id\":\"0000000000000001\",\"name\":\"UpperCase\",\"tags\":{\"_splunk_operation\":\"UpperCase\"}}", new String(bytes));
         assertEquals(bytes.length, encoder.sizeInBytes(span));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sameJsonAsZipkin() {
+        CustomZipkinEncoder encoder = new CustomZipkinEncoder();
+        Span span = Span.newBuilder()
+                .name("screen \"one\"")
+                .traceId(TraceId.fromLongs(1, 2))
+                .parentId(SpanId.fromLong(2))
+                .id(SpanId.fromLong(1))
+                .kind(Span.Kind.CLIENT)
+                .timestamp(1_650_000_000_000_000L)
+                .duration(1234)
+                .localEndpoint(Endpoint.newBuilder().serviceName("app").ip("192.168.0.1").build())
+                .remoteEndpoint(Endpoint.newBuilder().ip("2001:db8::c001").port(443).build())
+                .addAnnotation(1_650_000_000_000_001L, "activityResumed")
+                .addAnnotation(1_650_000_000_000_002L, "tab\tand\nnewline")
+                .putTag(RumAttributeAppender.SPLUNK_OPERATION_KEY.getKey(), "screen \"one\"")
+                .putTag(SplunkRum.SCREEN_NAME_KEY.getKey(), "\u00c9cran principal \uD83D\uDE00")
+                .putTag("exception.stacktrace", "at com.example.Foo(Foo.java:12)\n\tat \\bar \uD83D")
+                .putTag("http.url", "https://example.com/path?q=\u00e9")
+                .debug(true)
+                .shared(true)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            //the first round fills the cache, the others read from it.
+            assertArrayEquals(SpanBytesEncoder.JSON_V2.encode(span), encoder.encode(span));
+        }
+    }
+
+    @Test
+    public void bufferGrowsForLargeSpans() {
+        CustomZipkinEncoder encoder = new CustomZipkinEncoder();
+        StringBuilder stackTrace = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            stackTrace.append("at com.example.Foo.method").append(i).append("(Foo.java:").append(i).append(")\n");
+        }
+        Span span = Span.newBuilder()
+                .name("crash")
+                .traceId(TraceId.fromLongs(1, 2))
+                .id(SpanId.fromLong(1))
+                .putTag("exception.stacktrace", stackTrace.toString())
+                .build();
+
+        assertArrayEquals(SpanBytesEncoder.JSON_V2.encode(span), encoder.encode(span));
+    }
+}
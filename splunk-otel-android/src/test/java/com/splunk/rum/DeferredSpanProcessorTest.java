@@ -0,0 +1,103 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+public class DeferredSpanProcessorTest {
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private final ConnectionUtil connectionUtil = mock(ConnectionUtil.class);
+    private DeferredSpanProcessor deferredSpanProcessor;
+    private Tracer tracer;
+
+    @Before
+    public void setUp() {
+        when(connectionUtil.getActiveNetwork()).thenReturn(new CurrentNetwork(NetworkState.TRANSPORT_CELLULAR, "LTE"));
+        deferredSpanProcessor = new DeferredSpanProcessor();
+        tracer = SdkTracerProvider.builder()
+                .addSpanProcessor(deferredSpanProcessor)
+                .build()
+                .get("testTracer");
+    }
+
+    @Test
+    public void buffersUntilStarted() {
+        tracer.spanBuilder("early").startSpan().end();
+
+        assertEquals(1, deferredSpanProcessor.getBufferedSpanCount());
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+
+        deferredSpanProcessor.start(SimpleSpanProcessor.create(exporter), connectionUtil);
+        tracer.spanBuilder("late").startSpan().end();
+
+        assertEquals(0, deferredSpanProcessor.getBufferedSpanCount());
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        assertEquals("early", spans.get(0).getName());
+        assertEquals("late", spans.get(1).getName());
+    }
+
+    @Test
+    public void addsNetworkAttributesWhenMissing() {
+        tracer.spanBuilder("noNetwork").startSpan().end();
+        tracer.spanBuilder("withNetwork")
+                .setAttribute(SemanticAttributes.NET_HOST_CONNECTION_TYPE, "wifi")
+                .startSpan()
+                .end();
+
+        deferredSpanProcessor.start(SimpleSpanProcessor.create(exporter), connectionUtil);
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        assertEquals("cell", spans.get(0).getAttributes().get(SemanticAttributes.NET_HOST_CONNECTION_TYPE));
+        assertEquals("LTE", spans.get(0).getAttributes().get(SemanticAttributes.NET_HOST_CONNECTION_SUBTYPE));
+        assertEquals("wifi", spans.get(1).getAttributes().get(SemanticAttributes.NET_HOST_CONNECTION_TYPE));
+    }
+
+    @Test
+    public void bufferIsBounded() {
+        for (int i = 0; i < DeferredSpanProcessor.MAX_BUFFERED_SPANS + 10; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        assertEquals(DeferredSpanProcessor.MAX_BUFFERED_SPANS, deferredSpanProcessor.getBufferedSpanCount());
+
+        deferredSpanProcessor.start(SimpleSpanProcessor.create(exporter), connectionUtil);
+        assertEquals(DeferredSpanProcessor.MAX_BUFFERED_SPANS, exporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void flushBeforeStart() {
+        assertTrue(deferredSpanProcessor.forceFlush().isSuccess());
+        assertTrue(deferredSpanProcessor.shutdown().isSuccess());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+public class DiskSpilloverTriggerTest {
+    private final MemoryBufferingExporter exporter = mock(MemoryBufferingExporter.class);
+    private final SpanProcessor spanProcessor = mock(SpanProcessor.class);
+    private final DiskSpilloverTrigger trigger = new DiskSpilloverTrigger(exporter, spanProcessor);
+
+    @Test
+    public void spillsWhenBackgrounded() {
+        trigger.appBackgrounded();
+
+        InOrder inOrder = inOrder(exporter, spanProcessor);
+        inOrder.verify(exporter).requestSpill();
+        inOrder.verify(spanProcessor).forceFlush();
+    }
+
+    @Test
+    public void spillsWhenLowOnMemory() {
+        trigger.onTrimMemory(TRIM_MEMORY_RUNNING_LOW);
+
+        InOrder inOrder = inOrder(exporter, spanProcessor);
+        inOrder.verify(exporter).requestSpill();
+        inOrder.verify(spanProcessor).forceFlush();
+    }
+
+    @Test
+    public void ignoresModerateMemoryPressure() {
+        trigger.onTrimMemory(TRIM_MEMORY_RUNNING_MODERATE);
+        trigger.appForegrounded();
+
+        verifyNoInteractions(exporter, spanProcessor);
+    }
+}
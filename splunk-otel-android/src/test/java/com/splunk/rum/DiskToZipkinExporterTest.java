@@ -1,27 +1,44 @@
 package com.splunk.rum;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import zipkin2.Call;
+import zipkin2.Callback;
 import zipkin2.reporter.Sender;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -48,6 +65,13 @@ public class DiskToZipkinExporterTest {
     Sender sender;
     @Mock
     private BandwidthTracker bandwidthTracker;
+    @Mock
+    private ExportBackoff backoff;
+    @Mock
+    private SdkScheduler scheduler;
+    @Mock
+    private ScheduledFuture<Object> scheduledDrain;
+    private final SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
 
     @Before
     public void setup() throws Exception{
@@ -60,13 +84,16 @@ public class DiskToZipkinExporterTest {
         when(fileUtils.isRegularFile(imposter)).thenReturn(true);
         when(fileUtils.readFileCompletely(file1)).thenReturn(file1Spans);
         when(fileUtils.readFileCompletely(file2)).thenReturn(file2Spans);
+        //too small to merge the files, unless a test says otherwise.
+        lenient().when(sender.messageMaxBytes()).thenReturn(span1.length);
+        lenient().when(sender.messageSizeInBytes(anyList())).thenAnswer(invocation -> messageSize(invocation.getArgument(0)));
     }
 
     @Test
     public void testHappyPathExport() throws Exception {
 
-        Call<Void> call1 = mock(Call.class);
-        Call<Void> call2 = mock(Call.class);
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
 
         when(sender.sendSpans(file1Spans)).thenReturn(call1);
         when(sender.sendSpans(file2Spans)).thenReturn(call2);
@@ -74,13 +101,28 @@ public class DiskToZipkinExporterTest {
         DiskToZipkinExporter exporter = buildExporter();
 
         exporter.doExportCycle();
-        verify(call1).execute();
-        verify(call2).execute();
+        verify(call1).enqueue(any());
+        verify(call2).enqueue(any());
         verify(fileUtils).safeDelete(file1);
         verify(fileUtils).safeDelete(file2);
         verify(fileUtils, never()).readFileCompletely(imposter);
         verify(bandwidthTracker).tick(file1Spans);
         verify(bandwidthTracker).tick(file2Spans);
+        assertEquals(0, statsRecorder.snapshot().getPendingFileCount());
+        verify(backoff).onSuccess();
+    }
+
+    @Test
+    public void skipsWhileBackingOff() {
+        when(backoff.isBackingOff()).thenReturn(true);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+
+        verifyNoMoreInteractions(connectionUtil);
+        verifyNoMoreInteractions(fileUtils);
+        verifyNoMoreInteractions(sender);
     }
 
     @Test
@@ -111,6 +153,8 @@ public class DiskToZipkinExporterTest {
     @Test
     public void testSkipsWhenOverBandwidth() throws Exception {
         when(bandwidthTracker.totalSustainedRate()).thenReturn(BANDWIDTH_LIMIT+1.0);
+        when(fileUtils.getFileSize(file1)).thenReturn(100L);
+        when(fileUtils.getFileSize(file2)).thenReturn(200L);
 
         DiskToZipkinExporter exporter = buildExporter();
 
@@ -118,6 +162,10 @@ public class DiskToZipkinExporterTest {
 
         verify(fileUtils, never()).readFileCompletely(any());
         verifyNoMoreInteractions(sender);
+        SdkStats stats = statsRecorder.snapshot();
+        assertEquals(2, stats.getPendingFileCount());
+        assertEquals(300, stats.getPendingFileBytes());
+        assertEquals(BANDWIDTH_LIMIT + 1.0, stats.getBandwidthBytesPerSecond(), 0.001);
     }
 
     @Test
@@ -133,18 +181,446 @@ public class DiskToZipkinExporterTest {
 
     @Test
     public void testSenderFailure() throws Exception {
-        Call<Void> call1 = mock(Call.class);
-        Call<Void> call2 = mock(Call.class);
+        Call<Void> call1 = completingCall(new IOException("Failure is yours to enjoy"));
 
         when(sender.sendSpans(file1Spans)).thenReturn(call1);
-        when(call1.execute()).thenThrow(new IOException("Failure is yours to enjoy"));
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        //a connectivity problem: the file is kept as it is, for the next attempt.
+        verify(fileUtils, never()).safeDelete(file1);
+        verify(fileUtils, never()).moveTo(eq(file1), any());
+        //the next file has been read to see if it could be merged, but isn't sent.
+        verify(sender, never()).sendSpans(file2Spans);
+        verify(fileUtils, never()).safeDelete(file2);
+        assertEquals(1, statsRecorder.snapshot().getPendingFileCount());
+        verify(backoff).onFailure();
+        verify(backoff, never()).onSuccess();
+    }
+
+    @Test
+    public void rejectedFilesAreKeptAndCounted() throws Exception {
+        Call<Void> call1 = completingCall(new BeaconResponseException(400, "bad request"));
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(fileUtils, never()).safeDelete(file1);
+        verify(fileUtils).moveTo(file1, new File(spanFilesPath, "file1-1.spans"));
+        verify(backoff).onFailure();
+    }
+
+    @Test
+    public void unauthorizedFilesAreKeptWithoutCounting() throws Exception {
+        Call<Void> call1 = completingCall(new BeaconResponseException(401, "unauthorized"));
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        //a bad token says nothing about the file: it must not end up in quarantine.
+        verify(fileUtils, never()).safeDelete(file1);
+        verify(fileUtils, never()).moveTo(eq(file1), any());
+        verify(backoff).onFailure();
+    }
+
+    @Test
+    public void unexpectedSenderExceptionsAreCounted() throws Exception {
+        when(sender.sendSpans(file1Spans)).thenThrow(new IllegalStateException("boom"));
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(fileUtils, never()).safeDelete(file1);
+        verify(fileUtils).moveTo(file1, new File(spanFilesPath, "file1-1.spans"));
+        verify(backoff).onFailure();
+    }
+
+    @Test
+    public void filesAreOnlyDeletedOnceSent() throws Exception {
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(new BeaconResponseException(503, "unavailable"));
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
 
         DiskToZipkinExporter exporter = buildExporter();
 
         exporter.doExportCycle();
         verify(fileUtils).safeDelete(file1);
-        verify(fileUtils, never()).readFileCompletely(file2);
         verify(fileUtils, never()).safeDelete(file2);
+        //the beacon being unavailable says nothing about the file.
+        verify(fileUtils, never()).moveTo(eq(file2), any());
+    }
+
+    @Test
+    public void readFailureIsCounted() throws Exception {
+        when(fileUtils.readFileCompletely(file1)).thenThrow(new IOException("no file"));
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(fileUtils, never()).safeDelete(file1);
+        verify(fileUtils).moveTo(file1, new File(spanFilesPath, "file1-1.spans"));
+    }
+
+    @Test
+    public void emptyFilesAreDeleted() throws Exception {
+        when(fileUtils.readFileCompletely(file1)).thenReturn(emptyList());
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(fileUtils).safeDelete(file1);
+        verify(sender, never()).sendSpans(emptyList());
+        verify(fileUtils).safeDelete(file2);
+    }
+
+    @Test
+    public void failedFilesAreSentAlone() throws Exception {
+        File retriedFile = new File(spanFilesPath, "file0-2.spans");
+        List<byte[]> retriedSpans = singletonList(span1);
+        when(fileUtils.listFiles(spanFilesPath)).thenReturn(Stream.of(retriedFile, file2));
+        when(fileUtils.isRegularFile(retriedFile)).thenReturn(true);
+        when(fileUtils.readFileCompletely(retriedFile)).thenReturn(retriedSpans);
+        //plenty of room, but a file which failed before might fail the others.
+        lenient().when(sender.messageMaxBytes()).thenReturn(1000);
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(retriedSpans)).thenReturn(call1);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(call1).enqueue(any());
+        verify(call2).enqueue(any());
+        verify(fileUtils).safeDelete(retriedFile);
+        verify(fileUtils).safeDelete(file2);
+    }
+
+    @Test
+    public void mergesFilesIntoOneRequest() throws Exception {
+        when(sender.messageMaxBytes()).thenReturn(100);
+        List<byte[]> allSpans = Arrays.asList(span1, span2, span3);
+        Call<Void> call = completingCall(null);
+        when(sender.sendSpans(allSpans)).thenReturn(call);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(sender).sendSpans(allSpans);
+        verify(sender, times(1)).sendSpans(any());
+        verify(fileUtils).safeDelete(file1);
+        verify(fileUtils).safeDelete(file2);
+        verify(bandwidthTracker).tick(allSpans);
+    }
+
+    @Test
+    public void doesNotMergeOverMessageMaxBytes() throws Exception {
+        //room for one file, but not both.
+        when(sender.messageMaxBytes()).thenReturn(14);
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(call1).enqueue(any());
+        verify(call2).enqueue(any());
+        verify(fileUtils).safeDelete(file1);
+        verify(fileUtils).safeDelete(file2);
+    }
+
+    @Test
+    public void doesNotMergeOverTheBandwidthBudget() throws Exception {
+        //plenty of room in the message, but the budget only allows 10 bytes per request.
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
+
+        DiskToZipkinExporter exporter = DiskToZipkinExporter.builder()
+                .fileUtils(fileUtils)
+                .sender(sender)
+                .bandwidthLimit(2)
+                .bandwidthTracker(bandwidthTracker)
+                .spanFilesPath(spanFilesPath)
+                .connectionUtil(connectionUtil)
+                .statsRecorder(statsRecorder)
+                .backoff(backoff)
+                .build();
+
+        exporter.doExportCycle();
+        verify(sender).sendSpans(file1Spans);
+        verify(sender).sendSpans(file2Spans);
+        verify(sender, times(2)).sendSpans(any());
+    }
+
+    @Test
+    public void doesNotMergeFilesWithBatchHeader() throws Exception {
+        byte[] header = "{\"batchTags\":{\"app\":\"test\"}}".getBytes(StandardCharsets.UTF_8);
+        List<byte[]> file2WithHeader = Arrays.asList(header, span2, span3);
+        when(fileUtils.readFileCompletely(file2)).thenReturn(file2WithHeader);
+        //plenty of room, but the header can't apply to the spans of the other file.
+        lenient().when(sender.messageMaxBytes()).thenReturn(1000);
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+        when(sender.sendSpans(file2WithHeader)).thenReturn(call2);
+
+        DiskToZipkinExporter exporter = buildExporter();
+
+        exporter.doExportCycle();
+        verify(call1).enqueue(any());
+        verify(call2).enqueue(any());
+    }
+
+    @Test
+    public void limitsRequestsInFlight() throws Exception {
+        File file3 = new File(spanFilesPath.getAbsolutePath() + File.separator + "file3.spans");
+        List<byte[]> file3Spans = singletonList(span3);
+        when(fileUtils.listFiles(spanFilesPath)).thenReturn(Stream.of(file1, file2, file3));
+        when(fileUtils.isRegularFile(file3)).thenReturn(true);
+        when(fileUtils.readFileCompletely(file3)).thenReturn(file3Spans);
+
+        List<Callback<Void>> callbacks = new CopyOnWriteArrayList<>();
+        Call<Void> call = mock(Call.class);
+        doAnswer(invocation -> callbacks.add(invocation.getArgument(0))).when(call).enqueue(any());
+        when(sender.sendSpans(anyList())).thenReturn(call);
+
+        DiskToZipkinExporter exporter = DiskToZipkinExporter.builder()
+                .fileUtils(fileUtils)
+                .sender(sender)
+                .bandwidthLimit(BANDWIDTH_LIMIT)
+                .bandwidthTracker(bandwidthTracker)
+                .spanFilesPath(spanFilesPath)
+                .connectionUtil(connectionUtil)
+                .statsRecorder(statsRecorder)
+                .maxInFlightRequests(2)
+                .build();
+
+        Thread exportThread = new Thread(exporter::doExportCycle);
+        exportThread.start();
+
+        verify(sender, timeout(1000)).sendSpans(file2Spans);
+        Thread.sleep(100);
+        verify(sender, never()).sendSpans(file3Spans);
+        assertEquals(2, callbacks.size());
+
+        //completing one request lets the next one go.
+        callbacks.get(0).onSuccess(null);
+        verify(sender, timeout(1000)).sendSpans(file3Spans);
+        assertTrue(exportThread.isAlive());
+
+        for (Callback<Void> callback : new ArrayList<>(callbacks.subList(1, callbacks.size()))) {
+            callback.onSuccess(null);
+        }
+        exportThread.join(1000);
+        assertTrue(!exportThread.isAlive());
+        verify(fileUtils).safeDelete(file1);
+        verify(fileUtils).safeDelete(file2);
+        verify(fileUtils).safeDelete(file3);
+    }
+
+    @Test
+    public void singleRequestInFlightKeepsTheOrder() throws Exception {
+        List<Callback<Void>> callbacks = new CopyOnWriteArrayList<>();
+        Call<Void> call = mock(Call.class);
+        doAnswer(invocation -> callbacks.add(invocation.getArgument(0))).when(call).enqueue(any());
+        when(sender.sendSpans(anyList())).thenReturn(call);
+
+        DiskToZipkinExporter exporter = DiskToZipkinExporter.builder()
+                .fileUtils(fileUtils)
+                .sender(sender)
+                .bandwidthLimit(BANDWIDTH_LIMIT)
+                .bandwidthTracker(bandwidthTracker)
+                .spanFilesPath(spanFilesPath)
+                .connectionUtil(connectionUtil)
+                .statsRecorder(statsRecorder)
+                .maxInFlightRequests(1)
+                .build();
+
+        Thread exportThread = new Thread(exporter::doExportCycle);
+        exportThread.start();
+
+        verify(sender, timeout(1000)).sendSpans(file1Spans);
+        Thread.sleep(100);
+        verify(sender, never()).sendSpans(file2Spans);
+
+        //the later file isn't sent ahead of the failed one.
+        callbacks.get(0).onError(new IOException("offline"));
+        exportThread.join(1000);
+        assertTrue(!exportThread.isAlive());
+        verify(sender, never()).sendSpans(file2Spans);
+        verify(fileUtils, never()).safeDelete(file1);
+        verify(fileUtils, never()).safeDelete(file2);
+    }
+
+    @Test
+    public void drainsWhenStarted() throws Exception {
+        doReturn(scheduledDrain).when(scheduler).schedule(any(), anyLong(), any());
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
+
+        buildStartedExporter();
+
+        verify(scheduler).scheduleAtFixedRate(any(), eq(DiskToZipkinExporter.SAFETY_NET_INTERVAL_MINUTES), eq(TimeUnit.MINUTES));
+        ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(drain.capture(), eq(DiskToZipkinExporter.DRAIN_DELAY_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        drain.getValue().run();
+        verify(fileUtils).safeDelete(file1);
+        verify(fileUtils).safeDelete(file2);
+        //nothing left to do.
+        verify(scheduler, times(1)).schedule(any(), anyLong(), any());
+    }
+
+    @Test
+    public void requestsAreMergedUntilTheDrainStarts() {
+        doReturn(scheduledDrain).when(scheduler).schedule(any(), anyLong(), any());
+        when(scheduledDrain.getDelay(TimeUnit.MILLISECONDS)).thenReturn(500L);
+
+        DiskToZipkinExporter exporter = buildStartedExporter();
+        exporter.requestExport();
+        exporter.requestExport();
+
+        verify(scheduler, times(1)).schedule(any(), anyLong(), any());
+    }
+
+    @Test
+    public void requestsWaitForTheBackoff() {
+        when(backoff.getDelayMillis()).thenReturn(60_000L);
+
+        buildStartedExporter();
+
+        verify(scheduler).schedule(any(), eq(60_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void retriesAfterTheBackoffWhenSendingFails() throws Exception {
+        doReturn(scheduledDrain).when(scheduler).schedule(any(), anyLong(), any());
+        Call<Void> call = completingCall(new IOException("boom"));
+        when(sender.sendSpans(file1Spans)).thenReturn(call);
+
+        buildStartedExporter();
+        ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(drain.capture(), anyLong(), any());
+
+        when(backoff.getDelayMillis()).thenReturn(7_000L);
+        drain.getValue().run();
+
+        verify(backoff).onFailure();
+        verify(scheduler).schedule(any(), eq(7_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void drainsWhenTheNetworkComesBack() {
+        buildStartedExporter();
+        ArgumentCaptor<ConnectionStateListener> listener = ArgumentCaptor.forClass(ConnectionStateListener.class);
+        verify(connectionUtil).addConnectionStateListener(listener.capture());
+
+        listener.getValue().onAvailable(false, ConnectionUtil.NO_NETWORK);
+        verify(backoff, never()).reset();
+
+        listener.getValue().onAvailable(true, currentNetwork);
+        verify(backoff).reset();
+        verify(scheduler, times(2)).schedule(any(), eq(DiskToZipkinExporter.DRAIN_DELAY_MILLIS), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void stopsOnceDrainedWhenAsked() throws Exception {
+        doReturn(scheduledDrain).when(scheduler).schedule(any(), anyLong(), any());
+        doReturn(scheduledDrain).when(scheduler).scheduleAtFixedRate(any(), anyLong(), any());
+        when(fileUtils.listFiles(spanFilesPath)).thenReturn(Stream.of(file1, imposter, file2), Stream.of(imposter));
+        Call<Void> call1 = completingCall(null);
+        Call<Void> call2 = completingCall(null);
+        when(sender.sendSpans(file1Spans)).thenReturn(call1);
+        when(sender.sendSpans(file2Spans)).thenReturn(call2);
+
+        buildStartedExporter(true);
+        ArgumentCaptor<ConnectionStateListener> listener = ArgumentCaptor.forClass(ConnectionStateListener.class);
+        verify(connectionUtil).addConnectionStateListener(listener.capture());
+        ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(drain.capture(), anyLong(), any());
+
+        drain.getValue().run();
+
+        verify(fileUtils).safeDelete(file1);
+        verify(fileUtils).safeDelete(file2);
+        verify(connectionUtil).removeConnectionStateListener(listener.getValue());
+        //the safety net polling is cancelled.
+        verify(scheduledDrain).cancel(false);
+    }
+
+    @Test
+    public void keepsGoingUntilDrained() throws Exception {
+        doReturn(scheduledDrain).when(scheduler).schedule(any(), anyLong(), any());
+        when(fileUtils.listFiles(spanFilesPath)).thenReturn(Stream.of(file1, imposter, file2), Stream.of(file1, imposter, file2));
+        Call<Void> call = completingCall(new IOException("boom"));
+        when(sender.sendSpans(file1Spans)).thenReturn(call);
+
+        buildStartedExporter(true);
+        ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(drain.capture(), anyLong(), any());
+
+        when(backoff.getDelayMillis()).thenReturn(7_000L);
+        drain.getValue().run();
+
+        verify(connectionUtil, never()).removeConnectionStateListener(any());
+        verify(scheduler).schedule(any(), eq(7_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private DiskToZipkinExporter buildStartedExporter() {
+        return buildStartedExporter(false);
+    }
+
+    private DiskToZipkinExporter buildStartedExporter(boolean stopWhenDrained) {
+        DiskToZipkinExporter exporter = DiskToZipkinExporter.builder()
+                .scheduler(scheduler)
+                .fileUtils(fileUtils)
+                .sender(sender)
+                .bandwidthLimit(BANDWIDTH_LIMIT)
+                .bandwidthTracker(bandwidthTracker)
+                .spanFilesPath(spanFilesPath)
+                .connectionUtil(connectionUtil)
+                .statsRecorder(statsRecorder)
+                .backoff(backoff)
+                .stopWhenDrained(stopWhenDrained)
+                .build();
+        exporter.startPolling();
+        return exporter;
+    }
+
+    private static int messageSize(List<byte[]> encodedSpans) {
+        int size = 0;
+        for (byte[] encodedSpan : encodedSpans) {
+            size += encodedSpan.length;
+        }
+        return size;
+    }
+
+    //completes the request as soon as it's enqueued, with the given error if there is one.
+    @SuppressWarnings("unchecked")
+    private static Call<Void> completingCall(Throwable error) {
+        Call<Void> call = mock(Call.class);
+        doAnswer(invocation -> {
+            Callback<Void> callback = invocation.getArgument(0);
+            if (error == null) {
+                callback.onSuccess(null);
+            } else {
+                callback.onError(error);
+            }
+            return null;
+        }).when(call).enqueue(any());
+        return call;
     }
 
     private DiskToZipkinExporter buildExporter() {
@@ -155,6 +631,8 @@ public class DiskToZipkinExporterTest {
                 .bandwidthTracker(bandwidthTracker)
                 .spanFilesPath(spanFilesPath)
                 .connectionUtil(connectionUtil)
+                .statsRecorder(statsRecorder)
+                .backoff(backoff)
                 .build();
     }
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class EncodedStringCacheTest {
+
+    @Test
+    public void escapesAndEncodes() {
+        EncodedStringCache cache = new EncodedStringCache();
+
+        assertArrayEquals("caf\u00e9 \\\"menu\\\"".getBytes(StandardCharsets.UTF_8), cache.get("caf\u00e9 \"menu\""));
+    }
+
+    @Test
+    public void reusesEncodedValues() {
+        EncodedStringCache cache = new EncodedStringCache();
+
+        byte[] first = cache.get("MainActivity");
+        assertSame(first, cache.get("MainActivity"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        EncodedStringCache cache = new EncodedStringCache(2);
+        byte[] one = cache.get("one");
+        cache.get("two");
+        //"one" is now the most recently used, so "two" goes.
+        cache.get("one");
+        byte[] two = cache.get("two");
+        cache.get("three");
+
+        assertEquals(2, cache.size());
+        assertSame(two, cache.get("two"));
+        assertNotSame(one, cache.get("one"));
+    }
+
+    @Test
+    public void longValuesAreNotCached() {
+        EncodedStringCache cache = new EncodedStringCache();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i <= EncodedStringCache.MAX_CACHED_LENGTH; i++) {
+            value.append('x');
+        }
+
+        assertNull(cache.get(value.toString()));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ExportBackoffTest {
+    private final AtomicLong time = new AtomicLong(1_000_000);
+    private Clock clock;
+
+    @Before
+    public void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> time.get());
+    }
+
+    @Test
+    public void doublesTheDelayOnEveryFailure() {
+        //no jitter: always the full delay.
+        ExportBackoff backoff = new ExportBackoff(clock, () -> 1.0);
+        assertFalse(backoff.isBackingOff());
+
+        backoff.onFailure();
+        assertEquals(time.get() + 5_000, backoff.getNextAttemptMillis());
+        assertTrue(backoff.isBackingOff());
+
+        time.addAndGet(5_000);
+        assertFalse(backoff.isBackingOff());
+        backoff.onFailure();
+        assertEquals(time.get() + 10_000, backoff.getNextAttemptMillis());
+
+        time.addAndGet(10_000);
+        backoff.onFailure();
+        assertEquals(time.get() + 20_000, backoff.getNextAttemptMillis());
+    }
+
+    @Test
+    public void delayIsCapped() {
+        ExportBackoff backoff = new ExportBackoff(clock, () -> 1.0);
+        for (int i = 0; i < 100; i++) {
+            time.set(backoff.getNextAttemptMillis());
+            backoff.onFailure();
+        }
+        assertEquals(time.get() + ExportBackoff.MAX_DELAY_MILLIS, backoff.getNextAttemptMillis());
+    }
+
+    @Test
+    public void jitter() {
+        ExportBackoff backoff = new ExportBackoff(clock, () -> 0.0);
+        backoff.onFailure();
+        assertEquals(time.get() + 2_500, backoff.getNextAttemptMillis());
+    }
+
+    @Test
+    public void successResets() {
+        ExportBackoff backoff = new ExportBackoff(clock, () -> 1.0);
+        backoff.onFailure();
+        backoff.onFailure();
+        backoff.onSuccess();
+        assertFalse(backoff.isBackingOff());
+
+        backoff.onFailure();
+        assertEquals(time.get() + 5_000, backoff.getNextAttemptMillis());
+    }
+
+    @Test
+    public void retryAfter() {
+        ExportBackoff backoff = new ExportBackoff(clock, () -> 1.0);
+        backoff.retryAfter(120_000);
+        //the failure itself doesn't shorten the delay asked for by the server.
+        backoff.onFailure();
+        assertEquals(time.get() + 120_000, backoff.getNextAttemptMillis());
+
+        backoff.onSuccess();
+        backoff.retryAfter(24 * 3600_000);
+        assertEquals(time.get() + ExportBackoff.MAX_DELAY_MILLIS, backoff.getNextAttemptMillis());
+    }
+
+    @Test
+    public void resetKeepsTheServerDelay() {
+        ExportBackoff backoff = new ExportBackoff(clock, () -> 1.0);
+        backoff.retryAfter(120_000);
+        backoff.onFailure();
+        backoff.onFailure();
+
+        //e.g. the network flapped: the failures are forgotten, but not what the server asked for.
+        backoff.reset();
+        assertTrue(backoff.isBackingOff());
+        assertEquals(120_000, backoff.getDelayMillis());
+
+        time.addAndGet(120_000);
+        assertFalse(backoff.isBackingOff());
+        backoff.onFailure();
+        assertEquals(time.get() + 5_000, backoff.getNextAttemptMillis());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+public class FullyDrawnTrackerTest {
+    private final TestClock clock = TestClock.create();
+    private final InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+    private final SdkScheduler scheduler = mock(SdkScheduler.class);
+    private FullyDrawnTracker fullyDrawnTracker;
+    private Tracer tracer;
+
+    @Before
+    public void setUp() {
+        fullyDrawnTracker = new FullyDrawnTracker(scheduler, clock);
+        tracer = SdkTracerProvider.builder()
+                .setClock(clock)
+                .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+                .addSpanProcessor(fullyDrawnTracker)
+                .build()
+                .get("testTracer");
+    }
+
+    @Test
+    public void reportsTimeToFullDisplay() {
+        Span created = screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity");
+        long createdStart = clock.now();
+        clock.advance(Duration.ofMillis(100));
+        created.end();
+
+        clock.advance(Duration.ofMillis(400));
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        SpanData ttfd = spans.get(1);
+        assertEquals(FullyDrawnTracker.TTFD_SPAN_NAME, ttfd.getName());
+        assertEquals(created.getSpanContext(), ttfd.getParentSpanContext());
+        assertEquals(createdStart, ttfd.getStartEpochNanos());
+        assertEquals(Duration.ofMillis(500).toNanos(), ttfd.getEndEpochNanos() - ttfd.getStartEpochNanos());
+        assertEquals("MainActivity", ttfd.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals(SplunkRum.COMPONENT_UI, ttfd.getAttributes().get(SplunkRum.COMPONENT_KEY));
+    }
+
+    @Test
+    public void fragmentRestored() {
+        Span restored = screenSpan("Restored", FragmentTracer.FRAGMENT_NAME_KEY.getKey(), "ListFragment");
+        restored.end();
+
+        fullyDrawnTracker.reportFullyDrawn(tracer, "ListFragment");
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        assertEquals(restored.getSpanContext(), spans.get(1).getParentSpanContext());
+    }
+
+    @Test
+    public void onlyReportsOnce() {
+        screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+
+        assertEquals(2, spanExporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void ignoresPausedScreens() {
+        screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+        screenSpan("Paused", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+
+        assertEquals(2, spanExporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void reportsAfterTimeoutAreMarked() {
+        screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+        clock.advance(Duration.ofNanos(FullyDrawnTracker.TIMEOUT_NANOS + 1));
+
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        SpanData ttfd = spans.get(1);
+        assertEquals(FullyDrawnTracker.TTFD_SPAN_NAME, ttfd.getName());
+        assertEquals(true, ttfd.getAttributes().get(FullyDrawnTracker.TIMED_OUT_KEY));
+        assertEquals(FullyDrawnTracker.TIMEOUT_NANOS, ttfd.getEndEpochNanos() - ttfd.getStartEpochNanos());
+    }
+
+    @Test
+    public void acceptsReportsBeforeTheLoadEnds() {
+        Span created = screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity");
+        clock.advance(Duration.ofMillis(50));
+        //e.g. from onCreate()
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        clock.advance(Duration.ofMillis(100));
+        created.end();
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        SpanData createdData = spans.get(0);
+        SpanData ttfd = spans.get(1);
+        assertEquals(FullyDrawnTracker.TTFD_SPAN_NAME, ttfd.getName());
+        assertEquals(created.getSpanContext(), ttfd.getParentSpanContext());
+        assertEquals(createdData.getStartEpochNanos(), ttfd.getStartEpochNanos());
+        assertEquals(createdData.getEndEpochNanos(), ttfd.getEndEpochNanos());
+        assertNull(ttfd.getAttributes().get(FullyDrawnTracker.TIMED_OUT_KEY));
+
+        //the report was used up.
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        assertEquals(2, spanExporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void ignoresReportsMadeBeforeTheLoadStarted() {
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        clock.advance(Duration.ofMillis(100));
+        screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+
+        assertEquals(1, spanExporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void reportedScreensTimeOutAutomatically() {
+        ScheduledFuture<?> timeout = mock(ScheduledFuture.class);
+        doReturn(timeout).when(scheduler).schedule(any(), anyLong(), any());
+        screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+        //never reported before, so it can't time out.
+        verify(scheduler, never()).schedule(any(), anyLong(), any());
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        screenSpan("Paused", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+
+        Span restarted = screenSpan("Restarted", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity");
+        long restartedStart = clock.now();
+        clock.advance(Duration.ofMillis(100));
+        restarted.end();
+        ArgumentCaptor<Runnable> timeoutTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(timeoutTask.capture(), eq(FullyDrawnTracker.TIMEOUT_NANOS - Duration.ofMillis(100).toNanos()), eq(TimeUnit.NANOSECONDS));
+        clock.advance(Duration.ofNanos(FullyDrawnTracker.TIMEOUT_NANOS));
+        timeoutTask.getValue().run();
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        SpanData ttfd = spans.get(spans.size() - 1);
+        assertEquals(FullyDrawnTracker.TTFD_SPAN_NAME, ttfd.getName());
+        assertEquals(restarted.getSpanContext(), ttfd.getParentSpanContext());
+        assertEquals(true, ttfd.getAttributes().get(FullyDrawnTracker.TIMED_OUT_KEY));
+        assertEquals(restartedStart + FullyDrawnTracker.TIMEOUT_NANOS, ttfd.getEndEpochNanos());
+
+        //the late report doesn't produce another span.
+        int spanCount = spans.size();
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        assertEquals(spanCount, spanExporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void reportCancelsTheTimeout() {
+        ScheduledFuture<?> timeout = mock(ScheduledFuture.class);
+        doReturn(timeout).when(scheduler).schedule(any(), anyLong(), any());
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        screenSpan("Paused", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+        screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+        ArgumentCaptor<Runnable> timeoutTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(timeoutTask.capture(), anyLong(), any());
+
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        verify(timeout).cancel(false);
+        //even if it runs anyway.
+        timeoutTask.getValue().run();
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertEquals(3, spans.size());
+        assertNull(spans.get(2).getAttributes().get(FullyDrawnTracker.TIMED_OUT_KEY));
+    }
+
+    @Test
+    public void pausingDropsTheEarlyReport() {
+        Span created = screenSpan("Created", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity");
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        screenSpan("Paused", ActivityTracer.ACTIVITY_NAME_KEY.getKey(), "MainActivity").end();
+        created.end();
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertTrue(spans.stream().noneMatch(s -> s.getName().equals(FullyDrawnTracker.TTFD_SPAN_NAME)));
+    }
+
+    @Test
+    public void ignoresOtherSpans() {
+        //not created by one of the screen tracers
+        Span span = tracer.spanBuilder("Created").startSpan();
+        span.setAttribute(SplunkRum.SCREEN_NAME_KEY, "MainActivity");
+        span.end();
+
+        fullyDrawnTracker.reportFullyDrawn(tracer, "MainActivity");
+        fullyDrawnTracker.reportFullyDrawn(tracer, "UnknownActivity");
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertEquals(1, spans.size());
+        assertTrue(spans.stream().noneMatch(s -> s.getName().equals(FullyDrawnTracker.TTFD_SPAN_NAME)));
+    }
+
+    private Span screenSpan(String spanName, String nameKey, String screenName) {
+        Span span = tracer.spanBuilder(spanName)
+                .setAttribute(nameKey, screenName)
+                .startSpan();
+        span.setAttribute(SplunkRum.SCREEN_NAME_KEY, screenName);
+        return span;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MainThreadOverheadTest {
+    private static final long BUDGET_NANOS = 2_000_000;
+
+    private long now;
+    private MainThreadOverhead overhead;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        overhead = new MainThreadOverhead(BUDGET_NANOS, true, () -> now);
+        //past the startup, unless a test says otherwise.
+        now = MainThreadOverhead.STARTUP_GRACE_NANOS;
+    }
+
+    @Test
+    public void accountsForCallbacks() {
+        runCallback(500_000);
+        runCallback(700_000);
+
+        assertEquals(1_200_000, overhead.getTotalNanos());
+        assertEquals(2, overhead.getCallbackCount());
+        assertEquals(1_200_000, overhead.getMaxWindowNanos());
+        assertFalse(overhead.isOverBudget());
+    }
+
+    @Test
+    public void windowsAreSummedSeparately() {
+        runCallback(1_500_000);
+        now += MainThreadOverhead.WINDOW_NANOS;
+        runCallback(1_500_000);
+
+        assertEquals(3_000_000, overhead.getTotalNanos());
+        assertEquals(1_500_000, overhead.getMaxWindowNanos());
+        assertFalse(overhead.isOverBudget());
+    }
+
+    @Test
+    public void overBudgetAfterRepeatedSlowWindows() {
+        for (int i = 0; i < MainThreadOverhead.OVER_BUDGET_WINDOW_LIMIT - 1; i++) {
+            //several callbacks in the same window only count once.
+            runCallback(1_500_000);
+            runCallback(1_500_000);
+            runCallback(1_500_000);
+            now += MainThreadOverhead.WINDOW_NANOS;
+        }
+        assertFalse(overhead.isOverBudget());
+
+        runCallback(BUDGET_NANOS + 1);
+        assertTrue(overhead.isOverBudget());
+
+        //and it stays degraded, even once the callbacks are fast again.
+        now += MainThreadOverhead.WINDOW_NANOS;
+        runCallback(1_000);
+        assertTrue(overhead.isOverBudget());
+    }
+
+    @Test
+    public void startupWindowsAreNotCounted() {
+        now = 0;
+        for (int i = 0; i < MainThreadOverhead.OVER_BUDGET_WINDOW_LIMIT; i++) {
+            runCallback(BUDGET_NANOS + 1);
+            now += MainThreadOverhead.WINDOW_NANOS;
+        }
+
+        assertFalse(overhead.isOverBudget());
+        //but they are still measured.
+        assertEquals(MainThreadOverhead.OVER_BUDGET_WINDOW_LIMIT * (BUDGET_NANOS + 1), overhead.getTotalNanos());
+    }
+
+    @Test
+    public void neverOverBudgetWhenNotEnforced() {
+        overhead = new MainThreadOverhead(BUDGET_NANOS, false, () -> now);
+        now += MainThreadOverhead.STARTUP_GRACE_NANOS;
+        for (int i = 0; i < MainThreadOverhead.OVER_BUDGET_WINDOW_LIMIT; i++) {
+            runCallback(BUDGET_NANOS + 1);
+            now += MainThreadOverhead.WINDOW_NANOS;
+        }
+
+        assertFalse(overhead.isOverBudget());
+        assertEquals(BUDGET_NANOS + 1, overhead.getMaxWindowNanos());
+    }
+
+    private void runCallback(long durationNanos) {
+        long start = overhead.begin();
+        now += durationNanos;
+        overhead.end(start);
+    }
+}
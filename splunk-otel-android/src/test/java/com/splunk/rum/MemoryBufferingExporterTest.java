@@ -68,13 +68,15 @@ public class MemoryBufferingExporterTest {
                 .thenReturn(new CurrentNetwork(NetworkState.TRANSPORT_UNKNOWN, null));
 
         SpanExporter delegate = mock(SpanExporter.class);
-        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate);
+        SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate, statsRecorder);
 
         Collection<SpanData> spans = Arrays.asList(mock(SpanData.class), mock(SpanData.class));
 
         CompletableResultCode result = bufferingExporter.export(spans);
         assertTrue(result.isSuccess());
         verify(delegate, never()).export(any());
+        assertEquals(2, statsRecorder.snapshot().getMemoryBacklogSize());
 
         List<SpanData> secondBatch = new ArrayList<>(spans);
         SpanData anotherSpan = mock(SpanData.class);
@@ -86,6 +88,7 @@ public class MemoryBufferingExporterTest {
 
         assertTrue(result.isSuccess());
         verify(delegate).export(secondBatch);
+        assertEquals(0, statsRecorder.snapshot().getMemoryBacklogSize());
     }
 
     @Test
@@ -180,4 +183,100 @@ public class MemoryBufferingExporterTest {
         bufferingExporter.shutdown();
         verify(delegate).shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void spillover_offline() {
+        when(connectionUtil.refreshNetworkStatus())
+                .thenReturn(new CurrentNetwork(NetworkState.NO_NETWORK_AVAILABLE, null));
+
+        SpanExporter delegate = mock(SpanExporter.class);
+        SpanExporter spillover = mock(SpanExporter.class);
+        SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate, statsRecorder, spillover);
+
+        List<SpanData> spans = Arrays.asList(mock(SpanData.class), mock(SpanData.class));
+        when(spillover.export(spans)).thenReturn(CompletableResultCode.ofSuccess());
+
+        CompletableResultCode result = bufferingExporter.export(spans);
+        assertTrue(result.isSuccess());
+        verify(delegate, never()).export(any());
+        verify(spillover).export(spans);
+        assertEquals(0, statsRecorder.snapshot().getMemoryBacklogSize());
+    }
+
+    @Test
+    public void spillover_exportFailed() {
+        SpanExporter delegate = mock(SpanExporter.class);
+        SpanExporter spillover = mock(SpanExporter.class);
+        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate, new SdkStatsRecorder(), spillover);
+
+        List<SpanData> spans = Arrays.asList(mock(SpanData.class), mock(SpanData.class));
+        when(delegate.export(spans)).thenReturn(CompletableResultCode.ofFailure());
+        when(spillover.export(spans)).thenReturn(CompletableResultCode.ofSuccess());
+
+        bufferingExporter.export(spans);
+        verify(spillover).export(spans);
+
+        //nothing was kept in memory, so nothing is retried.
+        SpanData anotherSpan = mock(SpanData.class);
+        when(delegate.export(Collections.singletonList(anotherSpan))).thenReturn(CompletableResultCode.ofSuccess());
+        bufferingExporter.export(Collections.singletonList(anotherSpan));
+        verify(delegate).export(Collections.singletonList(anotherSpan));
+    }
+
+    @Test
+    public void spillover_spillFailed() {
+        when(connectionUtil.refreshNetworkStatus())
+                .thenReturn(new CurrentNetwork(NetworkState.NO_NETWORK_AVAILABLE, null))
+                .thenReturn(new CurrentNetwork(NetworkState.TRANSPORT_WIFI, null));
+
+        SpanExporter delegate = mock(SpanExporter.class);
+        SpanExporter spillover = mock(SpanExporter.class);
+        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate, new SdkStatsRecorder(), spillover);
+
+        List<SpanData> spans = Arrays.asList(mock(SpanData.class), mock(SpanData.class));
+        when(spillover.export(spans)).thenReturn(CompletableResultCode.ofFailure());
+        bufferingExporter.export(spans);
+
+        when(delegate.export(spans)).thenReturn(CompletableResultCode.ofSuccess());
+        CompletableResultCode result = bufferingExporter.flush();
+        assertTrue(result.isSuccess());
+        verify(delegate).export(spans);
+    }
+
+    @Test
+    public void spillover_requested() {
+        SpanExporter delegate = mock(SpanExporter.class);
+        SpanExporter spillover = mock(SpanExporter.class);
+        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate, new SdkStatsRecorder(), spillover);
+
+        List<SpanData> spans = Arrays.asList(mock(SpanData.class), mock(SpanData.class));
+        when(spillover.export(spans)).thenReturn(CompletableResultCode.ofSuccess());
+        when(delegate.export(spans)).thenReturn(CompletableResultCode.ofSuccess());
+        when(delegate.flush()).thenReturn(CompletableResultCode.ofSuccess());
+
+        bufferingExporter.requestSpill();
+        bufferingExporter.export(spans);
+        verify(spillover).export(spans);
+        verify(delegate, never()).export(any());
+
+        //the flush ends the spill.
+        bufferingExporter.flush();
+        bufferingExporter.export(spans);
+        verify(delegate).export(spans);
+        verify(spillover, times(1)).export(any());
+    }
+
+    @Test
+    public void requestSpill_withoutSpillover() {
+        SpanExporter delegate = mock(SpanExporter.class);
+        MemoryBufferingExporter bufferingExporter = new MemoryBufferingExporter(connectionUtil, delegate);
+
+        List<SpanData> spans = Arrays.asList(mock(SpanData.class), mock(SpanData.class));
+        when(delegate.export(spans)).thenReturn(CompletableResultCode.ofSuccess());
+
+        bufferingExporter.requestSpill();
+        bufferingExporter.export(spans);
+        verify(delegate).export(spans);
+    }
+}
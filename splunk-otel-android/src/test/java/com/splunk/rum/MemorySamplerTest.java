@@ -0,0 +1,172 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class MemorySamplerTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final VisibleScreenTracker visibleScreenTracker = mock(VisibleScreenTracker.class);
+    private final SdkScheduler scheduler = mock(SdkScheduler.class);
+    private final ScheduledFuture<?> future = mock(ScheduledFuture.class);
+    private final MemoryReader memoryReader = mock(MemoryReader.class);
+    private final Clock clock = mock(Clock.class);
+    private MemorySampler memorySampler;
+
+    @Before
+    public void setUp() {
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("MainActivity");
+        when(clock.millis()).thenReturn(1000L);
+        doAnswer(invocation -> future).when(scheduler).scheduleAtFixedRate(any(), anyLong(), any());
+        doAnswer(invocation -> {
+            Runnable runnable = invocation.getArgument(0);
+            runnable.run();
+            return null;
+        }).when(scheduler).execute(any());
+        memorySampler = new MemorySampler(otelTesting.getOpenTelemetry().getTracer("testTracer"),
+                visibleScreenTracker, scheduler, memoryReader, clock);
+    }
+
+    @Test
+    public void reportsWindowOfSamples() {
+        when(memoryReader.read(anyBoolean())).thenReturn(
+                sample(100, 1000, 10, 100),
+                sample(300, 3000, 12, 150),
+                sample(200, 2000, 15, 180));
+
+        for (int i = 0; i < MemorySampler.WINDOW_SAMPLES; i++) {
+            memorySampler.run();
+        }
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData span = spans.get(0);
+        assertEquals("memoryUsage", span.getName());
+        Attributes attributes = span.getAttributes();
+        long samples = MemorySampler.WINDOW_SAMPLES;
+        long heapAverage = (100 + 300 + 200 * (samples - 2)) / samples;
+        long nativeAverage = (1000 + 3000 + 2000 * (samples - 2)) / samples;
+        assertEquals(asList(100L, heapAverage, 300L), attributes.get(MemorySampler.HEAP_USED_KEY));
+        assertEquals(asList(1000L, nativeAverage, 3000L), attributes.get(MemorySampler.NATIVE_HEAP_KEY));
+        assertEquals(Long.valueOf(5), attributes.get(MemorySampler.GC_COUNT_KEY));
+        assertEquals(Long.valueOf(80), attributes.get(MemorySampler.GC_TIME_KEY));
+        assertEquals(Long.valueOf(samples), attributes.get(MemorySampler.SAMPLE_COUNT_KEY));
+        assertEquals("MainActivity", attributes.get(SplunkRum.SCREEN_NAME_KEY));
+        assertFalse(attributes.get(MemorySampler.LOW_MEMORY_KEY));
+        assertNull(attributes.get(MemorySampler.TRIM_LEVEL_KEY));
+        //only the first sample of the window reads the low memory flag.
+        verify(memoryReader).read(true);
+    }
+
+    @Test
+    public void screenChangeEndsTheWindow() {
+        when(memoryReader.read(anyBoolean())).thenReturn(sample(100, 1000, 10, 100));
+        memorySampler.run();
+        memorySampler.run();
+        assertTrue(otelTesting.getSpans().isEmpty());
+
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("SettingsActivity");
+        memorySampler.run();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("MainActivity", spans.get(0).getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals(Long.valueOf(2), spans.get(0).getAttributes().get(MemorySampler.SAMPLE_COUNT_KEY));
+    }
+
+    @Test
+    public void trimMemoryEndsTheWindow() {
+        when(memoryReader.read(anyBoolean())).thenReturn(sample(100, 1000, 10, 100));
+        when(memoryReader.read(true)).thenReturn(new MemoryReader.Sample(100, 4000, 1000, 10, 100, true));
+        memorySampler.run();
+
+        memorySampler.onTrimMemory(TRIM_MEMORY_RUNNING_MODERATE);
+        assertTrue(otelTesting.getSpans().isEmpty());
+
+        memorySampler.onTrimMemory(TRIM_MEMORY_RUNNING_LOW);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        Attributes attributes = spans.get(0).getAttributes();
+        assertEquals(Long.valueOf(TRIM_MEMORY_RUNNING_LOW), attributes.get(MemorySampler.TRIM_LEVEL_KEY));
+        assertTrue(attributes.get(MemorySampler.LOW_MEMORY_KEY));
+        assertEquals(Long.valueOf(2), attributes.get(MemorySampler.SAMPLE_COUNT_KEY));
+    }
+
+    @Test
+    public void backgroundingEndsTheWindow() {
+        when(memoryReader.read(anyBoolean())).thenReturn(sample(100, 1000, 10, 100));
+        memorySampler.start();
+        memorySampler.run();
+
+        memorySampler.appBackgrounded();
+
+        verify(future).cancel(false);
+        assertEquals(1, otelTesting.getSpans().size());
+    }
+
+    @Test
+    public void backsOffWhenSamplingIsExpensive() {
+        long budgetMillis = (long) (MemorySampler.DEFAULT_INTERVAL_MILLIS * MemorySampler.SAMPLING_BUDGET_FRACTION);
+        when(memoryReader.read(anyBoolean())).then(invocation -> {
+            Thread.sleep(budgetMillis + 1);
+            return sample(100, 1000, 10, 100);
+        });
+        memorySampler.start();
+
+        for (int i = 0; i < MemorySampler.WINDOW_SAMPLES; i++) {
+            memorySampler.run();
+        }
+
+        assertEquals(MemorySampler.DEFAULT_INTERVAL_MILLIS * 2, memorySampler.getIntervalMillis());
+        verify(future).cancel(false);
+        verify(scheduler).scheduleAtFixedRate(memorySampler, MemorySampler.DEFAULT_INTERVAL_MILLIS * 2, TimeUnit.MILLISECONDS);
+        assertTrue(otelTesting.getSpans().get(0).getAttributes().get(MemorySampler.SAMPLING_TIME_KEY) > 0);
+    }
+
+    private static MemoryReader.Sample sample(long heapUsed, long nativeHeap, long gcCount, long gcTimeMillis) {
+        return new MemoryReader.Sample(heapUsed, 4000, nativeHeap, gcCount, gcTimeMillis, false);
+    }
+}
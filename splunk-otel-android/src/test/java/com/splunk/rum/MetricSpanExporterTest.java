@@ -0,0 +1,206 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static io.opentelemetry.api.common.AttributeKey.stringArrayKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class MetricSpanExporterTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+    private SdkMeterProvider meterProvider;
+    private Meter meter;
+
+    @Before
+    public void setUp() {
+        MetricSpanExporter exporter = new MetricSpanExporter(otelTesting.getOpenTelemetry().getTracer("testTracer"), statsRecorder);
+        SdkScheduler scheduler = mock(SdkScheduler.class);
+        meterProvider = SdkMeterProvider.builder()
+                //collect on every flush.
+                .setMinimumCollectionInterval(Duration.ZERO)
+                .registerMetricReader(ScheduledMetricReader.factory(exporter, scheduler))
+                .build();
+        meter = meterProvider.get("test");
+    }
+
+    @Test
+    public void counter() {
+        LongCounter counter = meter.counterBuilder("clicks").setUnit("1").build();
+        counter.add(2, Attributes.of(stringKey("button"), "ok"));
+        counter.add(3, Attributes.of(stringKey("button"), "ok"));
+
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData span = spans.get(0);
+        assertEquals("clicks", span.getName());
+        assertEquals("ok", span.getAttributes().get(stringKey("button")));
+        assertEquals(SplunkRum.COMPONENT_METRIC, span.getAttributes().get(SplunkRum.COMPONENT_KEY));
+        assertEquals("long_sum", span.getAttributes().get(MetricSpanExporter.METRIC_TYPE_KEY));
+        assertEquals("1", span.getAttributes().get(MetricSpanExporter.METRIC_UNIT_KEY));
+        assertEquals(Long.valueOf(5), span.getAttributes().get(MetricSpanExporter.LONG_VALUE_KEY));
+    }
+
+    @Test
+    public void deltaTemporality() {
+        LongCounter counter = meter.counterBuilder("clicks").build();
+        counter.add(2);
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+        counter.add(3);
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+        //nothing recorded in this interval, so nothing is sent.
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(2, spans.size());
+        assertEquals(Long.valueOf(2), spans.get(0).getAttributes().get(MetricSpanExporter.LONG_VALUE_KEY));
+        assertEquals(Long.valueOf(3), spans.get(1).getAttributes().get(MetricSpanExporter.LONG_VALUE_KEY));
+        //each span covers its own interval.
+        assertEquals(spans.get(0).getEndEpochNanos(), spans.get(1).getStartEpochNanos());
+    }
+
+    @Test
+    public void histogram() {
+        DoubleHistogram histogram = meter.histogramBuilder("latency").setUnit("ms").build();
+        histogram.record(3);
+        histogram.record(30);
+
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        Attributes attributes = spans.get(0).getAttributes();
+        assertEquals("histogram", attributes.get(MetricSpanExporter.METRIC_TYPE_KEY));
+        assertEquals(Long.valueOf(2), attributes.get(MetricSpanExporter.COUNT_KEY));
+        assertEquals(33.0, attributes.get(MetricSpanExporter.SUM_KEY), 0.0);
+        List<Double> bounds = attributes.get(MetricSpanExporter.BOUNDS_KEY);
+        List<Long> counts = attributes.get(MetricSpanExporter.BUCKET_COUNTS_KEY);
+        assertEquals(bounds.size() + 1, counts.size());
+        assertEquals(2, counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void pointsOfOneMetricArePacked() {
+        LongCounter counter = meter.counterBuilder("clicks").build();
+        counter.add(2, Attributes.of(stringKey("button"), "ok"));
+        counter.add(3, Attributes.of(stringKey("button"), "cancel"));
+        counter.add(4, Attributes.of(stringKey("button"), "ok", stringKey("screen"), "main"));
+
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        Attributes attributes = spans.get(0).getAttributes();
+        assertEquals(Long.valueOf(3), attributes.get(MetricSpanExporter.POINT_COUNT_KEY));
+        List<Long> values = attributes.get(MetricSpanExporter.LONG_VALUES_KEY);
+        List<String> buttons = attributes.get(stringArrayKey("button"));
+        List<String> screens = attributes.get(stringArrayKey("screen"));
+        assertEquals(3, values.size());
+        assertEquals(3, buttons.size());
+        assertEquals(3, screens.size());
+        //the order of the points is up to the sdk, but the arrays are aligned.
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == 2) {
+                assertEquals("ok", buttons.get(i));
+                assertEquals("", screens.get(i));
+            } else if (values.get(i) == 3) {
+                assertEquals("cancel", buttons.get(i));
+                assertEquals("", screens.get(i));
+            } else {
+                assertEquals(Long.valueOf(4), values.get(i));
+                assertEquals("ok", buttons.get(i));
+                assertEquals("main", screens.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void histogramPointsArePacked() {
+        DoubleHistogram histogram = meter.histogramBuilder("latency").build();
+        histogram.record(3, Attributes.of(stringKey("url"), "a"));
+        histogram.record(30, Attributes.of(stringKey("url"), "b"));
+        histogram.record(300, Attributes.of(stringKey("url"), "b"));
+
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        Attributes attributes = spans.get(0).getAttributes();
+        List<Double> bounds = attributes.get(MetricSpanExporter.BOUNDS_KEY);
+        assertEquals(2, attributes.get(MetricSpanExporter.COUNTS_KEY).size());
+        assertEquals(333.0, attributes.get(MetricSpanExporter.SUMS_KEY).stream().mapToDouble(Double::doubleValue).sum(), 0.0);
+        List<Long> bucketCounts = attributes.get(MetricSpanExporter.POINT_BUCKET_COUNTS_KEY);
+        assertEquals(2 * (bounds.size() + 1), bucketCounts.size());
+        assertEquals(3, bucketCounts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void cardinalityIsBounded() {
+        LongCounter counter = meter.counterBuilder("requests").build();
+        for (int i = 0; i < MetricSpanExporter.MAX_POINTS_PER_METRIC * 2; i++) {
+            counter.add(1, Attributes.of(stringKey("url"), "https://example.com/" + i));
+        }
+
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals(Long.valueOf(MetricSpanExporter.MAX_POINTS_PER_METRIC), spans.get(0).getAttributes().get(MetricSpanExporter.POINT_COUNT_KEY));
+        assertEquals(MetricSpanExporter.MAX_POINTS_PER_METRIC, statsRecorder.snapshot().getDroppedMetricPointCount());
+    }
+
+    @Test
+    public void totalPointsAreBounded() {
+        for (int metric = 0; metric < 10; metric++) {
+            LongCounter counter = meter.counterBuilder("counter" + metric).build();
+            for (int i = 0; i < MetricSpanExporter.MAX_POINTS_PER_METRIC; i++) {
+                counter.add(1, Attributes.of(stringKey("id"), String.valueOf(i)));
+            }
+        }
+
+        meterProvider.forceFlush().join(1, TimeUnit.SECONDS);
+
+        long points = 0;
+        for (SpanData span : otelTesting.getSpans()) {
+            points += span.getAttributes().get(MetricSpanExporter.POINT_COUNT_KEY);
+        }
+        assertEquals(MetricSpanExporter.MAX_POINTS_PER_EXPORT, points);
+        assertEquals(10 * MetricSpanExporter.MAX_POINTS_PER_METRIC - MetricSpanExporter.MAX_POINTS_PER_EXPORT,
+                statsRecorder.snapshot().getDroppedMetricPointCount());
+    }
+}
@@ -42,6 +42,8 @@ public class NoOpSplunkRumTest {
         assertNotNull(instance.getOpenTelemetry());
         assertNotNull(instance.getRumSessionId());
         assertNotNull(instance.getTracer());
+        assertNotNull(instance.getMeter());
+        assertNotNull(instance.getSdkStats());
         assertNotNull(instance.startWorkflow("foo"));
         OkHttpClient okHttpClient = mock(OkHttpClient.class);
         assertSame(okHttpClient, instance.createRumOkHttpCallFactory(okHttpClient));
@@ -0,0 +1,170 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.R)
+public class ProcessExitReporterTest {
+    private static final String PACKAGE_NAME = "com.example.app";
+
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private ActivityManager activityManager;
+    private SharedPreferences preferences;
+    private SharedPreferences.Editor editor;
+    private ProcessExitReporter reporter;
+
+    @Before
+    public void setup() {
+        activityManager = mock(ActivityManager.class);
+        preferences = mock(SharedPreferences.class);
+        editor = mock(SharedPreferences.Editor.class);
+        when(preferences.edit()).thenReturn(editor);
+        when(editor.putLong(anyString(), anyLong())).thenReturn(editor);
+        //not the first run.
+        when(preferences.getLong(ProcessExitReporter.WATERMARK_KEY, 0)).thenReturn(1L);
+        reporter = new ProcessExitReporter(otelTesting.getOpenTelemetry().getTracer("testTracer"), activityManager, preferences, PACKAGE_NAME);
+    }
+
+    @Test
+    public void reportsUnseenExits() {
+        ApplicationExitInfo lowMemory = exitInfo(ApplicationExitInfo.REASON_LOW_MEMORY, 3000);
+        when(lowMemory.getImportance()).thenReturn(ActivityManager.RunningAppProcessInfo.IMPORTANCE_CACHED);
+        when(lowMemory.getPss()).thenReturn(12_000L);
+        when(lowMemory.getRss()).thenReturn(34_000L);
+        when(lowMemory.getDescription()).thenReturn("lmk");
+        ApplicationExitInfo userRequested = exitInfo(ApplicationExitInfo.REASON_USER_REQUESTED, 2000);
+        ApplicationExitInfo alreadySeen = exitInfo(ApplicationExitInfo.REASON_ANR, 1000);
+        when(preferences.getLong(ProcessExitReporter.WATERMARK_KEY, 0)).thenReturn(1000L);
+        when(activityManager.getHistoricalProcessExitReasons(PACKAGE_NAME, 0, 0))
+                .thenReturn(Arrays.asList(lowMemory, userRequested, alreadySeen));
+
+        reporter.reportUnseenExits();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData span = spans.get(0);
+        assertEquals("ProcessExit", span.getName());
+        assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+        assertEquals(3_000_000_000L, span.getStartEpochNanos());
+        Attributes attributes = span.getAttributes();
+        assertEquals(SplunkRum.COMPONENT_ERROR, attributes.get(SplunkRum.COMPONENT_KEY));
+        assertEquals("LOW_MEMORY", attributes.get(ProcessExitReporter.EXIT_REASON_KEY));
+        assertEquals("lmk", attributes.get(ProcessExitReporter.EXIT_DESCRIPTION_KEY));
+        assertEquals((Long) (long) ActivityManager.RunningAppProcessInfo.IMPORTANCE_CACHED, attributes.get(ProcessExitReporter.EXIT_IMPORTANCE_KEY));
+        assertEquals((Long) 12_000L, attributes.get(ProcessExitReporter.EXIT_PSS_KEY));
+        assertEquals((Long) 34_000L, attributes.get(ProcessExitReporter.EXIT_RSS_KEY));
+
+        //the exits that weren't reported are still seen, and must not be looked at again.
+        verify(editor).putLong(ProcessExitReporter.WATERMARK_KEY, 3000L);
+        verify(editor).apply();
+    }
+
+    @Test
+    public void firstRunOnlySetsTheWatermark() {
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(10_000), ZoneId.systemDefault());
+        reporter = new ProcessExitReporter(otelTesting.getOpenTelemetry().getTracer("testTracer"), activityManager, preferences, PACKAGE_NAME, clock);
+        when(preferences.getLong(ProcessExitReporter.WATERMARK_KEY, 0)).thenReturn(0L);
+
+        reporter.reportUnseenExits();
+
+        assertTrue(otelTesting.getSpans().isEmpty());
+        verify(activityManager, never()).getHistoricalProcessExitReasons(anyString(), anyInt(), anyInt());
+        verify(editor).putLong(ProcessExitReporter.WATERMARK_KEY, 10_000L);
+        verify(editor).apply();
+    }
+
+    @Test
+    public void nothingNew() {
+        when(preferences.getLong(ProcessExitReporter.WATERMARK_KEY, 0)).thenReturn(5000L);
+        List<ApplicationExitInfo> exits = Arrays.asList(exitInfo(ApplicationExitInfo.REASON_ANR, 5000));
+        when(activityManager.getHistoricalProcessExitReasons(PACKAGE_NAME, 0, 0)).thenReturn(exits);
+
+        reporter.reportUnseenExits();
+
+        assertTrue(otelTesting.getSpans().isEmpty());
+        verify(preferences, never()).edit();
+    }
+
+    @Test
+    public void anrTrace() throws IOException {
+        String trace = "----- pid 123 at 2022-04-01 -----\n"
+                + "Cmd line: com.example.app\n\n"
+                + "\"main\" prio=5 tid=1 Sleeping\n"
+                + "  at java.lang.Thread.sleep(Native method)\n"
+                + "  at com.example.app.MainActivity.onClick(MainActivity.java:42)\n\n"
+                + "\"Signal Catcher\" daemon prio=10 tid=2 Runnable\n";
+        ApplicationExitInfo anr = exitInfo(ApplicationExitInfo.REASON_ANR, 3000);
+        when(anr.getTraceInputStream()).thenReturn(new ByteArrayInputStream(trace.getBytes(StandardCharsets.UTF_8)));
+        when(activityManager.getHistoricalProcessExitReasons(PACKAGE_NAME, 0, 0)).thenReturn(Arrays.asList(anr));
+
+        reporter.reportUnseenExits();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("ANR", spans.get(0).getAttributes().get(ProcessExitReporter.EXIT_REASON_KEY));
+        assertEquals("\"main\" prio=5 tid=1 Sleeping\n"
+                        + "  at java.lang.Thread.sleep(Native method)\n"
+                        + "  at com.example.app.MainActivity.onClick(MainActivity.java:42)\n",
+                spans.get(0).getAttributes().get(SemanticAttributes.EXCEPTION_STACKTRACE));
+    }
+
+    private static ApplicationExitInfo exitInfo(int reason, long timestamp) {
+        ApplicationExitInfo exitInfo = mock(ApplicationExitInfo.class);
+        when(exitInfo.getReason()).thenReturn(reason);
+        when(exitInfo.getTimestamp()).thenReturn(timestamp);
+        return exitInfo;
+    }
+}
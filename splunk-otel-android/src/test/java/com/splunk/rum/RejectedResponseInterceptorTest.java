@@ -0,0 +1,66 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class RejectedResponseInterceptorTest {
+    private final RejectedResponseInterceptor interceptor = new RejectedResponseInterceptor();
+
+    @Test
+    public void successfulResponsesPassThrough() throws Exception {
+        Response response = response(202);
+        assertSame(response, interceptor.intercept(chain(response)));
+    }
+
+    @Test
+    public void failedResponsesThrowWithTheStatusCode() throws Exception {
+        try {
+            interceptor.intercept(chain(response(413)));
+            fail("expected a BeaconResponseException");
+        } catch (BeaconResponseException e) {
+            assertEquals(413, e.getStatusCode());
+        }
+    }
+
+    private static Response response(int code) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("https://example.com/v1/rum").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code)
+                .build();
+    }
+
+    private static Interceptor.Chain chain(Response response) throws Exception {
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(response.request());
+        when(chain.proceed(response.request())).thenReturn(response);
+        return chain;
+    }
+}
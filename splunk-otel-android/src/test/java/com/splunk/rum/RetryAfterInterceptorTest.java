@@ -0,0 +1,76 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import java.time.Clock;
+
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class RetryAfterInterceptorTest {
+    private final ExportBackoff backoff = mock(ExportBackoff.class);
+    private final Clock clock = mock(Clock.class);
+    private final RetryAfterInterceptor interceptor = new RetryAfterInterceptor(backoff, clock);
+
+    @Test
+    public void seconds() throws Exception {
+        interceptor.intercept(chain(429, "120"));
+        verify(backoff).retryAfter(120_000);
+    }
+
+    @Test
+    public void httpDate() throws Exception {
+        //Sun, 06 Nov 1994 08:49:37 GMT
+        when(clock.millis()).thenReturn(784111777000L);
+        interceptor.intercept(chain(503, "Sun, 06 Nov 1994 08:50:07 GMT"));
+        verify(backoff).retryAfter(30_000);
+    }
+
+    @Test
+    public void ignoredForOtherResponses() throws Exception {
+        interceptor.intercept(chain(500, "120"));
+        interceptor.intercept(chain(429, null));
+        interceptor.intercept(chain(429, "soon"));
+        verify(backoff, never()).retryAfter(anyLong());
+    }
+
+    private static Interceptor.Chain chain(int code, String retryAfter) throws Exception {
+        Request request = new Request.Builder().url("https://example.com/v1/rum").build();
+        Response.Builder response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code);
+        if (retryAfter != null) {
+            response.header("Retry-After", retryAfter);
+        }
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request)).thenReturn(response.build());
+        return chain;
+    }
+}
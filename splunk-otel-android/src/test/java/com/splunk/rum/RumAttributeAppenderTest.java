@@ -16,13 +16,18 @@
 
 package com.splunk.rum;
 
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static io.opentelemetry.api.common.AttributeKey.longKey;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
@@ -31,8 +36,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
 import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 import io.opentelemetry.semconv.resource.attributes.ResourceAttributes;
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
@@ -138,4 +148,168 @@ public class RumAttributeAppenderTest {
         verify(span).setAttribute(SplunkRum.SCREEN_NAME_KEY, "unknown");
         verify(span, never()).setAttribute(eq(SplunkRum.LAST_SCREEN_NAME_KEY), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void deferredEnrichment_onlyRecordsSnapshotOnStart() {
+        Config config = mock(Config.class);
+        when(config.getGlobalAttributes()).thenReturn(Attributes.empty());
+        SessionId sessionId = mock(SessionId.class);
+        when(sessionId.getSessionId()).thenReturn("rumSessionId");
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("ScreenOne");
+
+        RumAttributeAppender rumAttributeAppender = new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil, () -> true);
+
+        ReadWriteSpan span = mock(ReadWriteSpan.class);
+        rumAttributeAppender.onStart(Context.current(), span);
+        verify(span).setAttribute(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY, 1L);
+        verify(span).getSpanContext();
+        verifyNoMoreInteractions(span);
+
+        //nothing changed, so the same snapshot is used.
+        span = mock(ReadWriteSpan.class);
+        rumAttributeAppender.onStart(Context.current(), span);
+        verify(span).setAttribute(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY, 1L);
+
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("ScreenTwo");
+        span = mock(ReadWriteSpan.class);
+        rumAttributeAppender.onStart(Context.current(), span);
+        verify(span).setAttribute(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY, 2L);
+    }
+
+    @Test
+    public void deferredEnrichment_exportsTheSameAttributes() {
+        Attributes globalAttributes = Attributes.of(stringKey("cheese"), "Camembert");
+        Config config = mock(Config.class);
+        when(config.getApplicationName()).thenReturn("appName");
+        when(config.getGlobalAttributes()).thenReturn(globalAttributes);
+        SessionId sessionId = mock(SessionId.class);
+        when(sessionId.getSessionId()).thenReturn("rumSessionId");
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("ScreenOne");
+
+        SpanData eager = exportSpan(new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil));
+        SpanData deferred = exportSpan(new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil, () -> true));
+
+        assertEquals(eager.getAttributes().asMap(), deferred.getAttributes().asMap());
+        assertEquals("ScreenOne", deferred.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals("cell", deferred.getAttributes().get(SemanticAttributes.NET_HOST_CONNECTION_TYPE));
+        assertEquals("Camembert", deferred.getAttributes().get(stringKey("cheese")));
+        assertNull(deferred.getAttributes().get(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY));
+    }
+
+    @Test
+    public void deferredEnrichment_usesValuesFromSpanStart() {
+        Config config = mock(Config.class);
+        when(config.getGlobalAttributes()).thenReturn(Attributes.empty());
+        SessionId sessionId = mock(SessionId.class);
+        when(sessionId.getSessionId()).thenReturn("rumSessionId");
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("ScreenOne");
+        RumAttributeAppender rumAttributeAppender = new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil, () -> true);
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(rumAttributeAppender)
+                .addSpanProcessor(SimpleSpanProcessor.create(new AttributeMaterializingExporter(exporter, rumAttributeAppender)))
+                .build();
+
+        Span first = tracerProvider.get("test").spanBuilder("first").startSpan();
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("ScreenTwo");
+        Span second = tracerProvider.get("test").spanBuilder("second").startSpan();
+        //attributes set on the span itself win over the RUM ones.
+        second.setAttribute(SplunkRum.SCREEN_NAME_KEY, "CustomScreen");
+        second.end();
+        first.end();
+
+        SpanData secondData = exporter.getFinishedSpanItems().get(0);
+        SpanData firstData = exporter.getFinishedSpanItems().get(1);
+        assertEquals("ScreenOne", firstData.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertEquals("first", firstData.getAttributes().get(RumAttributeAppender.SPLUNK_OPERATION_KEY));
+        assertEquals("CustomScreen", secondData.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertNotEquals(firstData.getAttributes().get(SplunkRum.SCREEN_NAME_KEY), secondData.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+    }
+
+    @Test
+    public void deferredEnrichment_keepsSnapshotsOfLiveSpans() {
+        Config config = mock(Config.class);
+        when(config.getGlobalAttributes()).thenReturn(Attributes.empty());
+        SessionId sessionId = mock(SessionId.class);
+        when(sessionId.getSessionId()).thenReturn("firstSession");
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("FirstScreen");
+        RumAttributeAppender rumAttributeAppender = new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil, () -> true);
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(rumAttributeAppender)
+                .addSpanProcessor(SimpleSpanProcessor.create(new AttributeMaterializingExporter(exporter, rumAttributeAppender)))
+                .build();
+
+        Span longLived = tracerProvider.get("test").spanBuilder("longLived").startSpan();
+        when(sessionId.getSessionId()).thenReturn("secondSession");
+        for (int i = 0; i < 200; i++) {
+            when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("Screen" + i);
+            tracerProvider.get("test").spanBuilder("short").startSpan().end();
+        }
+        longLived.end();
+
+        SpanData longLivedData = exporter.getFinishedSpanItems().get(200);
+        assertEquals("longLived", longLivedData.getName());
+        assertEquals("firstSession", longLivedData.getAttributes().get(RumAttributeAppender.SESSION_ID_KEY));
+        assertEquals("FirstScreen", longLivedData.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+    }
+
+    @Test
+    public void deferredEnrichment_sameSpanMaterializedByTwoExporters() {
+        Config config = mock(Config.class);
+        when(config.getGlobalAttributes()).thenReturn(Attributes.empty());
+        SessionId sessionId = mock(SessionId.class);
+        when(sessionId.getSessionId()).thenReturn("rumSessionId");
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("ScreenOne");
+        RumAttributeAppender rumAttributeAppender = new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil, () -> true);
+        //like the debug logging exporter next to the real one.
+        InMemorySpanExporter loggingExporter = InMemorySpanExporter.create();
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(rumAttributeAppender)
+                .addSpanProcessor(SimpleSpanProcessor.create(new AttributeMaterializingExporter(loggingExporter, rumAttributeAppender)))
+                .addSpanProcessor(SimpleSpanProcessor.create(new AttributeMaterializingExporter(exporter, rumAttributeAppender)))
+                .build();
+
+        tracerProvider.get("test").spanBuilder("span").startSpan().end();
+
+        for (SpanData span : asList(loggingExporter.getFinishedSpanItems().get(0), exporter.getFinishedSpanItems().get(0))) {
+            assertEquals("rumSessionId", span.getAttributes().get(RumAttributeAppender.SESSION_ID_KEY));
+            assertEquals("ScreenOne", span.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+            assertNull(span.getAttributes().get(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY));
+        }
+    }
+
+    @Test
+    public void deferredEnrichment_missingSnapshotNeverUsesAnotherSession() {
+        Config config = mock(Config.class);
+        when(config.getGlobalAttributes()).thenReturn(Attributes.empty());
+        SessionId sessionId = mock(SessionId.class);
+        when(sessionId.getSessionId()).thenReturn("currentSession");
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("CurrentScreen");
+        RumAttributeAppender rumAttributeAppender = new RumAttributeAppender(config, sessionId, "rumVersion", visibleScreenTracker, connectionUtil, () -> true);
+        //make sure there is a current snapshot.
+        rumAttributeAppender.onStart(Context.current(), mock(ReadWriteSpan.class));
+
+        SpanData span = mock(SpanData.class);
+        when(span.getName()).thenReturn("orphan");
+        when(span.getAttributes()).thenReturn(Attributes.of(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY, 42L));
+
+        SpanData materialized = rumAttributeAppender.materialize(span);
+
+        assertNull(materialized.getAttributes().get(RumAttributeAppender.SESSION_ID_KEY));
+        assertNull(materialized.getAttributes().get(SplunkRum.SCREEN_NAME_KEY));
+        assertNull(materialized.getAttributes().get(RumAttributeAppender.ATTRIBUTES_SNAPSHOT_KEY));
+        assertEquals("orphan", materialized.getAttributes().get(RumAttributeAppender.SPLUNK_OPERATION_KEY));
+    }
+
+    private static SpanData exportSpan(RumAttributeAppender rumAttributeAppender) {
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(rumAttributeAppender)
+                .addSpanProcessor(SimpleSpanProcessor.create(new AttributeMaterializingExporter(exporter, rumAttributeAppender)))
+                .build();
+        tracerProvider.get("test").spanBuilder("span").startSpan().end();
+        return exporter.getFinishedSpanItems().get(0);
+    }
+}
@@ -23,7 +23,10 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import android.content.Context;
+
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -77,6 +80,30 @@ public class RumFragmentLifecycleCallbacksTest {
         checkEventExists(events, "fragmentResumed");
     }
 
+    @Test
+    public void fragmentInstancesOfTheSameClassAreTracedSeparately() {
+        RumFragmentLifecycleCallbacks callbacks = new RumFragmentLifecycleCallbacks(tracer, visibleScreenTracker);
+        FragmentManager fragmentManager = mock(FragmentManager.class);
+        Context context = mock(Context.class);
+        Fragment first = mock(Fragment.class);
+        Fragment second = mock(Fragment.class);
+
+        callbacks.onFragmentPreAttached(fragmentManager, first, context);
+        callbacks.onFragmentPreAttached(fragmentManager, second, context);
+        callbacks.onFragmentResumed(fragmentManager, second);
+        callbacks.onFragmentResumed(fragmentManager, first);
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(2, spans.size());
+        for (SpanData span : spans) {
+            assertEquals("Created", span.getName());
+            List<EventData> events = span.getEvents();
+            assertEquals(2, events.size());
+            checkEventExists(events, "fragmentPreAttached");
+            checkEventExists(events, "fragmentResumed");
+        }
+    }
+
     @Test
     public void fragmentRestored() {
         when(visibleScreenTracker.getPreviouslyVisibleScreen()).thenReturn("previousScreen");
@@ -68,7 +68,7 @@ public class RumInitializerTest {
 
         assertEquals("SplunkRum.initialize", initSpan.getName());
         assertEquals("appstart", initSpan.getAttributes().get(SplunkRum.COMPONENT_KEY));
-        assertEquals("[debug:false,crashReporting:true,anrReporting:true,slowRenderingDetector:true,networkMonitor:true]",
+        assertEquals("[debug:false,crashReporting:true,anrReporting:true,slowRenderingDetector:true,networkMonitor:true,memorySampling:false]",
                 initSpan.getAttributes().get(stringKey("config_settings")));
 
         List<EventData> events = initSpan.getEvents();
@@ -84,6 +84,50 @@ public class RumInitializerTest {
         checkEventExists(events, "networkMonitorInitialized");
     }
 
+    @Test
+    public void deferredInitializationSpans() throws InterruptedException {
+        Config config = Config.builder().realm("dev").applicationName("testApp").rumAccessToken("accessToken")
+                .deferredInitializationEnabled(true)
+                .build();
+        Application application = mock(Application.class);
+        InMemorySpanExporter testExporter = InMemorySpanExporter.create();
+        AppStartupTimer startupTimer = new AppStartupTimer();
+        RumInitializer testInitializer = new RumInitializer(config, application, startupTimer) {
+            @Override
+            SpanExporter buildFilteringExporter(ConnectionUtil connectionUtil) {
+                return testExporter;
+            }
+        };
+        SplunkRum splunkRum = testInitializer.initialize(() -> mock(ConnectionUtil.class, RETURNS_DEEP_STUBS), mock(Looper.class));
+
+        //the background initialization replays the buffered SplunkRum.initialize span once it's done.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (testExporter.getFinishedSpanItems().size() < 2 && System.currentTimeMillis() < deadline) {
+            splunkRum.flushSpans();
+            Thread.sleep(10);
+        }
+
+        List<SpanData> spans = testExporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        SpanData initSpan = spans.get(0);
+        assertEquals("SplunkRum.initialize", initSpan.getName());
+        assertEquals(initSpan.getParentSpanContext(), startupTimer.getStartupSpan().getSpanContext());
+        assertEquals(true, initSpan.getAttributes().get(AttributeKey.booleanKey("deferred")));
+        checkEventExists(initSpan.getEvents(), "tracerProviderInitialized");
+        checkEventExists(initSpan.getEvents(), "activityLifecycleCallbacksInitialized");
+        checkEventExists(initSpan.getEvents(), "crashReportingInitialized");
+
+        SpanData deferredSpan = spans.get(1);
+        assertEquals("SplunkRum.initializeDeferred", deferredSpan.getName());
+        assertEquals(initSpan.getSpanContext(), deferredSpan.getParentSpanContext());
+        List<EventData> events = deferredSpan.getEvents();
+        checkEventExists(events, "connectionUtilInitialized");
+        checkEventExists(events, "exporterInitialized");
+        checkEventExists(events, "anrMonitorInitialized");
+        checkEventExists(events, "networkMonitorInitialized");
+        checkEventExists(events, "bufferedSpansReplayed");
+    }
+
     private void checkEventExists(List<EventData> events, String eventName) {
         assertTrue("Event with name " + eventName + " not found",
                 events.stream().map(EventData::getName).anyMatch(name -> name.equals(eventName)));
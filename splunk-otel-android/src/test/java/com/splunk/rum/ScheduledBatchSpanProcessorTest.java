@@ -0,0 +1,183 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+public class ScheduledBatchSpanProcessorTest {
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private final SdkScheduler scheduler = mock(SdkScheduler.class);
+    private final ScheduledFuture<?> periodicExport = mock(ScheduledFuture.class);
+    private final SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+    private ScheduledBatchSpanProcessor processor;
+    private Runnable periodicTask;
+    private Tracer tracer;
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> periodicExport)
+                .when(scheduler).scheduleAtFixedRate(any(), eq(ScheduledBatchSpanProcessor.EXPORT_INTERVAL_MILLIS), eq(TimeUnit.MILLISECONDS));
+        //run everything that is handed to the scheduler right away.
+        doAnswer(invocation -> {
+            Runnable runnable = invocation.getArgument(0);
+            runnable.run();
+            return null;
+        }).when(scheduler).execute(any());
+
+        processor = new ScheduledBatchSpanProcessor(exporter, scheduler, statsRecorder);
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(taskCaptor.capture(), eq(ScheduledBatchSpanProcessor.EXPORT_INTERVAL_MILLIS), eq(TimeUnit.MILLISECONDS));
+        periodicTask = taskCaptor.getValue();
+        tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("testTracer");
+    }
+
+    private Tracer tracerExportingTo(SpanExporter exporter) {
+        processor = new ScheduledBatchSpanProcessor(exporter, scheduler, statsRecorder);
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).scheduleAtFixedRate(taskCaptor.capture(), eq(ScheduledBatchSpanProcessor.EXPORT_INTERVAL_MILLIS), eq(TimeUnit.MILLISECONDS));
+        periodicTask = taskCaptor.getValue();
+        return SdkTracerProvider.builder().addSpanProcessor(processor).build().get("testTracer");
+    }
+
+    @Test
+    public void exportsOnTick() {
+        tracer.spanBuilder("span1").startSpan().end();
+        tracer.spanBuilder("span2").startSpan().end();
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+        verify(scheduler, never()).execute(any());
+        assertEquals(2, statsRecorder.snapshot().getSpanQueueSize());
+
+        periodicTask.run();
+
+        assertEquals(2, exporter.getFinishedSpanItems().size());
+        assertEquals(0, statsRecorder.snapshot().getSpanQueueSize());
+        assertEquals(2, statsRecorder.getEndedSpanCount());
+    }
+
+    @Test
+    public void exportsEarlyWhenBatchIsFull() {
+        for (int i = 0; i < ScheduledBatchSpanProcessor.MAX_EXPORT_BATCH_SIZE; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        assertEquals(ScheduledBatchSpanProcessor.MAX_EXPORT_BATCH_SIZE, exporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void doesNotWaitForTheExporter() {
+        SpanExporter slowExporter = mock(SpanExporter.class);
+        List<CompletableResultCode> results = new ArrayList<>();
+        when(slowExporter.export(any())).thenAnswer(invocation -> {
+            CompletableResultCode result = new CompletableResultCode();
+            results.add(result);
+            return result;
+        });
+        Tracer tracer = tracerExportingTo(slowExporter);
+
+        //a full batch, which is exported right away, and one more span.
+        for (int i = 0; i <= ScheduledBatchSpanProcessor.MAX_EXPORT_BATCH_SIZE; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+        verify(slowExporter, times(1)).export(any());
+
+        //the tick returns right away, without a second, overlapping export.
+        periodicTask.run();
+        verify(slowExporter, times(1)).export(any());
+
+        results.get(0).succeed();
+        verify(slowExporter, times(2)).export(any());
+    }
+
+    @Test
+    public void movesOnAfterTheExportTimeout() {
+        SpanExporter stuckExporter = mock(SpanExporter.class);
+        when(stuckExporter.export(any())).thenReturn(new CompletableResultCode());
+        Tracer tracer = tracerExportingTo(stuckExporter);
+        for (int i = 0; i <= ScheduledBatchSpanProcessor.MAX_EXPORT_BATCH_SIZE; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+        ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(timeout.capture(), eq(ScheduledBatchSpanProcessor.EXPORT_TIMEOUT_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        timeout.getValue().run();
+        verify(stuckExporter, times(2)).export(any());
+    }
+
+    @Test
+    public void forceFlush() {
+        tracer.spanBuilder("span").startSpan().end();
+
+        assertTrue(processor.forceFlush().join(1, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, exporter.getFinishedSpanItems().size());
+    }
+
+    @Test
+    public void forceFlushWaitsForTheRunningExport() {
+        SpanExporter slowExporter = mock(SpanExporter.class);
+        CompletableResultCode exportResult = new CompletableResultCode();
+        when(slowExporter.export(any())).thenReturn(exportResult);
+        when(slowExporter.flush()).thenReturn(CompletableResultCode.ofSuccess());
+        Tracer tracer = tracerExportingTo(slowExporter);
+        for (int i = 0; i < ScheduledBatchSpanProcessor.MAX_EXPORT_BATCH_SIZE; i++) {
+            tracer.spanBuilder("span").startSpan().end();
+        }
+
+        CompletableResultCode flushResult = processor.forceFlush();
+        assertFalse(flushResult.isDone());
+
+        exportResult.succeed();
+        assertTrue(flushResult.isSuccess());
+    }
+
+    @Test
+    public void shutdown() {
+        tracer.spanBuilder("span").startSpan().end();
+
+        assertTrue(processor.shutdown().join(1, TimeUnit.SECONDS).isSuccess());
+        verify(periodicExport).cancel(false);
+        //the in-memory exporter drops everything it has on shutdown, so check it exported and was shut down.
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+        assertFalse(exporter.export(emptyList()).isSuccess());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+public class ScheduledMetricReaderTest {
+    private final SdkScheduler scheduler = mock(SdkScheduler.class);
+    private final ScheduledFuture<?> periodicCollection = mock(ScheduledFuture.class);
+    private final MetricExporter exporter = mock(MetricExporter.class);
+    private SdkMeterProvider meterProvider;
+    private Runnable periodicTask;
+
+    @Before
+    public void setUp() {
+        when(exporter.getPreferredTemporality()).thenReturn(AggregationTemporality.DELTA);
+        when(exporter.export(anyCollection())).thenReturn(CompletableResultCode.ofSuccess());
+        when(exporter.shutdown()).thenReturn(CompletableResultCode.ofSuccess());
+        doAnswer(invocation -> periodicCollection)
+                .when(scheduler).scheduleAtFixedRate(any(), eq(ScheduledMetricReader.EXPORT_INTERVAL_SECONDS), eq(TimeUnit.SECONDS));
+
+        meterProvider = SdkMeterProvider.builder()
+                .registerMetricReader(ScheduledMetricReader.factory(exporter, scheduler))
+                .build();
+
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(taskCaptor.capture(), eq(ScheduledMetricReader.EXPORT_INTERVAL_SECONDS), eq(TimeUnit.SECONDS));
+        periodicTask = taskCaptor.getValue();
+    }
+
+    @Test
+    public void exportsOnTick() {
+        meterProvider.get("test").counterBuilder("counter").build().add(1);
+
+        periodicTask.run();
+
+        ArgumentCaptor<Collection<MetricData>> metricsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(exporter).export(metricsCaptor.capture());
+        MetricData metric = metricsCaptor.getValue().iterator().next();
+        assertEquals("counter", metric.getName());
+        assertEquals(AggregationTemporality.DELTA, metric.getLongSumData().getAggregationTemporality());
+    }
+
+    @Test
+    public void skipsEmptyCollections() {
+        periodicTask.run();
+
+        verify(exporter, never()).export(anyCollection());
+    }
+
+    @Test
+    public void shutdown() {
+        meterProvider.get("test").counterBuilder("counter").build().add(1);
+
+        assertTrue(meterProvider.shutdown().join(1, TimeUnit.SECONDS).isSuccess());
+
+        verify(periodicCollection).cancel(false);
+        verify(exporter).export(anyCollection());
+        verify(exporter).shutdown();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class ScreenCpuTrackerTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final CpuTimeReader cpuTimeReader = mock(CpuTimeReader.class);
+    private final Clock clock = mock(Clock.class);
+    private final ScreenCpuTracker screenCpuTracker = new ScreenCpuTracker(cpuTimeReader, clock);
+
+    @Test
+    public void reportsCpuTimeSinceResume() {
+        when(clock.millis()).thenReturn(1000L, 6000L);
+        when(cpuTimeReader.getProcessCpuTimeMillis()).thenReturn(200L, 700L);
+        when(cpuTimeReader.getMainThreadCpuTimeMillis()).thenReturn(100L, 400L);
+
+        screenCpuTracker.screenResumed("MainActivity");
+        Attributes attributes = pause("MainActivity");
+
+        assertEquals(Long.valueOf(5000), attributes.get(ScreenCpuTracker.VISIBLE_TIME_KEY));
+        assertEquals(Long.valueOf(500), attributes.get(ScreenCpuTracker.PROCESS_CPU_TIME_KEY));
+        assertEquals(Long.valueOf(300), attributes.get(ScreenCpuTracker.MAIN_THREAD_CPU_TIME_KEY));
+    }
+
+    @Test
+    public void mainThreadTimeUnavailable() {
+        when(clock.millis()).thenReturn(1000L, 2000L);
+        when(cpuTimeReader.getProcessCpuTimeMillis()).thenReturn(200L, 300L);
+        when(cpuTimeReader.getMainThreadCpuTimeMillis()).thenReturn(-1L);
+
+        screenCpuTracker.screenResumed("MainActivity");
+        Attributes attributes = pause("MainActivity");
+
+        assertEquals(Long.valueOf(100), attributes.get(ScreenCpuTracker.PROCESS_CPU_TIME_KEY));
+        assertNull(attributes.get(ScreenCpuTracker.MAIN_THREAD_CPU_TIME_KEY));
+    }
+
+    @Test
+    public void onlyReportsOncePerResume() {
+        when(clock.millis()).thenReturn(1000L);
+        screenCpuTracker.screenResumed("MainActivity");
+        pause("MainActivity");
+
+        assertTrue(pause("MainActivity").isEmpty());
+        assertTrue(pause("OtherActivity").isEmpty());
+    }
+
+    private Attributes pause(String screenName) {
+        Tracer tracer = otelTesting.getOpenTelemetry().getTracer("testTracer");
+        Span span = tracer.spanBuilder("Paused").setNoParent().startSpan();
+        screenCpuTracker.screenPaused(screenName, span);
+        span.end();
+        List<SpanData> spans = otelTesting.getSpans();
+        otelTesting.clearSpans();
+        return spans.get(0).getAttributes();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SdkSchedulerTest {
+
+    @Test
+    public void periodicTasksAreAlignedToTicks() {
+        AtomicLong nanoTime = new AtomicLong(1_000);
+        SdkScheduler scheduler = new SdkScheduler(mock(ScheduledExecutorService.class), nanoTime::get);
+
+        long second = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(second, scheduler.delayToNextTick(second));
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(700), scheduler.delayToNextTick(second));
+        //a task with a 5s period lands on the same tick as the 1s tasks, every 5th one.
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(4700), scheduler.delayToNextTick(5 * second));
+    }
+
+    @Test
+    public void scheduleAtFixedRate() {
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        AtomicLong nanoTime = new AtomicLong(0);
+        SdkScheduler scheduler = new SdkScheduler(executor, nanoTime::get);
+
+        nanoTime.set(TimeUnit.MILLISECONDS.toNanos(1200));
+        scheduler.scheduleAtFixedRate(() -> {
+        }, 1, TimeUnit.SECONDS);
+
+        verify(executor).scheduleAtFixedRate(any(), eq(TimeUnit.MILLISECONDS.toNanos(800)), eq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void failingTasksAreContained() {
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        SdkScheduler scheduler = new SdkScheduler(executor);
+
+        scheduler.scheduleAtFixedRate(() -> {
+            throw new IllegalStateException("boom");
+        }, 1, TimeUnit.SECONDS);
+
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleAtFixedRate(taskCaptor.capture(), anyLong(), anyLong(), any());
+        //must not throw, or the executor would cancel the task.
+        taskCaptor.getValue().run();
+    }
+
+    @Test
+    public void defaultThreads() throws InterruptedException {
+        Config config = Config.builder().realm("dev").applicationName("testApp").rumAccessToken("accessToken").build();
+        SdkScheduler scheduler = SdkScheduler.create(config);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        scheduler.execute(() -> {
+            thread.set(Thread.currentThread());
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(thread.get().getName().startsWith("splunk-rum-worker-"));
+        assertTrue(thread.get().isDaemon());
+        assertEquals(Thread.NORM_PRIORITY - 1, thread.get().getPriority());
+    }
+
+    @Test
+    public void blockingWorkGetsItsOwnThread() throws InterruptedException {
+        SdkScheduler scheduler = SdkScheduler.createForBlockingWork("splunk-rum-test");
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        scheduler.execute(() -> {
+            thread.set(Thread.currentThread());
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("splunk-rum-test-1", thread.get().getName());
+        assertTrue(thread.get().isDaemon());
+    }
+
+    @Test
+    public void providedExecutor() {
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        Config config = Config.builder().realm("dev").applicationName("testApp").rumAccessToken("accessToken")
+                .scheduledExecutor(executor)
+                .build();
+
+        SdkScheduler.create(config).execute(() -> {
+        });
+
+        verify(executor).execute(any());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SdkStatsRecorderTest {
+
+    @Test
+    public void emptySnapshot() {
+        SdkStats stats = new SdkStatsRecorder().snapshot();
+
+        assertEquals(0, stats.getSpanQueueSize());
+        assertEquals(0, stats.getDroppedSpanCount());
+        assertTrue(stats.getThrottledSpanCounts().isEmpty());
+        assertEquals(0, stats.getExportCount());
+        assertEquals(SdkStatsRecorder.EXPORT_LATENCY_BOUNDS_MILLIS, stats.getExportLatencyBoundsMillis());
+        assertEquals(SdkStatsRecorder.EXPORT_LATENCY_BOUNDS_MILLIS.size() + 1, stats.getExportLatencyCounts().size());
+    }
+
+    @Test
+    public void counters() {
+        SdkStatsRecorder recorder = new SdkStatsRecorder();
+        recorder.setSpanQueueSize(() -> 12);
+        recorder.recordDroppedSpan();
+        recorder.recordDroppedSpan();
+        recorder.recordThrottledSpans("ui", 3);
+        recorder.recordThrottledSpans("ui", 1);
+        recorder.recordThrottledSpans(null, 1);
+        recorder.setMemoryBacklogSize(7);
+        recorder.setPendingFiles(2, 1024);
+        recorder.setBandwidthRate(512.5);
+
+        SdkStats stats = recorder.snapshot();
+
+        assertEquals(12, stats.getSpanQueueSize());
+        assertEquals(2, stats.getDroppedSpanCount());
+        assertEquals(Long.valueOf(4), stats.getThrottledSpanCounts().get("ui"));
+        assertEquals(Long.valueOf(1), stats.getThrottledSpanCounts().get(SdkStatsRecorder.UNKNOWN_CATEGORY));
+        assertEquals(7, stats.getMemoryBacklogSize());
+        assertEquals(2, stats.getPendingFileCount());
+        assertEquals(1024, stats.getPendingFileBytes());
+        assertEquals(512.5, stats.getBandwidthBytesPerSecond(), 0.0);
+    }
+
+    @Test
+    public void exportLatencyHistogram() {
+        SdkStatsRecorder recorder = new SdkStatsRecorder();
+        recorder.recordExport(100, 10, true);
+        recorder.recordExport(200, 50, true);
+        recorder.recordExport(300, 51, false);
+        recorder.recordExport(400, 60_000, false);
+
+        SdkStats stats = recorder.snapshot();
+
+        assertEquals(4, stats.getExportCount());
+        assertEquals(2, stats.getFailedExportCount());
+        assertEquals(1000, stats.getExportedBytes());
+        assertEquals(asList(2L, 1L, 0L, 0L, 0L, 0L, 0L, 0L, 1L), stats.getExportLatencyCounts());
+    }
+
+    @Test
+    public void mainThreadOverhead() {
+        SdkStatsRecorder recorder = new SdkStatsRecorder();
+        assertFalse(recorder.snapshot().isMainThreadOverBudget());
+
+        long[] now = {0};
+        MainThreadOverhead overhead = new MainThreadOverhead(1_000, true, () -> now[0]);
+        recorder.setMainThreadOverhead(overhead);
+        long start = overhead.begin();
+        now[0] += 400;
+        overhead.end(start);
+
+        SdkStats stats = recorder.snapshot();
+
+        assertEquals(400, stats.getMainThreadNanos());
+        assertEquals(1, stats.getMainThreadCallbackCount());
+        assertEquals(400, stats.getMaxMainThreadWindowNanos());
+        assertFalse(stats.isMainThreadOverBudget());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.testing.junit4.OpenTelemetryRule;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class SdkStatsReporterTest {
+    @Rule
+    public OpenTelemetryRule otelTesting = OpenTelemetryRule.create();
+
+    private final SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+    private SdkStatsReporter reporter;
+
+    @Before
+    public void setUp() {
+        reporter = new SdkStatsReporter(otelTesting.getOpenTelemetry().getTracer("testTracer"), statsRecorder);
+    }
+
+    @Test
+    public void reportsStats() {
+        statsRecorder.recordEndedSpan();
+        statsRecorder.recordDroppedSpan();
+        statsRecorder.recordThrottledSpans("ui", 5);
+        statsRecorder.recordDroppedMetricPoints(7);
+        statsRecorder.setPendingFiles(3, 4096);
+        statsRecorder.recordExport(2048, 120, true);
+
+        reporter.run();
+
+        List<SpanData> spans = otelTesting.getSpans();
+        assertEquals(1, spans.size());
+        SpanData span = spans.get(0);
+        assertEquals(SdkStatsReporter.SPAN_NAME, span.getName());
+        Attributes attributes = span.getAttributes();
+        assertEquals(Long.valueOf(1), attributes.get(SdkStatsReporter.DROPPED_SPANS_KEY));
+        assertEquals(Long.valueOf(5), attributes.get(longKey("splunk.rum.sdk.throttled.ui")));
+        assertEquals(Long.valueOf(7), attributes.get(SdkStatsReporter.DROPPED_METRIC_POINTS_KEY));
+        assertEquals(Long.valueOf(3), attributes.get(SdkStatsReporter.PENDING_FILES_KEY));
+        assertEquals(Long.valueOf(4096), attributes.get(SdkStatsReporter.PENDING_BYTES_KEY));
+        assertEquals(Long.valueOf(1), attributes.get(SdkStatsReporter.EXPORT_COUNT_KEY));
+        assertEquals(Long.valueOf(2048), attributes.get(SdkStatsReporter.EXPORTED_BYTES_KEY));
+        assertEquals(asList(0L, 0L, 1L, 0L, 0L, 0L, 0L, 0L, 0L), attributes.get(SdkStatsReporter.EXPORT_LATENCY_COUNTS_KEY));
+        assertEquals(Boolean.FALSE, attributes.get(SdkStatsReporter.MAIN_THREAD_DEGRADED_KEY));
+    }
+
+    @Test
+    public void skipsWhenIdle() {
+        reporter.run();
+        assertTrue(otelTesting.getSpans().isEmpty());
+
+        statsRecorder.recordEndedSpan();
+        reporter.run();
+        assertEquals(1, otelTesting.getSpans().size());
+
+        reporter.run();
+        assertEquals(1, otelTesting.getSpans().size());
+    }
+}
@@ -26,7 +26,6 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import io.opentelemetry.api.common.AttributeKey;
@@ -83,16 +82,16 @@ public class SlowRenderingDetectorImplTest {
     @Test
     public void start() {
         SparseIntArray[] metricsArray = makeSomeMetrics();
-        ScheduledExecutorService exec = mock(ScheduledExecutorService.class);
+        SdkScheduler scheduler = mock(SdkScheduler.class);
 
         when(frameMetrics.reset()).thenReturn(metricsArray);
         doAnswer(invocation -> {
             Runnable runnable = invocation.getArgument(0);
             runnable.run(); // just call it immediately
             return null;
-        }).when(exec).scheduleAtFixedRate(any(), eq(1001L), eq(1001L), eq(TimeUnit.MILLISECONDS));
+        }).when(scheduler).scheduleAtFixedRate(any(), eq(1001L), eq(TimeUnit.MILLISECONDS));
 
-        SlowRenderingDetectorImpl testInstance = new SlowRenderingDetectorImpl(tracer, frameMetrics, exec, Duration.ofMillis(1001));
+        SlowRenderingDetectorImpl testInstance = new SlowRenderingDetectorImpl(tracer, frameMetrics, scheduler, Duration.ofMillis(1001));
         testInstance.add(activity);
         testInstance.start();
         List<SpanData> spans = otelTesting.getSpans();
@@ -0,0 +1,105 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+public class SpanFileRetriesTest {
+    private static final File spanFilesPath = new File("/path/to/spans");
+    private static final File quarantine = new File(spanFilesPath, SpanFileRetries.QUARANTINE_DIRECTORY);
+
+    private final FileUtils fileUtils = mock(FileUtils.class);
+    private final SpanFileRetries retries = new SpanFileRetries(spanFilesPath, fileUtils);
+
+    @Test
+    public void failedAttemptsAreReadFromTheName() {
+        assertEquals(0, SpanFileRetries.getFailedAttempts(new File(spanFilesPath, "1650000000000.spans")));
+        assertEquals(3, SpanFileRetries.getFailedAttempts(new File(spanFilesPath, "1650000000000-3.spans")));
+        assertEquals(0, SpanFileRetries.getFailedAttempts(new File(spanFilesPath, "1650000000000-x.spans")));
+    }
+
+    @Test
+    public void failedAttemptIsRecordedInTheName() {
+        File file = new File(spanFilesPath, "1650000000000.spans");
+        when(fileUtils.moveTo(any(), any())).thenReturn(true);
+
+        retries.recordFailedAttempt(file);
+        verify(fileUtils).moveTo(file, new File(spanFilesPath, "1650000000000-1.spans"));
+
+        File retried = new File(spanFilesPath, "1650000000000-2.spans");
+        retries.recordFailedAttempt(retried);
+        verify(fileUtils).moveTo(retried, new File(spanFilesPath, "1650000000000-3.spans"));
+    }
+
+    @Test
+    public void quarantinedAfterMaxAttempts() {
+        File file = new File(spanFilesPath, "1650000000005-4.spans");
+        File oldest = new File(quarantine, "1650000000000-4.spans");
+        when(fileUtils.moveTo(file, new File(quarantine, file.getName()))).thenReturn(true);
+        Stream.Builder<File> quarantined = Stream.builder();
+        for (int i = SpanFileRetries.MAX_QUARANTINED_FILES; i > 0; i--) {
+            quarantined.add(new File(quarantine, String.format("%013d-4.spans", 1650000000000L + i)));
+        }
+        quarantined.add(oldest);
+        when(fileUtils.listFiles(quarantine)).thenReturn(quarantined.build());
+
+        retries.recordFailedAttempt(file);
+        verify(fileUtils).safeDelete(oldest);
+        verify(fileUtils, never()).safeDelete(file);
+    }
+
+    @Test
+    public void deletedWhenItCannotBeQuarantined() {
+        File file = new File(spanFilesPath, "1650000000000-4.spans");
+        when(fileUtils.moveTo(any(), any())).thenReturn(false);
+
+        retries.recordFailedAttempt(file);
+        verify(fileUtils).safeDelete(file);
+    }
+
+    @Test
+    public void countedFailures() {
+        assertTrue(SpanFileRetries.isCountedFailure(new BeaconResponseException(400, "bad request")));
+        assertTrue(SpanFileRetries.isCountedFailure(new BeaconResponseException(413, "too large")));
+        assertTrue(SpanFileRetries.isCountedFailure(new BeaconResponseException(422, "unprocessable")));
+        assertTrue(SpanFileRetries.isCountedFailure(new IllegalStateException("unexpected")));
+        assertFalse(SpanFileRetries.isCountedFailure(new BeaconResponseException(429, "too many requests")));
+        assertFalse(SpanFileRetries.isCountedFailure(new BeaconResponseException(503, "unavailable")));
+        assertFalse(SpanFileRetries.isCountedFailure(new IOException("offline")));
+    }
+
+    @Test
+    public void authAndEndpointErrorsAreNotCounted() {
+        assertFalse(SpanFileRetries.isCountedFailure(new BeaconResponseException(401, "unauthorized")));
+        assertFalse(SpanFileRetries.isCountedFailure(new BeaconResponseException(403, "forbidden")));
+        assertFalse(SpanFileRetries.isCountedFailure(new BeaconResponseException(404, "not found")));
+        assertFalse(SpanFileRetries.isCountedFailure(new BeaconResponseException(500, "server error")));
+    }
+}
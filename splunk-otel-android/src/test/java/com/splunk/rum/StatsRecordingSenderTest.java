@@ -0,0 +1,116 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.rum;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.reporter.Sender;
+
+public class StatsRecordingSenderTest {
+    private final List<byte[]> spans = singletonList("span".getBytes(StandardCharsets.UTF_8));
+    private final Sender delegate = mock(Sender.class);
+    private final SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+    private final AtomicLong millis = new AtomicLong(1000);
+    private final StatsRecordingSender sender = new StatsRecordingSender(delegate, statsRecorder, millis::get);
+
+    @Test
+    public void execute() throws IOException {
+        Call<Void> call = mock(Call.class);
+        when(call.execute()).then(invocation -> {
+            millis.addAndGet(300);
+            return null;
+        });
+        when(delegate.sendSpans(spans)).thenReturn(call);
+        when(delegate.messageSizeInBytes(spans)).thenReturn(42);
+
+        sender.sendSpans(spans).execute();
+
+        SdkStats stats = statsRecorder.snapshot();
+        assertEquals(1, stats.getExportCount());
+        assertEquals(0, stats.getFailedExportCount());
+        assertEquals(42, stats.getExportedBytes());
+        //300ms is in the (250, 500] bucket
+        assertEquals(Long.valueOf(1), stats.getExportLatencyCounts().get(3));
+    }
+
+    @Test
+    public void executeFailure() throws IOException {
+        Call<Void> call = mock(Call.class);
+        IOException failure = new IOException("boom");
+        when(call.execute()).thenThrow(failure);
+        when(delegate.sendSpans(spans)).thenReturn(call);
+        when(delegate.messageSizeInBytes(spans)).thenReturn(42);
+
+        try {
+            sender.sendSpans(spans).execute();
+            fail();
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+
+        SdkStats stats = statsRecorder.snapshot();
+        assertEquals(1, stats.getExportCount());
+        assertEquals(1, stats.getFailedExportCount());
+    }
+
+    @Test
+    public void enqueue() {
+        Call<Void> call = mock(Call.class);
+        doAnswer(invocation -> {
+            Callback<Void> callback = invocation.getArgument(0);
+            millis.addAndGet(20);
+            callback.onError(new IOException("boom"));
+            return null;
+        }).when(call).enqueue(any());
+        when(delegate.sendSpans(spans)).thenReturn(call);
+        when(delegate.messageSizeInBytes(spans)).thenReturn(42);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        sender.sendSpans(spans).enqueue(new Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error.set(t);
+            }
+        });
+
+        assertEquals("boom", error.get().getMessage());
+        SdkStats stats = statsRecorder.snapshot();
+        assertEquals(1, stats.getFailedExportCount());
+        assertEquals(Long.valueOf(1), stats.getExportLatencyCounts().get(0));
+    }
+}
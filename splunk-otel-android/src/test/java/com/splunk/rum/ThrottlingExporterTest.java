@@ -25,6 +25,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.opentelemetry.api.common.Attributes;
@@ -35,6 +36,7 @@ import io.opentelemetry.sdk.trace.data.StatusData;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 
 import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -143,6 +145,36 @@ public class ThrottlingExporterTest {
         ));
     }
 
+    @Test
+    public void shouldRecordThrottledSpansPerCategory() {
+        // given
+        SdkStatsRecorder statsRecorder = new SdkStatsRecorder();
+        SpanExporter underTest = ThrottlingExporter.newBuilder(delegate)
+                .categorizeByAttribute(SplunkRum.COMPONENT_KEY)
+                .maxSpansInWindow(1)
+                .windowSize(Duration.ofSeconds(15))
+                .statsRecorder(statsRecorder)
+                .build();
+
+        Instant now = Instant.ofEpochMilli(10_000);
+
+        // when
+        underTest.export(asList(
+                span("ui", now),
+                span("ui", now.plus(1, ChronoUnit.SECONDS)),
+                span("ui", now.plus(2, ChronoUnit.SECONDS)),
+                span("error", now.plus(3, ChronoUnit.SECONDS)),
+                span(null, now.plus(4, ChronoUnit.SECONDS)),
+                span(null, now.plus(5, ChronoUnit.SECONDS))
+        ));
+
+        // then
+        Map<String, Long> throttled = statsRecorder.snapshot().getThrottledSpanCounts();
+        assertEquals(2, throttled.size());
+        assertEquals(Long.valueOf(2), throttled.get("ui"));
+        assertEquals(Long.valueOf(1), throttled.get(SdkStatsRecorder.UNKNOWN_CATEGORY));
+    }
+
     @Test
     public void shouldKeepStateBetweenExportCalls() {
         // given
@@ -24,9 +24,13 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import org.junit.Test;
 
+import io.opentelemetry.api.trace.Span;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 public class VisibleScreenTrackerTest {
 
@@ -116,4 +120,99 @@ public class VisibleScreenTrackerTest {
         assertEquals(activity.getClass().getSimpleName(), visibleScreenTracker.getCurrentlyVisibleScreen());
         assertEquals(fragment.getClass().getSimpleName(), visibleScreenTracker.getPreviouslyVisibleScreen());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void navigationDestinationWinsOverFragmentAndActivity() {
+        VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker();
+        Activity activity = mock(Activity.class);
+        Fragment fragment = mock(Fragment.class);
+
+        visibleScreenTracker.activityResumed(activity);
+        visibleScreenTracker.fragmentResumed(fragment);
+        visibleScreenTracker.navigationDestinationChanged("home");
+        assertEquals("home", visibleScreenTracker.getCurrentlyVisibleScreen());
+        assertEquals(fragment.getClass().getSimpleName(), visibleScreenTracker.getPreviouslyVisibleScreen());
+
+        visibleScreenTracker.navigationDestinationChanged("profile/{id}");
+        assertEquals("profile/{id}", visibleScreenTracker.getCurrentlyVisibleScreen());
+        assertEquals("home", visibleScreenTracker.getPreviouslyVisibleScreen());
+    }
+
+    @Test
+    public void navigationDestinationIsScopedToItsHostActivity() {
+        VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker();
+        Activity composeActivity = mock(ComposeHostActivity.class);
+        Activity settingsActivity = mock(SettingsActivity.class);
+        String composeActivityName = composeActivity.getClass().getSimpleName();
+        String settingsActivityName = settingsActivity.getClass().getSimpleName();
+
+        visibleScreenTracker.activityResumed(composeActivity);
+        visibleScreenTracker.navigationDestinationChanged("home");
+        assertEquals("home", visibleScreenTracker.getCurrentlyVisibleScreen());
+
+        //on to a plain activity.
+        visibleScreenTracker.activityPaused(composeActivity);
+        visibleScreenTracker.activityResumed(settingsActivity);
+        assertEquals(settingsActivityName, visibleScreenTracker.getCurrentlyVisibleScreen());
+        assertEquals("home", visibleScreenTracker.getPreviouslyVisibleScreen());
+
+        //and back.
+        visibleScreenTracker.activityPaused(settingsActivity);
+        visibleScreenTracker.activityResumed(composeActivity);
+        assertEquals("home", visibleScreenTracker.getCurrentlyVisibleScreen());
+        assertEquals(settingsActivityName, visibleScreenTracker.getPreviouslyVisibleScreen());
+
+        //the destination goes away with its host.
+        visibleScreenTracker.activityPaused(composeActivity);
+        visibleScreenTracker.activityDestroyed(composeActivity);
+        visibleScreenTracker.activityResumed(composeActivity);
+        assertEquals(composeActivityName, visibleScreenTracker.getCurrentlyVisibleScreen());
+    }
+
+    @Test
+    public void navigationDestinationReportedBeforeItsHostResumed() {
+        VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker();
+        Activity composeActivity = mock(ComposeHostActivity.class);
+        Activity settingsActivity = mock(SettingsActivity.class);
+
+        visibleScreenTracker.navigationDestinationChanged("home");
+        visibleScreenTracker.activityResumed(composeActivity);
+        assertEquals("home", visibleScreenTracker.getCurrentlyVisibleScreen());
+
+        visibleScreenTracker.activityPaused(composeActivity);
+        visibleScreenTracker.activityResumed(settingsActivity);
+        assertEquals(settingsActivity.getClass().getSimpleName(), visibleScreenTracker.getCurrentlyVisibleScreen());
+    }
+
+    @Test
+    public void cpuTimeAccounting() {
+        ScreenCpuTracker screenCpuTracker = mock(ScreenCpuTracker.class);
+        VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker(screenCpuTracker);
+        Activity activity = mock(Activity.class);
+        Fragment fragment = mock(Fragment.class);
+        Span span = mock(Span.class);
+
+        visibleScreenTracker.activityResumed(activity);
+        visibleScreenTracker.fragmentResumed(fragment);
+        verify(screenCpuTracker).screenResumed(activity.getClass().getSimpleName());
+        verify(screenCpuTracker).screenResumed(fragment.getClass().getSimpleName());
+
+        visibleScreenTracker.addCpuTimeAttributes("MainActivity", span);
+        verify(screenCpuTracker).screenPaused("MainActivity", span);
+    }
+
+    @Test
+    public void cpuTimeAccounting_navHostIgnored() {
+        ScreenCpuTracker screenCpuTracker = mock(ScreenCpuTracker.class);
+        VisibleScreenTracker visibleScreenTracker = new VisibleScreenTracker(screenCpuTracker);
+
+        visibleScreenTracker.fragmentResumed(mock(NavHostFragment.class));
+        verifyNoInteractions(screenCpuTracker);
+    }
+
+    static class ComposeHostActivity extends Activity {
+    }
+
+    static class SettingsActivity extends Activity {
+    }
+}
@@ -1,5 +1,6 @@
 package com.splunk.rum;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
@@ -18,6 +19,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import zipkin2.Callback;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ZipkinToDiskSenderTest {
@@ -33,6 +37,8 @@ public class ZipkinToDiskSenderTest {
     private FileUtils fileUtils;
     @Mock
     private Clock clock;
+    @Mock
+    private Runnable onSpansWritten;
 
     @Before
     public void setup(){
@@ -43,10 +49,23 @@ public class ZipkinToDiskSenderTest {
     public void testHappyPath() throws Exception {
         List<byte[]> spans = Arrays.asList(span1, span2);
 
-        ZipkinToDiskSender sender = new ZipkinToDiskSender(path, fileUtils, clock);
-        sender.sendSpans(spans);
+        ZipkinToDiskSender sender = new ZipkinToDiskSender(path, fileUtils, clock, onSpansWritten);
+        sender.sendSpans(spans).execute();
+
+        verify(fileUtils).writeAsLines(finalPath, spans);
+        verify(onSpansWritten).run();
+    }
+
+    @Test
+    public void filesWrittenInTheSameMillisecondDontCollide() throws Exception {
+        List<byte[]> spans = Arrays.asList(span1, span2);
+
+        ZipkinToDiskSender sender = new ZipkinToDiskSender(path, fileUtils, clock, onSpansWritten);
+        sender.sendSpans(spans).execute();
+        sender.sendSpans(spans).execute();
 
         verify(fileUtils).writeAsLines(finalPath, spans);
+        verify(fileUtils).writeAsLines(new File(path, (now + 1) + ".spans"), spans);
     }
 
     @Test
@@ -54,9 +73,21 @@ public class ZipkinToDiskSenderTest {
         List<byte[]> spans = Arrays.asList(span1, span2);
         doThrow(new IOException("boom")).when(fileUtils).writeAsLines(finalPath, spans);
 
-        ZipkinToDiskSender sender = new ZipkinToDiskSender(path, fileUtils, clock);
-        sender.sendSpans(spans);
-        // Exception not thrown
+        ZipkinToDiskSender sender = new ZipkinToDiskSender(path, fileUtils, clock, onSpansWritten);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        sender.sendSpans(spans).enqueue(new Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error.set(t);
+            }
+        });
+        //the failure is reported, so that the spans aren't taken for written.
+        assertTrue(error.get() instanceof IOException);
+        verify(onSpansWritten, never()).run();
     }
 
 }
\ No newline at end of file